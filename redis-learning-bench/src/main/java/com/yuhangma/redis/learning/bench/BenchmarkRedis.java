@@ -0,0 +1,131 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.config.RedisConfig;
+import com.yuhangma.redis.learning.redis.BufferedRedisCounter;
+import com.yuhangma.redis.learning.redis.PersonHashStore;
+import com.yuhangma.redis.learning.redis.PersonLeaderboard;
+import com.yuhangma.redis.learning.redis.RedisBitmapService;
+import com.yuhangma.redis.learning.redis.RedisClient;
+import com.yuhangma.redis.learning.redis.RedisLockService;
+import com.yuhangma.redis.learning.redis.RedisRateLimiter;
+import com.yuhangma.redis.learning.redis.RedisScriptRegistry;
+import com.yuhangma.redis.learning.redis.RedisSegmentService;
+import com.yuhangma.redis.learning.redis.RedisUniqueCounter;
+import com.yuhangma.redis.learning.redis.ReliableRedisQueue;
+import com.yuhangma.redis.learning.redis.SlotAwareBatchExecutor;
+import com.yuhangma.redis.learning.redis.TtlPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisExecProvider;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisServerBuilder;
+import redis.embedded.util.OS;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * benchmark 使用的 Redis 环境
+ * <p>
+ * 指定 -Dredis.host（以及可选的 -Dredis.port）时连接已有的 Redis；否则在随机端口上启动一个内嵌的 Redis，保证离线也可以运行。
+ * 内嵌 Redis 默认使用 embedded-redis 自带的 2.8 版本，可以通过 -Dredis.executable 指定本地更新版本的 redis-server。
+ * 需要 Redis 高版本命令的 benchmark 请使用 -Dredis.host 或者 -Dredis.executable。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+public final class BenchmarkRedis implements AutoCloseable {
+
+    private final RedisServer server;
+
+    private final AnnotationConfigApplicationContext context;
+
+    private BenchmarkRedis(RedisServer server, AnnotationConfigApplicationContext context) {
+        this.server = server;
+        this.context = context;
+    }
+
+    public static BenchmarkRedis start() {
+        String host = System.getProperty("redis.host");
+        int port = Integer.getInteger("redis.port", 6379);
+        RedisServer server = null;
+        if (host == null) {
+            host = "127.0.0.1";
+            port = freePort();
+            server = embeddedServer(port);
+            server.start();
+            log.info("embedded redis started on port {}", port);
+        }
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(host, port);
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(RedisStandaloneConfiguration.class, () -> configuration);
+        context.register(BenchmarkRedisConfig.class);
+        context.refresh();
+        return new BenchmarkRedis(server, context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static RedisServer embeddedServer(int port) {
+        RedisServerBuilder builder = RedisServer.builder().port(port).bind("127.0.0.1");
+        String executable = System.getProperty("redis.executable");
+        if (executable != null) {
+            builder.redisExecProvider(RedisExecProvider.defaultProvider()
+                .override(OS.UNIX, executable)
+                .override(OS.MAC_OS_X, executable));
+        }
+        return builder.build();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 复用应用中的 {@link RedisConfig}，value 序列化方式同样可以通过 -Dredis.person.value-serializer 切换
+     */
+    @Configuration
+    @Import({RedisConfig.class, RedisClient.class, RedisBitmapService.class, BufferedRedisCounter.class,
+        PersonLeaderboard.class, ReliableRedisQueue.class, PersonHashStore.class, SlotAwareBatchExecutor.class,
+        RedisLockService.class, RedisRateLimiter.class, RedisScriptRegistry.class, TtlPolicy.class,
+        RedisSegmentService.class, RedisUniqueCounter.class})
+    static class BenchmarkRedisConfig {
+
+        @Bean
+        public LettuceConnectionFactory redisConnectionFactory(RedisStandaloneConfiguration configuration) {
+            return new LettuceConnectionFactory(configuration);
+        }
+
+        @Bean
+        public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            return new StringRedisTemplate(redisConnectionFactory);
+        }
+    }
+}
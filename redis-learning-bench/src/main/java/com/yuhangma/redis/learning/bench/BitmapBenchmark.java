@@ -0,0 +1,133 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.redis.BitmapMirror;
+import com.yuhangma.redis.learning.redis.RedisBitmapService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.RedisStringCommands.BitOperation;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100 万个用户 id 的 bitmap 操作：BITFIELD 批量读写和 pipeline 中逐个 SETBIT / GETBIT 的对比，
+ * 以及 BITCOUNT、7 天的 BITOP、本地副本加载和查询
+ * <p>
+ * BITFIELD 需要 Redis 3.2 以上，内嵌的 Redis 2.8 上 bitfield 相关的 benchmark 会退化为 pipeline，
+ * 请使用 -Dredis.executable 或者 -Dredis.host 指定更高版本的 Redis。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisBitmapService
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitmapBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    private static final LocalDate DAY = LocalDate.of(2000, 1, 1);
+
+    private BenchmarkRedis redis;
+
+    private StringRedisTemplate redisTemplate;
+
+    private RedisBitmapService bitmapService;
+
+    private String key;
+
+    private int[] userIds;
+
+    private long[] offsets;
+
+    private BitmapMirror mirror;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redisTemplate = redis.getBean(StringRedisTemplate.class);
+        bitmapService = redis.getBean(RedisBitmapService.class);
+        bitmapService.setActiveKeyPrefix("bench:bitmap:{active}:");
+        key = bitmapService.activeKey(DAY);
+        userIds = new int[USERS];
+        offsets = new long[USERS];
+        // 一半的用户活跃，id 分散在 0 到 2M 之间
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = i * 2 + ThreadLocalRandom.current().nextInt(2);
+            offsets[i] = userIds[i];
+        }
+        for (int day = 0; day < 7; day++) {
+            bitmapService.markActive(DAY.plusDays(day), userIds);
+        }
+        mirror = bitmapService.mirror(key);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int day = 0; day < 7; day++) {
+            redisTemplate.delete(bitmapService.activeKey(DAY.plusDays(day)));
+        }
+        redisTemplate.delete(bitmapService.activeRangeKey(BitOperation.OR, DAY, DAY.plusDays(6)));
+        redis.close();
+    }
+
+    @Benchmark
+    public boolean[] bitfieldSet() {
+        return bitmapService.setBits(key, true, offsets);
+    }
+
+    @Benchmark
+    public List<Object> pipelinedSetBit() {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.setBit(rawKey, offset, true);
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public boolean[] bitfieldGet() {
+        return bitmapService.getBits(key, offsets);
+    }
+
+    @Benchmark
+    public long bitCount() {
+        return bitmapService.countActive(DAY);
+    }
+
+    @Benchmark
+    public long bitOpWeek() {
+        return bitmapService.countActiveAny(DAY, DAY.plusDays(6));
+    }
+
+    @Benchmark
+    public long loadMirror() {
+        mirror.refresh();
+        return mirror.sizeInBytes();
+    }
+
+    /**
+     * 本地副本上判断 100 万个 id
+     */
+    @Benchmark
+    public int mirrorContains() {
+        int active = 0;
+        for (int userId : userIds) {
+            if (mirror.contains(userId)) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
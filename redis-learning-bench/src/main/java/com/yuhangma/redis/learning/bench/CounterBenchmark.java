@@ -0,0 +1,69 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.redis.BufferedRedisCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 8 个线程对同一个 key 计数：每次一条 INCRBY 和本地聚合之后定期刷新的对比
+ * <p>
+ * tearDown 时检查两种方式写入 Redis 的结果和计数次数一致。
+ * </p>
+ *
+ * @author Moore
+ * @see BufferedRedisCounter
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class CounterBenchmark {
+
+    private static final String DIRECT_KEY = "bench:counter:direct", BUFFERED_KEY = "bench:counter:buffered";
+
+    private BenchmarkRedis redis;
+
+    private StringRedisTemplate redisTemplate;
+
+    private ValueOperations<String, String> valueOps;
+
+    private BufferedRedisCounter counter;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redisTemplate = redis.getBean(StringRedisTemplate.class);
+        valueOps = redisTemplate.opsForValue();
+        counter = redis.getBean(BufferedRedisCounter.class);
+        redisTemplate.delete(DIRECT_KEY);
+        redisTemplate.delete(BUFFERED_KEY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        counter.flush();
+        log.info("direct: {}, buffered: {}", valueOps.get(DIRECT_KEY), valueOps.get(BUFFERED_KEY));
+        redisTemplate.delete(DIRECT_KEY);
+        redisTemplate.delete(BUFFERED_KEY);
+        redis.close();
+    }
+
+    @Benchmark
+    public Long direct() {
+        return valueOps.increment(DIRECT_KEY, 1);
+    }
+
+    @Benchmark
+    public void buffered() {
+        counter.increment(BUFFERED_KEY);
+    }
+}
@@ -0,0 +1,113 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.config.HotKeyProperties;
+import com.yuhangma.redis.learning.config.RedisMetricsProperties;
+import com.yuhangma.redis.learning.metrics.HotKeyCache;
+import com.yuhangma.redis.learning.metrics.HotKeyDetector;
+import com.yuhangma.redis.learning.metrics.InstrumentedRedisConnectionFactory;
+import com.yuhangma.redis.learning.metrics.RedisCommandMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一半的读取集中在一个热点 key 上：只记录指标（metrics）、同时检测热点 key（detect）、热点 key 缓存在本地（promote）。
+ * 结束时在日志中输出每次读取平均发送到 Redis 的命令数
+ *
+ * @author Moore
+ * @see HotKeyDetector
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class HotKeyBenchmark {
+
+    private static final String HOT_KEY = "bench:hot-key:hot";
+
+    private static final String COLD_KEY_PREFIX = "bench:hot-key:cold:";
+
+    private static final int COLD_KEYS = 10_000;
+
+    @Param({"metrics", "detect", "promote"})
+    private String mode;
+
+    private BenchmarkRedis redis;
+
+    private StringRedisTemplate redisTemplate;
+
+    private ValueOperations<String, String> valueOps;
+
+    private HotKeyDetector detector;
+
+    private final LongAdder reads = new LongAdder();
+
+    private long commandsBefore;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        HotKeyProperties properties = new HotKeyProperties();
+        // warmup 期间完成第一个窗口的检测
+        properties.setWindow(Duration.ofSeconds(1));
+        properties.setPromote("promote".equals(mode));
+        detector = "metrics".equals(mode) ? null : new HotKeyDetector(properties);
+        HotKeyCache cache = properties.isPromote() ? new HotKeyCache(properties) : null;
+        RedisCommandMetrics metrics = new RedisCommandMetrics(new SimpleMeterRegistry(), new RedisMetricsProperties());
+        redisTemplate = new StringRedisTemplate(new InstrumentedRedisConnectionFactory(
+            redis.getBean(LettuceConnectionFactory.class), metrics, "bench", detector, cache));
+        valueOps = redisTemplate.opsForValue();
+        Map<String, String> values = new HashMap<>(COLD_KEYS * 2);
+        for (int i = 0; i < COLD_KEYS; i++) {
+            values.put(COLD_KEY_PREFIX + i, "value");
+        }
+        values.put(HOT_KEY, "hot value");
+        valueOps.multiSet(values);
+        if (detector != null) {
+            detector.start();
+        }
+        commandsBefore = totalCommands();
+    }
+
+    @TearDown
+    public void tearDown() {
+        long commands = totalCommands() - commandsBefore;
+        log.info("reads: {}, redis commands: {}, commands per read: {}", reads.sum(), commands,
+            String.format("%.3f", (double) commands / Math.max(1, reads.sum())));
+        if (detector != null) {
+            log.info("top keys: {}", detector.topKeys().subList(0, Math.min(3, detector.topKeys().size())));
+            detector.close();
+        }
+        redisTemplate.delete(redisTemplate.keys("bench:hot-key:*"));
+        redis.close();
+    }
+
+    @Benchmark
+    public String get() {
+        reads.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return valueOps.get(random.nextBoolean() ? HOT_KEY : COLD_KEY_PREFIX + random.nextInt(COLD_KEYS));
+    }
+
+    private long totalCommands() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.info("stats"));
+        return Long.parseLong(info.getProperty("total_commands_processed"));
+    }
+}
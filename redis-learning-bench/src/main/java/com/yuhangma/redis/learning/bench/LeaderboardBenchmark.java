@@ -0,0 +1,98 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.redis.LeaderboardEntry;
+import com.yuhangma.redis.learning.redis.PersonLeaderboard;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10 万个成员的排行榜：前 10 名读取本地缓存和每次读取 Redis 的对比，100 个成员的名次在一个 pipeline 中查询
+ * 和逐个查询的对比
+ *
+ * @author Moore
+ * @see PersonLeaderboard
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    private static final String BOARD = "bench";
+
+    private static final int MEMBERS = 100_000;
+
+    private BenchmarkRedis redis;
+
+    private RedisTemplate<String, PersonDTO> redisTemplate;
+
+    private ZSetOperations<String, PersonDTO> zSetOps;
+
+    private PersonLeaderboard leaderboard;
+
+    private List<PersonDTO> sample;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redisTemplate = redis.getBean("personRedisTemplate", RedisTemplate.class);
+        zSetOps = redisTemplate.opsForZSet();
+        leaderboard = redis.getBean(PersonLeaderboard.class);
+        Map<PersonDTO, Double> deltas = new HashMap<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            deltas.put(new PersonDTO().setName("person-" + i).setAge(i % 100), (double) ThreadLocalRandom.current().nextInt(1_000_000));
+            if (deltas.size() == 1000) {
+                leaderboard.incrementScores(BOARD, deltas);
+                deltas.clear();
+            }
+        }
+        sample = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sample.add(new PersonDTO().setName("person-" + i * 997).setAge(i * 997 % 100));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete("leaderboard:" + BOARD);
+        redis.close();
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> cachedTop10() {
+        return leaderboard.top(BOARD, 10);
+    }
+
+    @Benchmark
+    public Set<ZSetOperations.TypedTuple<PersonDTO>> redisTop10() {
+        return zSetOps.reverseRangeWithScores("leaderboard:" + BOARD, 0, 9);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> pipelinedRanks() {
+        return leaderboard.ranks(BOARD, sample);
+    }
+
+    @Benchmark
+    public List<Long> sequentialRanks() {
+        List<Long> ranks = new ArrayList<>(sample.size());
+        for (PersonDTO member : sample) {
+            ranks.add(zSetOps.reverseRank("leaderboard:" + BOARD, member));
+        }
+        return ranks;
+    }
+}
@@ -0,0 +1,101 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.redis.RedisLock;
+import com.yuhangma.redis.learning.redis.RedisLockService;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 8 个线程竞争同一把锁和各自使用不同的锁时，每毫秒完成的加锁、解锁次数
+ * <p>
+ * contended 在拿到锁之前不断重试，每次失败的尝试也是一次 Lua 脚本调用。临界区中对一个 volatile 变量做非原子的自增，
+ * tearDown 时检查自增结果和加锁成功的次数一致，不一致说明出现了两个线程同时持有锁。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisLockService
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LockBenchmark {
+
+    private static final String SHARED_LOCK = "bench:shared";
+
+    private BenchmarkRedis redis;
+
+    private RedisLockService lockService;
+
+    private final AtomicLong acquired = new AtomicLong();
+
+    private final AtomicLong failedAttempts = new AtomicLong();
+
+    private volatile long guarded;
+
+    @State(Scope.Thread)
+    public static class ThreadLock {
+
+        private static final String PREFIX = "bench:thread:";
+
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        private final String name = PREFIX + SEQUENCE.incrementAndGet();
+    }
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        lockService = redis.getBean(RedisLockService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        log.info("acquired: {}, guarded increments: {}, failed attempts: {}", acquired.get(), guarded,
+            failedAttempts.get());
+        StringRedisTemplate redisTemplate = redis.getBean(StringRedisTemplate.class);
+        List<String> keys = new ArrayList<>();
+        keys.add(lockService.key(SHARED_LOCK));
+        keys.add(lockService.fenceKey(SHARED_LOCK));
+        for (long i = 1; i <= ThreadLock.SEQUENCE.get(); i++) {
+            keys.add(lockService.key(ThreadLock.PREFIX + i));
+            keys.add(lockService.fenceKey(ThreadLock.PREFIX + i));
+        }
+        redisTemplate.delete(keys);
+        redis.close();
+    }
+
+    @Benchmark
+    public long contended() {
+        RedisLock lock;
+        while ((lock = lockService.tryLock(SHARED_LOCK)) == null) {
+            failedAttempts.incrementAndGet();
+        }
+        try {
+            acquired.incrementAndGet();
+            long value = guarded;
+            guarded = value + 1;
+            return lock.getFencingToken();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public long uncontended(ThreadLock threadLock) {
+        try (RedisLock lock = lockService.tryLock(threadLock.name)) {
+            return lock.getFencingToken();
+        }
+    }
+}
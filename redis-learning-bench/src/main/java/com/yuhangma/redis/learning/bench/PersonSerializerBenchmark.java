@@ -0,0 +1,69 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.serializer.PersonBinaryRedisSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PersonDTO 在各个 {@link RedisSerializer} 下的编解码耗时，不需要 Redis
+ * <p>
+ * PersonDTO 没有实现 Serializable，所以不包含 JdkSerializationRedisSerializer。
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonSerializerBenchmark {
+
+    @Param({"genericJson", "json", "binary"})
+    private String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+
+    private PersonDTO person;
+
+    private byte[] bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        switch (serializer) {
+            case "genericJson":
+                redisSerializer = (RedisSerializer) new GenericJackson2JsonRedisSerializer();
+                break;
+            case "json":
+                redisSerializer = (RedisSerializer) new Jackson2JsonRedisSerializer<>(PersonDTO.class);
+                break;
+            case "binary":
+                redisSerializer = (RedisSerializer) new PersonBinaryRedisSerializer();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown serializer: " + serializer);
+        }
+        person = PersonDTO.newPerson();
+        bytes = redisSerializer.serialize(person);
+        log.info("{} stored size: {} bytes", serializer, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(person);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,78 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.redis.PersonHashStore;
+import com.yuhangma.redis.learning.serializer.PersonDTOHashMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 修改和部分读取 PersonDTO：整个对象保存为一个 value（GET、修改、SET）和保存为 hash（HSET、HINCRBY、HMGET）的对比
+ *
+ * @author Moore
+ * @see PersonHashStore
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonStorageBenchmark {
+
+    private static final String ID = "bench", VALUE_KEY = "bench:person:value";
+
+    private BenchmarkRedis redis;
+
+    private RedisTemplate<String, PersonDTO> personRedisTemplate;
+
+    private ValueOperations<String, PersonDTO> valueOps;
+
+    private PersonHashStore hashStore;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        personRedisTemplate = redis.getBean("personRedisTemplate", RedisTemplate.class);
+        valueOps = personRedisTemplate.opsForValue();
+        hashStore = redis.getBean(PersonHashStore.class);
+        PersonDTO person = new PersonDTO().setName("person-bench").setAge(20);
+        valueOps.set(VALUE_KEY, person);
+        hashStore.save(ID, person);
+    }
+
+    @TearDown
+    public void tearDown() {
+        personRedisTemplate.delete(VALUE_KEY);
+        hashStore.delete(ID);
+        redis.close();
+    }
+
+    @Benchmark
+    public PersonDTO valueIncrementAge() {
+        PersonDTO person = valueOps.get(VALUE_KEY);
+        person.setAge(person.getAge() + 1);
+        valueOps.set(VALUE_KEY, person);
+        return person;
+    }
+
+    @Benchmark
+    public long hashIncrementAge() {
+        return hashStore.incrementAge(ID, 1);
+    }
+
+    @Benchmark
+    public String valueReadName() {
+        return valueOps.get(VALUE_KEY).getName();
+    }
+
+    @Benchmark
+    public String hashReadName() {
+        return hashStore.find(ID, PersonDTOHashMapper.NAME).getName();
+    }
+}
@@ -0,0 +1,85 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.config.RateLimiterProperties;
+import com.yuhangma.redis.learning.redis.RedisRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 8 个线程检查同一个令牌桶：每次一个 Lua 脚本和本地预取令牌的对比
+ * <p>
+ * unlimited 的速率足够大，测量的是每次检查的开销；limited 每秒 10000 个令牌，
+ * tearDown 时在日志中输出实际放行的速率（包含桶中初始的 10000 个令牌），预取会使放行的速率略低于配置。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisRateLimiter
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final String UNLIMITED = "bench:unlimited", LIMITED = "bench:limited";
+
+    private static final double LIMITED_RATE = 10_000;
+
+    /**
+     * 每次预取的令牌数，0 表示不预取
+     */
+    @Param({"0", "100"})
+    private int prefetch;
+
+    private BenchmarkRedis redis;
+
+    private RedisRateLimiter rateLimiter;
+
+    private final LongAdder granted = new LongAdder();
+
+    private long startNanos;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redis.getBean(RateLimiterProperties.class).setPrefetch(prefetch);
+        rateLimiter = redis.getBean(RedisRateLimiter.class);
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown
+    public void tearDown() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        if (granted.sum() > 0) {
+            log.info("limited: {} permits/s, configured: {} permits/s", String.format("%.0f", granted.sum() / seconds),
+                String.format("%.0f", LIMITED_RATE));
+        }
+        StringRedisTemplate redisTemplate = redis.getBean(StringRedisTemplate.class);
+        redisTemplate.delete(rateLimiter.key(UNLIMITED));
+        redisTemplate.delete(rateLimiter.key(LIMITED));
+        redis.close();
+    }
+
+    @Benchmark
+    public boolean unlimited() {
+        return rateLimiter.tryAcquire(UNLIMITED, 1e9, 1_000_000_000L);
+    }
+
+    @Benchmark
+    public boolean limited() {
+        boolean acquired = rateLimiter.tryAcquire(LIMITED, LIMITED_RATE, (long) LIMITED_RATE);
+        if (acquired) {
+            granted.increment();
+        }
+        return acquired;
+    }
+}
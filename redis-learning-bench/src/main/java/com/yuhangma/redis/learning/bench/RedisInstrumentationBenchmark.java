@@ -0,0 +1,72 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.config.RedisMetricsProperties;
+import com.yuhangma.redis.learning.metrics.InstrumentedRedisConnectionFactory;
+import com.yuhangma.redis.learning.metrics.RedisCommandMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令指标的额外开销：不包装（plain）、包装并记录（recording）、包装但通过端点关闭记录（paused）、
+ * 只记录耗时不统计字节数（no-payload）
+ *
+ * @author Moore
+ * @see InstrumentedRedisConnectionFactory
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisInstrumentationBenchmark {
+
+    private static final String KEY = "bench:instrumentation:key";
+
+    @Param({"plain", "recording", "paused", "no-payload"})
+    private String mode;
+
+    private BenchmarkRedis redis;
+
+    private StringRedisTemplate redisTemplate;
+
+    private ValueOperations<String, String> valueOps;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        RedisConnectionFactory connectionFactory = redis.getBean(LettuceConnectionFactory.class);
+        if (!"plain".equals(mode)) {
+            RedisCommandMetrics metrics = new RedisCommandMetrics(new SimpleMeterRegistry(), new RedisMetricsProperties());
+            metrics.setRecording(!"paused".equals(mode));
+            metrics.setPayloadEnabled(!"no-payload".equals(mode));
+            connectionFactory = new InstrumentedRedisConnectionFactory(connectionFactory, metrics, "bench");
+        }
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        valueOps = redisTemplate.opsForValue();
+        valueOps.set(KEY, "value");
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(KEY);
+        redis.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return valueOps.get(KEY);
+    }
+
+    @Benchmark
+    public void set() {
+        valueOps.set(KEY, "value");
+    }
+}
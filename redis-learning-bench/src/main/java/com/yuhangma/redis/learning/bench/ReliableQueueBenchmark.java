@@ -0,0 +1,80 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.config.QueueProperties;
+import com.yuhangma.redis.learning.redis.QueueConsumerGroup;
+import com.yuhangma.redis.learning.redis.ReliableRedisQueue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 4 个消费者并行消费 10 万条消息（取出、处理、确认）所需的时间，对比每次取出的消息数 batchSize
+ *
+ * @author Moore
+ * @see ReliableRedisQueue
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ReliableQueueBenchmark {
+
+    private static final String QUEUE = "bench";
+
+    private static final int MESSAGES = 100_000;
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    private BenchmarkRedis redis;
+
+    private ReliableRedisQueue queue;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redis.getBean(QueueProperties.class).setBatchSize(batchSize);
+        queue = redis.getBean(ReliableRedisQueue.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        List<String> payloads = new ArrayList<>(1000);
+        for (int i = 0; i < MESSAGES; i++) {
+            payloads.add("message-" + i);
+            if (payloads.size() == 1000) {
+                queue.push(QUEUE, payloads);
+                payloads.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redis.getBean(StringRedisTemplate.class).delete(List.of(queue.queueKey(QUEUE), queue.seqKey(QUEUE),
+            queue.consumersKey(QUEUE)));
+        redis.close();
+    }
+
+    @Benchmark
+    public long drain() throws InterruptedException {
+        AtomicLong received = new AtomicLong();
+        CountDownLatch drained = new CountDownLatch(1);
+        QueueConsumerGroup group = queue.subscribe(QUEUE, 4, messages -> {
+            if (received.addAndGet(messages.size()) >= MESSAGES) {
+                drained.countDown();
+            }
+        });
+        drained.await();
+        group.close();
+        return group.processedCount();
+    }
+}
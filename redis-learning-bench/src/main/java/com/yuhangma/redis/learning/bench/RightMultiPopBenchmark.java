@@ -0,0 +1,86 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.redis.RedisClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RedisClient#rightMultiAtomicPop(String, int)} 和原来在 pipeline 中执行 count 次 RPOP 的对比
+ * <p>
+ * 每次调用前都需要重新 push count 个元素，所以使用 {@link Level#Invocation} 的 setup，
+ * count 较小时单次调用耗时只有几十微秒，结果中会包含一定的 setup 干扰，适合横向对比而不是看绝对值。
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class RightMultiPopBenchmark {
+
+    private static final String KEY = "bench:list:pop";
+
+    @Param({"1", "10", "100", "1000"})
+    private int count;
+
+    private BenchmarkRedis redis;
+
+    private RedisClient redisClient;
+
+    private RedisTemplate<String, PersonDTO> redisTemplate;
+
+    private List<PersonDTO> persons;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        redis = BenchmarkRedis.start();
+        redisClient = redis.getBean(RedisClient.class);
+        redisTemplate = redis.getBean("personRedisTemplate", RedisTemplate.class);
+        persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(PersonDTO.newRandomPerson());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void pushPersons() {
+        redisTemplate.delete(KEY);
+        redisTemplate.opsForList().leftPushAll(KEY, persons);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redisTemplate.delete(KEY);
+        redis.close();
+    }
+
+    @Benchmark
+    public List<PersonDTO> rightMultiAtomicPop() {
+        return redisClient.rightMultiAtomicPop(KEY, count);
+    }
+
+    /**
+     * 优化前的实现
+     */
+    @Benchmark
+    public List<Object> pipelinedRightPop() {
+        byte[] rawKey = KEY.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < count; i++) {
+                connection.rPop(rawKey);
+            }
+            return null;
+        });
+    }
+}
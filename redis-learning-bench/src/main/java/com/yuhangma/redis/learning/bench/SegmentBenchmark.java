@@ -0,0 +1,87 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.redis.RedisSegmentService;
+import com.yuhangma.redis.learning.redis.SegmentFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100 万成员的人群，查询的 id 一半在人群中、一半不在：本地布隆过滤器 + SISMEMBER 和每次 SISMEMBER 的对比
+ * <p>
+ * tearDown 时在日志中输出过滤器的内存占用、理论误判率和实际误判率。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisSegmentService
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class SegmentBenchmark {
+
+    private static final String SEGMENT = "bench:segment";
+
+    /**
+     * 人群中是 [0, 2 * MEMBERS) 中的偶数
+     */
+    private static final int MEMBERS = 1_000_000;
+
+    private BenchmarkRedis redis;
+
+    private RedisSegmentService segmentService;
+
+    private StringRedisTemplate redisTemplate;
+
+    private String key;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        segmentService = redis.getBean(RedisSegmentService.class);
+        redisTemplate = redis.getBean(StringRedisTemplate.class);
+        key = segmentService.key(SEGMENT);
+        redisTemplate.delete(key);
+        List<String> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(String.valueOf(i * 2));
+        }
+        segmentService.add(SEGMENT, members);
+        segmentService.filter(SEGMENT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SegmentFilter filter = segmentService.filter(SEGMENT);
+        log.info("filter: {} bytes for {} members, expected fpp: {}, observed fpp: {}, skipped: {}",
+            filter.sizeInBytes(), segmentService.size(SEGMENT), String.format("%.4f", filter.expectedFpp()),
+            String.format("%.4f", filter.observedFpp()), filter.negatives());
+        redisTemplate.delete(key);
+        redis.close();
+    }
+
+    @Benchmark
+    public boolean filtered() {
+        return segmentService.contains(SEGMENT, randomId());
+    }
+
+    @Benchmark
+    public Boolean isMember() {
+        return redisTemplate.opsForSet().isMember(key, randomId());
+    }
+
+    private static String randomId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(MEMBERS * 2));
+    }
+}
@@ -0,0 +1,87 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.redis.RedisUniqueCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 8 个线程记录同一个接口的访问用户（100 万个用户中随机），本地缓冲 + 预聚合和每次 PFADD 的对比
+ * <p>
+ * tearDown 时在日志中输出 Redis 执行的命令数和每个事件平均的命令数。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisUniqueCounter
+ * @since 2026/10/18
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class UniqueCounterBenchmark {
+
+    private static final String COUNTER = "bench:api", KEY = "bench:hll";
+
+    private static final int USERS = 1_000_000;
+
+    private BenchmarkRedis redis;
+
+    private RedisUniqueCounter uniqueCounter;
+
+    private StringRedisTemplate redisTemplate;
+
+    private final LongAdder events = new LongAdder();
+
+    private long commandsBefore;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        uniqueCounter = redis.getBean(RedisUniqueCounter.class);
+        redisTemplate = redis.getBean(StringRedisTemplate.class);
+        commandsBefore = totalCommands();
+    }
+
+    @TearDown
+    public void tearDown() {
+        uniqueCounter.flush();
+        long commands = totalCommands() - commandsBefore;
+        log.info("events: {}, redis commands: {}, commands per event: {}", events.sum(), commands,
+            String.format("%.5f", (double) commands / Math.max(1, events.sum())));
+        redisTemplate.delete(redisTemplate.keys("hll:{" + COUNTER + "}:*"));
+        redisTemplate.delete(KEY);
+        redis.close();
+    }
+
+    @Benchmark
+    public void buffered() {
+        uniqueCounter.add(COUNTER, randomUser());
+        events.increment();
+    }
+
+    @Benchmark
+    public Long pfAdd() {
+        events.increment();
+        return redisTemplate.opsForHyperLogLog().add(KEY, randomUser());
+    }
+
+    private long totalCommands() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.info("stats"));
+        return Long.parseLong(info.getProperty("total_commands_processed"));
+    }
+
+    private static String randomUser() {
+        return "user:" + ThreadLocalRandom.current().nextInt(USERS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.yuhangma.redis.learning.bench;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量读写 batchSize 个 PersonDTO：逐个执行、MSET/MGET、pipeline、Lua 脚本四种方式的对比
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class ValueOperationsBenchmark {
+
+    private static final String KEY_PREFIX = "bench:value:";
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    private BenchmarkRedis redis;
+
+    private RedisTemplate<String, PersonDTO> redisTemplate;
+
+    private ValueOperations<String, PersonDTO> valueOps;
+
+    private List<String> keys;
+
+    private Map<String, PersonDTO> kvs;
+
+    private DefaultRedisScript<List> luaGet;
+
+    private DefaultRedisScript<Long> luaSet;
+
+    @Setup
+    public void setup() {
+        redis = BenchmarkRedis.start();
+        redisTemplate = redis.getBean("personRedisTemplate", RedisTemplate.class);
+        valueOps = redisTemplate.opsForValue();
+        keys = new ArrayList<>(batchSize);
+        kvs = new HashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            String key = KEY_PREFIX + i;
+            keys.add(key);
+            kvs.put(key, PersonDTO.newRandomPerson());
+        }
+        valueOps.multiSet(kvs);
+        luaGet = new DefaultRedisScript<>(
+            "local values = {} for i, key in ipairs(KEYS) do values[i] = redis.call('GET', key) end return values", List.class);
+        luaSet = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do redis.call('SET', key, ARGV[i]) end return #KEYS", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(keys);
+        redis.close();
+    }
+
+    @Benchmark
+    public List<PersonDTO> getOneByOne() {
+        List<PersonDTO> values = new ArrayList<>(batchSize);
+        for (String key : keys) {
+            values.add(valueOps.get(key));
+        }
+        return values;
+    }
+
+    @Benchmark
+    public List<PersonDTO> multiGet() {
+        return valueOps.multiGet(keys);
+    }
+
+    @Benchmark
+    public List<Object> pipelinedGet() {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.get(keySerializer.serialize(key));
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public List luaGet() {
+        return redisTemplate.execute(luaGet, keys);
+    }
+
+    @Benchmark
+    public void setOneByOne() {
+        kvs.forEach(valueOps::set);
+    }
+
+    @Benchmark
+    public void multiSet() {
+        valueOps.multiSet(kvs);
+    }
+
+    @Benchmark
+    public List<Object> pipelinedSet() {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<PersonDTO> valueSerializer = (RedisSerializer<PersonDTO>) redisTemplate.getValueSerializer();
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            kvs.forEach((key, value) -> connection.set(keySerializer.serialize(key), valueSerializer.serialize(value)));
+            return null;
+        });
+    }
+
+    @Benchmark
+    public Long luaSet() {
+        List<String> setKeys = new ArrayList<>(kvs.keySet());
+        Object[] values = new Object[setKeys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = kvs.get(setKeys.get(i));
+        }
+        return redisTemplate.execute(luaSet, setKeys, values);
+    }
+}
@@ -0,0 +1,161 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.concurrent.VirtualThreadTaskExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * {@code @Async} 使用的线程池
+ * <p>
+ * 没有定义 TaskExecutor 时，spring boot 2.0 的 {@code @Async} 使用 SimpleAsyncTaskExecutor，每个任务创建一个新线程，
+ * 突发流量下线程数没有上限。这里定义一个名为 taskExecutor 的有界线程池，并发布以下指标（name 标签为 async）：
+ * <ul>
+ * <li>executor.pool.size、executor.active、executor.queued、executor.completed：{@link ExecutorServiceMetrics}</li>
+ * <li>executor.queue.remaining：队列剩余容量</li>
+ * <li>executor.rejected：被拒绝的任务数</li>
+ * <li>executor.async.errors：返回 void 的 {@code @Async} 方法抛出的异常数</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 这个类实现了 AsyncConfigurer，会在 BeanPostProcessor 阶段创建，所以不在这里直接注入 MeterRegistry，
+ * {@link #getAsyncExecutor()} 返回 null 表示使用名为 taskExecutor 的 bean，在第一次调用 {@code @Async} 方法时才会查找。
+ * 线程池的指标由 {@link #asyncExecutorMetrics} 在线程池初始化（afterPropertiesSet）之后绑定，
+ * taskExecutor 本身也不依赖 MeterRegistry。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(AsyncProperties.class)
+public class AsyncConfig implements AsyncConfigurer {
+
+    private static final String EXECUTOR_NAME = "async";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public AsyncConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(name = "taskExecutor")
+    public AsyncTaskExecutor taskExecutor(AsyncProperties properties) {
+        if (properties.getMode() == AsyncProperties.Mode.VIRTUAL) {
+            if (VirtualThreadTaskExecutor.isSupported()) {
+                return virtualThreadExecutor(properties);
+            }
+            log.warn("virtual threads require JDK 21 or later, current: {}, fallback to platform thread pool",
+                System.getProperty("java.version"));
+        }
+        return threadPoolExecutor(properties);
+    }
+
+    /**
+     * 在 bindTo 时才读取 {@link ThreadPoolTaskExecutor#getThreadPoolExecutor()}，此时 taskExecutor 已经由 spring 初始化
+     */
+    @Bean
+    public MeterBinder asyncExecutorMetrics(AsyncTaskExecutor taskExecutor) {
+        return registry -> {
+            rejectedCounter(registry);
+            if (taskExecutor instanceof ThreadPoolTaskExecutor) {
+                ThreadPoolExecutor pool = ((ThreadPoolTaskExecutor) taskExecutor).getThreadPoolExecutor();
+                new ExecutorServiceMetrics(pool, EXECUTOR_NAME, Tags.empty()).bindTo(registry);
+                Gauge.builder("executor.queue.remaining", pool, p -> p.getQueue().remainingCapacity())
+                    .description("Remaining capacity of the task queue")
+                    .tag("name", EXECUTOR_NAME)
+                    .register(registry);
+            } else if (taskExecutor instanceof VirtualThreadTaskExecutor) {
+                VirtualThreadTaskExecutor executor = (VirtualThreadTaskExecutor) taskExecutor;
+                Gauge.builder("executor.active", executor, VirtualThreadTaskExecutor::getActiveCount)
+                    .description("Tasks running on virtual threads")
+                    .tag("name", EXECUTOR_NAME)
+                    .register(registry);
+                Gauge.builder("executor.queue.remaining", executor, e -> e.getConcurrencyLimit() - e.getActiveCount())
+                    .description("Remaining concurrency before tasks are rejected")
+                    .tag("name", EXECUTOR_NAME)
+                    .register(registry);
+            }
+        };
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> {
+            log.error("async method {} failed", method, e);
+            meterRegistry.ifAvailable(registry -> registry.counter("executor.async.errors",
+                "name", EXECUTOR_NAME, "exception", e.getClass().getSimpleName()).increment());
+        };
+    }
+
+    private ThreadPoolTaskExecutor threadPoolExecutor(AsyncProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setKeepAliveSeconds((int) properties.getKeepAlive().getSeconds());
+        executor.setThreadNamePrefix(properties.getThreadNamePrefix());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds((int) properties.getAwaitTermination().getSeconds());
+        ThreadPoolExecutor.AbortPolicy abort = new ThreadPoolExecutor.AbortPolicy();
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        boolean runInCaller = properties.getRejectionPolicy() == AsyncProperties.RejectionPolicy.CALLER_RUNS;
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            countRejected();
+            if (runInCaller) {
+                callerRuns.rejectedExecution(task, pool);
+            } else {
+                abort.rejectedExecution(task, pool);
+            }
+        });
+        // 不在这里调用 initialize()，由 spring 的 afterPropertiesSet 初始化，否则会创建两个线程池
+        log.info("async executor: platform threads, core: {}, max: {}, queue: {}, rejection: {}",
+            properties.getCorePoolSize(), properties.getMaxPoolSize(), properties.getQueueCapacity(),
+            properties.getRejectionPolicy());
+        return executor;
+    }
+
+    private VirtualThreadTaskExecutor virtualThreadExecutor(AsyncProperties properties) {
+        boolean runInCaller = properties.getRejectionPolicy() == AsyncProperties.RejectionPolicy.CALLER_RUNS;
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor(properties.getThreadNamePrefix(),
+            properties.getVirtualConcurrencyLimit(), task -> {
+            countRejected();
+            if (runInCaller) {
+                task.run();
+            } else {
+                throw new TaskRejectedException("Concurrency limit " + properties.getVirtualConcurrencyLimit()
+                    + " reached, task rejected: " + task);
+            }
+        }, properties.getAwaitTermination());
+        log.info("async executor: virtual threads, concurrency limit: {}, rejection: {}",
+            properties.getVirtualConcurrencyLimit(), properties.getRejectionPolicy());
+        return executor;
+    }
+
+    private void countRejected() {
+        meterRegistry.ifAvailable(registry -> rejectedCounter(registry).increment());
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry) {
+        return Counter.builder("executor.rejected")
+            .description("Tasks rejected by the executor")
+            .tag("name", EXECUTOR_NAME)
+            .register(registry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * {@code @Async} 线程池配置
+ *
+ * @author Moore
+ * @see AsyncConfig
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "async")
+public class AsyncProperties {
+
+    /**
+     * 线程模式，VIRTUAL 需要 JDK 21 及以上，低版本 JDK 上退化为 PLATFORM
+     */
+    private Mode mode = Mode.PLATFORM;
+
+    private int corePoolSize = 8;
+
+    private int maxPoolSize = 32;
+
+    /**
+     * 任务队列的容量，队列满并且线程数达到 maxPoolSize 之后按照 {@link #rejectionPolicy} 处理
+     */
+    private int queueCapacity = 500;
+
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    private String threadNamePrefix = "async-";
+
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+    /**
+     * 虚拟线程模式下同时执行的最大任务数，虚拟线程本身很廉价，但是任务使用的连接池等资源是有限的
+     */
+    private int virtualConcurrencyLimit = 1000;
+
+    /**
+     * 关闭应用时等待任务执行完成的时间
+     */
+    private Duration awaitTermination = Duration.ofSeconds(30);
+
+    public enum Mode {
+
+        /**
+         * 有界的平台线程池
+         */
+        PLATFORM,
+
+        /**
+         * 每个任务一个虚拟线程
+         */
+        VIRTUAL
+    }
+
+    public enum RejectionPolicy {
+
+        /**
+         * 抛出 TaskRejectedException
+         */
+        ABORT,
+
+        /**
+         * 在提交任务的线程中执行，相当于对调用方限流
+         */
+        CALLER_RUNS
+    }
+}
@@ -0,0 +1,33 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 本地聚合计数器配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.BufferedRedisCounter
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.counter")
+public class CounterProperties {
+
+    /**
+     * 定时刷新的间隔，也是进程崩溃时最多丢失的计数的时间范围
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 未刷新的增量次数达到这个值时立即刷新，不等待下一次定时刷新
+     */
+    private long flushThreshold = 100_000;
+
+    /**
+     * 每次刷新的 Lua 脚本中最多的 key 数
+     */
+    private int batchSize = 500;
+}
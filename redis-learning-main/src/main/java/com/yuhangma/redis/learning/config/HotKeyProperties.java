@@ -0,0 +1,69 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 热点 key 检测配置，只对 redis.metrics.templates 中的 RedisTemplate 生效
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.metrics.HotKeyDetector
+ * @see com.yuhangma.redis.learning.metrics.HotKeyCache
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.hot-key")
+public class HotKeyProperties {
+
+    /**
+     * 是否检测热点 key，需要 redis.metrics.enabled 为 true
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采样比例，每次访问以这个概率计入 count-min sketch，计数按比例放大
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * 统计窗口，每个窗口结束时计算 top-K 和热点 key，然后重新计数
+     */
+    private Duration window = Duration.ofSeconds(10);
+
+    /**
+     * 每个窗口报告的 key 数量
+     */
+    private int topK = 10;
+
+    /**
+     * 估算的每秒访问次数达到这个值的 key 是热点 key
+     */
+    private long threshold = 1000;
+
+    /**
+     * count-min sketch 每行的计数器数量，误差约为窗口内采样总数的 e / width
+     */
+    private int sketchWidth = 2048;
+
+    /**
+     * count-min sketch 的行数，超出误差的概率约为 e ^ -depth
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * 是否把热点 key 的读命令结果缓存在本地。其他实例的写入最多 local-ttl 之后可见，本实例的写入立即删除本地缓存
+     */
+    private boolean promote = false;
+
+    /**
+     * 热点 key 本地缓存的时间
+     */
+    private Duration localTtl = Duration.ofSeconds(1);
+
+    /**
+     * 本地缓存的最大 key 数量，同一个 key 的不同读命令（例如 HGET 不同的 field）共用一条
+     */
+    private long localMaximumSize = 10_000;
+}
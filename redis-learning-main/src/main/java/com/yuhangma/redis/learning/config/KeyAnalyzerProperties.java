@@ -0,0 +1,50 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大 key 分析配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.RedisKeyAnalyzer
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.key-analyzer")
+public class KeyAnalyzerProperties {
+
+    /**
+     * SCAN 的 COUNT，也是每个 pipeline 中的 key 数量
+     */
+    private int pageSize = 1000;
+
+    /**
+     * 每秒最多分析的 key 数量，0 表示不限速。每个 key 需要 4 条命令，默认值约为每秒 2 万条命令
+     */
+    private int keysPerSecond = 5000;
+
+    /**
+     * MEMORY USAGE 的 SAMPLES，集合类型抽样这么多个元素估算内存，0 表示计算所有元素，大 key 上会很慢
+     */
+    private int memorySamples = 5;
+
+    /**
+     * 报告中最大的 key 的数量
+     */
+    private int topN = 100;
+
+    /**
+     * 按前缀统计的前缀，不为空时只使用这些前缀，其他 key 记为 other；
+     * 为空时使用 key 中最后一个 ':' 之前（包含）的部分作为前缀
+     */
+    private List<String> keyPrefixes = new ArrayList<>();
+
+    /**
+     * 前缀的数量上限，超过之后新出现的前缀都记为 other，内存占用不随 key 的数量增长
+     */
+    private int maxPrefixes = 1000;
+}
@@ -0,0 +1,43 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 排行榜配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.PersonLeaderboard
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.leaderboard")
+public class LeaderboardProperties {
+
+    /**
+     * 排行榜 key 的前缀，完整的 key 为 {keyPrefix}{board}
+     */
+    private String keyPrefix = "leaderboard:";
+
+    /**
+     * 本地缓存排行榜前几页，之后的页每次都读取 Redis
+     */
+    private int cachedPages = 3;
+
+    /**
+     * 本地缓存的存活时间，也是排行榜在其他实例上更新之后最长的延迟
+     */
+    private Duration cacheTtl = Duration.ofSeconds(1);
+
+    /**
+     * 本地缓存最多保存的页数
+     */
+    private long cacheMaximumSize = 1000;
+
+    /**
+     * 每页最多的成员数
+     */
+    private int maxPageSize = 100;
+}
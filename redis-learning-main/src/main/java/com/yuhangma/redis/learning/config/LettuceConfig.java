@@ -0,0 +1,135 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.metrics.LettucePoolMetrics;
+import com.yuhangma.redis.learning.metrics.MicrometerCommandLatencyCollector;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.event.DefaultEventPublisherOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder;
+
+/**
+ * Lettuce 连接工厂的补充配置，连接工厂本身仍然由 spring boot 自动配置
+ * <p>
+ * 配置了 spring.redis.lettuce.pool 之后，自动配置会创建带连接池的 {@link LettuceConnectionFactory}：
+ * 普通命令仍然在共享的原生连接上多路复用，BLPOP 等阻塞命令和 MULTI/EXEC 事务从连接池中借用独占连接，
+ * 不会阻塞其他线程的命令。这里补充自动配置没有覆盖的部分：
+ * <ul>
+ * <li>连接池的空闲连接检测，否则 min-idle 不会生效；以及连接池的 JMX 名称，用于采集连接池指标</li>
+ * <li>是否共享原生连接</li>
+ * <li>按命令记录耗时直方图的 {@link ClientResources}</li>
+ * <li>集群模式下的拓扑刷新</li>
+ * </ul>
+ * </p>
+ *
+ * @author Moore
+ * @see org.springframework.boot.autoconfigure.data.redis.LettuceConnectionConfiguration
+ * @since 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(LettuceProperties.class)
+public class LettuceConfig {
+
+    /**
+     * Lettuce 连接池在 JMX 中的名称前缀
+     */
+    public static final String POOL_JMX_NAME_PREFIX = "lettuce-pool";
+
+    /**
+     * 代替自动配置中的 ClientResources，关闭应用时由容器调用 shutdown
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MeterRegistry meterRegistry, LettuceProperties properties) {
+        DefaultClientResources.Builder builder = DefaultClientResources.builder();
+        if (properties.isCommandLatencyEnabled()) {
+            // 耗时直接记录到 Micrometer，不需要 Lettuce 定期发布 CommandLatencyEvent
+            builder.commandLatencyCollector(new MicrometerCommandLatencyCollector(meterRegistry))
+                .commandLatencyPublisherOptions(DefaultEventPublisherOptions.disabled());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 使用 spring.redis.lettuce.pool 的配置重新创建连接池配置，补充空闲连接检测和 JMX 名称
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer lettucePoolConfigCustomizer(RedisProperties redisProperties,
+                                                                                   LettuceProperties properties) {
+        return builder -> {
+            RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+            if (pool == null || !(builder instanceof LettucePoolingClientConfigurationBuilder)) {
+                return;
+            }
+            GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+            config.setMaxTotal(pool.getMaxActive());
+            config.setMaxIdle(pool.getMaxIdle());
+            config.setMinIdle(pool.getMinIdle());
+            if (pool.getMaxWait() != null) {
+                config.setMaxWaitMillis(pool.getMaxWait().toMillis());
+            }
+            config.setTimeBetweenEvictionRunsMillis(properties.getTimeBetweenEvictionRuns().toMillis());
+            config.setJmxNamePrefix(POOL_JMX_NAME_PREFIX);
+            ((LettucePoolingClientConfigurationBuilder) builder).poolConfig(config);
+        };
+    }
+
+    /**
+     * 配置了 spring.redis.cluster.nodes 时，自动配置会创建集群模式的连接工厂，这里补充拓扑刷新：
+     * 主从切换或者 slot 迁移之后，Lettuce 默认不会更新本地的 slot 路由表，命令会一直被重定向甚至失败
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer lettuceClusterTopologyCustomizer(RedisProperties redisProperties,
+                                                                                        LettuceProperties properties) {
+        return builder -> {
+            if (redisProperties.getCluster() == null) {
+                return;
+            }
+            ClusterTopologyRefreshOptions.Builder refresh = ClusterTopologyRefreshOptions.builder();
+            if (!properties.getClusterRefreshPeriod().isNegative() && !properties.getClusterRefreshPeriod().isZero()) {
+                refresh.enablePeriodicRefresh(properties.getClusterRefreshPeriod());
+            }
+            if (properties.isClusterAdaptiveRefresh()) {
+                refresh.enableAllAdaptiveRefreshTriggers();
+            }
+            builder.clientOptions(ClusterClientOptions.builder().topologyRefreshOptions(refresh.build()).build());
+        };
+    }
+
+    @Bean
+    public LettucePoolMetrics lettucePoolMetrics() {
+        return new LettucePoolMetrics(POOL_JMX_NAME_PREFIX);
+    }
+
+    /**
+     * 连接工厂由自动配置创建，在初始化之前设置 shareNativeConnection
+     * <p>
+     * BeanPostProcessor 会在其他 bean 之前创建，这里不能注入 {@link LettuceProperties}，直接从 Environment 中读取
+     */
+    @Bean
+    public static BeanPostProcessor lettuceConnectionFactoryPostProcessor(Environment environment) {
+        boolean shareNativeConnection = Binder.get(environment)
+            .bind("redis.lettuce.share-native-connection", Boolean.class)
+            .orElse(true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory) {
+                    ((LettuceConnectionFactory) bean).setShareNativeConnection(shareNativeConnection);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Lettuce 连接工厂的补充配置，连接池大小、超时时间等使用 spring.redis.* 配置
+ *
+ * @author Moore
+ * @see LettuceConfig
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.lettuce")
+public class LettuceProperties {
+
+    /**
+     * 普通命令是否共用一个原生连接，阻塞命令和事务始终使用独占连接
+     *
+     * @see org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory#setShareNativeConnection(boolean)
+     */
+    private boolean shareNativeConnection = true;
+
+    /**
+     * 连接池空闲连接检测的间隔，小于等于 0 时不检测，此时 spring.redis.lettuce.pool.min-idle 不会生效
+     */
+    private Duration timeBetweenEvictionRuns = Duration.ofSeconds(30);
+
+    /**
+     * 是否按命令记录 Lettuce 的命令耗时
+     */
+    private boolean commandLatencyEnabled = true;
+
+    /**
+     * 集群模式下定期刷新拓扑的间隔，小于等于 0 时不定期刷新
+     */
+    private Duration clusterRefreshPeriod = Duration.ofSeconds(60);
+
+    /**
+     * 集群模式下收到 MOVED、ASK 重定向或者连接断开时是否立即刷新拓扑
+     */
+    private boolean clusterAdaptiveRefresh = true;
+}
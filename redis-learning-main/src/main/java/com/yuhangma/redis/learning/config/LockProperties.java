@@ -0,0 +1,33 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 分布式锁配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.RedisLockService
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.lock")
+public class LockProperties {
+
+    /**
+     * 锁的 key 前缀，完整的 key 为 {prefix}{name}
+     */
+    private String keyPrefix = "lock:";
+
+    /**
+     * 租期，持有者崩溃之后最多经过这段时间锁被自动释放。持有期间看门狗每隔 1/3 租期续期一次
+     */
+    private Duration leaseTime = Duration.ofSeconds(30);
+
+    /**
+     * 等待锁时重试的间隔
+     */
+    private Duration retryInterval = Duration.ofMillis(50);
+}
@@ -0,0 +1,73 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.redis.PersonNearCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 本地近端缓存配置，需要通过 redis.near-cache.enabled=true 开启
+ *
+ * @author Moore
+ * @see PersonNearCache
+ * @since 2026/10/18
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(NearCacheProperties.class)
+@ConditionalOnProperty(prefix = "redis.near-cache", name = "enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    @Bean
+    public PersonNearCache personNearCache(@Qualifier("personRedisTemplate") RedisTemplate<String, PersonDTO> personRedisTemplate,
+                                           NearCacheProperties properties) {
+        return new PersonNearCache(personRedisTemplate, properties);
+    }
+
+    /**
+     * 订阅 keyspace 通知，收到通知后删除对应的本地缓存
+     */
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                    PersonNearCache personNearCache,
+                                                                    NearCacheProperties properties) {
+        configureKeyspaceEvents(redisConnectionFactory, properties.getNotifyKeyspaceEvents());
+        String channelPrefix = "__keyspace@" + properties.getDatabase() + "__:";
+        List<PatternTopic> topics = properties.getKeyPrefixes().stream()
+            .map(prefix -> new PatternTopic(channelPrefix + prefix + "*"))
+            .collect(Collectors.toList());
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(personNearCache, topics);
+        return container;
+    }
+
+    private void configureKeyspaceEvents(RedisConnectionFactory redisConnectionFactory, String events) {
+        if (!StringUtils.hasText(events)) {
+            return;
+        }
+        // 云厂商的 Redis 通常禁用了 CONFIG 命令，此时需要在控制台中开启
+        RedisConnection connection = redisConnectionFactory.getConnection();
+        try {
+            connection.setConfig("notify-keyspace-events", events);
+        } catch (DataAccessException e) {
+            log.warn("config set notify-keyspace-events {} failed, near cache relies on max local ttl only", events, e);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地近端缓存配置
+ *
+ * @author Moore
+ * @see NearCacheConfig
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.near-cache")
+public class NearCacheProperties {
+
+    /**
+     * 是否开启近端缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 本地缓存最多保存的 key 数量
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 本地缓存按照估算字节数的上限，大于 0 时代替 {@link #maximumSize} 生效
+     */
+    private long maximumWeightBytes = 0;
+
+    /**
+     * 本地缓存的最长存活时间，没有过期时间的 key 也会在这个时间之后重新从 Redis 读取，
+     * 用于兜底失效通知丢失的情况
+     */
+    private Duration maxLocalTtl = Duration.ofSeconds(30);
+
+    /**
+     * 不为空时，启动时执行 CONFIG SET notify-keyspace-events
+     */
+    private String notifyKeyspaceEvents;
+
+    /**
+     * Redis 数据库的 index，用于拼接 keyspace 通知的频道
+     */
+    private int database = 0;
+
+    /**
+     * 需要订阅失效通知的 key 前缀
+     */
+    private List<String> keyPrefixes = new ArrayList<>();
+}
@@ -0,0 +1,45 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * personRedisTemplate 相关配置
+ *
+ * @author Moore
+ * @see RedisConfig#personRedisTemplate
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.person")
+public class PersonRedisProperties {
+
+    /**
+     * value 的序列化方式
+     */
+    private ValueSerializer valueSerializer = ValueSerializer.JSON;
+
+    /**
+     * hash 存储方式的 key 前缀，完整的 key 为 {hashKeyPrefix}{id}
+     *
+     * @see com.yuhangma.redis.learning.redis.PersonHashStore
+     */
+    private String hashKeyPrefix = "person:hash:";
+
+    public enum ValueSerializer {
+
+        /**
+         * 带有 @class 类型信息的 JSON
+         *
+         * @see org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer
+         */
+        JSON,
+
+        /**
+         * 紧凑的二进制格式，同时兼容读取旧的 JSON 格式
+         *
+         * @see com.yuhangma.redis.learning.serializer.PersonBinaryRedisSerializer
+         */
+        BINARY
+    }
+}
@@ -0,0 +1,54 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 可靠队列配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.ReliableRedisQueue
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.queue")
+public class QueueProperties {
+
+    /**
+     * 队列 key 的前缀，待处理队列的 key 为 {keyPrefix}{queue}，花括号是 hash tag，同一个队列的 key 位于同一个 slot
+     */
+    private String keyPrefix = "queue:";
+
+    /**
+     * 消费者每次最多取出的消息数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 队列为空时消费者阻塞等待的时间，BRPOPLPUSH 的超时时间只支持整数秒
+     */
+    private Duration block = Duration.ofSeconds(1);
+
+    /**
+     * 每个消费者组的消费者线程数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 消费者的心跳间隔
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(5);
+
+    /**
+     * 超过这个时间没有心跳的消费者被认为已经崩溃，它正在处理的消息会放回待处理队列，
+     * 需要远大于心跳间隔和各个实例之间的时钟误差
+     */
+    private Duration deadTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 检查崩溃的消费者的间隔
+     */
+    private Duration reclaimInterval = Duration.ofSeconds(10);
+}
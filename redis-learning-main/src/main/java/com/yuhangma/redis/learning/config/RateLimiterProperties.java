@@ -0,0 +1,33 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 令牌桶限流配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.RedisRateLimiter
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.rate-limiter")
+public class RateLimiterProperties {
+
+    /**
+     * 令牌桶的 key 前缀，完整的 key 为 {prefix}{name}
+     */
+    private String keyPrefix = "rate:";
+
+    /**
+     * 每次从 Redis 预取的令牌数，小于等于 1 时不预取，每次请求都访问 Redis
+     */
+    private int prefetch = 0;
+
+    /**
+     * 预取的令牌在本地的有效时间，过期之后丢弃，避免一个实例长时间占用其他实例可以使用的令牌
+     */
+    private Duration prefetchTtl = Duration.ofMillis(200);
+}
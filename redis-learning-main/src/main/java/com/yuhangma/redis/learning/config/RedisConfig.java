@@ -1,14 +1,20 @@
 package com.yuhangma.redis.learning.config;
 
 import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.serializer.PersonBinaryRedisSerializer;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -17,6 +23,10 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  */
 @Configuration
 @AutoConfigureAfter(RedisAutoConfiguration.class)
+@EnableConfigurationProperties({PersonRedisProperties.class, UserCacheProperties.class, CounterProperties.class,
+    LeaderboardProperties.class, QueueProperties.class, LockProperties.class, RateLimiterProperties.class,
+    TtlProperties.class, SegmentProperties.class, UniqueCounterProperties.class, WriteBehindProperties.class,
+    KeyAnalyzerProperties.class})
 public class RedisConfig {
 
     /**
@@ -28,11 +38,44 @@ public class RedisConfig {
      * @see RedisTemplate#afterPropertiesSet()
      */
     @Bean(name = "personRedisTemplate")
-    public RedisTemplate<String, PersonDTO> personRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, PersonDTO> personRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                                RedisSerializer<?> personValueSerializer) {
         RedisTemplate<String, PersonDTO> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(personValueSerializer);
         return template;
     }
+
+    /**
+     * 响应式的 personRedisTemplate，key 和 value 的序列化器与 {@link #personRedisTemplate} 一致，两者可以读写同一份数据
+     *
+     * @see org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration
+     */
+    @Bean(name = "reactivePersonRedisTemplate")
+    @SuppressWarnings("unchecked")
+    public ReactiveRedisTemplate<String, PersonDTO> reactivePersonRedisTemplate(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                                RedisSerializer<?> personValueSerializer) {
+        RedisSerializationContext<String, PersonDTO> serializationContext = RedisSerializationContext
+            .<String, PersonDTO>newSerializationContext(new StringRedisSerializer())
+            .value((RedisSerializer<PersonDTO>) personValueSerializer)
+            .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+    }
+
+    /**
+     * PersonDTO 的 value 序列化器，通过 redis.person.value-serializer 选择
+     * <p>
+     * 从 JSON 切换到 BINARY 时不需要迁移数据，{@link PersonBinaryRedisSerializer} 可以读取旧的 JSON 格式，
+     * 之后的写入都会使用二进制格式。
+     *
+     * @see PersonRedisProperties.ValueSerializer
+     */
+    @Bean
+    public RedisSerializer<?> personValueSerializer(PersonRedisProperties properties) {
+        if (properties.getValueSerializer() == PersonRedisProperties.ValueSerializer.BINARY) {
+            return new PersonBinaryRedisSerializer();
+        }
+        return new GenericJackson2JsonRedisSerializer();
+    }
 }
@@ -0,0 +1,98 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.metrics.HotKeyCache;
+import com.yuhangma.redis.learning.metrics.HotKeyDetector;
+import com.yuhangma.redis.learning.metrics.HotKeysEndpoint;
+import com.yuhangma.redis.learning.metrics.InstrumentedRedisConnectionFactory;
+import com.yuhangma.redis.learning.metrics.RedisCommandMetrics;
+import com.yuhangma.redis.learning.metrics.RedisCommandsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+/**
+ * RedisTemplate 命令指标配置，通过 redis.metrics.enabled=false 关闭
+ * <p>
+ * 把 redis.metrics.templates 中的 RedisTemplate 的连接工厂替换为 {@link InstrumentedRedisConnectionFactory}，
+ * 所有经过 template 的命令都会记录耗时、字节数和错误次数。
+ * 同时检测热点 key（redis.hot-key.enabled），可以把热点 key 的读取缓存在本地（redis.hot-key.promote）。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisCommandMetrics
+ * @since 2026/10/18
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({RedisMetricsProperties.class, HotKeyProperties.class})
+@ConditionalOnProperty(prefix = "redis.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RedisMetricsConfig {
+
+    @Bean
+    public RedisCommandMetrics redisCommandMetrics(MeterRegistry meterRegistry, RedisMetricsProperties properties) {
+        return new RedisCommandMetrics(meterRegistry, properties);
+    }
+
+    @Bean
+    public RedisCommandsEndpoint redisCommandsEndpoint(RedisCommandMetrics redisCommandMetrics) {
+        return new RedisCommandsEndpoint(redisCommandMetrics);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "redis.hot-key", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HotKeyDetector hotKeyDetector(HotKeyProperties properties) {
+        return new HotKeyDetector(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "redis.hot-key", name = "promote", havingValue = "true")
+    public HotKeyCache hotKeyCache(HotKeyProperties properties) {
+        return new HotKeyCache(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "redis.hot-key", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HotKeysEndpoint hotKeysEndpoint(HotKeyDetector hotKeyDetector, ObjectProvider<HotKeyCache> hotKeyCache) {
+        return new HotKeysEndpoint(hotKeyDetector, hotKeyCache.getIfAvailable());
+    }
+
+    /**
+     * 在 template 初始化之前替换连接工厂
+     * <p>
+     * BeanPostProcessor 会在其他 bean 之前创建，这里延迟获取 {@link RedisCommandMetrics}，
+     * 避免 MeterRegistry 过早创建而错过 spring boot 对它的配置
+     */
+    @Bean
+    public static BeanPostProcessor redisTemplateInstrumentationPostProcessor(Environment environment,
+                                                                              ObjectProvider<RedisCommandMetrics> metrics,
+                                                                              ObjectProvider<HotKeyDetector> hotKeyDetector,
+                                                                              ObjectProvider<HotKeyCache> hotKeyCache) {
+        List<String> templates = Binder.get(environment)
+            .bind("redis.metrics.templates", Bindable.listOf(String.class))
+            .orElseGet(() -> new RedisMetricsProperties().getTemplates());
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RedisTemplate && templates.contains(beanName)) {
+                    RedisTemplate<?, ?> template = (RedisTemplate<?, ?>) bean;
+                    template.setConnectionFactory(new InstrumentedRedisConnectionFactory(
+                        template.getRequiredConnectionFactory(), metrics.getObject(), beanName,
+                        hotKeyDetector.getIfAvailable(), hotKeyCache.getIfAvailable()));
+                    log.info("instrument redis template {}", beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
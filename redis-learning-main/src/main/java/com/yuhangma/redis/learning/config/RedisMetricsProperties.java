@@ -0,0 +1,50 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RedisTemplate 命令指标配置
+ *
+ * @author Moore
+ * @see RedisMetricsConfig
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.metrics")
+public class RedisMetricsProperties {
+
+    /**
+     * 是否包装 RedisTemplate 的连接工厂，为 false 时不做任何包装，没有额外开销
+     */
+    private boolean enabled = true;
+
+    /**
+     * 启动时是否记录指标，运行时可以通过 actuator 端点修改；关闭时只剩下动态代理的开销
+     */
+    private boolean recording = true;
+
+    /**
+     * 是否记录请求和响应的字节数，需要遍历参数和返回值
+     */
+    private boolean payloadEnabled = true;
+
+    /**
+     * 需要包装的 RedisTemplate 的 bean 名称
+     */
+    private List<String> templates = new ArrayList<>(List.of("stringRedisTemplate", "personRedisTemplate"));
+
+    /**
+     * 作为 prefix 标签的 key 前缀，不为空时只使用这些前缀，其他 key 的标签为 other；
+     * 为空时使用 key 中最后一个 ':' 之前（包含）的部分作为前缀
+     */
+    private List<String> keyPrefixes = new ArrayList<>();
+
+    /**
+     * prefix 标签最多的取值数量，超过之后新出现的前缀都记为 other，避免指标数量无限增长
+     */
+    private int maxKeyPrefixes = 100;
+}
@@ -0,0 +1,50 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 人群（set）服务配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.RedisSegmentService
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.segment")
+public class SegmentProperties {
+
+    /**
+     * 人群 key 的前缀，完整的 key 为 {keyPrefix}{segment}，
+     * 默认的 hash tag 使所有人群位于同一个 slot，集群模式下也可以在服务端做交集、并集、差集
+     */
+    private String keyPrefix = "segment:{segment}:";
+
+    /**
+     * 集合运算结果的缓存时间，相同的运算在这段时间内复用同一个结果 key，不重复计算
+     */
+    private Duration resultTtl = Duration.ofMinutes(1);
+
+    /**
+     * SSCAN 的 COUNT，以及 SADD / SREM 每条命令的成员数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 本地布隆过滤器期望的误判率
+     */
+    private double filterFpp = 0.01;
+
+    /**
+     * 本地布隆过滤器最多落后的时间，其他进程添加的成员在这段时间内可能被误判为不存在。
+     * 每次重建都要 SSCAN 整个人群，100 万成员的人群大约需要 2 秒，不宜过短
+     */
+    private Duration filterMaxStaleness = Duration.ofMinutes(1);
+
+    /**
+     * 构建过滤器时预留的容量比例，本进程添加的成员不需要重建就可以加入，误判率不会明显升高
+     */
+    private double filterHeadroom = 0.25;
+}
@@ -0,0 +1,26 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 过期时间策略配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.TtlPolicy
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.ttl")
+public class TtlProperties {
+
+    /**
+     * 随机缩短的最大比例，0.1 表示实际的过期时间在 [0.9 * ttl, ttl] 之间均匀分布，0 表示不加随机
+     */
+    private double jitter = 0.1;
+
+    /**
+     * 提前刷新（XFetch）的系数，越大越早刷新，0 表示不提前刷新
+     */
+    private double earlyRefreshBeta = 1.0;
+}
@@ -0,0 +1,50 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * HyperLogLog 去重计数配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.redis.RedisUniqueCounter
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.unique-counter")
+public class UniqueCounterProperties {
+
+    /**
+     * key 的前缀，完整的 key 为 {keyPrefix}{counter}:m:yyyyMMddHHmm、:h:yyyyMMddHH、:d:yyyyMMdd
+     */
+    private String keyPrefix = "hll:";
+
+    /**
+     * 本地缓冲刷新到 Redis 的间隔，也是进程崩溃时最多丢失的时间范围
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 每条 PFADD 命令最多的元素数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 一个分钟桶在一次刷新间隔内的不同元素超过这个数量时，改为在本地用 {@link com.yuhangma.redis.learning.redis.HyperLogLog}
+     * 聚合，刷新时只发送一个 12KB 的 sketch，而不是所有的元素
+     */
+    private int sketchThreshold = 1000;
+
+    /**
+     * 分钟桶合并到小时桶和天桶的间隔，小时和天的统计最多落后这么久
+     */
+    private Duration rollupInterval = Duration.ofMinutes(1);
+
+    private Duration minuteRetention = Duration.ofHours(3);
+
+    private Duration hourRetention = Duration.ofDays(7);
+
+    private Duration dayRetention = Duration.ofDays(400);
+}
@@ -0,0 +1,33 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * User 缓存配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.service.UserCacheService
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.user-cache")
+public class UserCacheProperties {
+
+    /**
+     * 缓存 key 的前缀，完整的 key 为 {keyPrefix}{id}
+     */
+    private String keyPrefix = "user:";
+
+    /**
+     * 存在的用户的缓存时间
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /**
+     * 不存在的用户的缓存时间，防止不存在的 id 每次都穿透到数据库
+     */
+    private Duration negativeTtl = Duration.ofMinutes(1);
+}
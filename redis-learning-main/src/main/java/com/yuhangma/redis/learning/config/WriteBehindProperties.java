@@ -0,0 +1,48 @@
+package com.yuhangma.redis.learning.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * User 异步写入数据库（write-behind）配置
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.service.UserWriteBehindService
+ * @since 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * 是否开启，开启之后新用户必须通过 UserWriteBehindService 创建，否则数据库自增的 id 会和 Redis 分配的 id 冲突
+     */
+    private boolean enabled = false;
+
+    /**
+     * 变更日志使用的 {@link com.yuhangma.redis.learning.redis.ReliableRedisQueue} 队列名
+     */
+    private String queue = "user-write-behind";
+
+    /**
+     * 分配用户 id 的计数器 key，第一次启动时初始化为数据库中最大的 id
+     */
+    private String idKey = "user:id:seq";
+
+    /**
+     * 每次写入数据库的最大变更数，也是 JDBC batch 的大小
+     */
+    private int batchSize = 500;
+
+    /**
+     * 取出的变更不满一批时，最多再等待这段时间，凑成更大的批次再写入数据库
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 每个实例写入数据库的线程数。大于 1 时，同一个用户的两次变更可能由不同的线程以相反的顺序写入
+     */
+    private int concurrency = 1;
+}
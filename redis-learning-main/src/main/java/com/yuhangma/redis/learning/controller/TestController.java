@@ -1,9 +1,9 @@
 package com.yuhangma.redis.learning.controller;
 
 import com.yuhangma.redis.learning.repository.UserRepository;
+import com.yuhangma.redis.learning.service.AsyncTestService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -18,14 +18,12 @@ public class TestController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AsyncTestService asyncTestService;
+
     @GetMapping("/test")
     public void run() {
-        test();
+        asyncTestService.test();
         log.error("run:" + Thread.currentThread().getName());
     }
-
-    @Async
-    public void test() {
-        log.error("test:" + Thread.currentThread().getName());
-    }
 }
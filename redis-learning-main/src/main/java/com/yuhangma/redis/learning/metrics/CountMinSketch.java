@@ -0,0 +1,77 @@
+package com.yuhangma.redis.learning.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的 count-min sketch，用固定的内存估算每个 key 的出现次数，估算值只会偏大不会偏小
+ * <p>
+ * depth 行、每行 width 个计数器，每行用不同的哈希函数选择一个计数器，估算值取所有行的最小值。
+ * 误差不超过 总次数 * e / width 的概率约为 1 - e ^ -depth。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://dimacs.rutgers.edu/~graham/pubs/papers/cm-full.pdf">An Improved Data Stream Summary: The Count-Min Sketch and its Applications</a>
+ * @since 2026/10/18
+ */
+final class CountMinSketch {
+
+    private final int depth;
+
+    private final int mask;
+
+    private final AtomicLongArray counters;
+
+    /**
+     * @param width 每行的计数器数量，向上取整为 2 的幂
+     */
+    CountMinSketch(int width, int depth) {
+        int w = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = depth;
+        this.mask = w - 1;
+        this.counters = new AtomicLongArray(w * depth);
+    }
+
+    /**
+     * 计数加一
+     *
+     * @return 加一之后的估算值
+     */
+    long add(byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            // 两个哈希值组合出 depth 个哈希函数
+            int index = i * (mask + 1) + ((h1 + i * h2) & mask);
+            min = Math.min(min, counters.incrementAndGet(index));
+        }
+        return min;
+    }
+
+    long estimate(byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, counters.get(i * (mask + 1) + ((h1 + i * h2) & mask)));
+        }
+        return min;
+    }
+
+    /**
+     * 64 位 FNV-1a，再经过 MurmurHash3 的 fmix64 打散
+     */
+    private static long hash(byte[] key) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
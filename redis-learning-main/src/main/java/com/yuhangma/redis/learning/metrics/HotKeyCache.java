@@ -0,0 +1,151 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.yuhangma.redis.learning.config.HotKeyProperties;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 热点 key 的本地缓存，缓存的是连接上读命令的原始返回值（序列化之前的 byte[]、Map、Set 等）
+ * <p>
+ * 以 Redis key 分组，同一个 key 的不同读命令和参数（例如 HGET 不同的 field）保存在同一个 {@link Entries} 中，
+ * 整组在第一次缓存 local-ttl 之后过期。经过本实例 RedisTemplate 的写命令执行之后，删除这个 key 的整组条目；
+ * 其他实例的写入最多 local-ttl 之后可见。
+ * 读取时先取得当前的 Entries，再访问 Redis，结果写回这个 Entries。加载期间 key 被删除时，Entries 已经不在缓存中，
+ * 旧的结果写入的是一个不再可见的对象，不会覆盖删除。
+ * 这里选择本地缓存，而不是把热点 key 复制成多个带后缀的副本分散到不同的节点：副本需要每次写入时同步更新所有副本，
+ * 读取的压力也仍然在 Redis 上，本地缓存可以把热点读取完全挡在 Redis 之外。
+ * </p>
+ *
+ * @author Moore
+ * @see HotKeyRedisConnection
+ * @since 2026/10/18
+ */
+public class HotKeyCache {
+
+    /**
+     * 缓存 null 返回值，例如不存在的 key 的 GET
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * 每个 key 最多缓存的读命令数，例如 HGET 大量不同的 field 时，超过之后的读取不再缓存
+     */
+    static final int MAX_CALLS_PER_KEY = 1024;
+
+    private final Cache<ByteBuffer, Entries> cache;
+
+    /**
+     * 命中和未命中按读命令统计，淘汰按 key 统计
+     */
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+
+    public HotKeyCache(HotKeyProperties properties) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getLocalTtl())
+            .maximumSize(properties.getLocalMaximumSize())
+            .removalListener((ByteBuffer key, Entries entries, RemovalCause cause) -> {
+                if (cause.wasEvicted()) {
+                    statsCounter.recordEviction(1);
+                }
+            })
+            .build();
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * 缓存的 key 数量
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    Object get(byte[] key, Method method, Object[] args, Loader loader) throws Throwable {
+        Entries entries = cache.get(ByteBuffer.wrap(key), k -> new Entries());
+        CallKey callKey = new CallKey(method, args);
+        Object value = entries.values.get(callKey);
+        if (value != null) {
+            statsCounter.recordHits(1);
+            return value == NULL ? null : value;
+        }
+        statsCounter.recordMisses(1);
+        // 不在 Caffeine 的 compute 中加载：加载时会持有内部的锁，而且 loader 会抛出受检异常
+        long start = System.nanoTime();
+        Object loaded = loader.load();
+        statsCounter.recordLoadSuccess(System.nanoTime() - start);
+        if (entries.values.size() < MAX_CALLS_PER_KEY) {
+            entries.values.put(callKey, loaded == null ? NULL : loaded);
+        }
+        return loaded;
+    }
+
+    void invalidate(byte[] key) {
+        cache.invalidate(ByteBuffer.wrap(key));
+    }
+
+    @FunctionalInterface
+    interface Loader {
+
+        Object load() throws Throwable;
+    }
+
+    /**
+     * 一个 key 的所有缓存条目，对象本身作为这个 key 的版本：删除 key 之后重新读取会创建新的 Entries
+     */
+    private static final class Entries {
+
+        private final Map<CallKey, Object> values = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 命令和参数，参数中的 byte[] 按内容比较
+     */
+    private static final class CallKey {
+
+        private final Method method;
+
+        private final Object[] args;
+
+        private final int hash;
+
+        CallKey(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * method.hashCode() + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CallKey)) {
+                return false;
+            }
+            CallKey other = (CallKey) o;
+            return hash == other.hash && Objects.equals(method, other.method) && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
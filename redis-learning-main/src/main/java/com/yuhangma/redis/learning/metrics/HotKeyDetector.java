@@ -0,0 +1,207 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.yuhangma.redis.learning.config.HotKeyProperties;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点 key 检测：按窗口统计经过 RedisTemplate 的 key 的访问次数，报告访问最多的 top-K，超过阈值的是热点 key
+ * <ul>
+ * <li>采样：每次访问以 sampleRate 的概率计入，未采样的访问只多一次随机数的开销</li>
+ * <li>计数：采样的 key 计入 {@link CountMinSketch}，内存固定，不随 key 的数量增长</li>
+ * <li>候选：估算值较大的 key 放入候选集合，集合超过 8K 时只保留估算值最大的一半，并提高进入候选的门槛</li>
+ * <li>窗口：每个窗口结束时从候选中选出 top-K，估算的每秒访问次数达到 threshold 的 key 成为热点 key，
+ * 在下一个窗口中由 {@link HotKeyCache} 缓存在本地，然后清空计数重新统计</li>
+ * </ul>
+ * 本地缓存命中的访问同样计入，热点 key 不会因为被缓存而在下一个窗口中变冷。
+ *
+ * @author Moore
+ * @see HotKeyRedisConnection
+ * @since 2026/10/18
+ */
+@Slf4j
+public class HotKeyDetector implements AutoCloseable {
+
+    private final double sampleRate;
+
+    private final long windowMillis;
+
+    private final int topK;
+
+    private final long threshold;
+
+    private final int sketchWidth;
+
+    private final int sketchDepth;
+
+    private final int candidateCapacity;
+
+    private volatile Window window;
+
+    private volatile List<HotKey> topKeys = Collections.emptyList();
+
+    private volatile Set<ByteBuffer> hotKeys = Collections.emptySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-hot-key");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotKeyDetector(HotKeyProperties properties) {
+        this.sampleRate = properties.getSampleRate();
+        this.windowMillis = properties.getWindow().toMillis();
+        this.topK = properties.getTopK();
+        this.threshold = properties.getThreshold();
+        this.sketchWidth = properties.getSketchWidth();
+        this.sketchDepth = properties.getSketchDepth();
+        this.candidateCapacity = Math.max(16, topK * 8);
+        this.window = new Window();
+    }
+
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::rotateQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public void record(byte[] key) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        window.add(key);
+    }
+
+    public boolean isHot(byte[] key) {
+        Set<ByteBuffer> hot = hotKeys;
+        return !hot.isEmpty() && hot.contains(ByteBuffer.wrap(key));
+    }
+
+    /**
+     * 上一个窗口访问最多的 key，按估算的访问次数从大到小排列
+     */
+    public List<HotKey> topKeys() {
+        return topKeys;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 结束当前窗口：计算 top-K 和热点 key，开始新的窗口
+     */
+    void rotate() {
+        Window finished = window;
+        window = new Window();
+        List<Map.Entry<ByteBuffer, Long>> entries = new ArrayList<>(finished.candidates.entrySet());
+        entries.sort(Map.Entry.<ByteBuffer, Long>comparingByValue().reversed());
+        List<HotKey> top = new ArrayList<>(Math.min(topK, entries.size()));
+        Set<ByteBuffer> hot = new HashSet<>();
+        for (Map.Entry<ByteBuffer, Long> entry : entries.subList(0, Math.min(topK, entries.size()))) {
+            long count = Math.round(entry.getValue() / sampleRate);
+            double qps = count * 1000.0 / windowMillis;
+            boolean isHot = qps >= threshold;
+            if (isHot) {
+                hot.add(entry.getKey());
+            }
+            top.add(new HotKey(new String(entry.getKey().array(), StandardCharsets.UTF_8), count, qps, isHot));
+        }
+        Set<ByteBuffer> previous = hotKeys;
+        topKeys = Collections.unmodifiableList(top);
+        hotKeys = hot.isEmpty() ? Collections.emptySet() : hot;
+        if (!hot.isEmpty() || !previous.isEmpty()) {
+            log.info("hot keys: {}, top {}: {}", hot.size(), top.size(), top);
+        }
+    }
+
+    private void rotateQuietly() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            log.warn("rotate hot key window failed", e);
+        }
+    }
+
+    /**
+     * 一个统计窗口，key 使用 ByteBuffer 包装，按内容比较
+     */
+    private class Window {
+
+        private final CountMinSketch sketch = new CountMinSketch(sketchWidth, sketchDepth);
+
+        private final Map<ByteBuffer, Long> candidates = new ConcurrentHashMap<>();
+
+        /**
+         * 进入候选集合的最小估算值
+         */
+        private volatile long floor = 1;
+
+        void add(byte[] key) {
+            long estimate = sketch.add(key);
+            if (estimate < floor) {
+                return;
+            }
+            if (candidates.replace(ByteBuffer.wrap(key), estimate) == null) {
+                candidates.putIfAbsent(ByteBuffer.wrap(key.clone()), estimate);
+                if (candidates.size() > candidateCapacity) {
+                    prune();
+                }
+            }
+        }
+
+        private synchronized void prune() {
+            if (candidates.size() <= candidateCapacity) {
+                return;
+            }
+            List<Long> estimates = new ArrayList<>(candidates.values());
+            estimates.sort(Collections.reverseOrder());
+            long newFloor = estimates.get(candidateCapacity / 2) + 1;
+            candidates.values().removeIf(estimate -> estimate < newFloor);
+            floor = newFloor;
+        }
+    }
+
+    @Data
+    public static class HotKey {
+
+        private final String key;
+
+        /**
+         * 窗口内估算的访问次数
+         */
+        private final long count;
+
+        private final double qps;
+
+        private final boolean hot;
+    }
+}
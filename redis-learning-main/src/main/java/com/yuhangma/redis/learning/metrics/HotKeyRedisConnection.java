@@ -0,0 +1,158 @@
+package com.yuhangma.redis.learning.metrics;
+
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 检测热点 key 的连接代理，位于 {@link InstrumentedRedisConnection} 之外，本地缓存命中的读取不会计入命令指标
+ * <ul>
+ * <li>所有带 key 的命令都交给 {@link HotKeyDetector} 采样计数</li>
+ * <li>{@link #READS} 中的读命令访问热点 key 时，结果由 {@link HotKeyCache} 缓存；pipeline 和事务中的命令只是排队，不使用缓存</li>
+ * <li>参数中没有 key 的命令（{@link RedisCommandKeys#NO_KEYS}）直接执行，不采样也不删除缓存</li>
+ * <li>{@link #UNCACHED_READS} 以外的命令都按写命令处理，执行之后删除其中所有 key 的本地缓存，不论 key 现在是否是热点：
+ * 上一个热点周期缓存的条目还没有过期时，不能返回写入之前的值。pipeline 和事务中的写命令在
+ * closePipeline、exec 之后再删除一次，排队期间读取到的旧值不会留在缓存中</li>
+ * <li>key 按照每个命令的参数位置解析，见 {@link RedisCommandKeys}</li>
+ * </ul>
+ *
+ * @author Moore
+ * @see InstrumentedRedisConnectionFactory
+ * @since 2026/10/18
+ */
+class HotKeyRedisConnection implements InvocationHandler {
+
+    /**
+     * 可以缓存的读命令，结果只取决于 key 的内容和参数
+     */
+    private static final Set<String> READS = Set.of("get", "getRange", "strLen", "getBit",
+        "hGet", "hMGet", "hGetAll", "hKeys", "hVals", "hExists", "hLen",
+        "sMembers", "sIsMember", "sCard",
+        "zRange", "zRevRange", "zRangeWithScores", "zRevRangeWithScores", "zRangeByScore", "zRevRangeByScore",
+        "zRangeByScoreWithScores", "zRevRangeByScoreWithScores", "zScore", "zRank", "zRevRank", "zCard", "zCount",
+        "lRange", "lIndex", "lLen");
+
+    /**
+     * 不缓存、也不需要删除缓存的读命令，其他没有列出的命令都按写命令处理
+     */
+    private static final Set<String> UNCACHED_READS = Set.of("mGet", "exists", "type", "ttl", "pTtl", "dump",
+        "hScan", "sScan", "zScan", "sRandMember", "sInter", "sUnion", "sDiff", "zRangeByLex", "zLexCount",
+        "bitCount", "bitPos", "pfCount", "geoPos", "geoDist", "geoHash", "geoRadius", "geoRadiusByMember");
+
+    private static final Map<Method, Kind> KINDS = new ConcurrentHashMap<>();
+
+    private final RedisConnection delegate;
+
+    private final HotKeyDetector detector;
+
+    private final HotKeyCache cache;
+
+    /**
+     * pipeline 或者事务中排队的写命令的 key，连接只在一个线程中使用
+     */
+    private final List<byte[]> queuedWrites = new ArrayList<>();
+
+    /**
+     * @param cache 为 null 时只检测，不缓存
+     */
+    HotKeyRedisConnection(RedisConnection delegate, HotKeyDetector detector, HotKeyCache cache) {
+        this.delegate = delegate;
+        this.detector = detector;
+        this.cache = cache;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("getDelegate".equals(name) && method.getParameterCount() == 0) {
+            return delegate;
+        }
+        if (method.getParameterCount() == 0 && cache != null) {
+            switch (name) {
+                case "closePipeline":
+                case "exec":
+                    try {
+                        return invokeDelegate(method, args);
+                    } finally {
+                        queuedWrites.forEach(cache::invalidate);
+                        queuedWrites.clear();
+                    }
+                case "discard":
+                    queuedWrites.clear();
+                    return invokeDelegate(method, args);
+                case "flushDb":
+                case "flushAll":
+                    try {
+                        return invokeDelegate(method, args);
+                    } finally {
+                        cache.invalidateAll();
+                    }
+                default:
+                    break;
+            }
+        }
+        Kind kind = KINDS.computeIfAbsent(method, HotKeyRedisConnection::kind);
+        if (kind == Kind.NONE || args == null || args.length == 0) {
+            return invokeDelegate(method, args);
+        }
+        if (kind == Kind.READ && args[0] instanceof byte[]) {
+            byte[] key = (byte[]) args[0];
+            detector.record(key);
+            if (cache != null && detector.isHot(key) && !delegate.isPipelined() && !delegate.isQueueing()) {
+                return cache.get(key, method, args, () -> invokeDelegate(method, args));
+            }
+            return invokeDelegate(method, args);
+        }
+        byte[][] keys = RedisCommandKeys.keys(method, args);
+        for (byte[] key : keys) {
+            detector.record(key);
+        }
+        if (kind == Kind.UNCACHED_READ || cache == null) {
+            return invokeDelegate(method, args);
+        }
+        try {
+            return invokeDelegate(method, args);
+        } finally {
+            for (byte[] key : keys) {
+                cache.invalidate(key);
+            }
+            if (delegate.isPipelined() || delegate.isQueueing()) {
+                queuedWrites.addAll(Arrays.asList(keys));
+            }
+        }
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static Kind kind(Method method) {
+        String name = method.getName();
+        // SCRIPT LOAD、PUBLISH 等命令的参数中没有 key，脚本内容、频道不计入热点，也不需要删除缓存
+        if (InstrumentedRedisConnection.PASS_THROUGH.contains(name) || name.endsWith("Commands")
+            || RedisCommandKeys.NO_KEYS.contains(name)) {
+            return Kind.NONE;
+        }
+        if (READS.contains(name)) {
+            return Kind.READ;
+        }
+        return UNCACHED_READS.contains(name) ? Kind.UNCACHED_READ : Kind.WRITE;
+    }
+
+    private enum Kind {
+
+        READ, UNCACHED_READ, WRITE, NONE
+    }
+}
@@ -0,0 +1,61 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点 key 的 actuator 端点：GET /actuator/hotkeys 查看上一个窗口访问最多的 key 和本地缓存的命中情况，
+ * DELETE /actuator/hotkeys 清空本地缓存
+ *
+ * @author Moore
+ * @see HotKeyDetector
+ * @since 2026/10/18
+ */
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final HotKeyDetector detector;
+
+    private final HotKeyCache cache;
+
+    /**
+     * @param cache 没有开启本地缓存时为 null
+     */
+    public HotKeysEndpoint(HotKeyDetector detector, HotKeyCache cache) {
+        this.detector = detector;
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowMs", detector.getWindowMillis());
+        result.put("sampleRate", detector.getSampleRate());
+        result.put("threshold", detector.getThreshold());
+        result.put("topKeys", detector.topKeys());
+        result.put("promote", cache != null);
+        if (cache != null) {
+            CacheStats stats = cache.stats();
+            Map<String, Object> localCache = new LinkedHashMap<>();
+            localCache.put("size", cache.size());
+            localCache.put("hitCount", stats.hitCount());
+            localCache.put("missCount", stats.missCount());
+            localCache.put("hitRate", stats.hitRate());
+            result.put("localCache", localCache);
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> invalidate() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        return hotKeys();
+    }
+}
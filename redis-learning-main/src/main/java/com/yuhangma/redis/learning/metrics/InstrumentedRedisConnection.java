@@ -0,0 +1,134 @@
+package com.yuhangma.redis.learning.metrics;
+
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录命令指标的连接代理，命令名称为方法名的大写，例如 pExpire 记为 PEXPIRE，execute 记为实际执行的命令。
+ * prefix 标签取自 {@link RedisCommandKeys} 解析出的第一个 key，SCRIPT LOAD、没有 key 的 EVAL 等命令记为 none
+ *
+ * @author Moore
+ * @see InstrumentedRedisConnectionFactory
+ * @since 2026/10/18
+ */
+class InstrumentedRedisConnection implements InvocationHandler {
+
+    /**
+     * 不是 Redis 命令的方法，直接调用
+     */
+    static final Set<String> PASS_THROUGH = Set.of("close", "isClosed", "getNativeConnection", "isQueueing",
+        "isPipelined", "isSubscribed", "getSubscription", "openPipeline", "getSentinelConnection",
+        "equals", "hashCode", "toString");
+
+    /**
+     * 方法对应的命令名称，不是命令的方法对应 {@link #NOT_A_COMMAND}
+     */
+    private static final Map<Method, String> COMMANDS = new ConcurrentHashMap<>();
+
+    private static final String NOT_A_COMMAND = "";
+
+    private static final String PIPELINE = "PIPELINE";
+
+    private static final String EXEC = "EXEC";
+
+    private final RedisConnection delegate;
+
+    private final RedisCommandMetrics metrics;
+
+    private final String template;
+
+    InstrumentedRedisConnection(RedisConnection delegate, RedisCommandMetrics metrics, String template) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.template = template;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("getDelegate".equals(method.getName()) && method.getParameterCount() == 0) {
+            return delegate;
+        }
+        String command = COMMANDS.computeIfAbsent(method, InstrumentedRedisConnection::commandName);
+        if (command == NOT_A_COMMAND || !metrics.isRecording()) {
+            return invokeDelegate(method, args);
+        }
+        if ("EXECUTE".equals(command) && args.length > 0 && args[0] instanceof String) {
+            command = ((String) args[0]).toUpperCase(Locale.ROOT);
+        }
+        byte[] key = RedisCommandKeys.firstKey(method, args);
+        RedisCommandMetrics.CommandMeters meters = metrics.meters(template, command, metrics.keyPrefix(key));
+        boolean payloadEnabled = metrics.isPayloadEnabled();
+        if (payloadEnabled) {
+            meters.getRequestBytes().record(payloadSize(args));
+        }
+        // pipeline 和事务中的命令只是排队，不计时，结果在 closePipeline 或者 exec 中返回
+        boolean queued = command != PIPELINE && command != EXEC && (delegate.isPipelined() || delegate.isQueueing());
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invokeDelegate(method, args);
+        } catch (Throwable e) {
+            metrics.recordError(meters, e);
+            throw e;
+        }
+        if (!queued) {
+            meters.getTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (payloadEnabled) {
+                meters.getResponseBytes().record(payloadSize(result));
+            }
+        }
+        return result;
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static String commandName(Method method) {
+        String name = method.getName();
+        if (PASS_THROUGH.contains(name) || name.endsWith("Commands")) {
+            return NOT_A_COMMAND;
+        }
+        if ("closePipeline".equals(name)) {
+            return PIPELINE;
+        }
+        if ("exec".equals(name)) {
+            return EXEC;
+        }
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    private static long payloadSize(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        long size = 0;
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                size += payloadSize(element);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                size += payloadSize(element);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += payloadSize(entry.getKey()) + payloadSize(entry.getValue());
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,103 @@
+package com.yuhangma.redis.learning.metrics;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.DecoratedRedisConnection;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 包装 RedisTemplate 使用的连接工厂，返回的连接是记录指标的 JDK 动态代理
+ * <p>
+ * 代理实现了原始连接的所有接口和 {@link DecoratedRedisConnection}，
+ * 所以 {@code RedisConnections.lettuceConnection} 仍然可以拿到原生的 LettuceConnection，这部分命令不会被记录。
+ * 配置了 {@link HotKeyDetector} 时，外面再包一层 {@link HotKeyRedisConnection}，检测热点 key 并缓存热点 key 的读取。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisCommandMetrics
+ * @since 2026/10/18
+ */
+public class InstrumentedRedisConnectionFactory implements RedisConnectionFactory {
+
+    private static final Map<Class<?>, Class<?>[]> PROXY_INTERFACES = new ConcurrentHashMap<>();
+
+    private final RedisConnectionFactory delegate;
+
+    private final RedisCommandMetrics metrics;
+
+    private final String template;
+
+    private final HotKeyDetector hotKeyDetector;
+
+    private final HotKeyCache hotKeyCache;
+
+    public InstrumentedRedisConnectionFactory(RedisConnectionFactory delegate, RedisCommandMetrics metrics, String template) {
+        this(delegate, metrics, template, null, null);
+    }
+
+    /**
+     * @param hotKeyDetector 为 null 时不检测热点 key
+     * @param hotKeyCache    为 null 时不缓存热点 key
+     */
+    public InstrumentedRedisConnectionFactory(RedisConnectionFactory delegate, RedisCommandMetrics metrics, String template,
+                                              HotKeyDetector hotKeyDetector, HotKeyCache hotKeyCache) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.template = template;
+        this.hotKeyDetector = hotKeyDetector;
+        this.hotKeyCache = hotKeyCache;
+    }
+
+    public RedisConnectionFactory getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        return instrument(delegate.getConnection());
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return instrument(delegate.getClusterConnection());
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegate.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegate.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends RedisConnection> T instrument(T connection) {
+        Class<?>[] interfaces = PROXY_INTERFACES.computeIfAbsent(connection.getClass(), type -> {
+            Set<Class<?>> all = ClassUtils.getAllInterfacesForClassAsSet(type);
+            all.add(DecoratedRedisConnection.class);
+            return all.toArray(new Class<?>[0]);
+        });
+        T instrumented = (T) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+            new InstrumentedRedisConnection(connection, metrics, template));
+        if (hotKeyDetector == null) {
+            return instrumented;
+        }
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+            new HotKeyRedisConnection(instrumented, hotKeyDetector, hotKeyCache));
+    }
+}
@@ -0,0 +1,84 @@
+package com.yuhangma.redis.learning.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * Lettuce 连接池的指标，从 commons-pool2 注册的 JMX MBean 中读取
+ * <p>
+ * LettucePoolingConnectionProvider 按连接类型懒加载地创建连接池，所以这里不持有连接池的引用，
+ * 每次采集时按照 {@link #jmxNamePrefix} 查询所有的连接池并汇总：数量类的指标求和，等待时间取最大值。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+public class LettucePoolMetrics implements MeterBinder {
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private final String jmxNamePrefix;
+
+    public LettucePoolMetrics(String jmxNamePrefix) {
+        this.jmxNamePrefix = jmxNamePrefix;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "redis.pool.active", "NumActive", "Connections borrowed from the pool", Double::sum);
+        gauge(registry, "redis.pool.idle", "NumIdle", "Idle connections in the pool", Double::sum);
+        gauge(registry, "redis.pool.waiters", "NumWaiters", "Threads blocked waiting for a connection", Double::sum);
+        gauge(registry, "redis.pool.max", "MaxTotal", "Maximum connections of the pool", Double::sum);
+        gauge(registry, "redis.pool.borrow.wait.mean", "MeanBorrowWaitTimeMillis",
+            "Mean time in milliseconds waiting to borrow a connection", Math::max);
+        gauge(registry, "redis.pool.borrow.wait.max", "MaxBorrowWaitTimeMillis",
+            "Maximum time in milliseconds waiting to borrow a connection", Math::max);
+        FunctionCounter.builder("redis.pool.borrowed", this, metrics -> metrics.aggregate("BorrowedCount", Double::sum))
+            .description("Connections borrowed from the pool")
+            .register(registry);
+        FunctionCounter.builder("redis.pool.created", this, metrics -> metrics.aggregate("CreatedCount", Double::sum))
+            .description("Connections created by the pool")
+            .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String attribute, String description,
+                       BinaryOperator<Double> reducer) {
+        Gauge.builder(name, this, metrics -> metrics.aggregate(attribute, reducer))
+            .description(description)
+            .register(registry);
+    }
+
+    private double aggregate(String attribute, BinaryOperator<Double> reducer) {
+        double result = 0;
+        for (ObjectName name : poolNames()) {
+            try {
+                Number value = (Number) mBeanServer.getAttribute(name, attribute);
+                result = reducer.apply(result, value.doubleValue());
+            } catch (JMException e) {
+                // 连接池在查询之后被关闭
+                log.debug("read {} of {} failed", attribute, name, e);
+            }
+        }
+        return result;
+    }
+
+    private Set<ObjectName> poolNames() {
+        try {
+            return mBeanServer.queryNames(
+                new ObjectName("org.apache.commons.pool2:type=GenericObjectPool,name=" + jmxNamePrefix + "*"), null);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.yuhangma.redis.learning.metrics;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按照每个命令的参数位置解析 RedisConnection 方法中的 key，由 {@link InstrumentedRedisConnection} 和
+ * {@link HotKeyRedisConnection} 共用：
+ * <ul>
+ * <li>{@link #NO_KEYS} 中的方法第一个参数不是 key，例如 SCRIPT LOAD 的脚本内容、PUBLISH 的频道、KEYS 的 pattern</li>
+ * <li>EVAL、EVALSHA 只使用 numKeys 之前的参数，不会把脚本内容当作 key</li>
+ * <li>RENAME、RPOPLPUSH、SMOVE、BITOP、*STORE 等命令包括目标 key</li>
+ * </ul>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+final class RedisCommandKeys {
+
+    /**
+     * 有参数但是参数中没有 key 的方法
+     */
+    static final Set<String> NO_KEYS = Set.of("scriptLoad", "scriptExists", "keys", "publish", "subscribe",
+        "pSubscribe", "echo", "select", "info", "getConfig", "setConfig", "killClient", "setClientName", "slaveOf",
+        "shutdown");
+
+    /**
+     * 通过 execute 执行时没有 key 的命令
+     */
+    private static final Set<String> NO_KEY_COMMANDS = Set.of("SCRIPT", "KEYS", "PUBLISH", "SUBSCRIBE",
+        "PSUBSCRIBE", "ECHO", "PING", "SELECT", "INFO", "CONFIG", "CLIENT", "CLUSTER", "SLAVEOF", "SHUTDOWN");
+
+    private static final byte[][] EMPTY = new byte[0][];
+
+    private RedisCommandKeys() {
+    }
+
+    /**
+     * 第一个 key，没有 key 时返回 null
+     */
+    static byte[] firstKey(Method method, Object[] args) {
+        byte[][] keys = keys(method, args);
+        return keys.length > 0 ? keys[0] : null;
+    }
+
+    /**
+     * 命令参数中的所有 key，包括目标 key
+     */
+    static byte[][] keys(Method method, Object[] args) {
+        String name = method.getName();
+        if (args == null || args.length == 0 || NO_KEYS.contains(name)) {
+            return EMPTY;
+        }
+        switch (name) {
+            case "execute":
+                // execute(command, args...)
+                return args.length > 1 && args[0] instanceof String && args[1] instanceof byte[][]
+                    ? executeKeys((String) args[0], (byte[][]) args[1]) : EMPTY;
+            case "eval":
+            case "evalSha":
+                // eval(script, returnType, numKeys, keysAndArgs...)
+                byte[][] keysAndArgs = (byte[][]) args[3];
+                return Arrays.copyOf(keysAndArgs, Math.min((Integer) args[2], keysAndArgs.length));
+            case "rename":
+            case "renameNX":
+            case "rPopLPush":
+            case "sMove":
+                return new byte[][]{(byte[]) args[0], (byte[]) args[1]};
+            case "bRPopLPush":
+                return new byte[][]{(byte[]) args[1], (byte[]) args[2]};
+            case "bLPop":
+            case "bRPop":
+                return keys(args[1]);
+            case "bitOp":
+                return concat(keys(args[1]), keys(args[2]));
+            case "sInterStore":
+            case "sUnionStore":
+            case "sDiffStore":
+            case "pfMerge":
+                return concat(keys(args[0]), keys(args[1]));
+            case "zInterStore":
+            case "zUnionStore":
+                return concat(keys(args[0]), keys(args[args.length - 1]));
+            case "sort":
+                return args.length > 2 ? concat(keys(args[0]), keys(args[2])) : keys(args[0]);
+            default:
+                return keys(args[0]);
+        }
+    }
+
+    /**
+     * execute 执行的命令只知道命令名称，EVAL、EVALSHA 按 numKeys 解析，其他命令只取第一个参数
+     */
+    private static byte[][] executeKeys(String command, byte[][] args) {
+        String upper = command.toUpperCase(Locale.ROOT);
+        if (args.length == 0 || NO_KEY_COMMANDS.contains(upper)) {
+            return EMPTY;
+        }
+        if ("EVAL".equals(upper) || "EVALSHA".equals(upper)) {
+            // EVAL script numKeys key... arg...
+            if (args.length < 3) {
+                return EMPTY;
+            }
+            int numKeys;
+            try {
+                numKeys = Integer.parseInt(new String(args[1], StandardCharsets.UTF_8));
+            } catch (NumberFormatException e) {
+                return EMPTY;
+            }
+            return Arrays.copyOfRange(args, 2, Math.max(2, Math.min(2 + numKeys, args.length)));
+        }
+        return new byte[][]{args[0]};
+    }
+
+    /**
+     * 参数中的 key：单个 key、多个 key（DEL、MGET）或者 MSET 的 map
+     */
+    private static byte[][] keys(Object arg) {
+        if (arg instanceof byte[]) {
+            return new byte[][]{(byte[]) arg};
+        }
+        if (arg instanceof byte[][]) {
+            return (byte[][]) arg;
+        }
+        if (arg instanceof Map) {
+            return ((Map<?, ?>) arg).keySet().stream().filter(byte[].class::isInstance).toArray(byte[][]::new);
+        }
+        return EMPTY;
+    }
+
+    private static byte[][] concat(byte[][] first, byte[][] second) {
+        byte[][] keys = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, keys, first.length, second.length);
+        return keys;
+    }
+}
@@ -0,0 +1,246 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.yuhangma.redis.learning.config.RedisMetricsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RedisTemplate 命令指标，按照 template、command、prefix 三个标签记录：
+ * <ul>
+ * <li>redis.template.command：命令耗时，pipeline 和事务中排队的命令不计时，由 closePipeline / exec 统一计时</li>
+ * <li>redis.template.payload：请求和响应的字节数，direction 标签为 request / response</li>
+ * <li>redis.template.errors：命令执行失败的次数，额外带有 exception 标签</li>
+ * </ul>
+ * prefix 标签有数量上限，超过之后记为 {@link #OTHER}，防止以 ID、日期结尾的前缀导致指标数量无限增长。
+ *
+ * @author Moore
+ * @see InstrumentedRedisConnectionFactory
+ * @since 2026/10/18
+ */
+public class RedisCommandMetrics {
+
+    public static final String METRIC_NAME = "redis.template.command";
+
+    public static final String PAYLOAD_METRIC_NAME = "redis.template.payload";
+
+    public static final String ERROR_METRIC_NAME = "redis.template.errors";
+
+    /**
+     * 没有 key 的命令，例如 PING、DBSIZE
+     */
+    public static final String NONE = "none";
+
+    /**
+     * 超过数量上限或者不在配置中的前缀
+     */
+    public static final String OTHER = "other";
+
+    private static final byte PREFIX_SEPARATOR = ':';
+
+    private final MeterRegistry registry;
+
+    private final List<String> keyPrefixes;
+
+    private final int maxKeyPrefixes;
+
+    private final Set<String> seenKeyPrefixes = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentMap<MeterKey, CommandMeters> commandMeters = new ConcurrentHashMap<>();
+
+    private volatile boolean recording;
+
+    private volatile boolean payloadEnabled;
+
+    public RedisCommandMetrics(MeterRegistry registry, RedisMetricsProperties properties) {
+        this.registry = registry;
+        this.keyPrefixes = List.copyOf(properties.getKeyPrefixes());
+        this.maxKeyPrefixes = properties.getMaxKeyPrefixes();
+        this.recording = properties.isRecording();
+        this.payloadEnabled = properties.isPayloadEnabled();
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public boolean isPayloadEnabled() {
+        return payloadEnabled;
+    }
+
+    public void setPayloadEnabled(boolean payloadEnabled) {
+        this.payloadEnabled = payloadEnabled;
+    }
+
+    /**
+     * 已经记录过的命令的指标
+     */
+    public Collection<CommandMeters> commandMeters() {
+        return commandMeters.values();
+    }
+
+    CommandMeters meters(String template, String command, String keyPrefix) {
+        MeterKey key = new MeterKey(template, command, keyPrefix);
+        CommandMeters meters = commandMeters.get(key);
+        return meters != null ? meters : commandMeters.computeIfAbsent(key, CommandMeters::new);
+    }
+
+    /**
+     * 计算 key 的 prefix 标签
+     */
+    String keyPrefix(byte[] key) {
+        if (key == null) {
+            return NONE;
+        }
+        if (!keyPrefixes.isEmpty()) {
+            return configuredPrefix(key);
+        }
+        int end = lastIndexOf(key, PREFIX_SEPARATOR);
+        if (end < 0) {
+            return OTHER;
+        }
+        String prefix = new String(key, 0, end + 1, StandardCharsets.UTF_8);
+        if (seenKeyPrefixes.contains(prefix)) {
+            return prefix;
+        }
+        // 并发时可能略微超过上限，不影响防止无限增长的目的
+        if (seenKeyPrefixes.size() >= maxKeyPrefixes) {
+            return OTHER;
+        }
+        seenKeyPrefixes.add(prefix);
+        return prefix;
+    }
+
+    void recordError(CommandMeters meters, Throwable e) {
+        Counter.builder(ERROR_METRIC_NAME)
+            .description("Failed Redis commands issued through RedisTemplate")
+            .tag("template", meters.template)
+            .tag("command", meters.command)
+            .tag("prefix", meters.keyPrefix)
+            .tag("exception", e.getClass().getSimpleName())
+            .register(registry)
+            .increment();
+        meters.errors.increment();
+    }
+
+    private String configuredPrefix(byte[] key) {
+        String keyString = new String(key, StandardCharsets.UTF_8);
+        for (String prefix : keyPrefixes) {
+            if (keyString.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return OTHER;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 一个 template、command、prefix 组合对应的指标
+     */
+    @Getter
+    public class CommandMeters {
+
+        private final String template;
+
+        private final String command;
+
+        private final String keyPrefix;
+
+        private final Timer timer;
+
+        private final DistributionSummary requestBytes;
+
+        private final DistributionSummary responseBytes;
+
+        /**
+         * 失败次数的汇总，只用于 actuator 端点，按异常类型区分的计数器只在失败时才创建
+         */
+        @Getter(AccessLevel.NONE)
+        private final LongAdder errors = new LongAdder();
+
+        private CommandMeters(MeterKey key) {
+            this.template = key.template;
+            this.command = key.command;
+            this.keyPrefix = key.keyPrefix;
+            this.timer = Timer.builder(METRIC_NAME)
+                .description("Redis commands issued through RedisTemplate")
+                .tags("template", template, "command", command, "prefix", keyPrefix)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+            this.requestBytes = payloadSummary("request");
+            this.responseBytes = payloadSummary("response");
+        }
+
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        private DistributionSummary payloadSummary(String direction) {
+            return DistributionSummary.builder(PAYLOAD_METRIC_NAME)
+                .description("Payload size of Redis commands issued through RedisTemplate")
+                .baseUnit("bytes")
+                .tags("template", template, "command", command, "prefix", keyPrefix, "direction", direction)
+                .register(registry);
+        }
+    }
+
+    private static final class MeterKey {
+
+        private final String template;
+
+        private final String command;
+
+        private final String keyPrefix;
+
+        private final int hash;
+
+        private MeterKey(String template, String command, String keyPrefix) {
+            this.template = template;
+            this.command = command;
+            this.keyPrefix = keyPrefix;
+            this.hash = Objects.hash(template, command, keyPrefix);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MeterKey)) {
+                return false;
+            }
+            MeterKey other = (MeterKey) o;
+            return template.equals(other.template) && command.equals(other.command) && keyPrefix.equals(other.keyPrefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
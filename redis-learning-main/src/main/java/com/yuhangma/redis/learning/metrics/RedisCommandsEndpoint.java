@@ -0,0 +1,117 @@
+package com.yuhangma.redis.learning.metrics;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * RedisTemplate 命令指标的 actuator 端点：GET /actuator/rediscommands 查看每个命令的统计，
+ * POST /actuator/rediscommands 运行时开关指标的记录
+ * <pre>
+ * curl -X POST -H 'Content-Type: application/json' -d '{"recording":false}' localhost:8088/actuator/rediscommands
+ * </pre>
+ *
+ * @author Moore
+ * @see RedisCommandMetrics
+ * @since 2026/10/18
+ */
+@Endpoint(id = "rediscommands")
+public class RedisCommandsEndpoint {
+
+    private final RedisCommandMetrics metrics;
+
+    public RedisCommandsEndpoint(RedisCommandMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> commands() {
+        List<CommandSummary> commands = metrics.commandMeters().stream()
+            .map(CommandSummary::of)
+            .sorted(Comparator.comparingDouble(CommandSummary::getTotalTimeMs).reversed())
+            .collect(Collectors.toList());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("recording", metrics.isRecording());
+        result.put("payloadEnabled", metrics.isPayloadEnabled());
+        result.put("commands", commands);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable Boolean recording, @Nullable Boolean payloadEnabled) {
+        if (recording != null) {
+            metrics.setRecording(recording);
+        }
+        if (payloadEnabled != null) {
+            metrics.setPayloadEnabled(payloadEnabled);
+        }
+        return commands();
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class CommandSummary {
+
+        private String template;
+
+        private String command;
+
+        private String prefix;
+
+        private long count;
+
+        private long errors;
+
+        private double totalTimeMs;
+
+        private double meanMs;
+
+        private double maxMs;
+
+        private Map<String, Double> percentilesMs;
+
+        private double meanRequestBytes;
+
+        private double meanResponseBytes;
+
+        static CommandSummary of(RedisCommandMetrics.CommandMeters meters) {
+            HistogramSnapshot snapshot = meters.getTimer().takeSnapshot();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                percentiles.put(percentileName(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+            }
+            return new CommandSummary()
+                .setTemplate(meters.getTemplate())
+                .setCommand(meters.getCommand())
+                .setPrefix(meters.getKeyPrefix())
+                .setCount(snapshot.count())
+                .setErrors(meters.getErrorCount())
+                .setTotalTimeMs(snapshot.total(TimeUnit.MILLISECONDS))
+                .setMeanMs(snapshot.mean(TimeUnit.MILLISECONDS))
+                .setMaxMs(snapshot.max(TimeUnit.MILLISECONDS))
+                .setPercentilesMs(percentiles)
+                .setMeanRequestBytes(meters.getRequestBytes().mean())
+                .setMeanResponseBytes(meters.getResponseBytes().mean());
+        }
+
+        /**
+         * 0.99 -> p99，0.999 -> p99.9
+         */
+        private static String percentileName(double percentile) {
+            double value = Math.round(percentile * 1000) / 10.0;
+            return value == Math.rint(value) ? "p" + (long) value : "p" + value;
+        }
+    }
+}
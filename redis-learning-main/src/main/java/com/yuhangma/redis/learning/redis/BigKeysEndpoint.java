@@ -0,0 +1,49 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 大 key 分析的 actuator 端点：POST /actuator/bigkeys 在后台开始分析（请求体可以指定 {"pattern": "unit:test:key:*"}），
+ * GET /actuator/bigkeys 查看当前的结果，DELETE /actuator/bigkeys 停止分析
+ *
+ * @author Moore
+ * @see RedisKeyAnalyzer
+ * @since 2026/10/18
+ */
+@Component
+@Endpoint(id = "bigkeys")
+public class BigKeysEndpoint {
+
+    @Autowired
+    private RedisKeyAnalyzer analyzer;
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("report", analyzer.current());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> start(@Nullable String pattern) {
+        boolean started = analyzer.start(pattern == null ? "*" : pattern);
+        Map<String, Object> result = report();
+        result.put("started", started);
+        return result;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> cancel() {
+        analyzer.cancel();
+        return report();
+    }
+}
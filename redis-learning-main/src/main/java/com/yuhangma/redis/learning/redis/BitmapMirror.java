@@ -0,0 +1,160 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Redis bitmap 的本地只读副本，使用 RoaringBitmap 压缩保存，判断某一位是否为 1 不需要访问 Redis
+ * <p>
+ * 副本最多落后 maxStaleness：过期之后的第一次读取会在 refreshExecutor 中触发后台刷新，刷新完成之前仍然使用旧的副本。
+ * 通过 {@link RedisBitmapService} 在本进程中修改的位会立即反映在副本中，其他进程的修改要等到下一次刷新。
+ * 只支持 int 范围内的 offset。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisBitmapService#mirror(String)
+ * @since 2026/10/18
+ */
+@Slf4j
+public class BitmapMirror {
+
+    private final String key;
+
+    private final Function<String, byte[]> loader;
+
+    private final long maxStalenessNanos;
+
+    private final Executor refreshExecutor;
+
+    private volatile RoaringBitmap bitmap;
+
+    private volatile long loadedAt;
+
+    private volatile int redisBytes;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * 本进程中修改过、但是还没有反映在 {@link #bitmap} 中的位：offset -> (修改时间, 值)
+     */
+    private final Map<Integer, LocalChange> localChanges = new ConcurrentHashMap<>();
+
+    BitmapMirror(String key, Function<String, byte[]> loader, Duration maxStaleness, Executor refreshExecutor) {
+        this.key = key;
+        this.loader = loader;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        refresh();
+    }
+
+    public boolean contains(int offset) {
+        refreshIfStale();
+        LocalChange change = localChanges.get(offset);
+        if (change != null) {
+            return change.value;
+        }
+        return bitmap.contains(offset);
+    }
+
+    /**
+     * 值为 1 的位的数量，不包括本地修改
+     */
+    public long cardinality() {
+        refreshIfStale();
+        return bitmap.getLongCardinality();
+    }
+
+    /**
+     * 副本占用的字节数
+     */
+    public long sizeInBytes() {
+        return bitmap.getLongSizeInBytes();
+    }
+
+    /**
+     * Redis 中 bitmap 的字节数
+     */
+    public int redisSizeInBytes() {
+        return redisBytes;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 同步地从 Redis 重新加载
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        byte[] raw = loader.apply(key);
+        RoaringBitmap loaded = toBitmap(raw);
+        loaded.runOptimize();
+        bitmap = loaded;
+        redisBytes = raw == null ? 0 : raw.length;
+        loadedAt = start;
+        // 加载开始之前的本地修改已经包含在 Redis 的数据中
+        localChanges.values().removeIf(change -> change.changedAt - start < 0);
+    }
+
+    void changed(int offset, boolean value) {
+        localChanges.put(offset, new LocalChange(System.nanoTime(), value));
+    }
+
+    private void refreshIfStale() {
+        if (System.nanoTime() - loadedAt < maxStalenessNanos || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            CompletableFuture.runAsync(this::refresh, refreshExecutor).whenComplete((v, e) -> {
+                refreshing.set(false);
+                if (e != null) {
+                    log.warn("refresh bitmap mirror {} failed", key, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 应用关闭之后继续使用旧的副本
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Redis 的 bitmap 中 offset 0 是第一个字节的最高位
+     */
+    static RoaringBitmap toBitmap(byte[] raw) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        if (raw == null) {
+            return bitmap;
+        }
+        for (int i = 0; i < raw.length; i++) {
+            int b = raw[i] & 0xFF;
+            while (b != 0) {
+                int bit = Integer.numberOfLeadingZeros(b) - 24;
+                bitmap.add(i * 8 + bit);
+                b &= ~(0x80 >>> bit);
+            }
+        }
+        return bitmap;
+    }
+
+    private static final class LocalChange {
+
+        private final long changedAt;
+
+        private final boolean value;
+
+        private LocalChange(long changedAt, boolean value) {
+            this.changedAt = changedAt;
+            this.value = value;
+        }
+    }
+}
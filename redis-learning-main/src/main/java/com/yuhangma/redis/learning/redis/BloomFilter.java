@@ -0,0 +1,132 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的布隆过滤器，判断为不存在的元素一定不存在，判断为存在的元素有一定概率不存在
+ * <p>
+ * 位数组大小 m = -n * ln(p) / (ln2)^2，哈希函数个数 k = m / n * ln2，n 为预计的元素数量，p 为期望的误判率。
+ * k 个哈希值由两个 64 位哈希值组合得到：h1 + i * h2（Kirsch-Mitzenmacher），只需要计算一次哈希。
+ * 不支持删除，需要删除元素时重新创建。
+ * </p>
+ *
+ * @author Moore
+ * @see SegmentFilter
+ * @since 2026/10/18
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private BloomFilter(long bitSize, int hashFunctions) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitSize + 63) >>> 6));
+        this.bitSize = (long) words.length() << 6;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * @param expectedInsertions 预计的元素数量，超过之后误判率会升高
+     * @param fpp                期望的误判率，0 到 1 之间
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        Assert.isTrue(fpp > 0 && fpp < 1, "fpp must be between 0 and 1");
+        long n = Math.max(1, expectedInsertions);
+        long bitSize = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (LN2 * LN2)));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * LN2));
+        return new BloomFilter(bitSize, hashFunctions);
+    }
+
+    public void put(byte[] element) {
+        long hash1 = hash(element, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(element, 0xC2B2AE3D27D4EB4FL);
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit((combined & Long.MAX_VALUE) % bitSize);
+            combined += hash2;
+        }
+    }
+
+    public boolean mightContain(byte[] element) {
+        long hash1 = hash(element, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(element, 0xC2B2AE3D27D4EB4FL);
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            if (!getBit((combined & Long.MAX_VALUE) % bitSize)) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * 根据当前已经置位的比例估算的误判率：(置位的位数 / m) ^ k，元素越多越高
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount() / bitSize, hashFunctions);
+    }
+
+    /**
+     * 位数组占用的字节数
+     */
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    long bitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean getBit(long index) {
+        return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /**
+     * 64 位 FNV-1a，再经过 MurmurHash3 的 fmix64 打散，不同的 seed 得到两个独立的哈希值
+     */
+    private static long hash(byte[] element, long seed) {
+        long hash = 0xCBF29CE484222325L ^ seed;
+        for (byte b : element) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
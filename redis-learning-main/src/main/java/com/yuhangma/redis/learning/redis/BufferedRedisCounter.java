@@ -0,0 +1,380 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.CounterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 在本地聚合增量，定期批量写入 Redis 的计数器
+ * <p>
+ * 每次 {@link org.springframework.data.redis.core.ValueOperations#increment(Object, long)} 都是一条 INCRBY 命令，
+ * 同一个 key 每秒上万次的自增全部落在同一个 Redis 节点上。这里把增量先累加到每个 key 的 {@link LongAdder} /
+ * {@link DoubleAdder} 中（分段累加，多线程自增几乎没有竞争），然后在一个后台线程中把所有 key 的增量合并成
+ * INCRBY / INCRBYFLOAT，按 batchSize 分批，每批使用一次 Lua 脚本写入。集群模式下先按 slot 分组再分批，
+ * 一个脚本中的 key 必须位于同一个 slot。
+ * </p>
+ * <ul>
+ * <li>刷新时机：每隔 flushInterval 刷新一次；未刷新的增量次数超过 flushThreshold 时提前刷新；应用关闭时刷新剩余的增量</li>
+ * <li>丢失窗口：进程崩溃时最多丢失最近一次刷新之后的增量，即 flushInterval 或者 flushThreshold 以内的计数；
+ * Redis 不可用时增量保留在内存中，下一次刷新时重试，内存占用只和 key 的数量有关</li>
+ * <li>读自己的写：{@link #get(String)} 返回 Redis 中的值加上本地还没有刷新的增量，刷新过程中的读取会等待刷新完成，
+ * 不会重复计算或者漏算。其他实例还没有刷新的增量是看不到的</li>
+ * <li>整数和小数：同一个 key 可以同时使用两种增量，key 的值变成小数之后 INCRBY 会失败，
+ * 脚本中会改用 INCRBYFLOAT 写入整数增量</li>
+ * </ul>
+ * <p>
+ * 连续两次刷新都没有增量的 key 会从本地删除。删除之后如果仍然有线程写入了旧的累加器（取到累加器之后、
+ * 自增之前被删除），这部分增量会在下一次刷新时写入。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/incrby">Redis Documentation: INCRBY</a>
+ * @see <a href="http://redis.io/commands/incrbyfloat">Redis Documentation: INCRBYFLOAT</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class BufferedRedisCounter {
+
+    /**
+     * 连续多少次刷新没有增量之后删除本地的累加器
+     */
+    private static final int IDLE_FLUSHES_BEFORE_REMOVE = 2;
+
+    /**
+     * 小于上一次写入的小数增量的这么多个 ulp 时当作 0，见 {@link Pending#collect}
+     */
+    private static final int RESIDUE_ULPS = 1024;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CounterProperties properties;
+
+    @Autowired
+    private SlotAwareBatchExecutor batchExecutor;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已经从 pending 中删除，但可能还有迟到的增量的累加器，在下一次刷新时处理
+     */
+    private final Map<String, Pending> retired = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次刷新之后的增量次数，用于判断是否需要提前刷新
+     */
+    private final LongAdder pendingEvents = new LongAdder();
+
+    /**
+     * 刷新时持有写锁，{@link #get(String)} 持有读锁，保证读取时不会看到刷新了一半的状态
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> flushScript;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        flushScript = scripts.get("counter_flush", List.class);
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时刷新，并把剩余的增量写入 Redis
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    public void increment(String key) {
+        increment(key, 1L);
+    }
+
+    /**
+     * 整数增量，只在本地累加，不访问 Redis
+     */
+    public void increment(String key, long delta) {
+        pending.computeIfAbsent(key, Pending::new).longs.add(delta);
+        afterIncrement();
+    }
+
+    /**
+     * 小数增量，只在本地累加，不访问 Redis
+     */
+    public void increment(String key, double delta) {
+        pending.computeIfAbsent(key, Pending::new).doubles.add(delta);
+        afterIncrement();
+    }
+
+    /**
+     * Redis 中的值加上本地还没有刷新的整数增量，key 的值是小数时请使用 {@link #getDouble(String)}
+     */
+    public long get(String key) {
+        flushLock.readLock().lock();
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            long local = 0;
+            for (Pending p : localPending(key)) {
+                local += p.longs.sum();
+            }
+            return (value == null ? 0 : Long.parseLong(value)) + local;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Redis 中的值加上本地还没有刷新的整数和小数增量
+     */
+    public double getDouble(String key) {
+        flushLock.readLock().lock();
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            double local = 0;
+            for (Pending p : localPending(key)) {
+                local += p.longs.sum() + p.doubles.sum();
+            }
+            return (value == null ? 0 : Double.parseDouble(value)) + local;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 本地还没有刷新的增量次数
+     */
+    public long pendingEvents() {
+        return pendingEvents.sum();
+    }
+
+    /**
+     * 把本地所有的增量写入 Redis，失败的增量保留在本地，下一次刷新时重试
+     *
+     * @throws DataAccessException 连接 Redis 失败
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flushRequested.set(false);
+            long events = pendingEvents.sum();
+            for (List<Delta> deltas : groupBySlot(collect())) {
+                for (int from = 0; from < deltas.size(); from += properties.getBatchSize()) {
+                    flushBatch(deltas.subList(from, Math.min(deltas.size(), from + properties.getBatchSize())));
+                }
+            }
+            pendingEvents.add(-events);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("flush counters failed, pending events: {}, will retry later", pendingEvents.sum(), e);
+        }
+    }
+
+    private void afterIncrement() {
+        pendingEvents.increment();
+        if (pendingEvents.sum() >= properties.getFlushThreshold() && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                // 已经关闭，由 destroy 刷新
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private List<Pending> localPending(String key) {
+        List<Pending> result = new ArrayList<>(2);
+        Pending live = pending.get(key);
+        if (live != null) {
+            result.add(live);
+        }
+        Pending old = retired.get(key);
+        if (old != null) {
+            result.add(old);
+        }
+        return result;
+    }
+
+    /**
+     * 收集所有非零的增量，并清理空闲的累加器，只在持有写锁时调用
+     */
+    private List<Delta> collect() {
+        List<Delta> deltas = new ArrayList<>();
+        // 上一次刷新时删除的累加器，把迟到的增量写入之后丢弃
+        for (Iterator<Pending> iterator = retired.values().iterator(); iterator.hasNext(); ) {
+            Pending p = iterator.next();
+            if (!p.collect(deltas)) {
+                iterator.remove();
+            }
+        }
+        for (Pending p : pending.values()) {
+            if (p.collect(deltas)) {
+                p.idleFlushes = 0;
+            } else if (++p.idleFlushes >= IDLE_FLUSHES_BEFORE_REMOVE && !retired.containsKey(p.key)
+                && pending.remove(p.key, p)) {
+                retired.put(p.key, p);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 单机模式下只有一组，集群模式下每个 slot 一组
+     */
+    private Collection<List<Delta>> groupBySlot(List<Delta> deltas) {
+        if (!batchExecutor.isCluster()) {
+            return Collections.singletonList(deltas);
+        }
+        Map<Integer, List<Delta>> groups = new HashMap<>();
+        for (Delta delta : deltas) {
+            groups.computeIfAbsent(RedisKeys.slot(delta.pending.key), slot -> new ArrayList<>()).add(delta);
+        }
+        return groups.values();
+    }
+
+    /**
+     * 一批增量使用一次 EVALSHA 写入，写入成功的增量从本地累加器中减去
+     * <p>
+     * 没有使用 pipeline：spring-data-redis 2.0 的 pipeline 中任意一条命令失败时拿不到其他命令的结果，
+     * 无法判断哪些增量已经生效，重试会重复计数。
+     * </p>
+     */
+    private void flushBatch(List<Delta> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        String[] args = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Delta delta = batch.get(i);
+            keys.add(delta.pending.key);
+            args[i] = delta.isLong ? Long.toString(delta.longValue) : Double.toString(delta.doubleValue);
+        }
+        List<?> results = scripts.execute(flushScript, keys, (Object[]) args);
+        for (int i = 0; i < batch.size(); i++) {
+            Delta delta = batch.get(i);
+            Object result = results.get(i);
+            if (Long.valueOf(1).equals(result)) {
+                delta.applied();
+            } else {
+                log.warn("flush counter {} failed: {}, delta will be retried", delta.pending.key, result);
+            }
+        }
+    }
+
+    private static class Pending {
+
+        private final String key;
+
+        private final LongAdder longs = new LongAdder();
+
+        private final DoubleAdder doubles = new DoubleAdder();
+
+        /**
+         * 只在刷新线程中访问
+         */
+        private int idleFlushes;
+
+        /**
+         * 上一次写入成功的小数增量的绝对值，只在刷新线程中访问
+         */
+        private double lastDouble;
+
+        private Pending(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 把非零的增量加入 deltas
+         *
+         * @return 是否有增量
+         */
+        private boolean collect(List<Delta> deltas) {
+            // 快照之后并不清零，写入成功之后再减去快照的值，期间的自增不会丢失。
+            // DoubleAdder 的多个 cell 分别累加，减去快照之后的和可能不是 0（例如 0.1 + 0.2 剩下 -5.55e-17），
+            // 这样的舍入误差当作 0，否则每次刷新都会写入一次，key 也永远不会空闲
+            long longValue = longs.sum();
+            double doubleValue = doubles.sum();
+            if (Math.abs(doubleValue) < RESIDUE_ULPS * Math.ulp(lastDouble)) {
+                doubleValue = 0;
+            }
+            if (longValue != 0) {
+                deltas.add(new Delta(this, true, longValue, 0));
+            }
+            if (doubleValue != 0) {
+                deltas.add(new Delta(this, false, 0, doubleValue));
+            }
+            return longValue != 0 || doubleValue != 0;
+        }
+    }
+
+    private static class Delta {
+
+        private final Pending pending;
+
+        private final boolean isLong;
+
+        private final long longValue;
+
+        private final double doubleValue;
+
+        private Delta(Pending pending, boolean isLong, long longValue, double doubleValue) {
+            this.pending = pending;
+            this.isLong = isLong;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+        }
+
+        private void applied() {
+            if (isLong) {
+                pending.longs.add(-longValue);
+            } else {
+                pending.doubles.add(-doubleValue);
+                pending.lastDouble = Math.abs(doubleValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+
+/**
+ * {@link RedisBulkWriter} 的写入参数
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Data
+@Accessors(chain = true)
+public class BulkWriteOptions {
+
+    /**
+     * 过期时间，为 null 时不设置过期时间
+     */
+    private Duration ttl;
+
+    /**
+     * 每个 pipeline 中的命令数量，必须大于 0，太大会导致单次请求和响应占用过多内存，并且长时间占用 Redis
+     */
+    private int chunkSize = 500;
+
+    /**
+     * 同时在执行中的 pipeline 数量，必须大于 0
+     */
+    private int inFlight = 4;
+
+    public static BulkWriteOptions withTtl(Duration ttl) {
+        return new BulkWriteOptions().setTtl(ttl);
+    }
+}
@@ -0,0 +1,35 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * {@link RedisBulkWriter} 的写入结果
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Data
+public class BulkWriteResult {
+
+    /**
+     * 写入的 key 的数量
+     */
+    private final long written;
+
+    /**
+     * 执行的 pipeline 数量
+     */
+    private final long chunks;
+
+    private final Duration elapsed;
+
+    /**
+     * 每秒写入的 key 的数量
+     */
+    public double throughput() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return written * 1000D / millis;
+    }
+}
@@ -0,0 +1,253 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 与 Redis 兼容的 HyperLogLog，用于在本地预聚合，再一次性合并到 Redis
+ * <p>
+ * 和 Redis 使用相同的参数和哈希：16384 个 6 位寄存器，MurmurHash64A（seed 0xadc83b19），低 14 位选择寄存器，
+ * 其余位的末尾 0 的个数加一作为寄存器的值。同样的元素在本地和 Redis 中得到完全相同的寄存器，
+ * 所以 {@link #toRedisBytes()} 写入 Redis 之后可以直接 PFMERGE，结果和逐个 PFADD 一致。
+ * </p>
+ * <p>
+ * 本地每个寄存器使用一个字节，共 16KB；Redis 的 dense 格式每个寄存器 6 位，加上 16 字节的头共 12304 字节。
+ * 基数估算使用和 Redis 5.0 之后相同的算法（Otmar Ertl, New cardinality estimation algorithms for HyperLogLog sketches），
+ * 标准误差约 0.81%。不是线程安全的。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="https://github.com/redis/redis/blob/unstable/src/hyperloglog.c">hyperloglog.c</a>
+ * @since 2026/10/18
+ */
+public final class HyperLogLog {
+
+    static final int P = 14;
+
+    static final int REGISTERS = 1 << P;
+
+    /**
+     * 参与计数的哈希位数，寄存器的最大值为 Q + 1
+     */
+    static final int Q = 64 - P;
+
+    static final int REGISTER_BITS = 6;
+
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * Redis dense 格式的字节数
+     */
+    public static final int DENSE_BYTES = HEADER_BYTES + (REGISTERS * REGISTER_BITS + 7) / 8;
+
+    private static final byte[] MAGIC = {'H', 'Y', 'L', 'L'};
+
+    private static final int DENSE = 0, SPARSE = 1;
+
+    private static final int REGISTER_MAX = (1 << REGISTER_BITS) - 1;
+
+    private static final long SEED = 0xADC83B19L;
+
+    private static final double ALPHA_INF = 0.5 / Math.log(2);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public boolean add(String element) {
+        return add(element.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 是否有寄存器被修改，和 PFADD 的返回值含义相同
+     */
+    public boolean add(byte[] element) {
+        long hash = murmurHash64A(element, SEED);
+        int index = (int) (hash & (REGISTERS - 1));
+        // 高位补 1，保证计数不超过 Q + 1
+        int count = Long.numberOfTrailingZeros((hash >>> P) | (1L << Q)) + 1;
+        if (count > registers[index]) {
+            registers[index] = (byte) count;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 合并另一个 HyperLogLog，结果是两者元素的并集，和 PFMERGE 相同
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * 估算的基数，和 Redis 5.0 之后的 PFCOUNT 使用相同的算法
+     */
+    public long count() {
+        int[] histogram = new int[Q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = REGISTERS;
+        double z = m * tau((m - histogram[Q + 1]) / m);
+        for (int j = Q; j >= 1; j--) {
+            z += histogram[j];
+            z *= 0.5;
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(ALPHA_INF * m * m / z);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编码为 Redis 的 dense 格式，可以直接 SET 到 Redis 中作为 HyperLogLog 使用。基数缓存标记为无效，由 Redis 重新计算
+     */
+    public byte[] toRedisBytes() {
+        byte[] bytes = new byte[DENSE_BYTES];
+        System.arraycopy(MAGIC, 0, bytes, 0, MAGIC.length);
+        bytes[4] = DENSE;
+        bytes[HEADER_BYTES - 1] = (byte) 0x80;
+        for (int i = 0; i < REGISTERS; i++) {
+            int value = registers[i];
+            if (value == 0) {
+                continue;
+            }
+            int bit = i * REGISTER_BITS;
+            int index = HEADER_BYTES + (bit >>> 3);
+            int shift = bit & 7;
+            bytes[index] |= (byte) (value << shift);
+            if (shift > 8 - REGISTER_BITS) {
+                bytes[index + 1] |= (byte) (value >>> (8 - shift));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 解析 Redis 中保存的 HyperLogLog（GET 的结果），支持 dense 和 sparse 两种格式
+     *
+     * @throws IllegalArgumentException 不是 HyperLogLog
+     */
+    public static HyperLogLog fromRedisBytes(byte[] bytes) {
+        Assert.isTrue(bytes != null && bytes.length >= HEADER_BYTES && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1]
+            && bytes[2] == MAGIC[2] && bytes[3] == MAGIC[3], "not a redis hyperloglog");
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes[4] == DENSE) {
+            Assert.isTrue(bytes.length == DENSE_BYTES, "invalid dense hyperloglog length: " + bytes.length);
+            for (int i = 0; i < REGISTERS; i++) {
+                int bit = i * REGISTER_BITS;
+                int index = HEADER_BYTES + (bit >>> 3);
+                int shift = bit & 7;
+                int value = (bytes[index] & 0xFF) >>> shift;
+                if (shift > 8 - REGISTER_BITS) {
+                    value |= (bytes[index + 1] & 0xFF) << (8 - shift);
+                }
+                hll.registers[i] = (byte) (value & REGISTER_MAX);
+            }
+        } else {
+            Assert.isTrue(bytes[4] == SPARSE, "unknown hyperloglog encoding: " + bytes[4]);
+            hll.readSparse(bytes);
+        }
+        return hll;
+    }
+
+    /**
+     * sparse 格式由三种操作码组成：ZERO 00xxxxxx 和 XZERO 01xxxxxx yyyyyyyy 表示一段为 0 的寄存器，
+     * VAL 1vvvvvxx 表示 xx + 1 个值为 vvvvv + 1 的寄存器
+     */
+    private void readSparse(byte[] bytes) {
+        int index = 0;
+        for (int i = HEADER_BYTES; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            if ((b & 0xC0) == 0) {
+                index += (b & 0x3F) + 1;
+            } else if ((b & 0xC0) == 0x40) {
+                index += (((b & 0x3F) << 8) | (bytes[++i] & 0xFF)) + 1;
+            } else {
+                int value = ((b >>> 2) & 0x1F) + 1;
+                int run = (b & 0x03) + 1;
+                Assert.isTrue(index + run <= REGISTERS, "invalid sparse hyperloglog");
+                for (int j = 0; j < run; j++) {
+                    registers[index++] = (byte) value;
+                }
+            }
+        }
+        Assert.isTrue(index == REGISTERS, "invalid sparse hyperloglog");
+    }
+
+    /**
+     * Redis 使用的 MurmurHash64A，按小端序读取
+     */
+    static long murmurHash64A(byte[] data, long seed) {
+        final long m = 0xC6A4A7935BD1E995L;
+        final int r = 47;
+        int length = data.length;
+        long h = seed ^ (length * m);
+        int end = length - (length & 7);
+        for (int i = 0; i < end; i += 8) {
+            long k = (data[i] & 0xFFL)
+                | (data[i + 1] & 0xFFL) << 8
+                | (data[i + 2] & 0xFFL) << 16
+                | (data[i + 3] & 0xFFL) << 24
+                | (data[i + 4] & 0xFFL) << 32
+                | (data[i + 5] & 0xFFL) << 40
+                | (data[i + 6] & 0xFFL) << 48
+                | (data[i + 7] & 0xFFL) << 56;
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+        int remaining = length & 7;
+        if (remaining > 0) {
+            for (int i = remaining - 1; i >= 0; i--) {
+                h ^= (data[end + i] & 0xFFL) << (8 * i);
+            }
+            h *= m;
+        }
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1, z = x, previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (previous != z);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1, z = 1 - x, previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while (previous != z);
+        return z / 3;
+    }
+}
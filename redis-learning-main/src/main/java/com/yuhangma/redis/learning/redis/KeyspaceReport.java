@@ -0,0 +1,100 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RedisKeyAnalyzer} 的分析结果，分析过程中可以随时获取当前的结果
+ * <p>
+ * size 的单位由 {@link #sizeUnit} 决定：服务端支持 MEMORY USAGE（Redis 4.0 及以上）时为估算的内存字节数，
+ * 否则为元素数量（string 为字节数）。SCAN 在 rehash 期间可能返回重复的 key，计数可能略微偏大。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Data
+public class KeyspaceReport {
+
+    public static final String BYTES = "bytes", LENGTH = "length";
+
+    private String pattern;
+
+    private boolean running;
+
+    private boolean cancelled;
+
+    /**
+     * 分析失败时的错误信息
+     */
+    private String error;
+
+    private long startedAt;
+
+    private long elapsedMs;
+
+    private long scannedKeys;
+
+    private String sizeUnit;
+
+    private long totalSize;
+
+    /**
+     * 按 totalSize 从大到小排列
+     */
+    private List<PrefixStats> prefixes;
+
+    /**
+     * 最大的 key，从大到小排列
+     */
+    private List<BigKey> bigKeys;
+
+    @Data
+    public static class PrefixStats {
+
+        private String prefix;
+
+        private long keys;
+
+        private long totalSize;
+
+        private long maxSize;
+
+        /**
+         * 每种类型的 key 数量
+         */
+        private Map<String, Long> types;
+
+        /**
+         * size 的分布，key 为区间的上限（不包含）
+         */
+        private Map<String, Long> histogram;
+
+        /**
+         * 没有过期时间的 key 的数量
+         */
+        private long persistentKeys;
+    }
+
+    @Data
+    public static class BigKey {
+
+        private final String key;
+
+        private final String type;
+
+        private final long size;
+
+        /**
+         * 元素数量，string 为字节数
+         */
+        private final long length;
+
+        /**
+         * 剩余的过期时间，-1 表示没有过期时间
+         */
+        private final long ttlMillis;
+    }
+}
@@ -0,0 +1,24 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import lombok.Data;
+
+/**
+ * 排行榜中的一个成员
+ *
+ * @author Moore
+ * @see PersonLeaderboard
+ * @since 2026/10/18
+ */
+@Data
+public class LeaderboardEntry {
+
+    private final PersonDTO member;
+
+    private final double score;
+
+    /**
+     * 从 0 开始的名次，分数最高的是 0
+     */
+    private final long rank;
+}
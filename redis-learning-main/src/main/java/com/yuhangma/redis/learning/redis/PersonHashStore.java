@@ -0,0 +1,176 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.PersonRedisProperties;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.serializer.PersonDTOHashMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以 hash 保存 {@link PersonDTO}，每个字段是 hash 中的一个 field，key 为 person:hash:{id}
+ * <p>
+ * personRedisTemplate 把整个 PersonDTO 序列化为一个 value，修改 age 需要 GET、反序列化、修改、序列化、SET 五步，
+ * 并发修改时还会互相覆盖。以 hash 保存之后：
+ * </p>
+ * <ul>
+ * <li>修改单个字段只需要一条 HSET，数值字段可以使用 HINCRBY 原子地增减</li>
+ * <li>只读取部分字段时使用 HMGET，不需要传输和解析整个对象</li>
+ * <li>field 数量和 value 长度都很小的 hash 使用紧凑编码（Redis 7 之前为 ziplist，之后为 listpack），
+ * 相同数据的内存占用通常比 JSON 字符串更小。超过 hash-max-ziplist-entries（默认 128）或者
+ * hash-max-ziplist-value（默认 64 字节，即 name 超过 64 字节）时会转换为普通的哈希表</li>
+ * </ul>
+ * <p>
+ * 字段和 hash 之间的映射见 {@link PersonDTOHashMapper}。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/hset">Redis Documentation: HSET</a>
+ * @see <a href="http://redis.io/commands/hincrby">Redis Documentation: HINCRBY</a>
+ * @see <a href="http://redis.io/commands/hmget">Redis Documentation: HMGET</a>
+ * @since 2026/10/18
+ */
+@Component
+public class PersonHashStore {
+
+    private static final PersonDTOHashMapper MAPPER = PersonDTOHashMapper.INSTANCE;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private PersonRedisProperties properties;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private RedisScript<Long> saveScript;
+
+    @PostConstruct
+    public void init() {
+        saveScript = scripts.get("person_hash_save", Long.class);
+    }
+
+    /**
+     * 保存整个对象，值为 null 的字段会从 hash 中删除，HDEL 和 HMSET 在一个 Lua 脚本中原子地执行。
+     * spring-data-redis 2.0 的集群连接不支持 MULTI，所以不使用事务
+     */
+    public void save(String id, PersonDTO person) {
+        Map<String, String> hash = MAPPER.toHash(person);
+        List<String> nullFields = new ArrayList<>(2);
+        for (String field : Arrays.asList(PersonDTOHashMapper.NAME, PersonDTOHashMapper.AGE)) {
+            if (!hash.containsKey(field)) {
+                nullFields.add(field);
+            }
+        }
+        List<String> args = new ArrayList<>(1 + nullFields.size() + hash.size() * 2);
+        args.add(Integer.toString(nullFields.size()));
+        args.addAll(nullFields);
+        hash.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        scripts.execute(saveScript, Collections.singletonList(key(id)), args.toArray());
+    }
+
+    /**
+     * 读取整个对象
+     *
+     * @return key 不存在时返回 null
+     */
+    public PersonDTO find(String id) {
+        Map<String, String> hash = hashOps().entries(key(id));
+        return hash.isEmpty() ? null : MAPPER.fromHash(hash);
+    }
+
+    /**
+     * 投影读取，只读取指定的字段，其他字段为 null
+     *
+     * @param fields {@link PersonDTOHashMapper#NAME}、{@link PersonDTOHashMapper#AGE}
+     * @return key 不存在或者指定的字段都不存在时返回 null
+     */
+    public PersonDTO find(String id, String... fields) {
+        List<String> values = hashOps().multiGet(key(id), Arrays.asList(fields));
+        PersonDTO person = new PersonDTO();
+        boolean found = false;
+        for (int i = 0; i < fields.length; i++) {
+            String value = values.get(i);
+            if (value != null) {
+                MAPPER.set(person, fields[i], value);
+                found = true;
+            }
+        }
+        return found ? person : null;
+    }
+
+    /**
+     * 批量读取，所有 HGETALL 在一个 pipeline 中执行
+     *
+     * @return 和 ids 一一对应，不存在的为 null
+     */
+    @SuppressWarnings("unchecked")
+    public List<PersonDTO> findAll(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String id : ids) {
+                stringConnection.hGetAll(key(id));
+            }
+            return null;
+        });
+        List<PersonDTO> persons = new ArrayList<>(ids.size());
+        for (Object result : results) {
+            Map<String, String> hash = (Map<String, String>) result;
+            persons.add(hash == null || hash.isEmpty() ? null : MAPPER.fromHash(hash));
+        }
+        return persons;
+    }
+
+    /**
+     * 只修改 name，key 不存在时会创建只有 name 的 hash
+     */
+    public void setName(String id, String name) {
+        hashOps().put(key(id), PersonDTOHashMapper.NAME, name);
+    }
+
+    /**
+     * 只修改 age，key 不存在时会创建只有 age 的 hash
+     */
+    public void setAge(String id, int age) {
+        hashOps().put(key(id), PersonDTOHashMapper.AGE, Integer.toString(age));
+    }
+
+    /**
+     * 原子地增减 age，不存在时从 0 开始
+     *
+     * @return 修改之后的 age
+     */
+    public long incrementAge(String id, long delta) {
+        return hashOps().increment(key(id), PersonDTOHashMapper.AGE, delta);
+    }
+
+    public Boolean delete(String id) {
+        return redisTemplate.delete(key(id));
+    }
+
+    public String key(String id) {
+        return properties.getHashKeyPrefix() + id;
+    }
+
+    private HashOperations<String, String, String> hashOps() {
+        return redisTemplate.opsForHash();
+    }
+}
@@ -0,0 +1,273 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.yuhangma.redis.learning.config.LeaderboardProperties;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 sorted set 的 PersonDTO 排行榜，分数可以是年龄或者活跃度等任意指标
+ * <p>
+ * 成员是 personRedisTemplate 序列化之后的 PersonDTO，所有字段都相同才是同一个成员。
+ * 排行榜按分数从高到低排序，名次从 0 开始。
+ * </p>
+ * <ul>
+ * <li>批量加分：所有成员的 ZINCRBY 在一个 pipeline 中执行</li>
+ * <li>批量查询名次：所有成员的 ZREVRANK 和 ZSCORE 在一个 pipeline 中执行</li>
+ * <li>分页查询：前 cachedPages 页缓存在本地，cacheTtl 之内的重复查询不访问 Redis，同一页同时只有一个线程读取 Redis；
+ * 本实例的写入会立即删除对应排行榜的本地缓存，其他实例的写入最多延迟 cacheTtl 可见</li>
+ * <li>按时间分桶：每天一个排行榜 {board}:yyyyMMdd，使用 ZUNIONSTORE 合并成多天的排行榜，合并结果带有过期时间</li>
+ * </ul>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/zincrby">Redis Documentation: ZINCRBY</a>
+ * @see <a href="http://redis.io/commands/zrevrange">Redis Documentation: ZREVRANGE</a>
+ * @see <a href="http://redis.io/commands/zunionstore">Redis Documentation: ZUNIONSTORE</a>
+ * @since 2026/10/18
+ */
+@Component
+public class PersonLeaderboard {
+
+    /**
+     * 一次合并的最大天数
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Resource(name = "personRedisTemplate")
+    private RedisTemplate<String, PersonDTO> redisTemplate;
+
+    @Resource(name = "personRedisTemplate")
+    private ZSetOperations<String, PersonDTO> zSetOps;
+
+    @Autowired
+    private LeaderboardProperties properties;
+
+    /**
+     * 排行榜前几页的本地缓存，key 为 {board}#{page}#{pageSize}
+     */
+    private Cache<String, List<LeaderboardEntry>> pageCache;
+
+    @PostConstruct
+    public void init() {
+        pageCache = Caffeine.newBuilder()
+            .expireAfterWrite(properties.getCacheTtl())
+            .maximumSize(properties.getCacheMaximumSize())
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * 批量加分，一次网络往返
+     *
+     * @param board  排行榜名称
+     * @param deltas 每个成员增加的分数，可以为负数
+     * @return 每个成员加分之后的分数
+     */
+    public Map<PersonDTO, Double> incrementScores(String board, Map<PersonDTO, Double> deltas) {
+        return incrementScores(board, deltas, null);
+    }
+
+    /**
+     * 批量加分，并设置排行榜的过期时间，适用于按时间分桶的排行榜
+     *
+     * @param ttl 排行榜的过期时间，为 null 时不修改
+     */
+    public Map<PersonDTO, Double> incrementScores(String board, Map<PersonDTO, Double> deltas, Duration ttl) {
+        if (deltas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        byte[] rawKey = rawKey(board);
+        List<PersonDTO> members = new ArrayList<>(deltas.keySet());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (PersonDTO member : members) {
+                connection.zIncrBy(rawKey, deltas.get(member), rawMember(member));
+            }
+            if (ttl != null) {
+                connection.pExpire(rawKey, ttl.toMillis());
+            }
+            return null;
+        });
+        invalidate(board);
+        Map<PersonDTO, Double> scores = new LinkedHashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            scores.put(members.get(i), (Double) results.get(i));
+        }
+        return scores;
+    }
+
+    /**
+     * 批量查询名次和分数，一次网络往返
+     *
+     * @return 和 members 一一对应，不在排行榜中的成员为 null
+     */
+    public List<LeaderboardEntry> ranks(String board, List<PersonDTO> members) {
+        if (members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        byte[] rawKey = rawKey(board);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (PersonDTO member : members) {
+                byte[] rawMember = rawMember(member);
+                connection.zRevRank(rawKey, rawMember);
+                connection.zScore(rawKey, rawMember);
+            }
+            return null;
+        });
+        List<LeaderboardEntry> entries = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            Long rank = (Long) results.get(i * 2);
+            Double score = (Double) results.get(i * 2 + 1);
+            // 查询名次和分数之间成员可能被删除
+            entries.add(rank == null || score == null ? null : new LeaderboardEntry(members.get(i), score, rank));
+        }
+        return entries;
+    }
+
+    /**
+     * 排行榜前 n 名
+     */
+    public List<LeaderboardEntry> top(String board, int n) {
+        return page(board, 0, n);
+    }
+
+    /**
+     * 分页查询排行榜，前 cachedPages 页优先读取本地缓存
+     *
+     * @param page     从 0 开始的页码
+     * @param pageSize 每页的成员数，不能超过 maxPageSize
+     * @return 这一页的成员，不可修改
+     */
+    public List<LeaderboardEntry> page(String board, int page, int pageSize) {
+        if (page < 0 || pageSize <= 0 || pageSize > properties.getMaxPageSize()) {
+            throw new IllegalArgumentException("invalid page: " + page + ", page size: " + pageSize
+                + ", max page size: " + properties.getMaxPageSize());
+        }
+        if (page >= properties.getCachedPages()) {
+            return loadPage(board, page, pageSize);
+        }
+        return pageCache.get(pageCacheKey(board, page, pageSize), key -> loadPage(board, page, pageSize));
+    }
+
+    /**
+     * 排行榜中的成员数量
+     */
+    public long size(String board) {
+        Long size = zSetOps.zCard(key(board));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 某一天的排行榜名称，以 board 为 hash tag，同一个排行榜每天的数据和合并结果位于同一个 slot，集群模式下也可以 ZUNIONSTORE
+     */
+    public String dailyBoard(String board, LocalDate date) {
+        return RedisKeys.hashTag(board, date.format(DATE_FORMATTER));
+    }
+
+    /**
+     * 把 from 到 to（包含）每天的排行榜合并成一个排行榜，同一个成员的分数相加
+     *
+     * @param ttl 合并结果的过期时间
+     * @return 合并结果的排行榜名称，可以使用 {@link #page(String, int, int)} 查询
+     */
+    public String unionDays(String board, LocalDate from, LocalDate to, Duration ttl) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days <= 0 || days > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("invalid date range: " + from + " ~ " + to);
+        }
+        List<String> sources = new ArrayList<>((int) days);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            sources.add(dailyBoard(board, date));
+        }
+        String dest = RedisKeys.hashTag(board, from.format(DATE_FORMATTER) + "-" + to.format(DATE_FORMATTER));
+        union(dest, sources, ttl);
+        return dest;
+    }
+
+    /**
+     * ZUNIONSTORE 合并多个排行榜，并在同一个 pipeline 中设置过期时间
+     *
+     * @return 合并结果中的成员数量
+     */
+    public long union(String destBoard, Collection<String> sourceBoards, Duration ttl) {
+        byte[] rawDest = rawKey(destBoard);
+        byte[][] rawSources = sourceBoards.stream().map(this::rawKey).toArray(byte[][]::new);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.zUnionStore(rawDest, rawSources);
+            connection.pExpire(rawDest, ttl.toMillis());
+            return null;
+        });
+        invalidate(destBoard);
+        Long size = (Long) results.get(0);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 删除本实例中这个排行榜的本地缓存
+     */
+    public void invalidate(String board) {
+        String prefix = board + "#";
+        pageCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 本地缓存的命中、未命中次数等统计信息
+     */
+    public CacheStats stats() {
+        return pageCache.stats();
+    }
+
+    private List<LeaderboardEntry> loadPage(String board, int page, int pageSize) {
+        long start = (long) page * pageSize;
+        Set<ZSetOperations.TypedTuple<PersonDTO>> tuples = zSetOps.reverseRangeWithScores(key(board), start, start + pageSize - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LeaderboardEntry> entries = new ArrayList<>(tuples.size());
+        long rank = start;
+        for (ZSetOperations.TypedTuple<PersonDTO> tuple : tuples) {
+            entries.add(new LeaderboardEntry(tuple.getValue(), tuple.getScore(), rank++));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    private String pageCacheKey(String board, int page, int pageSize) {
+        return board + "#" + page + "#" + pageSize;
+    }
+
+    private String key(String board) {
+        return properties.getKeyPrefix() + board;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String board) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key(board));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawMember(PersonDTO member) {
+        return ((RedisSerializer<PersonDTO>) redisTemplate.getValueSerializer()).serialize(member);
+    }
+}
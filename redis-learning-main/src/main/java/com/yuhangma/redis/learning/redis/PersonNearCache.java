@@ -0,0 +1,216 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.yuhangma.redis.learning.config.NearCacheProperties;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * personRedisTemplate 前面的本地近端缓存（L1）
+ * <p>
+ * 读取时先查本地缓存，未命中时在一个 pipeline 中执行 GET 和 PTTL，本地缓存的存活时间不会超过 key 在 Redis 中的剩余 TTL。
+ * 本地缓存使用 Caffeine 的 W-TinyLFU 淘汰策略，可以按 key 的数量或者估算的字节数限制大小。
+ * </p>
+ * <p>
+ * 缓存一致性依赖 keyspace 通知：其他客户端修改或者删除 key、key 过期或者被淘汰时，Redis 会向
+ * __keyspace@{db}__:{key} 频道发布消息，收到消息后删除本地缓存。Redis 6 的 CLIENT TRACKING 需要 RESP3 协议，
+ * 当前使用的 Lettuce 5.0 并不支持，所以这里使用 keyspace 通知，并用 {@link NearCacheProperties#getMaxLocalTtl()} 兜底。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+public class PersonNearCache implements MessageListener {
+
+    /**
+     * 估算字节数时，每个缓存项额外的对象开销
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final RedisTemplate<String, PersonDTO> redisTemplate;
+
+    private final Cache<String, Entry> cache;
+
+    private final long maxLocalTtlNanos;
+
+    private final String channelPrefix;
+
+    /**
+     * 正在从 Redis 读取的 key，每次读取使用一个新的标记对象。失效时先删除标记再删除缓存，
+     * 读取完成后只有标记还在时才写入本地缓存，大小不超过同时读取的线程数
+     */
+    private final ConcurrentMap<String, Object> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，只用于统计
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PersonNearCache(RedisTemplate<String, PersonDTO> redisTemplate, NearCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.maxLocalTtlNanos = properties.getMaxLocalTtl().toNanos();
+        this.channelPrefix = "__keyspace@" + properties.getDatabase() + "__:";
+        Caffeine<String, Entry> builder = Caffeine.newBuilder()
+            .expireAfter(new RemainingTtlExpiry())
+            .recordStats();
+        if (properties.getMaximumWeightBytes() > 0) {
+            builder.maximumWeight(properties.getMaximumWeightBytes())
+                .weigher((String key, Entry entry) -> entry.weight(key));
+        } else {
+            builder.maximumSize(properties.getMaximumSize());
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * 读取 key 对应的 value，本地缓存未命中时从 Redis 读取，只有一次网络往返
+     *
+     * @param key the key
+     * @return value，key 不存在时返回 null
+     */
+    public PersonDTO get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return entry.value;
+        }
+        Object token = new Object();
+        loading.put(key, token);
+        try {
+            byte[] rawKey = rawKey(key);
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.get(rawKey);
+                connection.pTtl(rawKey);
+                return null;
+            });
+            PersonDTO value = (PersonDTO) results.get(0);
+            Long pttl = (Long) results.get(1);
+            if (value == null || pttl == null || pttl == -2) {
+                return value;
+            }
+            long ttlNanos = pttl < 0 ? maxLocalTtlNanos : Math.min(maxLocalTtlNanos, TimeUnit.MILLISECONDS.toNanos(pttl));
+            if (ttlNanos > 0) {
+                // 读取期间这个 key 收到过失效通知（标记已经被删除）时不写入，避免把旧值放进去；
+                // 检查和写入在 compute 中原子地执行，失效通知的 cache.invalidate 会等待 compute 完成
+                cache.asMap().compute(key, (k, current) ->
+                    loading.remove(key, token) ? new Entry(value, ttlNanos) : current);
+            }
+            return value;
+        } finally {
+            loading.remove(key, token);
+        }
+    }
+
+    /**
+     * 写入 Redis，并删除本地缓存
+     */
+    public void set(String key, PersonDTO value, Duration ttl) {
+        redisTemplate.opsForValue().set(key, value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        invalidate(key);
+    }
+
+    /**
+     * 删除 Redis 中的 key，并删除本地缓存
+     */
+    public Boolean delete(String key) {
+        Boolean deleted = redisTemplate.delete(key);
+        invalidate(key);
+        return deleted;
+    }
+
+    public void invalidate(String key) {
+        invalidations.incrementAndGet();
+        // 必须先删除标记，再删除缓存
+        loading.remove(key);
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        loading.clear();
+        cache.invalidateAll();
+    }
+
+    /**
+     * 命中、未命中、淘汰次数等统计信息
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long invalidationCount() {
+        return invalidations.get();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 收到 keyspace 通知，频道格式为 __keyspace@{db}__:{key}，消息内容为事件名称（set、del、expired 等）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (channel.startsWith(channelPrefix)) {
+            invalidate(channel.substring(channelPrefix.length()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    private static class Entry {
+
+        private final PersonDTO value;
+
+        private final long ttlNanos;
+
+        private Entry(PersonDTO value, long ttlNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+        }
+
+        private int weight(String key) {
+            String name = value.getName();
+            return ENTRY_OVERHEAD_BYTES + key.length() * 2 + (name == null ? 0 : name.length() * 2);
+        }
+    }
+
+    /**
+     * 写入时按照 Redis 中的剩余 TTL 设置过期时间，读取不会延长过期时间
+     */
+    private static class RemainingTtlExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
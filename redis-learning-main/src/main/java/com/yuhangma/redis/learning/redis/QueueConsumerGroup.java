@@ -0,0 +1,230 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link ReliableRedisQueue} 的一组消费者，每个消费者一个线程和一个处理中队列
+ * <p>
+ * 每个消费者循环执行：取出一批消息（队列为空时阻塞等待）、交给 handler 处理、整批确认。
+ * linger 大于 0 时，取出的消息不满一批会先等待 linger 再补齐一次，低流量时用一点延迟换取更大的批次。
+ * 取消息、处理或者确认时出错，消费者在取下一批消息之前把自己的处理中队列放回待处理队列，这些消息会被重新投递。
+ * 关闭时等待正在处理的一批消息处理完成并确认，然后把处理中队列中剩余的消息放回待处理队列，并删除心跳。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+public class QueueConsumerGroup implements AutoCloseable {
+
+    /**
+     * Redis 出错之后，重试之前等待的时间
+     */
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final ReliableRedisQueue queue;
+
+    private final String queueName;
+
+    private final int batchSize;
+
+    private final Duration block;
+
+    private final long lingerMillis;
+
+    private final Consumer<List<QueueMessage>> handler;
+
+    private final Consumer<List<QueueMessage>> deadLetterHandler;
+
+    private final List<String> consumerIds;
+
+    private final List<Thread> threads;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    private volatile boolean running;
+
+    QueueConsumerGroup(ReliableRedisQueue queue, String queueName, int concurrency, int batchSize, Duration block,
+                       Duration linger, Consumer<List<QueueMessage>> handler,
+                       Consumer<List<QueueMessage>> deadLetterHandler) {
+        this.queue = queue;
+        this.queueName = queueName;
+        this.batchSize = batchSize;
+        this.block = block;
+        this.lingerMillis = linger.toMillis();
+        this.handler = handler;
+        this.deadLetterHandler = deadLetterHandler;
+        // 进程名（pid@host）加上随机后缀，重启之后的消费者 id 不会和崩溃之前的相同
+        String prefix = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        List<String> ids = new ArrayList<>(concurrency);
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String consumerId = prefix + "-" + i;
+            ids.add(consumerId);
+            Thread thread = new Thread(() -> consume(consumerId), "redis-queue-" + queueName + "-" + i);
+            thread.setDaemon(true);
+            workers.add(thread);
+        }
+        this.consumerIds = Collections.unmodifiableList(ids);
+        this.threads = Collections.unmodifiableList(workers);
+    }
+
+    void start() {
+        // 先注册心跳，再开始取消息，否则刚取出的消息可能被当作没有消费者的消息回收
+        queue.heartbeat(queueName, consumerIds);
+        running = true;
+        threads.forEach(Thread::start);
+    }
+
+    /**
+     * 停止所有消费者，最多等待一个阻塞周期和 linger，加上正在处理的一批消息的时间
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        queue.removeGroup(this);
+    }
+
+    public String getQueue() {
+        return queueName;
+    }
+
+    public List<String> getConsumerIds() {
+        return consumerIds;
+    }
+
+    /**
+     * 已经确认的消息数量
+     */
+    public long processedCount() {
+        return processed.get();
+    }
+
+    /**
+     * 放入死信队列的消息数量
+     */
+    public long deadLetterCount() {
+        return deadLettered.get();
+    }
+
+    private void consume(String consumerId) {
+        boolean recovering = false;
+        while (running) {
+            try {
+                if (recovering) {
+                    recover(consumerId);
+                    recovering = false;
+                }
+                List<QueueMessage> messages = queue.claim(queueName, consumerId, batchSize, block);
+                if (!messages.isEmpty() && messages.size() < batchSize && lingerMillis > 0) {
+                    messages = linger(consumerId, messages);
+                }
+                if (!messages.isEmpty()) {
+                    handle(consumerId, messages);
+                }
+            } catch (RuntimeException e) {
+                // 例如确认时 Redis 出错，已经取出的消息留在处理中队列。消费者的心跳还在，不会被回收，
+                // 所以在取下一批消息之前由自己放回待处理队列
+                log.warn("consumer {} of queue {} failed", consumerId, queueName, e);
+                recovering = true;
+                sleepQuietly();
+            }
+        }
+        try {
+            queue.release(queueName, consumerId);
+        } catch (RuntimeException e) {
+            // 心跳超时之后由其他实例回收
+            log.warn("release consumer {} of queue {} failed", consumerId, queueName, e);
+        }
+    }
+
+    /**
+     * 把自己的处理中队列放回待处理队列，这些消息会被重新投递；放回时会删除心跳，这里重新注册
+     */
+    private void recover(String consumerId) {
+        long moved = queue.release(queueName, consumerId);
+        queue.heartbeat(queueName, Collections.singletonList(consumerId));
+        if (moved > 0) {
+            log.warn("consumer {} of queue {} recovered, {} messages will be redelivered", consumerId, queueName, moved);
+        }
+    }
+
+    private void handle(String consumerId, List<QueueMessage> messages) {
+        try {
+            handler.accept(messages);
+            processed.addAndGet(queue.ack(queueName, consumerId, messages));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("handle {} messages of queue {} failed, retry one by one", messages.size(), queueName, e);
+        }
+        List<QueueMessage> succeeded = new ArrayList<>(messages.size());
+        List<QueueMessage> failed = new ArrayList<>();
+        for (QueueMessage message : messages) {
+            try {
+                handler.accept(Collections.singletonList(message));
+                succeeded.add(message);
+            } catch (RuntimeException e) {
+                log.error("handle message {} of queue {} failed, move to dead letter queue", message.getId(), queueName, e);
+                failed.add(message);
+            }
+        }
+        processed.addAndGet(queue.ack(queueName, consumerId, succeeded));
+        deadLettered.addAndGet(queue.deadLetter(queueName, consumerId, failed));
+        if (deadLetterHandler != null && !failed.isEmpty()) {
+            try {
+                deadLetterHandler.accept(failed);
+            } catch (RuntimeException e) {
+                log.error("dead letter handler of queue {} failed", queueName, e);
+            }
+        }
+    }
+
+    /**
+     * 等待 linger 之后再取出一次，补齐这一批。等待期间已经取出的消息在处理中队列里，崩溃时同样会被回收
+     */
+    private List<QueueMessage> linger(String consumerId, List<QueueMessage> messages) {
+        try {
+            Thread.sleep(lingerMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return messages;
+        }
+        List<QueueMessage> more = queue.claim(queueName, consumerId, batchSize - messages.size(), Duration.ZERO);
+        if (more.isEmpty()) {
+            return messages;
+        }
+        List<QueueMessage> batch = new ArrayList<>(messages.size() + more.size());
+        batch.addAll(messages);
+        batch.addAll(more);
+        return batch;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(ERROR_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.Data;
+
+/**
+ * {@link ReliableRedisQueue} 中的一条消息，在 Redis 中编码为 id:payload
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Data
+public class QueueMessage {
+
+    /**
+     * 队列中递增的 id
+     */
+    private final long id;
+
+    private final String payload;
+
+    static QueueMessage decode(String encoded) {
+        int separator = encoded.indexOf(':');
+        return new QueueMessage(Long.parseLong(encoded.substring(0, separator)), encoded.substring(separator + 1));
+    }
+
+    String encode() {
+        return id + ":" + payload;
+    }
+}
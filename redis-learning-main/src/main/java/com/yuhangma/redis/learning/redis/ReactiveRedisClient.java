@@ -0,0 +1,178 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.ValueListOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link RedisClient} 的响应式版本，基于 reactivePersonRedisTemplate，不会为每个进行中的 Redis 请求占用一个线程
+ *
+ * @author Moore
+ * @see RedisClient
+ * @since 2026/10/18
+ */
+@Component
+public class ReactiveRedisClient {
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
+    @Autowired
+    private ReactiveRedisTemplate<String, PersonDTO> reactivePersonRedisTemplate;
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    @Autowired
+    private RedisClient redisClient;
+
+    /**
+     * 只用于获取 Lettuce 的原生连接发送 RPOP key count
+     */
+    @Autowired
+    private RedisTemplate<String, PersonDTO> redisTemplate;
+
+    /**
+     * 和 {@link RedisClient} 使用同一个已经 SCRIPT LOAD 的脚本，通过 {@link RedisScriptRegistry#executeReactive} 只发送 EVALSHA，
+     * 服务端丢失脚本之后自动重新加载
+     */
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> rightMultiPopScript;
+
+    /**
+     * 执行阻塞调用的调度器：spring-data-redis 2.0 的响应式 API 没有 SCAN，扫描 key 时在这里执行阻塞的 SCAN；
+     * RPOP key count 在这里从连接池获取连接
+     */
+    private final Scheduler blockingScheduler = Schedulers.newElastic("redis-reactive-blocking");
+
+    @PostConstruct
+    public void init() {
+        rightMultiPopScript = scripts.get("right_multi_pop", List.class);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        blockingScheduler.dispose();
+    }
+
+    /**
+     * 从右边原子地 pop count 条数据，一次网络往返。和 {@link RedisClient} 一样，Redis 6.2 及以上版本使用 RPOP key count，
+     * 低版本使用 Lua 脚本
+     *
+     * @see RedisClient#rightMultiAtomicPop(String, int)
+     */
+    public Flux<PersonDTO> rightMultiAtomicPop(String key, int count) {
+        if (count <= 0) {
+            return Flux.empty();
+        }
+        if (redisClient.isNativeMultiPopSupported()) {
+            return nativeRightMultiPop(key, count);
+        }
+        return scriptRightMultiPop(key, count);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Flux<PersonDTO> scriptRightMultiPop(String key, int count) {
+        RedisElementReader reader = reactivePersonRedisTemplate.getSerializationContext().getValueSerializationPair().getReader();
+        Flux<Object> values = scripts.executeReactive(reactivePersonRedisTemplate, (RedisScript) rightMultiPopScript,
+            Collections.singletonList(key), Collections.singletonList(String.valueOf(count)),
+            RedisElementWriter.from(STRING_SERIALIZER), reader);
+        // 不同版本的驱动对 MULTI 类型的返回，有的逐个返回元素，有的返回整个 list，这里统一展开
+        return values.flatMapIterable(value -> value instanceof List ? (List<Object>) value : Collections.singletonList(value))
+            .cast(PersonDTO.class);
+    }
+
+    /**
+     * spring-data-redis 2.0 的响应式连接不能发送自定义 output 的命令，这里在 Lettuce 的原生异步连接上发送 RPOP key count，
+     * 命令完成或者取消订阅时释放连接。拿不到 Lettuce 连接时使用 Lua 脚本
+     * <p>
+     * 从连接池获取连接是阻塞的，所以在 {@link #blockingScheduler} 上订阅，不会阻塞调用方的线程（例如 Netty 的事件循环），
+     * 命令本身仍然是异步发送的。
+     */
+    @SuppressWarnings("unchecked")
+    private Flux<PersonDTO> nativeRightMultiPop(String key, int count) {
+        RedisConnectionFactory factory = redisTemplate.getRequiredConnectionFactory();
+        RedisElementReader<PersonDTO> reader = reactivePersonRedisTemplate.getSerializationContext()
+            .getValueSerializationPair().getReader();
+        byte[] rawKey = STRING_SERIALIZER.serialize(key);
+        return Flux.using(() -> RedisConnectionUtils.getConnection(factory), connection -> {
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            if (lettuceConnection == null) {
+                return scriptRightMultiPop(key, count);
+            }
+            RedisFuture<List<byte[]>> future = ((RedisClusterAsyncCommands<byte[], byte[]>) lettuceConnection.getNativeConnection())
+                .dispatch(CommandType.RPOP, new ValueListOutput<>(ByteArrayCodec.INSTANCE),
+                    new CommandArgs<>(ByteArrayCodec.INSTANCE).addKey(rawKey).add(count));
+            return Mono.fromCompletionStage(future)
+                .flatMapIterable(Function.identity())
+                .map(value -> reader.read(ByteBuffer.wrap(value)));
+        }, (RedisConnection connection) -> RedisConnectionUtils.releaseConnection(connection, factory))
+            .subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * 持续从 list 的右侧批量 pop，直到 list 为空，下游有需求时才会 pop 下一批
+     * <p>
+     * pop 是破坏性的操作，最多预取一批数据：下游取消订阅时，已经 pop 但还没有被消费的数据（最多 batchSize 条）会丢失。
+     * 不能接受丢失时请使用带 ack 的队列。
+     *
+     * @param key       list 的 key
+     * @param batchSize 每次 pop 的数量
+     */
+    public Flux<PersonDTO> drain(String key, int batchSize) {
+        return Flux.defer(() -> rightMultiAtomicPop(key, batchSize).collectList())
+            .repeat()
+            .takeWhile(batch -> !batch.isEmpty())
+            .concatMapIterable(Function.identity(), 1);
+    }
+
+    /**
+     * 批量读取多个 key，一次 MGET
+     */
+    public Mono<List<PersonDTO>> multiGet(Collection<String> keys) {
+        return reactivePersonRedisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * 扫描匹配 pattern 的 key
+     * <p>
+     * spring-data-redis 2.0 的 ReactiveKeyCommands 只有 KEYS 没有 SCAN，所以这里把 {@link RedisKeyScanner} 的惰性 Stream
+     * 放在单独的调度器上执行：只有在下游 request 时才会继续迭代，迭代完当前这一批 key 才会发送下一次 SCAN，取消订阅或者结束时关闭游标。
+     *
+     * @see RedisKeyScanner#scan(String, int)
+     */
+    public Flux<String> scan(String pattern, int count) {
+        return Flux.using(() -> redisKeyScanner.scan(pattern, count), Flux::fromStream, java.util.stream.Stream::close)
+            .subscribeOn(blockingScheduler);
+    }
+}
@@ -0,0 +1,416 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.ArrayOutput;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于 Redis bitmap 的批量位操作、小整数计数器和日活统计
+ * <ul>
+ * <li>批量读写位：多个 offset 合并为一条 BITFIELD 命令（Redis 3.2+），低版本 Redis 退化为 pipeline 中的 GETBIT / SETBIT</li>
+ * <li>计数器：一个 key 中保存多个固定位宽的无符号整数，BITFIELD INCRBY 批量累加，溢出时饱和，适合按用户记录的小计数</li>
+ * <li>日活：每天一个 bitmap，offset 为用户 id，BITCOUNT 统计当天的活跃用户，BITOP OR / AND 统计日期范围内的活跃用户</li>
+ * <li>本地副本：{@link BitmapMirror}，热点 id 的判断不需要访问 Redis。最多保留 {@link #MAX_MIRRORS} 个副本，
+ * 超过数量或者 {@link #MIRROR_EXPIRE_AFTER_ACCESS} 没有访问的副本被淘汰；后台刷新在单独的线程中执行，不占用公共的 ForkJoinPool</li>
+ * </ul>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/bitfield">Redis Documentation: BITFIELD</a>
+ * @see <a href="http://redis.io/commands/bitop">Redis Documentation: BITOP</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisBitmapService {
+
+    /**
+     * 日活 bitmap 默认的 key 前缀，完整的 key 为 bitmap:{active}:yyyyMMdd，
+     * hash tag 使所有日期的 bitmap 位于同一个 slot，集群模式下也可以 BITOP
+     */
+    public static final String DEFAULT_ACTIVE_KEY_PREFIX = "bitmap:{active}:";
+
+    /**
+     * 一条 BITFIELD 命令中最多的子命令数，过长的命令会长时间占用 Redis
+     */
+    public static final int BITFIELD_BATCH_SIZE = 1000;
+
+    /**
+     * 日期范围内最多的天数
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    /**
+     * Redis bitmap 的 offset 必须小于 2^32
+     */
+    public static final long MAX_OFFSET = (1L << 32) - 1;
+
+    /**
+     * 本地副本的最大数量，每个副本最多占用和 Redis 中的 bitmap 相当的内存
+     */
+    public static final int MAX_MIRRORS = 256;
+
+    public static final Duration MIRROR_EXPIRE_AFTER_ACCESS = Duration.ofHours(1);
+
+    /**
+     * BITOP 结果 key 的过期时间
+     */
+    private static final Duration BITOP_RESULT_TTL = Duration.ofMinutes(1);
+
+    private static final Duration DEFAULT_MAX_STALENESS = Duration.ofSeconds(10);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final byte[] GET = bytes("GET"), SET = bytes("SET"), INCRBY = bytes("INCRBY"), U1 = bytes("u1"),
+        OVERFLOW = bytes("OVERFLOW"), SAT = bytes("SAT"), ZERO = bytes("0"), ONE = bytes("1");
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * BITFIELD 从 Redis 3.2 开始支持，执行失败之后不再尝试
+     */
+    private volatile boolean bitfieldSupported = true;
+
+    /**
+     * 被淘汰的副本不再接收本进程中的修改，调用方不应该长期持有副本，每次通过 {@link #mirror(String)} 获取
+     */
+    private final Cache<String, BitmapMirror> mirrors = Caffeine.newBuilder()
+        .maximumSize(MAX_MIRRORS)
+        .expireAfterAccess(MIRROR_EXPIRE_AFTER_ACCESS)
+        .build();
+
+    /**
+     * 副本的后台刷新，每个副本同时最多一个刷新任务
+     */
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bitmap-mirror-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private String activeKeyPrefix = DEFAULT_ACTIVE_KEY_PREFIX;
+
+    public void setActiveKeyPrefix(String activeKeyPrefix) {
+        this.activeKeyPrefix = activeKeyPrefix;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 批量读取多个位
+     */
+    public boolean[] getBits(String key, long... offsets) {
+        checkOffsets(offsets);
+        List<Object> results = bitfield(key, offsets.length, (args, i) -> {
+            args.add(GET);
+            args.add(U1);
+            args.add(bytes(offsets[i]));
+        }, connection -> {
+            byte[] rawKey = bytes(key);
+            for (long offset : offsets) {
+                connection.getBit(rawKey, offset);
+            }
+        });
+        return toBooleans(results);
+    }
+
+    /**
+     * 批量设置多个位
+     *
+     * @return 每个位原来的值
+     */
+    public boolean[] setBits(String key, boolean value, long... offsets) {
+        // 在写入之前检查，不会只写入一部分批次
+        checkOffsets(offsets);
+        byte[] rawValue = value ? ONE : ZERO;
+        List<Object> results = bitfield(key, offsets.length, (args, i) -> {
+            args.add(SET);
+            args.add(U1);
+            args.add(bytes(offsets[i]));
+            args.add(rawValue);
+        }, connection -> {
+            byte[] rawKey = bytes(key);
+            for (long offset : offsets) {
+                connection.setBit(rawKey, offset, value);
+            }
+        });
+        BitmapMirror mirror = mirrors.getIfPresent(key);
+        if (mirror != null) {
+            for (long offset : offsets) {
+                // 副本只支持 int 范围内的 offset，更大的 offset 不会被查询
+                if (offset <= Integer.MAX_VALUE) {
+                    mirror.changed((int) offset, value);
+                }
+            }
+        }
+        return toBooleans(results);
+    }
+
+    /**
+     * 累加多个计数器，第 index 个计数器位于 bits * index 位，溢出时保持最大值或者 0
+     *
+     * @param bits    计数器的位宽，1 到 63
+     * @param delta   增量，可以为负数
+     * @param indexes 计数器的下标
+     * @return 累加之后的值
+     */
+    public long[] incrementCounters(String key, int bits, long delta, long... indexes) {
+        byte[] type = counterType(bits);
+        byte[] rawDelta = bytes(delta);
+        List<Object> results = bitfield(key, indexes.length, (args, i) -> {
+            // OVERFLOW 对之后的 INCRBY 生效，每一批命令的开头都需要
+            if (args.size() == 1) {
+                args.add(OVERFLOW);
+                args.add(SAT);
+            }
+            args.add(INCRBY);
+            args.add(type);
+            args.add(bytes("#" + indexes[i]));
+            args.add(rawDelta);
+        }, null);
+        return toLongs(results);
+    }
+
+    /**
+     * 读取多个计数器
+     */
+    public long[] getCounters(String key, int bits, long... indexes) {
+        byte[] type = counterType(bits);
+        List<Object> results = bitfield(key, indexes.length, (args, i) -> {
+            args.add(GET);
+            args.add(type);
+            args.add(bytes("#" + indexes[i]));
+        }, null);
+        return toLongs(results);
+    }
+
+    public String activeKey(LocalDate date) {
+        return activeKeyPrefix + date.format(DATE_FORMATTER);
+    }
+
+    /**
+     * 记录用户在 date 这一天活跃
+     */
+    public void markActive(LocalDate date, int... userIds) {
+        long[] offsets = new long[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            offsets[i] = userIds[i];
+        }
+        setBits(activeKey(date), true, offsets);
+    }
+
+    /**
+     * 用户在 date 这一天是否活跃，使用本地副本
+     */
+    public boolean isActive(LocalDate date, int userId) {
+        return mirror(activeKey(date)).contains(userId);
+    }
+
+    public long countActive(LocalDate date) {
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection -> connection.bitCount(bytes(activeKey(date))));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 日期范围内（包含两端）至少活跃一天的用户数
+     */
+    public long countActiveAny(LocalDate from, LocalDate to) {
+        return countActive(RedisStringCommands.BitOperation.OR, from, to);
+    }
+
+    /**
+     * 日期范围内（包含两端）每天都活跃的用户数
+     */
+    public long countActiveEvery(LocalDate from, LocalDate to) {
+        return countActive(RedisStringCommands.BitOperation.AND, from, to);
+    }
+
+    /**
+     * 获取 key 的本地副本，最多落后 10 秒
+     */
+    public BitmapMirror mirror(String key) {
+        return mirror(key, DEFAULT_MAX_STALENESS);
+    }
+
+    /**
+     * 获取 key 的本地副本，第一次获取时同步加载，之后同一个 key 返回同一个副本
+     */
+    public BitmapMirror mirror(String key, Duration maxStaleness) {
+        return mirrors.get(key, k -> new BitmapMirror(k, this::rawGet, maxStaleness, refreshExecutor));
+    }
+
+    public void removeMirror(String key) {
+        mirrors.invalidate(key);
+    }
+
+    /**
+     * BITOP 的结果保存在 bitmap:{active}:op:from:to 中，短时间内可以直接使用，例如作为 {@link #mirror(String)} 的 key
+     */
+    public String activeRangeKey(RedisStringCommands.BitOperation op, LocalDate from, LocalDate to) {
+        return activeKeyPrefix + op.name().toLowerCase() + ":" + from.format(DATE_FORMATTER) + ":" + to.format(DATE_FORMATTER);
+    }
+
+    private long countActive(RedisStringCommands.BitOperation op, LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        Assert.isTrue(days > 0 && days <= MAX_RANGE_DAYS, "date range must be within " + MAX_RANGE_DAYS + " days");
+        byte[][] rawKeys = new byte[(int) days][];
+        for (int i = 0; i < days; i++) {
+            rawKeys[i] = bytes(activeKey(from.plusDays(i)));
+        }
+        byte[] destination = bytes(activeRangeKey(op, from, to));
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.bitOp(op, destination, rawKeys);
+            connection.pExpire(destination, BITOP_RESULT_TTL.toMillis());
+            connection.bitCount(destination);
+            return null;
+        });
+        return (Long) results.get(results.size() - 1);
+    }
+
+    /**
+     * 执行 BITFIELD，每 {@link #BITFIELD_BATCH_SIZE} 个子命令一条命令，所有命令在一个 pipeline 中发送；
+     * 不支持 BITFIELD 时使用 fallback，fallback 中的命令在 pipeline 中执行，每个命令返回一个结果
+     */
+    private List<Object> bitfield(String key, int count, SubCommandWriter writer, PipelineFallback fallback) {
+        byte[] rawKey = bytes(key);
+        List<byte[][]> commands = new ArrayList<>(count / BITFIELD_BATCH_SIZE + 1);
+        for (int start = 0; start < count; start += BITFIELD_BATCH_SIZE) {
+            int end = Math.min(count, start + BITFIELD_BATCH_SIZE);
+            List<byte[]> args = new ArrayList<>((end - start) * 4 + 3);
+            args.add(rawKey);
+            for (int i = start; i < end; i++) {
+                writer.write(args, i);
+            }
+            commands.add(args.toArray(new byte[0][]));
+        }
+        List<Object> results = executeBitfield(commands, fallback != null);
+        if (results == null) {
+            return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                fallback.execute(connection);
+                return null;
+            });
+        }
+        return results;
+    }
+
+    /**
+     * @return 所有 BITFIELD 命令的结果，Redis 不支持 BITFIELD 并且可以降级时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> executeBitfield(List<byte[][]> commands, boolean canFallback) {
+        if (!bitfieldSupported && canFallback) {
+            return null;
+        }
+        return redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            // spring-data-redis 2.0 没有封装 BITFIELD，需要指定 output 类型
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            if (lettuceConnection == null) {
+                if (canFallback) {
+                    return null;
+                }
+                throw new UnsupportedOperationException("BITFIELD requires a lettuce connection");
+            }
+            List<Object> batches;
+            try {
+                lettuceConnection.openPipeline();
+                for (byte[][] args : commands) {
+                    lettuceConnection.execute("BITFIELD", new ArrayOutput<>(ByteArrayCodec.INSTANCE), args);
+                }
+                batches = lettuceConnection.closePipeline();
+            } catch (DataAccessException e) {
+                if (!canFallback || !RedisConnections.isUnknownCommand(e)) {
+                    throw e;
+                }
+                log.warn("BITFIELD is not supported by redis server, fallback to GETBIT/SETBIT");
+                bitfieldSupported = false;
+                return null;
+            }
+            List<Object> results = new ArrayList<>();
+            for (Object batch : batches) {
+                results.addAll((List<Object>) batch);
+            }
+            return results;
+        }, true);
+    }
+
+    private byte[] rawGet(String key) {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(bytes(key)));
+    }
+
+    private static void checkOffsets(long... offsets) {
+        for (long offset : offsets) {
+            Assert.isTrue(offset >= 0 && offset <= MAX_OFFSET, "bit offset must be 0 to " + MAX_OFFSET + ": " + offset);
+        }
+    }
+
+    private static byte[] counterType(int bits) {
+        Assert.isTrue(bits > 0 && bits < 64, "unsigned counter must be 1 to 63 bits");
+        return bytes("u" + bits);
+    }
+
+    private static boolean[] toBooleans(List<Object> results) {
+        boolean[] values = new boolean[results.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object result = results.get(i);
+            values[i] = result instanceof Boolean ? (Boolean) result : result != null && ((Number) result).longValue() == 1;
+        }
+        return values;
+    }
+
+    private static long[] toLongs(List<Object> results) {
+        long[] values = new long[results.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object result = results.get(i);
+            values[i] = result == null ? 0 : ((Number) result).longValue();
+        }
+        return values;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(long value) {
+        return bytes(String.valueOf(value));
+    }
+
+    @FunctionalInterface
+    private interface SubCommandWriter {
+
+        /**
+         * 写入第 i 个子命令的参数
+         */
+        void write(List<byte[]> args, int i);
+    }
+
+    @FunctionalInterface
+    private interface PipelineFallback {
+
+        void execute(RedisConnection connection);
+    }
+}
@@ -0,0 +1,158 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 批量写入大量 key，并且可以同时设置过期时间
+ * <p>
+ * MSET 不能设置过期时间，并且一次写入几百万个 key 会产生一个巨大的命令。这里把数据按照 chunkSize 分批，
+ * 每批在一个 pipeline 中执行 SET key value PX ttl，最多同时有 inFlight 个 pipeline 在执行。
+ * 数据源是 {@link Iterator} 或者 {@link Stream}，只有在有空闲的 pipeline 时才会继续读取，内存中最多保存 inFlight 批数据。
+ * </p>
+ * <p>
+ * key 和 value 使用传入的 {@link RedisTemplate} 配置的序列化器，所以同样适用于 personRedisTemplate。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/set">Redis Documentation: SET</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisBulkWriter {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "redis-bulk-writer-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public <V> BulkWriteResult write(RedisTemplate<String, V> redisTemplate, Stream<? extends Map.Entry<String, V>> entries,
+                                     BulkWriteOptions options) {
+        try (Stream<? extends Map.Entry<String, V>> stream = entries) {
+            return write(redisTemplate, stream.iterator(), options);
+        }
+    }
+
+    /**
+     * 分批写入所有数据，任意一批写入失败时抛出异常，已经写入的数据不会回滚
+     *
+     * @param redisTemplate 使用它的连接和序列化器
+     * @param entries       需要写入的数据
+     * @param options       写入参数
+     * @return 写入结果，包含吞吐量
+     * @throws IllegalArgumentException chunkSize 或者 inFlight 不是正数
+     */
+    public <V> BulkWriteResult write(RedisTemplate<String, V> redisTemplate, Iterator<? extends Map.Entry<String, V>> entries,
+                                     BulkWriteOptions options) {
+        Assert.isTrue(options.getChunkSize() > 0, "chunkSize must be positive: " + options.getChunkSize());
+        Assert.isTrue(options.getInFlight() > 0, "inFlight must be positive: " + options.getInFlight());
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(options.getInFlight());
+        List<Future<Integer>> futures = new ArrayList<>();
+        long written = 0;
+        long chunks = 0;
+        try {
+            while (entries.hasNext()) {
+                // 先等待空闲的 pipeline 再读取下一批，内存中最多保存 inFlight 批数据
+                inFlight.acquire();
+                List<Map.Entry<String, V>> chunk = nextChunk(entries, options.getChunkSize());
+                futures.add(executor.submit(() -> {
+                    try {
+                        return writeChunk(redisTemplate, chunk, options.getTtl());
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                chunks++;
+                // 顺便回收已经完成的 pipeline，尽早发现错误，也避免 futures 无限增长
+                written += collectDone(futures, false);
+            }
+            written += collectDone(futures, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("bulk write interrupted", e);
+        }
+        BulkWriteResult result = new BulkWriteResult(written, chunks, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk write finished, written: {}, chunks: {}, elapsed: {} ms, throughput: {} keys/s",
+            result.getWritten(), result.getChunks(), result.getElapsed().toMillis(), (long) result.throughput());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> int writeChunk(RedisTemplate<String, V> redisTemplate, List<Map.Entry<String, V>> chunk, Duration ttl) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) redisTemplate.getValueSerializer();
+        Expiration expiration = ttl == null ? Expiration.persistent() : Expiration.milliseconds(ttl.toMillis());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, V> entry : chunk) {
+                connection.set(keySerializer.serialize(entry.getKey()), valueSerializer.serialize(entry.getValue()),
+                    expiration, RedisStringCommands.SetOption.UPSERT);
+            }
+            return null;
+        });
+        return chunk.size();
+    }
+
+    private <V> List<Map.Entry<String, V>> nextChunk(Iterator<? extends Map.Entry<String, V>> entries, int chunkSize) {
+        List<Map.Entry<String, V>> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && entries.hasNext()) {
+            chunk.add(entries.next());
+        }
+        return chunk;
+    }
+
+    private long collectDone(List<Future<Integer>> futures, boolean waitAll) throws InterruptedException {
+        long written = 0;
+        Iterator<Future<Integer>> iterator = futures.iterator();
+        while (iterator.hasNext()) {
+            Future<Integer> future = iterator.next();
+            if (!waitAll && !future.isDone()) {
+                continue;
+            }
+            try {
+                written += future.get();
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+            }
+            iterator.remove();
+        }
+        return written;
+    }
+}
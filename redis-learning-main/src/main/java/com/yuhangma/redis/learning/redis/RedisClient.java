@@ -1,14 +1,27 @@
 package com.yuhangma.redis.learning.redis;
 
 import com.yuhangma.redis.learning.model.PersonDTO;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.ValueListOutput;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
 
 /**
  * @author Moore
@@ -18,24 +31,162 @@ import java.time.format.DateTimeFormatter;
 @Component
 public class RedisClient {
 
+    /**
+     * RPOP 命令从 Redis 6.2 开始支持 count 参数
+     */
+    private static final int[] MULTI_POP_SINCE_VERSION = {6, 2};
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
     @Autowired
     private RedisTemplate<String, PersonDTO> redisTemplate;
 
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    @Autowired
+    private SlotAwareBatchExecutor batchExecutor;
+
+    @Autowired
+    private TtlPolicy ttlPolicy;
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> rightMultiPopScript;
+
+    /**
+     * 服务端是否支持 RPOP key count，启动时探测一次
+     */
+    private volatile boolean nativeMultiPopSupported;
+
+    @PostConstruct
+    public void init() {
+        // 脚本已经由 RedisScriptRegistry 在启动时 SCRIPT LOAD，之后的调用都只发送 EVALSHA
+        rightMultiPopScript = scripts.get("right_multi_pop", List.class);
+        try {
+            nativeMultiPopSupported = serverVersionAtLeast(MULTI_POP_SINCE_VERSION);
+            log.info("native RPOP count supported: {}", nativeMultiPopSupported);
+        } catch (DataAccessException e) {
+            // 启动时 Redis 不可用不影响应用启动，使用 Lua 脚本
+            log.warn("detect redis server version failed, fallback to lua script", e);
+        }
+    }
+
     /**
      * 从右边 pop count 条数据，原子操作，如果 list 中数量不足 count 个，则移除剩余的 value
+     * <p>
+     * Redis 6.2 及以上版本直接使用 RPOP key count，低版本使用 Lua 脚本（LRANGE + LTRIM）完成，
+     * 两种方式都只有一次网络往返，并且返回顺序与连续执行 count 次 RPOP 一致。
      *
      * @param key   the key
      * @param count the count
+     * @return 被弹出的元素，list 不存在时返回空 list
      */
-    public void rightMultiAtomicPop(String key, int count) {
-        if (count == 0) {
-            return;
+    public List<PersonDTO> rightMultiAtomicPop(String key, int count) {
+        if (count <= 0) {
+            return Collections.emptyList();
         }
-        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-            for (int i = 0; i < count; i++) {
-                connection.rPop(key.getBytes());
+        if (nativeMultiPopSupported) {
+            List<byte[]> values = nativeRightMultiPop(key, count);
+            if (values != null) {
+                return deserializeValues(values);
             }
-            return null;
-        });
+        }
+        return scriptRightMultiPop(key, count);
+    }
+
+    /**
+     * 服务端是否支持 RPOP key count，{@link ReactiveRedisClient} 使用同一个探测结果
+     */
+    boolean isNativeMultiPopSupported() {
+        return nativeMultiPopSupported;
+    }
+
+    /**
+     * 批量设置过期时间，所有 PEXPIRE 在一个 pipeline 中发送，集群模式下由 Lettuce 路由到各个节点
+     *
+     * @return 设置成功的 key 的数量，不存在的 key 不计入
+     */
+    public long expire(Collection<String> keys, Duration ttl) {
+        long millis = ttl.toMillis();
+        return countTrue(batchExecutor.executePerKey(redisTemplate, new ArrayList<>(keys),
+            (connection, key) -> connection.pExpire(key, millis)));
+    }
+
+    /**
+     * 和 {@link #expire(Collection, Duration)} 相同，但是每个 key 的过期时间由 {@link TtlPolicy} 随机缩短，
+     * 用于同一时刻批量写入的 key，避免它们在同一时刻过期
+     */
+    public long expireWithJitter(Collection<String> keys, Duration ttl) {
+        return countTrue(batchExecutor.executePerKey(redisTemplate, new ArrayList<>(keys),
+            (connection, key) -> connection.pExpire(key, ttlPolicy.jitteredMillis(ttl))));
+    }
+
+    /**
+     * 批量移除过期时间
+     *
+     * @return 移除了过期时间的 key 的数量，不存在或者本来没有过期时间的 key 不计入
+     */
+    public long persist(Collection<String> keys) {
+        return countTrue(batchExecutor.executePerKey(redisTemplate, new ArrayList<>(keys), RedisConnection::persist));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<PersonDTO> scriptRightMultiPop(String key, int count) {
+        List<PersonDTO> values = scripts.execute(redisTemplate, rightMultiPopScript, STRING_SERIALIZER,
+            (RedisSerializer<List>) redisTemplate.getValueSerializer(), Collections.singletonList(key), String.valueOf(count));
+        return values == null ? Collections.emptyList() : values;
+    }
+
+    /**
+     * spring-data-redis 2.0 没有封装 RPOP 的 count 参数，并且通用的 execute 方法会按照单值解析 RPOP 的返回，
+     * 所以这里需要拿到真实的 {@link LettuceConnection} 并指定 output 类型，拿不到时返回 null 交给 Lua 脚本处理。
+     */
+    @SuppressWarnings("unchecked")
+    private List<byte[]> nativeRightMultiPop(String key, int count) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawCount = STRING_SERIALIZER.serialize(String.valueOf(count));
+        return redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> {
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            if (lettuceConnection == null) {
+                return null;
+            }
+            List<byte[]> values = (List<byte[]>) lettuceConnection
+                .execute("RPOP", new ValueListOutput<>(ByteArrayCodec.INSTANCE), rawKey, rawCount);
+            return values == null ? Collections.emptyList() : values;
+        }, true);
+    }
+
+    private List<PersonDTO> deserializeValues(List<byte[]> rawValues) {
+        RedisSerializer<?> valueSerializer = redisTemplate.getValueSerializer();
+        List<PersonDTO> values = new ArrayList<>(rawValues.size());
+        for (byte[] rawValue : rawValues) {
+            values.add((PersonDTO) valueSerializer.deserialize(rawValue));
+        }
+        return values;
+    }
+
+    private static long countTrue(List<Object> results) {
+        return results.stream().filter(Boolean.TRUE::equals).count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    private boolean serverVersionAtLeast(int[] expected) {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.info("server"));
+        String version = info == null ? null : info.getProperty("redis_version");
+        if (version == null) {
+            return false;
+        }
+        String[] parts = version.split("\\.");
+        for (int i = 0; i < expected.length; i++) {
+            int actual = i < parts.length ? Integer.parseInt(parts[i]) : 0;
+            if (actual != expected[i]) {
+                return actual > expected[i];
+            }
+        }
+        return true;
     }
 }
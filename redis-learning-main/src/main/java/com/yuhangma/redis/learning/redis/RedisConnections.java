@@ -0,0 +1,56 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.springframework.data.redis.connection.DecoratedRedisConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+
+/**
+ * spring-data-redis 2.0 没有封装的命令（RPOP count、UNLINK 等）需要通过 {@link LettuceConnection} 指定 output 类型执行，
+ * 这里负责从各种包装过的连接中拿到真实的 {@link LettuceConnection}。
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+final class RedisConnections {
+
+    private RedisConnections() {
+    }
+
+    /**
+     * 拆开 {@link DecoratedRedisConnection}（例如 StringRedisTemplate 使用的 DefaultStringRedisConnection），
+     * 调用方需要使用 exposeConnection = true 执行回调，否则拿到的是一个 JDK 代理。
+     *
+     * @return 真实的 LettuceConnection，不是 Lettuce 连接时返回 null
+     */
+    static LettuceConnection lettuceConnection(RedisConnection connection) {
+        RedisConnection current = connection;
+        while (current instanceof DecoratedRedisConnection) {
+            current = ((DecoratedRedisConnection) current).getDelegate();
+        }
+        return current instanceof LettuceConnection ? (LettuceConnection) current : null;
+    }
+
+    /**
+     * 判断是否是 EVALSHA 的脚本不在服务端缓存中的错误，例如主从切换、重启或者 SCRIPT FLUSH 之后
+     */
+    static boolean isNoScript(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断是否是服务端不支持该命令的错误，例如低版本 Redis 执行 UNLINK
+     */
+    static boolean isUnknownCommand(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("unknown command")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
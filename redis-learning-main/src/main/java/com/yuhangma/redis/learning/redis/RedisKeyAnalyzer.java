@@ -0,0 +1,490 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.KeyAnalyzerProperties;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 大 key 分析：使用 {@link RedisKeyScanner} 按批 SCAN 整个 keyspace（不使用 KEYS），按前缀统计 key 的数量、类型和大小分布，
+ * 并找出最大的 N 个 key
+ * <p>
+ * 每批 key 使用两次 pipeline（通过 lettuce 的异步连接连续发送，不需要独占连接）：第一次发送 TYPE、PTTL 和 MEMORY USAGE，
+ * 第二次按类型发送 STRLEN / LLEN / SCARD / ZCARD / HLEN / XLEN，这些命令都是 O(1) 的；MEMORY USAGE 对集合类型只抽样 {@code memorySamples} 个元素。
+ * 服务端不支持 MEMORY USAGE（Redis 4.0 以下）时以元素数量作为 size。
+ * 分析过程按照 {@code keysPerSecond} 限速，内存占用只和前缀数量、topN 有关，与 key 的总数无关，
+ * 即使如此仍然建议对从节点执行。命令直接发送到原生连接，不计入命令指标和热点 key 统计。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/memory-usage">Redis Documentation: MEMORY USAGE</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisKeyAnalyzer {
+
+    private static final String OTHER = "other";
+
+    private static final long[] HISTOGRAM_BOUNDS = {1L << 10, 10L << 10, 100L << 10, 1L << 20, 10L << 20};
+
+    private static final String[] HISTOGRAM_LABELS = {"1K", "10K", "100K", "1M", "10M", "inf"};
+
+    /**
+     * 等待一批命令返回的超时时间，memorySamples 为 0 时大 key 的 MEMORY USAGE 可能需要较长时间
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Map<String, ProtocolKeyword> LENGTH_COMMANDS = new HashMap<>();
+
+    static {
+        LENGTH_COMMANDS.put("string", CommandType.STRLEN);
+        LENGTH_COMMANDS.put("list", CommandType.LLEN);
+        LENGTH_COMMANDS.put("set", CommandType.SCARD);
+        LENGTH_COMMANDS.put("zset", CommandType.ZCARD);
+        LENGTH_COMMANDS.put("hash", CommandType.HLEN);
+        LENGTH_COMMANDS.put("stream", Command.XLEN);
+    }
+
+    private static final byte[] USAGE = bytes("USAGE");
+
+    private static final byte[] SAMPLES = bytes("SAMPLES");
+
+    /**
+     * lettuce 5.0 的 {@link CommandType} 中没有的命令
+     */
+    private enum Command implements ProtocolKeyword {
+
+        MEMORY, XLEN;
+
+        private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisKeyScanner keyScanner;
+
+    @Autowired
+    private KeyAnalyzerProperties properties;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "redis-key-analyzer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Analysis current;
+
+    @PreDestroy
+    public void destroy() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在当前线程中分析所有匹配 pattern 的 key，直到结束
+     */
+    public KeyspaceReport analyze(String pattern) {
+        Analysis analysis = new Analysis(pattern);
+        run(analysis);
+        return analysis.report();
+    }
+
+    /**
+     * 在后台开始分析，同时只能有一个后台分析
+     *
+     * @return 已经有分析正在进行时返回 false
+     */
+    public synchronized boolean start(String pattern) {
+        Analysis running = current;
+        if (running != null && running.running) {
+            return false;
+        }
+        Analysis analysis = new Analysis(pattern);
+        current = analysis;
+        executor.execute(() -> run(analysis));
+        return true;
+    }
+
+    /**
+     * 后台分析当前的结果，没有执行过时返回 null
+     */
+    public KeyspaceReport current() {
+        Analysis analysis = current;
+        return analysis == null ? null : analysis.report();
+    }
+
+    /**
+     * 停止后台分析，已经分析的结果仍然保留
+     */
+    public void cancel() {
+        Analysis analysis = current;
+        if (analysis != null) {
+            analysis.cancelled = true;
+        }
+    }
+
+    private void run(Analysis analysis) {
+        try {
+            boolean memoryUsage = memoryUsageSupported();
+            analysis.sizeUnit = memoryUsage ? KeyspaceReport.BYTES : KeyspaceReport.LENGTH;
+            try (Stream<List<String>> pages = keyScanner.scanPages(analysis.pattern, properties.getPageSize())) {
+                Iterator<List<String>> iterator = pages.iterator();
+                while (!analysis.cancelled && iterator.hasNext()) {
+                    analyzePage(iterator.next(), memoryUsage, analysis);
+                    throttle(analysis);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("analyze keys failed, pattern: {}", analysis.pattern, e);
+            analysis.error = e.toString();
+        } finally {
+            analysis.elapsedNanos = System.nanoTime() - analysis.startNanos;
+            analysis.running = false;
+        }
+        log.info("analyze keys finished, pattern: {}, scanned: {}, cancelled: {}, elapsed: {}ms", analysis.pattern,
+            analysis.scanned, analysis.cancelled, TimeUnit.NANOSECONDS.toMillis(analysis.elapsedNanos));
+    }
+
+    private void analyzePage(List<String> keys, boolean memoryUsage, Analysis analysis) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = bytes(keys.get(i));
+        }
+        byte[] samples = bytes(String.valueOf(properties.getMemorySamples()));
+        List<Object> meta = pipeline(commands -> {
+            List<RedisFuture<?>> futures = new ArrayList<>(rawKeys.length * 3);
+            for (byte[] rawKey : rawKeys) {
+                futures.add(commands.dispatch(CommandType.TYPE, new StatusOutput<>(ByteArrayCodec.INSTANCE), args(rawKey)));
+                futures.add(commands.dispatch(CommandType.PTTL, new IntegerOutput<>(ByteArrayCodec.INSTANCE), args(rawKey)));
+                if (memoryUsage) {
+                    futures.add(commands.dispatch(Command.MEMORY, new IntegerOutput<>(ByteArrayCodec.INSTANCE),
+                        memoryUsageArgs(rawKey).add(SAMPLES).add(samples)));
+                }
+            }
+            return futures;
+        });
+        int stride = memoryUsage ? 3 : 2;
+        String[] types = new String[rawKeys.length];
+        for (int i = 0; i < rawKeys.length; i++) {
+            types[i] = String.valueOf(meta.get(i * stride));
+        }
+        List<Object> lengths = pipeline(commands -> {
+            List<RedisFuture<?>> futures = new ArrayList<>(rawKeys.length);
+            for (int i = 0; i < rawKeys.length; i++) {
+                ProtocolKeyword command = LENGTH_COMMANDS.get(types[i]);
+                if (command != null) {
+                    futures.add(commands.dispatch(command, new IntegerOutput<>(ByteArrayCodec.INSTANCE), args(rawKeys[i])));
+                }
+            }
+            return futures;
+        });
+        Iterator<Object> lengthIterator = lengths.iterator();
+        synchronized (analysis) {
+            for (int i = 0; i < rawKeys.length; i++) {
+                if (!LENGTH_COMMANDS.containsKey(types[i])) {
+                    // 在两次 pipeline 之间被删除（none），或者是 module 类型，没有统一的长度命令
+                    if (!"none".equals(types[i])) {
+                        analysis.add(keys.get(i), types[i], 0, 0, toLong(meta.get(i * stride + 1)));
+                    }
+                    continue;
+                }
+                long length = toLong(lengthIterator.next());
+                long size = memoryUsage ? toLong(meta.get(i * stride + 2)) : length;
+                analysis.add(keys.get(i), types[i], size, length, toLong(meta.get(i * stride + 1)));
+            }
+        }
+    }
+
+    /**
+     * 通过异步连接连续发送所有命令，然后统一等待结果，效果和 pipeline 相同
+     * <p>
+     * 单个命令失败（例如两次 pipeline 之间 key 被删除后重建为其他类型）时结果为 null，不影响这一批的其他 key
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> pipeline(Function<RedisClusterAsyncCommands<byte[], byte[]>, List<RedisFuture<?>>> commands) {
+        return redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            List<RedisFuture<?>> futures = commands.apply(
+                (RedisClusterAsyncCommands<byte[], byte[]>) requireLettuce(connection).getNativeConnection());
+            if (!LettuceFutures.awaitAll(TIMEOUT, futures.toArray(new RedisFuture[0]))) {
+                throw new QueryTimeoutException("Redis command timed out after " + TIMEOUT);
+            }
+            List<Object> results = new ArrayList<>(futures.size());
+            for (RedisFuture<?> future : futures) {
+                results.add(future.toCompletableFuture().handle((result, e) -> result).join());
+            }
+            return results;
+        }, true);
+    }
+
+    /**
+     * 按照 keysPerSecond 计算已经分析的 key 应该花费的时间，比实际花费的时间长就等待
+     */
+    private void throttle(Analysis analysis) {
+        int keysPerSecond = properties.getKeysPerSecond();
+        if (keysPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = analysis.scanned * TimeUnit.SECONDS.toNanos(1) / keysPerSecond;
+        long waitNanos = expectedNanos - (System.nanoTime() - analysis.startNanos);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                analysis.cancelled = true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean memoryUsageSupported() {
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> LettuceFutures.awaitOrCancel(
+                ((RedisClusterAsyncCommands<byte[], byte[]>) requireLettuce(connection).getNativeConnection())
+                    .dispatch(Command.MEMORY, new IntegerOutput<>(ByteArrayCodec.INSTANCE),
+                        memoryUsageArgs(bytes("key-analyzer:probe"))),
+                TIMEOUT.toMillis(), TimeUnit.MILLISECONDS), true);
+            return true;
+        } catch (RuntimeException e) {
+            if (!RedisConnections.isUnknownCommand(e)) {
+                throw e;
+            }
+            log.warn("MEMORY USAGE is not supported by redis server, use length as size");
+            return false;
+        }
+    }
+
+    private static LettuceConnection requireLettuce(RedisConnection connection) {
+        LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+        Assert.state(lettuceConnection != null, "RedisKeyAnalyzer requires a lettuce connection");
+        return lettuceConnection;
+    }
+
+    private static CommandArgs<byte[], byte[]> args(byte[] key) {
+        return new CommandArgs<>(ByteArrayCodec.INSTANCE).addKey(key);
+    }
+
+    /**
+     * 集群模式下按照第一个 key 路由，USAGE 不能作为 key 添加
+     */
+    private static CommandArgs<byte[], byte[]> memoryUsageArgs(byte[] key) {
+        return new CommandArgs<>(ByteArrayCodec.INSTANCE).add(USAGE).addKey(key);
+    }
+
+    private static long toLong(Object value) {
+        // 在两次 pipeline 之间被删除的 key，MEMORY USAGE 返回 nil
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int histogramIndex(long size) {
+        for (int i = 0; i < HISTOGRAM_BOUNDS.length; i++) {
+            if (size < HISTOGRAM_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return HISTOGRAM_BOUNDS.length;
+    }
+
+    /**
+     * 一次分析的累计结果，修改和生成报告都在 this 上同步
+     */
+    private class Analysis {
+
+        private final String pattern;
+
+        private final long startedAt = System.currentTimeMillis();
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile boolean running = true;
+
+        private volatile boolean cancelled;
+
+        private volatile String error;
+
+        private volatile String sizeUnit;
+
+        private volatile long elapsedNanos = -1;
+
+        private long scanned;
+
+        private long totalSize;
+
+        private final Map<String, PrefixAccumulator> prefixes = new HashMap<>();
+
+        /**
+         * 最小堆，堆顶是当前 topN 中最小的 key
+         */
+        private final PriorityQueue<KeyspaceReport.BigKey> bigKeys =
+            new PriorityQueue<>(Comparator.comparingLong(KeyspaceReport.BigKey::getSize));
+
+        /**
+         * bigKeys 中的 key，SCAN 可能返回重复的 key
+         */
+        private final Set<String> bigKeyNames = new HashSet<>();
+
+        Analysis(String pattern) {
+            this.pattern = pattern;
+        }
+
+        synchronized void add(String key, String type, long size, long length, long ttlMillis) {
+            scanned++;
+            totalSize += size;
+            prefixes.computeIfAbsent(prefix(key), PrefixAccumulator::new).add(type, size, ttlMillis);
+
+            int topN = properties.getTopN();
+            if (topN <= 0 || bigKeyNames.contains(key)) {
+                return;
+            }
+            if (bigKeys.size() >= topN) {
+                if (size <= bigKeys.peek().getSize()) {
+                    return;
+                }
+                bigKeyNames.remove(bigKeys.poll().getKey());
+            }
+            bigKeys.add(new KeyspaceReport.BigKey(key, type, size, length, ttlMillis));
+            bigKeyNames.add(key);
+        }
+
+        private String prefix(String key) {
+            List<String> keyPrefixes = properties.getKeyPrefixes();
+            String prefix = OTHER;
+            if (!keyPrefixes.isEmpty()) {
+                for (String keyPrefix : keyPrefixes) {
+                    if (key.startsWith(keyPrefix)) {
+                        prefix = keyPrefix;
+                        break;
+                    }
+                }
+            } else {
+                int index = key.lastIndexOf(':');
+                if (index >= 0) {
+                    prefix = key.substring(0, index + 1);
+                }
+            }
+            if (!prefixes.containsKey(prefix) && prefixes.size() >= properties.getMaxPrefixes()) {
+                return OTHER;
+            }
+            return prefix;
+        }
+
+        synchronized KeyspaceReport report() {
+            KeyspaceReport report = new KeyspaceReport();
+            report.setPattern(pattern);
+            report.setRunning(running);
+            report.setCancelled(cancelled);
+            report.setError(error);
+            report.setStartedAt(startedAt);
+            long elapsed = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+            report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            report.setScannedKeys(scanned);
+            report.setSizeUnit(sizeUnit);
+            report.setTotalSize(totalSize);
+            report.setPrefixes(prefixes.values().stream()
+                .sorted(Comparator.comparingLong((PrefixAccumulator p) -> p.totalSize).reversed())
+                .map(PrefixAccumulator::toStats)
+                .collect(Collectors.toList()));
+            List<KeyspaceReport.BigKey> sorted = new ArrayList<>(bigKeys);
+            sorted.sort(Comparator.comparingLong(KeyspaceReport.BigKey::getSize).reversed());
+            report.setBigKeys(sorted);
+            return report;
+        }
+    }
+
+    private static class PrefixAccumulator {
+
+        private final String prefix;
+
+        private long keys;
+
+        private long totalSize;
+
+        private long maxSize;
+
+        private long persistentKeys;
+
+        private final Map<String, Long> types = new TreeMap<>();
+
+        private final long[] histogram = new long[HISTOGRAM_LABELS.length];
+
+        PrefixAccumulator(String prefix) {
+            this.prefix = prefix;
+        }
+
+        void add(String type, long size, long ttlMillis) {
+            keys++;
+            totalSize += size;
+            maxSize = Math.max(maxSize, size);
+            if (ttlMillis == -1) {
+                persistentKeys++;
+            }
+            types.merge(type, 1L, Long::sum);
+            histogram[histogramIndex(size)]++;
+        }
+
+        KeyspaceReport.PrefixStats toStats() {
+            KeyspaceReport.PrefixStats stats = new KeyspaceReport.PrefixStats();
+            stats.setPrefix(prefix);
+            stats.setKeys(keys);
+            stats.setTotalSize(totalSize);
+            stats.setMaxSize(maxSize);
+            stats.setPersistentKeys(persistentKeys);
+            stats.setTypes(new LinkedHashMap<>(types));
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < histogram.length; i++) {
+                buckets.put(HISTOGRAM_LABELS[i], histogram[i]);
+            }
+            stats.setHistogram(buckets);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.yuhangma.redis.learning.redis;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.IntegerOutput;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ClusterCommandExecutor;
+import org.springframework.data.redis.connection.ClusterCommandExecutor.ClusterCommandCallback;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClusterConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.ScanCursor;
+import org.springframework.data.redis.core.ScanIteration;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于 SCAN 的 key 迭代器，用于代替会阻塞 Redis 的 KEYS 命令
+ * <p>
+ * 返回的 {@link Stream} 是惰性的：只有在消费完当前这一批 key 之后才会发送下一次 SCAN 命令，调用方消费得慢，
+ * 对 Redis 的请求也就慢，天然具有背压。Stream 持有一个 Redis 连接，<b>使用完必须关闭</b>，推荐使用 try-with-resources：
+ * <pre>
+ * try (Stream&lt;String&gt; keys = redisKeyScanner.scan("unit:test:key:*", 1000)) {
+ *     keys.forEach(...);
+ * }
+ * </pre>
+ * key 统一使用 UTF-8 解码，而不是 new String(byte[]) 使用的平台默认字符集。集群模式下依次扫描每个主节点，覆盖整个 keyspace。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/scan">Redis Documentation: SCAN</a>
+ * @see <a href="http://doc.redisfans.com/key/scan.html">Redis 命令参考: SCAN</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisKeyScanner {
+
+    /**
+     * SCAN 命令默认的 COUNT
+     */
+    public static final int DEFAULT_COUNT = 1000;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * UNLINK 从 Redis 4.0 开始支持，执行失败之后不再尝试
+     */
+    private volatile boolean unlinkSupported = true;
+
+    public Stream<String> scan(String pattern) {
+        return scan(pattern, DEFAULT_COUNT);
+    }
+
+    /**
+     * 惰性迭代所有匹配 pattern 的 key
+     *
+     * @param pattern 匹配模式，和 KEYS 命令的语法一致
+     * @param count   每次 SCAN 的 COUNT，只是给 Redis 的建议值，每批返回的数量并不精确
+     * @return key 的流，使用完必须关闭
+     */
+    public Stream<String> scan(String pattern, int count) {
+        RedisSerializer<String> keySerializer = redisTemplate.getStringSerializer();
+        return rawScan(pattern, count).map(keySerializer::deserialize);
+    }
+
+    /**
+     * 按批迭代所有匹配 pattern 的 key，每批最多 count 个，适合对 key 做批量操作
+     *
+     * @return 每批 key 组成的流，使用完必须关闭
+     */
+    public Stream<List<String>> scanPages(String pattern, int count) {
+        Stream<String> keys = scan(pattern, count);
+        Iterator<List<String>> pages = new PageIterator<>(keys.iterator(), count);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.NONNULL), false)
+            .onClose(keys::close);
+    }
+
+    /**
+     * 删除所有匹配 pattern 的 key，每批 key 使用一条 UNLINK 命令，由 Redis 在后台线程中回收内存
+     *
+     * @return 删除的 key 的数量
+     */
+    public long deleteByPattern(String pattern, int count) {
+        long deleted = 0;
+        try (Stream<List<String>> pages = scanPages(pattern, count)) {
+            Iterator<List<String>> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                deleted += unlink(iterator.next());
+            }
+        }
+        log.info("delete by pattern {}, deleted: {}", pattern, deleted);
+        return deleted;
+    }
+
+    /**
+     * 为所有匹配 pattern 的 key 设置过期时间，每批 key 的 PEXPIRE 命令在一个 pipeline 中发送
+     *
+     * @return 设置成功的 key 的数量
+     */
+    public long expireByPattern(String pattern, Duration timeout, int count) {
+        long expired = 0;
+        try (Stream<List<String>> pages = scanPages(pattern, count)) {
+            Iterator<List<String>> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                expired += pExpire(iterator.next(), timeout.toMillis());
+            }
+        }
+        log.info("expire by pattern {}, timeout: {}, expired: {}", pattern, timeout, expired);
+        return expired;
+    }
+
+    private Stream<byte[]> rawScan(String pattern, int count) {
+        RedisConnectionFactory factory = redisTemplate.getRequiredConnectionFactory();
+        RedisConnection connection = RedisConnectionUtils.getConnection(factory);
+        Stream<byte[]> keys;
+        try {
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            if (lettuceConnection instanceof LettuceClusterConnection) {
+                keys = clusterScan((LettuceClusterConnection) lettuceConnection, pattern, count);
+            } else {
+                keys = stream(connection.scan(ScanOptions.scanOptions().match(pattern).count(count).build()));
+            }
+        } catch (RuntimeException e) {
+            RedisConnectionUtils.releaseConnection(connection, factory);
+            throw e;
+        }
+        return keys.onClose(() -> RedisConnectionUtils.releaseConnection(connection, factory));
+    }
+
+    /**
+     * 集群模式下 SCAN 只会遍历一个节点的 key，这里依次在每个主节点上 SCAN：扫描完一个节点再打开下一个节点的游标。
+     * spring-data-redis 2.0 没有按节点 SCAN 的 API，通过 {@link ClusterCommandExecutor} 在指定节点的连接上执行
+     */
+    private Stream<byte[]> clusterScan(LettuceClusterConnection connection, String pattern, int count) {
+        ClusterCommandExecutor executor = connection.getClusterCommandExecutor();
+        ScanArgs scanArgs = new ScanArgs().match(pattern).limit(count);
+        List<RedisClusterNode> masters = new ArrayList<>();
+        for (RedisClusterNode node : connection.clusterGetNodes()) {
+            if (node.isMaster()) {
+                masters.add(node);
+            }
+        }
+        return masters.stream().flatMap(node -> stream(new ScanCursor<byte[]>() {
+            @Override
+            protected ScanIteration<byte[]> doScan(long cursorId, ScanOptions options) {
+                KeyScanCursor<byte[]> result = executor.executeCommandOnSingleNode(
+                    (ClusterCommandCallback<RedisClusterCommands<byte[], byte[]>, KeyScanCursor<byte[]>>) client ->
+                        client.scan(io.lettuce.core.ScanCursor.of(Long.toString(cursorId)), scanArgs), node).getValue();
+                return new ScanIteration<>(Long.parseLong(result.getCursor()), result.getKeys());
+            }
+        }.open()));
+    }
+
+    private static Stream<byte[]> stream(Cursor<byte[]> cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    log.warn("close scan cursor failed", e);
+                }
+            });
+    }
+
+    private long unlink(List<String> keys) {
+        byte[][] rawKeys = rawKeys(keys);
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            // spring-data-redis 2.0 没有封装 UNLINK，需要指定 output 类型；拿不到 LettuceConnection 或者 Redis 低于 4.0 时退化为 DEL
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            if (unlinkSupported && lettuceConnection != null) {
+                try {
+                    if (lettuceConnection instanceof LettuceClusterConnection) {
+                        // 同一批 key 分布在不同的 slot，由 Lettuce 的集群连接按 slot 拆分到各个节点执行，再合并删除的数量
+                        RedisFuture<Long> future = ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>)
+                            lettuceConnection.getNativeConnection()).unlink(rawKeys);
+                        return LettuceFutures.awaitOrCancel(future,
+                            SlotAwareBatchExecutor.DEFAULT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    return (Long) lettuceConnection.execute("UNLINK", new IntegerOutput<>(ByteArrayCodec.INSTANCE), rawKeys);
+                } catch (RuntimeException e) {
+                    if (!RedisConnections.isUnknownCommand(e)) {
+                        throw e;
+                    }
+                    log.warn("UNLINK is not supported by redis server, fallback to DEL");
+                    unlinkSupported = false;
+                }
+            }
+            return connection.del(rawKeys);
+        }, true);
+        return deleted == null ? 0 : deleted;
+    }
+
+    private long pExpire(List<String> keys, long millis) {
+        byte[][] rawKeys = rawKeys(keys);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] rawKey : rawKeys) {
+                connection.pExpire(rawKey, millis);
+            }
+            return null;
+        });
+        return results.stream().filter(Boolean.TRUE::equals).count();
+    }
+
+    private byte[][] rawKeys(List<String> keys) {
+        RedisSerializer<String> keySerializer = redisTemplate.getStringSerializer();
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = keySerializer.serialize(keys.get(i));
+        }
+        return rawKeys;
+    }
+
+    /**
+     * 把一个迭代器按照固定大小分批
+     */
+    static class PageIterator<T> implements Iterator<List<T>> {
+
+        private final Iterator<T> delegate;
+
+        private final int pageSize;
+
+        PageIterator(Iterator<T> delegate, int pageSize) {
+            this.delegate = delegate;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public List<T> next() {
+            if (!delegate.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<T> page = new ArrayList<>(pageSize);
+            while (page.size() < pageSize && delegate.hasNext()) {
+                page.add(delegate.next());
+            }
+            return page;
+        }
+    }
+}
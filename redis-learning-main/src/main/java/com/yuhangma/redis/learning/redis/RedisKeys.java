@@ -0,0 +1,66 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * key 的构造和 slot 计算
+ * <p>
+ * 集群模式下，一条命令或者一个 Lua 脚本中的所有 key 必须位于同一个 slot，否则 Redis 返回 CROSSSLOT 错误。
+ * key 中包含 {...} 时只有花括号中的部分参与 slot 计算，称为 hash tag，例如 {user:42}:profile 和 {user:42}:orders
+ * 位于同一个 slot。hash tag 相同的 key 都在同一个节点上，tag 的粒度过粗会产生热点。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/topics/cluster-spec">Redis Cluster Specification: Keys hash tags</a>
+ * @since 2026/10/18
+ */
+public final class RedisKeys {
+
+    private RedisKeys() {
+    }
+
+    /**
+     * 用花括号包裹 tag，作为 key 的一部分
+     */
+    public static String tag(String tag) {
+        return "{" + tag + "}";
+    }
+
+    /**
+     * 构造带有 hash tag 的 key，例如 hashTag("user:42", "profile") 返回 {user:42}:profile
+     */
+    public static String hashTag(String tag, String... parts) {
+        StringBuilder key = new StringBuilder(tag(tag));
+        for (String part : parts) {
+            key.append(':').append(part);
+        }
+        return key.toString();
+    }
+
+    /**
+     * key 所在的 slot，0 到 16383
+     */
+    public static int slot(String key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+
+    /**
+     * 所有 key 是否位于同一个 slot，可以在一条命令或者一个 Lua 脚本中使用
+     */
+    public static boolean sameSlot(Collection<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        if (!iterator.hasNext()) {
+            return true;
+        }
+        int slot = slot(iterator.next());
+        while (iterator.hasNext()) {
+            if (slot(iterator.next()) != slot) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.yuhangma.redis.learning.redis;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * {@link RedisLockService} 加锁成功之后返回的锁，不可重入，同一个实例只能解锁一次
+ * <p>
+ * {@link #isHeld()} 为 true 不代表一定持有锁：进程停顿（例如 GC）超过租期时，锁可能已经被其他线程持有，
+ * 而看门狗还没来得及发现。需要严格互斥的写入应当带上 {@link #getFencingToken()}，由存储拒绝比已经见过的 token 更小的写入。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+public class RedisLock implements AutoCloseable {
+
+    private final RedisLockService service;
+
+    private final String name;
+
+    private final String owner;
+
+    private final long fencingToken;
+
+    private volatile boolean held = true;
+
+    private volatile ScheduledFuture<?> watchdog;
+
+    RedisLock(RedisLockService service, String name, String owner, long fencingToken) {
+        this.service = service;
+        this.name = name;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 持有者标识，每次加锁都不同
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * 同一个锁每次加锁成功都会得到一个更大的 token
+     */
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * 没有解锁，并且看门狗没有发现锁已经丢失
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    /**
+     * 解锁
+     *
+     * @return 锁仍然属于自己并且删除成功时返回 true；已经过期或者被其他线程持有时返回 false
+     */
+    public boolean unlock() {
+        return service.unlock(this);
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    void setWatchdog(ScheduledFuture<?> watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * 停止续期，并标记为不再持有
+     *
+     * @return 之前是否持有
+     */
+    boolean release() {
+        ScheduledFuture<?> future = watchdog;
+        if (future != null) {
+            future.cancel(false);
+        }
+        boolean wasHeld = held;
+        held = false;
+        return wasHeld;
+    }
+}
@@ -0,0 +1,167 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.LockProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 SET NX PX 的分布式锁
+ * <p>
+ * {@link org.springframework.data.redis.core.ValueOperations#setIfAbsent(Object, Object)} 加锁之后再 EXPIRE 不是原子的，
+ * 两条命令之间进程崩溃会留下一个永不过期的锁；直接 DEL 解锁会删除已经过期并被其他线程持有的锁。这里：
+ * </p>
+ * <ul>
+ * <li>加锁：一个 Lua 脚本中执行 SET key owner NX PX leaseTime，成功时 INCR 计数器得到 fencing token</li>
+ * <li>解锁：Lua 脚本中比较持有者标识之后再 DEL</li>
+ * <li>续期：看门狗线程每隔 1/3 租期比较持有者标识之后 PEXPIRE，续期失败说明锁已经丢失，不再续期</li>
+ * </ul>
+ * <p>
+ * 锁的 key 为 lock:{name}，fencing token 计数器为 lock:{name}:fence，集群模式下位于同一个 slot。
+ * 计数器没有过期时间，保证 token 单调递增。
+ * 单个 Redis 节点上的锁在主从切换时可能丢失，需要严格互斥时应当配合 fencing token 使用。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/set">Redis Documentation: SET</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisLockService {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private LockProperties properties;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private RedisScript<Long> acquireScript;
+
+    private RedisScript<Long> releaseScript;
+
+    private RedisScript<Long> renewScript;
+
+    /**
+     * 持有者标识的前缀，pid@host，便于排查锁被谁持有
+     */
+    private final String ownerPrefix = ManagementFactory.getRuntimeMXBean().getName() + ":";
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        acquireScript = scripts.get("lock_acquire", Long.class);
+        releaseScript = scripts.get("lock_release", Long.class);
+        renewScript = scripts.get("lock_renew", Long.class);
+    }
+
+    /**
+     * 停止续期，持有中的锁在租期结束之后自动释放
+     */
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 尝试加锁一次，不等待
+     *
+     * @return 锁已经被持有时返回 null
+     */
+    public RedisLock tryLock(String name) {
+        String owner = ownerPrefix + UUID.randomUUID();
+        long leaseMillis = properties.getLeaseTime().toMillis();
+        Long fencingToken = scripts.execute(acquireScript, Arrays.asList(key(name), fenceKey(name)),
+            owner, Long.toString(leaseMillis));
+        if (fencingToken == null || fencingToken == 0) {
+            return null;
+        }
+        RedisLock lock = new RedisLock(this, name, owner, fencingToken);
+        long renewInterval = Math.max(1, leaseMillis / 3);
+        lock.setWatchdog(watchdog.scheduleWithFixedDelay(() -> renew(lock), renewInterval, renewInterval,
+            TimeUnit.MILLISECONDS));
+        return lock;
+    }
+
+    /**
+     * 在 wait 之内每隔 retryInterval 尝试加锁
+     *
+     * @return 超时之后返回 null
+     * @throws InterruptedException 等待时被中断
+     */
+    public RedisLock tryLock(String name, Duration wait) throws InterruptedException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        long retryNanos = properties.getRetryInterval().toNanos();
+        while (true) {
+            RedisLock lock = tryLock(name);
+            long remaining = deadline - System.nanoTime();
+            if (lock != null || remaining <= 0) {
+                return lock;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(retryNanos, remaining));
+        }
+    }
+
+    /**
+     * 锁当前是否被任意持有者持有
+     */
+    public boolean isLocked(String name) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(name)));
+    }
+
+    public String key(String name) {
+        return properties.getKeyPrefix() + RedisKeys.tag(name);
+    }
+
+    public String fenceKey(String name) {
+        return key(name) + ":fence";
+    }
+
+    boolean unlock(RedisLock lock) {
+        if (!lock.release()) {
+            return false;
+        }
+        Long released = scripts.execute(releaseScript, Collections.singletonList(key(lock.getName())),
+            lock.getOwner());
+        return released != null && released == 1;
+    }
+
+    private void renew(RedisLock lock) {
+        if (!lock.isHeld()) {
+            return;
+        }
+        try {
+            Long renewed = scripts.execute(renewScript, Collections.singletonList(key(lock.getName())),
+                lock.getOwner(), Long.toString(properties.getLeaseTime().toMillis()));
+            // 和解锁同时发生时，锁已经被自己删除，不是丢失
+            if ((renewed == null || renewed == 0) && lock.release()) {
+                log.warn("lock {} is lost, owner: {}, fencing token: {}", lock.getName(), lock.getOwner(),
+                    lock.getFencingToken());
+            }
+        } catch (RuntimeException e) {
+            // 租期还没有结束，下一次继续续期
+            log.warn("renew lock {} failed", lock.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.RateLimiterProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Lua 脚本的令牌桶限流，所有实例共享同一个桶
+ * <p>
+ * 桶以 hash 保存剩余令牌数和上次补充的时间，每次检查执行一次脚本：按照经过的时间补充令牌，再取出令牌，
+ * 一次网络往返，不存在先读后写的并发问题。桶装满之后 key 自动过期，不活跃的桶不占用内存。
+ * 当前时间由客户端传入，各个实例之间的时钟偏差会影响补充令牌的速度。
+ * </p>
+ * <p>
+ * 配置 prefetch 之后，每次从 Redis 取出最多 prefetch 个令牌放在本地，本地有令牌时不访问 Redis。
+ * 代价是限流不再精确：一个实例预取但没有用完的令牌在 prefetchTtl 之后丢弃，其他实例这段时间内用不到这些令牌，
+ * 总体上只会比配置的速率更严格。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Component
+public class RedisRateLimiter {
+
+    @Autowired
+    private RateLimiterProperties properties;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private RedisScript<Long> rateLimitScript;
+
+    /**
+     * 本地预取的令牌，key 为桶的名称
+     */
+    private final Map<String, LocalPermits> localPermits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        rateLimitScript = scripts.get("rate_limit", Long.class);
+    }
+
+    /**
+     * 取出一个令牌
+     *
+     * @param name             桶的名称
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity         桶的容量，即允许的突发请求数
+     * @return 是否取到令牌
+     */
+    public boolean tryAcquire(String name, double permitsPerSecond, long capacity) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("invalid rate: " + permitsPerSecond + ", capacity: " + capacity);
+        }
+        if (properties.getPrefetch() <= 1) {
+            return acquire(name, permitsPerSecond, capacity, 1) > 0;
+        }
+        return localPermits.computeIfAbsent(name, key -> new LocalPermits())
+            .tryAcquire(name, permitsPerSecond, capacity);
+    }
+
+    /**
+     * 从 Redis 取出最多 requested 个令牌，至少一个
+     *
+     * @return 取出的令牌数，没有令牌时返回 0
+     */
+    public long acquire(String name, double permitsPerSecond, long capacity, long requested) {
+        Long granted = scripts.execute(rateLimitScript, Collections.singletonList(key(name)),
+            Double.toString(permitsPerSecond), Long.toString(capacity), Long.toString(System.currentTimeMillis()),
+            Long.toString(requested), "1");
+        return granted == null ? 0 : granted;
+    }
+
+    public String key(String name) {
+        return properties.getKeyPrefix() + name;
+    }
+
+    private class LocalPermits {
+
+        private long permits;
+
+        private long expireAt;
+
+        /**
+         * 同一个桶同时只有一个线程从 Redis 预取，其他线程等待预取的结果
+         */
+        private synchronized boolean tryAcquire(String name, double permitsPerSecond, long capacity) {
+            long now = System.nanoTime();
+            if (permits > 0 && now - expireAt < 0) {
+                permits--;
+                return true;
+            }
+            // 预取的令牌数不超过桶的容量
+            long granted = acquire(name, permitsPerSecond, capacity, Math.min(properties.getPrefetch(), capacity));
+            if (granted == 0) {
+                permits = 0;
+                return false;
+            }
+            permits = granted - 1;
+            expireAt = now + properties.getPrefetchTtl().toNanos();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.yuhangma.redis.learning.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lua 脚本注册表，启动时加载 classpath 下 lua 目录中的所有脚本，并 SCRIPT LOAD 到服务端
+ * <p>
+ * 通过 {@link #execute(RedisScript, List, Object...)} 执行的脚本只发送 EVALSHA，不会再发送脚本内容。
+ * 主从切换、重启或者 SCRIPT FLUSH 之后服务端返回 NOSCRIPT，这时重新 SCRIPT LOAD 并重试一次，调用方无感知。
+ * </p>
+ * <p>
+ * spring-data-redis 2.0 的 {@link DefaultScriptExecutor} 在 NOSCRIPT 时退化为 EVAL，而 EVAL 的脚本内容会经过
+ * 平台默认字符集和 Lettuce 的字符串编码，包含中文注释的脚本在服务端得到的内容和本地不同：默认字符集为 ASCII 时
+ * SHA1 不一致，之后每次调用都是 EVALSHA 失败再 EVAL；默认字符集为 UTF-8 时脚本无法编译。
+ * 这里 SCRIPT LOAD 的是脚本文件的原始字节，SHA1 也按原始字节计算，不受字符集影响。
+ * </p>
+ * <p>
+ * 每个脚本记录一个 redis.script 耗时指标，标签为 script（文件名，不含扩展名）和 outcome（success / error），
+ * 重新加载的次数记录在 redis.script.reloads 中。
+ * 同一个脚本需要对很多 key 分别执行时使用 {@link #executePipelined}，所有 EVALSHA 在一个 pipeline 中发送。
+ * 响应式的调用使用 {@link #executeReactive}，同样只发送 EVALSHA，不经过 ReactiveRedisTemplate 的 EVAL 退化。
+ * 其他 pipeline 和事务中执行的脚本仍然由 spring-data-redis 以 EVAL 发送，不经过这里。
+ * </p>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/evalsha">Redis Documentation: EVALSHA</a>
+ * @see <a href="http://redis.io/commands/script-load">Redis Documentation: SCRIPT LOAD</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisScriptRegistry {
+
+    public static final String LOCATION_PATTERN = "classpath*:lua/*.lua";
+
+    public static final String METRIC_NAME = "redis.script";
+
+    public static final String RELOAD_METRIC_NAME = "redis.script.reloads";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 脚本名称到脚本的映射，启动之后不再修改
+     */
+    private Map<String, LuaScript> scripts = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() throws IOException {
+        MeterRegistry registry = meterRegistry == null ? Metrics.globalRegistry : meterRegistry;
+        Map<String, LuaScript> loaded = new TreeMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION_PATTERN)) {
+            String name = StringUtils.stripFilenameExtension(resource.getFilename());
+            try (InputStream in = resource.getInputStream()) {
+                loaded.put(name, new LuaScript(name, StreamUtils.copyToByteArray(in), registry));
+            }
+        }
+        scripts = Collections.unmodifiableMap(loaded);
+        try {
+            loadAll();
+            log.info("{} lua scripts loaded: {}", scripts.size(), scripts.keySet());
+        } catch (DataAccessException e) {
+            // 启动时 Redis 不可用不影响应用启动，第一次调用遇到 NOSCRIPT 时加载
+            log.warn("preload lua scripts failed, fallback to lazy loading", e);
+        }
+    }
+
+    /**
+     * 把所有脚本 SCRIPT LOAD 到服务端，集群模式下 Lettuce 会发送到所有主节点
+     */
+    public void loadAll() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            for (LuaScript script : scripts.values()) {
+                script.load(connection);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 已经注册的脚本名称
+     */
+    public Set<String> names() {
+        return scripts.keySet();
+    }
+
+    /**
+     * 按名称获取脚本，可以在初始化时获取一次之后重复使用
+     *
+     * @param name       lua 目录中的文件名，不含扩展名
+     * @param resultType 返回值类型，Long、Boolean、List、String 等，null 表示忽略返回值
+     * @throws IllegalArgumentException 脚本不存在
+     */
+    public <T> RedisScript<T> get(String name, Class<T> resultType) {
+        LuaScript script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("lua script not found: " + name + ", registered: " + scripts.keySet());
+        }
+        return new RegisteredScript<>(script, resultType);
+    }
+
+    /**
+     * 使用 StringRedisTemplate 执行，key 和参数都按照字符串序列化
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return execute(redisTemplate, script, keys, args);
+    }
+
+    /**
+     * 使用指定的 template 执行，key 使用 template 的 key 序列化方式，参数和返回值使用 value 序列化方式
+     */
+    public <K, T> T execute(RedisTemplate<K, ?> template, RedisScript<T> script, List<K> keys, Object... args) {
+        return new EvalShaScriptExecutor<>(template).execute(script, keys, args);
+    }
+
+    /**
+     * 使用指定的 template 和序列化方式执行
+     */
+    public <K, T> T execute(RedisTemplate<K, ?> template, RedisScript<T> script, RedisSerializer<?> argsSerializer,
+                            RedisSerializer<T> resultSerializer, List<K> keys, Object... args) {
+        return new EvalShaScriptExecutor<>(template).execute(script, argsSerializer, resultSerializer, keys, args);
+    }
+
+    /**
+     * 在一个 pipeline 中多次执行同一个脚本，第 i 次执行使用 keys[i] 和 args[i]，key 和参数都按照字符串序列化。
+     * 服务端返回 NOSCRIPT 时重新加载并重试整个 pipeline，所以脚本必须是幂等的；耗时指标按整个 pipeline 记录一次
+     *
+     * @return 每次执行的返回值，和 keys 的顺序一致
+     */
+    public List<Object> executePipelined(RedisScript<?> script, List<List<String>> keys, List<List<String>> args) {
+        Assert.isTrue(keys.size() == args.size(), "keys and args must have the same size");
+        if (!(script instanceof RegisteredScript)) {
+            throw new IllegalArgumentException("script is not registered in RedisScriptRegistry: " + script.getSha1());
+        }
+        LuaScript lua = ((RegisteredScript<?>) script).script;
+        ReturnType returnType = ReturnType.fromJavaType(script.getResultType());
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        List<byte[][]> calls = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            List<String> keysAndArgs = new ArrayList<>(keys.get(i));
+            keysAndArgs.addAll(args.get(i));
+            byte[][] raw = new byte[keysAndArgs.size()][];
+            for (int j = 0; j < raw.length; j++) {
+                raw[j] = serializer.serialize(keysAndArgs.get(j));
+            }
+            calls.add(raw);
+        }
+        RedisCallback<Object> evalShas = connection -> {
+            for (int i = 0; i < calls.size(); i++) {
+                connection.evalSha(lua.sha1, returnType, keys.get(i).size(), calls.get(i));
+            }
+            return null;
+        };
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            List<Object> results;
+            try {
+                results = redisTemplate.executePipelined(evalShas);
+            } catch (RuntimeException e) {
+                if (!RedisConnections.isNoScript(e)) {
+                    throw e;
+                }
+                log.info("lua script {} not found on server, reload it", lua.name);
+                lua.reloads.increment();
+                redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    lua.load(connection);
+                    return null;
+                });
+                results = redisTemplate.executePipelined(evalShas);
+            }
+            success = true;
+            return results;
+        } finally {
+            (success ? lua.successTimer : lua.errorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 使用响应式的 template 执行，key 使用 template 的 key 序列化方式，参数和返回值使用指定的序列化方式。
+     * 服务端返回 NOSCRIPT 时 SCRIPT LOAD 之后重试一次，耗时指标在完成或者出错时记录，取消订阅时不记录
+     *
+     * @return MULTI 类型的返回值作为一个 List 发出，其中的元素已经反序列化
+     */
+    public <K, T> Flux<T> executeReactive(ReactiveRedisTemplate<K, ?> template, RedisScript<T> script, List<K> keys,
+                                          List<?> args, RedisElementWriter<?> argsWriter, RedisElementReader<T> resultReader) {
+        if (!(script instanceof RegisteredScript)) {
+            throw new IllegalArgumentException("script is not registered in RedisScriptRegistry: " + script.getSha1());
+        }
+        LuaScript lua = ((RegisteredScript<T>) script).script;
+        ReturnType returnType = ReturnType.fromJavaType(script.getResultType());
+        RedisElementWriter<K> keyWriter = template.getSerializationContext().getKeySerializationPair().getWriter();
+        List<ByteBuffer> keysAndArgs = new ArrayList<>(keys.size() + args.size());
+        keys.forEach(key -> keysAndArgs.add(keyWriter.write(key)));
+        args.forEach(arg -> keysAndArgs.add(writeArg(argsWriter, arg)));
+        // 每次发送使用新的 ByteBuffer 视图，重试时不受上一次读取位置的影响
+        Flux<Object> evalSha = template.createFlux(connection -> connection.scriptingCommands()
+            .evalSha(lua.sha1, returnType, keys.size(), keysAndArgs.stream().map(ByteBuffer::duplicate).toArray(ByteBuffer[]::new)));
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return evalSha
+                .onErrorResume(e -> e instanceof RuntimeException && RedisConnections.isNoScript((RuntimeException) e), e -> {
+                    log.info("lua script {} not found on server, reload it", lua.name);
+                    lua.reloads.increment();
+                    return template.createMono(connection -> connection.scriptingCommands().scriptLoad(ByteBuffer.wrap(lua.body)))
+                        .thenMany(evalSha);
+                })
+                .doOnComplete(() -> lua.successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnError(e -> lua.errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).map(result -> readResult(resultReader, result));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ByteBuffer writeArg(RedisElementWriter<T> writer, Object arg) {
+        return writer.write((T) arg);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T readResult(RedisElementReader<T> reader, Object result) {
+        if (result instanceof ByteBuffer) {
+            return reader.read((ByteBuffer) result);
+        }
+        if (result instanceof List) {
+            List<Object> values = new ArrayList<>(((List<?>) result).size());
+            for (Object value : (List<?>) result) {
+                values.add(value instanceof ByteBuffer ? reader.read((ByteBuffer) value) : value);
+            }
+            return (T) values;
+        }
+        return (T) result;
+    }
+
+    /**
+     * 只发送 EVALSHA 的 {@link DefaultScriptExecutor}，序列化和返回值的转换沿用 spring-data-redis 的实现
+     */
+    private static class EvalShaScriptExecutor<K> extends DefaultScriptExecutor<K> {
+
+        private EvalShaScriptExecutor(RedisTemplate<K, ?> template) {
+            super(template);
+        }
+
+        @Override
+        protected <T> T eval(RedisConnection connection, RedisScript<T> script, ReturnType returnType, int numKeys,
+                             byte[][] keysAndArgs, RedisSerializer<T> resultSerializer) {
+            if (!(script instanceof RegisteredScript)) {
+                throw new IllegalArgumentException("script is not registered in RedisScriptRegistry: " + script.getSha1());
+            }
+            LuaScript lua = ((RegisteredScript<T>) script).script;
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result;
+                try {
+                    result = connection.evalSha(lua.sha1, returnType, numKeys, keysAndArgs);
+                } catch (RuntimeException e) {
+                    if (!RedisConnections.isNoScript(e)) {
+                        throw e;
+                    }
+                    log.info("lua script {} not found on server, reload it", lua.name);
+                    lua.reloads.increment();
+                    lua.load(connection);
+                    result = connection.evalSha(lua.sha1, returnType, numKeys, keysAndArgs);
+                }
+                success = true;
+                return script.getResultType() == null ? null : deserializeResult(resultSerializer, result);
+            } finally {
+                (success ? lua.successTimer : lua.errorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 一个脚本文件，和返回值类型无关
+     */
+    private static final class LuaScript {
+
+        private final String name;
+
+        /**
+         * 脚本文件的原始字节
+         */
+        private final byte[] body;
+
+        private final String sha1;
+
+        private final Timer successTimer;
+
+        private final Timer errorTimer;
+
+        private final Counter reloads;
+
+        private LuaScript(String name, byte[] body, MeterRegistry registry) {
+            this.name = name;
+            this.body = body;
+            this.sha1 = sha1Hex(body);
+            this.successTimer = timer(registry, name, "success");
+            this.errorTimer = timer(registry, name, "error");
+            this.reloads = Counter.builder(RELOAD_METRIC_NAME)
+                .description("Lua scripts reloaded after NOSCRIPT")
+                .tag("script", name)
+                .register(registry);
+        }
+
+        private void load(RedisConnection connection) {
+            String loaded = connection.scriptLoad(body);
+            if (loaded != null && !sha1.equals(loaded)) {
+                throw new IllegalStateException("sha1 of lua script " + name + " mismatch, local: " + sha1
+                    + ", server: " + loaded);
+            }
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String outcome) {
+            return Timer.builder(METRIC_NAME)
+                .description("Lua scripts executed through RedisScriptRegistry")
+                .tag("script", name)
+                .tag("outcome", outcome)
+                .register(registry);
+        }
+
+        private static String sha1Hex(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest(body);
+                StringBuilder hex = new StringBuilder(digest.length * 2);
+                for (byte b : digest) {
+                    hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 带有返回值类型的脚本
+     */
+    private static final class RegisteredScript<T> implements RedisScript<T> {
+
+        private final LuaScript script;
+
+        private final Class<T> resultType;
+
+        private RegisteredScript(LuaScript script, Class<T> resultType) {
+            this.script = script;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public String getSha1() {
+            return script.sha1;
+        }
+
+        @Override
+        public Class<T> getResultType() {
+            return resultType;
+        }
+
+        @Override
+        public String getScriptAsString() {
+            return new String(script.body, StandardCharsets.UTF_8);
+        }
+    }
+}
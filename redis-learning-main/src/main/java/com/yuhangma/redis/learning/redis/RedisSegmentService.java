@@ -0,0 +1,299 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.SegmentProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于 Redis set 的人群（标签）服务
+ * <ul>
+ * <li>成员管理：SADD / SREM 每 {@link SegmentProperties#getBatchSize()} 个成员一条命令，所有命令在一个 pipeline 中发送</li>
+ * <li>集合运算：交集、并集、差集在服务端通过 SINTERSTORE / SUNIONSTORE / SDIFFSTORE 完成，结果保存在带过期时间的 key 中，
+ * 过期之前相同的运算直接复用结果，不重复计算，也不需要把大集合传输到客户端。交集和并集与人群的顺序无关。
+ * 结果不会随着人群的修改而更新，最多落后 {@link SegmentProperties#getResultTtl()}</li>
+ * <li>遍历：SSCAN 惰性迭代，不使用会阻塞 Redis 的 SMEMBERS</li>
+ * <li>成员判断：先查本地的 {@link SegmentFilter}，过滤器判断不存在时不访问 Redis</li>
+ * </ul>
+ * 所有人群默认位于同一个 slot，集群模式下这些人群都在一个节点上，人群之间不需要运算时可以修改 key 前缀去掉 hash tag。
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/sinterstore">Redis Documentation: SINTERSTORE</a>
+ * @see <a href="http://redis.io/commands/sscan">Redis Documentation: SSCAN</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisSegmentService {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    @Autowired
+    private SegmentProperties properties;
+
+    private RedisScript<Long> storeScript;
+
+    private final Map<String, SegmentFilter> filters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        storeScript = scripts.get("segment_store", Long.class);
+    }
+
+    public String key(String segment) {
+        return properties.getKeyPrefix() + segment;
+    }
+
+    /**
+     * @return 新加入的成员数量
+     */
+    public long add(String segment, Collection<String> members) {
+        long added = batch(segment, members, RedisConnection::sAdd);
+        SegmentFilter filter = filters.get(segment);
+        if (filter != null) {
+            members.forEach(filter::added);
+        }
+        return added;
+    }
+
+    /**
+     * 删除的成员仍然留在本地过滤器中，之后对它的判断会访问 Redis
+     *
+     * @return 删除的成员数量
+     */
+    public long remove(String segment, Collection<String> members) {
+        return batch(segment, members, RedisConnection::sRem);
+    }
+
+    public long size(String segment) {
+        Long size = redisTemplate.opsForSet().size(key(segment));
+        return size == null ? 0 : size;
+    }
+
+    public boolean contains(String segment, String member) {
+        SegmentFilter filter = filter(segment);
+        if (!filter.mightContain(member)) {
+            return false;
+        }
+        boolean result = Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key(segment), member));
+        filter.confirmed(result);
+        return result;
+    }
+
+    /**
+     * 批量判断，过滤器判断可能存在的成员的 SISMEMBER 在一个 pipeline 中发送
+     *
+     * @return 和 members 一一对应
+     */
+    public boolean[] containsAll(String segment, List<String> members) {
+        SegmentFilter filter = filter(segment);
+        boolean[] results = new boolean[members.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (filter.mightContain(members.get(i))) {
+                candidates.add(i);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+        byte[] rawKey = bytes(key(segment));
+        List<Object> isMembers = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            candidates.forEach(i -> connection.sIsMember(rawKey, bytes(members.get(i))));
+            return null;
+        });
+        for (int i = 0; i < candidates.size(); i++) {
+            boolean result = Boolean.TRUE.equals(isMembers.get(i));
+            filter.confirmed(result);
+            results[candidates.get(i)] = result;
+        }
+        return results;
+    }
+
+    /**
+     * 所有人群的交集
+     */
+    public SegmentResult intersect(Collection<String> segments) {
+        return store(SetOperation.INTER, sorted(segments));
+    }
+
+    /**
+     * 所有人群的并集
+     */
+    public SegmentResult union(Collection<String> segments) {
+        return store(SetOperation.UNION, sorted(segments));
+    }
+
+    /**
+     * 在 segment 中、但是不在 others 中的成员
+     */
+    public SegmentResult difference(String segment, Collection<String> others) {
+        List<String> segments = new ArrayList<>(others.size() + 1);
+        segments.add(segment);
+        segments.addAll(sorted(others));
+        return store(SetOperation.DIFF, segments);
+    }
+
+    /**
+     * 惰性迭代 key 中的所有成员，key 可以是 {@link #key(String)} 或者 {@link SegmentResult#getKey()}
+     *
+     * @return 成员的流，持有一个 Redis 连接，使用完必须关闭
+     */
+    public Stream<String> scan(String key) {
+        return rawScan(key).map(member -> new String(member, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按批迭代 key 中的所有成员，每批最多 {@link SegmentProperties#getBatchSize()} 个
+     *
+     * @return 每批成员组成的流，使用完必须关闭
+     */
+    public Stream<List<String>> scanPages(String key) {
+        Stream<String> members = scan(key);
+        Iterator<List<String>> pages = new RedisKeyScanner.PageIterator<>(members.iterator(), properties.getBatchSize());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.NONNULL), false)
+            .onClose(members::close);
+    }
+
+    /**
+     * 获取人群的本地过滤器，第一次获取时通过 SSCAN 同步构建，之后同一个人群返回同一个过滤器
+     */
+    public SegmentFilter filter(String segment) {
+        return filters.computeIfAbsent(segment, s -> new SegmentFilter(s, this::loadFilter, properties.getFilterMaxStaleness()));
+    }
+
+    public void removeFilter(String segment) {
+        filters.remove(segment);
+    }
+
+    private Stream<byte[]> rawScan(String key) {
+        RedisConnectionFactory factory = redisTemplate.getRequiredConnectionFactory();
+        RedisConnection connection = RedisConnectionUtils.getConnection(factory);
+        Cursor<byte[]> cursor;
+        try {
+            cursor = connection.sScan(bytes(key), ScanOptions.scanOptions().count(properties.getBatchSize()).build());
+        } catch (RuntimeException e) {
+            RedisConnectionUtils.releaseConnection(connection, factory);
+            throw e;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    log.warn("close sscan cursor failed", e);
+                } finally {
+                    RedisConnectionUtils.releaseConnection(connection, factory);
+                }
+            });
+    }
+
+    /**
+     * 结果保存在 {keyPrefix}result:{op}:{segment1,segment2,...} 中，和人群位于同一个 slot
+     */
+    private SegmentResult store(SetOperation op, List<String> segments) {
+        Assert.notEmpty(segments, "segments must not be empty");
+        String destination = properties.getKeyPrefix() + "result:" + op.name().toLowerCase() + ":" + String.join(",", segments);
+        List<String> keys = new ArrayList<>(segments.size() + 1);
+        keys.add(destination);
+        segments.forEach(segment -> keys.add(key(segment)));
+        Long size = scripts.execute(storeScript, keys, op.command, String.valueOf(properties.getResultTtl().toMillis()));
+        return new SegmentResult(destination, size == null ? 0 : size);
+    }
+
+    private BloomFilter loadFilter(String segment) {
+        long size = size(segment);
+        BloomFilter filter = BloomFilter.create((long) (size * (1 + properties.getFilterHeadroom())) + 1,
+            properties.getFilterFpp());
+        long loaded = 0;
+        try (Stream<byte[]> members = rawScan(key(segment))) {
+            Iterator<byte[]> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                filter.put(iterator.next());
+                loaded++;
+            }
+        }
+        log.debug("segment {} scanned, scard: {}, loaded: {}", segment, size, loaded);
+        return filter;
+    }
+
+    private long batch(String segment, Collection<String> members, MemberCommand command) {
+        if (members.isEmpty()) {
+            return 0;
+        }
+        byte[] rawKey = bytes(key(segment));
+        List<String> memberList = new ArrayList<>(members);
+        int batchSize = properties.getBatchSize();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < memberList.size(); from += batchSize) {
+                List<String> chunk = memberList.subList(from, Math.min(memberList.size(), from + batchSize));
+                byte[][] rawMembers = new byte[chunk.size()][];
+                for (int i = 0; i < rawMembers.length; i++) {
+                    rawMembers[i] = bytes(chunk.get(i));
+                }
+                command.execute(connection, rawKey, rawMembers);
+            }
+            return null;
+        });
+        long count = 0;
+        for (Object result : results) {
+            count += result == null ? 0 : (Long) result;
+        }
+        return count;
+    }
+
+    private static List<String> sorted(Collection<String> segments) {
+        List<String> sorted = new ArrayList<>(segments);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private enum SetOperation {
+
+        INTER("SINTERSTORE"), UNION("SUNIONSTORE"), DIFF("SDIFFSTORE");
+
+        private final String command;
+
+        SetOperation(String command) {
+            this.command = command;
+        }
+    }
+
+    @FunctionalInterface
+    private interface MemberCommand {
+
+        void execute(RedisConnection connection, byte[] key, byte[][] members);
+    }
+}
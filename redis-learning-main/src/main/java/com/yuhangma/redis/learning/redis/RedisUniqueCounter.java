@@ -0,0 +1,417 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.UniqueCounterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 HyperLogLog 的去重计数，例如每个接口每分钟、每小时、每天的独立用户数
+ * <p>
+ * 用 set 保存每个接口的用户，内存和用户数成正比；HyperLogLog 每个计数器最多 12KB，标准误差 0.81%。
+ * </p>
+ * <ul>
+ * <li>本地缓冲：{@link #add(String, String)} 只写入本地的分钟桶，相同的元素在一个刷新间隔内只发送一次。
+ * 每隔 flushInterval 把所有分钟桶的元素通过 PFADD 在一个 pipeline 中写入 Redis，每条 PFADD 最多 batchSize 个元素</li>
+ * <li>本地预聚合：一个分钟桶中的不同元素超过 sketchThreshold 时改用本地的 {@link HyperLogLog}，内存固定为 16KB，
+ * 刷新时把 sketch 通过 SET + PFMERGE 合并到 Redis，一次刷新只发送 12KB，和元素的数量无关</li>
+ * <li>汇总：每隔 rollupInterval 把刷新过的分钟桶 PFMERGE 到小时桶，再把小时桶 PFMERGE 到天桶。
+ * 分钟桶、小时桶、天桶分别保留 minuteRetention、hourRetention、dayRetention</li>
+ * <li>查询：{@link #count(String, LocalDateTime, LocalDateTime)} 把时间窗口拆分为尽量少的天桶、小时桶和分钟桶，
+ * 使用一条 PFCOUNT 计算它们的并集</li>
+ * </ul>
+ * <p>
+ * PFADD 和 PFMERGE 都是幂等的，刷新或者汇总失败时把数据放回本地，下一次重试不会重复计数。
+ * 查询只读取 Redis，不包含本地还没有刷新的元素；小时桶和天桶最多落后 rollupInterval。
+ * 同一个计数器的所有 key 使用 hash tag 位于同一个 slot，集群模式下也可以 PFMERGE 和多 key 的 PFCOUNT。
+ * </p>
+ *
+ * @author Moore
+ * @see HyperLogLog
+ * @see <a href="http://redis.io/commands/pfadd">Redis Documentation: PFADD</a>
+ * @see <a href="http://redis.io/commands/pfmerge">Redis Documentation: PFMERGE</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class RedisUniqueCounter {
+
+    /**
+     * 查询的时间窗口最多的天数
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private static final RedisSerializer<byte[]> RAW_SERIALIZER = new RedisSerializer<byte[]>() {
+
+        @Override
+        public byte[] serialize(byte[] bytes) {
+            return bytes;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UniqueCounterProperties properties;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private RedisScript<Long> mergeScript;
+
+    private RedisScript<Long> rollupScript;
+
+    /**
+     * 分钟桶的 key -> 本地缓冲
+     */
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 已经刷新、还没有汇总的分钟桶
+     */
+    private final Map<String, Bucket> unrolled = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-unique-counter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        mergeScript = scripts.get("hll_merge", Long.class);
+        rollupScript = scripts.get("hll_rollup", Long.class);
+        long flushInterval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> quietly("flush", this::flush), flushInterval, flushInterval,
+            TimeUnit.MILLISECONDS);
+        long rollupInterval = properties.getRollupInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> quietly("rollup", this::rollup), rollupInterval, rollupInterval,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时任务，刷新并汇总剩余的数据
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        flush();
+        rollup();
+    }
+
+    /**
+     * 记录 element 在当前这一分钟出现，只写入本地缓冲，不访问 Redis
+     */
+    public void add(String counter, String element) {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        String key = key(counter, Granularity.MINUTE, minute);
+        while (!buffers.computeIfAbsent(key, k -> new Buffer(k, counter, minute)).add(element, properties.getSketchThreshold())) {
+            // 缓冲正在被刷新，重新获取
+            Thread.yield();
+        }
+    }
+
+    public void addAll(String counter, Collection<String> elements) {
+        elements.forEach(element -> add(counter, element));
+    }
+
+    /**
+     * 把已经在本地聚合好的 sketch 合并到当前这一分钟
+     */
+    public void merge(String counter, HyperLogLog sketch) {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        String key = key(counter, Granularity.MINUTE, minute);
+        while (!buffers.computeIfAbsent(key, k -> new Buffer(k, counter, minute)).merge(sketch)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * 时间窗口 [from, to) 内的不同元素的数量，from 和 to 按分钟截断
+     */
+    public long count(String counter, LocalDateTime from, LocalDateTime to) {
+        List<String> keys = windowKeys(counter, from, to);
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long count = redisTemplate.opsForHyperLogLog().size(keys.toArray(new String[0]));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 读取 Redis 中的 HyperLogLog，key 不存在时返回空的 sketch
+     */
+    public HyperLogLog sketch(String key) {
+        byte[] raw = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+            connection.get(key.getBytes(StandardCharsets.UTF_8)));
+        return raw == null ? new HyperLogLog() : HyperLogLog.fromRedisBytes(raw);
+    }
+
+    public String key(String counter, Granularity granularity, LocalDateTime time) {
+        return properties.getKeyPrefix() + RedisKeys.tag(counter) + ":" + granularity.suffix + ":"
+            + time.format(granularity.formatter);
+    }
+
+    /**
+     * 把本地缓冲写入 Redis：元素在一个 pipeline 中 PFADD，sketch 使用脚本合并。失败时放回本地，下一次重试
+     */
+    public void flush() {
+        List<Buffer> drained = new ArrayList<>();
+        for (Buffer buffer : buffers.values()) {
+            if (buffers.remove(buffer.key, buffer)) {
+                buffer.close();
+                drained.add(buffer);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            write(drained);
+        } catch (RuntimeException e) {
+            drained.forEach(this::requeue);
+            throw e;
+        }
+        drained.forEach(buffer -> unrolled.put(buffer.key, new Bucket(buffer.counter, buffer.minute)));
+    }
+
+    /**
+     * 把刷新过的分钟桶合并到小时桶和天桶，同一个计数器同一个小时的分钟桶使用一次脚本
+     */
+    public void rollup() {
+        Map<String, Map<String, Bucket>> hours = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, Bucket>> iterator = unrolled.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Bucket> entry = iterator.next();
+            iterator.remove();
+            Bucket bucket = entry.getValue();
+            hours.computeIfAbsent(key(bucket.counter, Granularity.HOUR, bucket.minute), k -> new LinkedHashMap<>())
+                .put(entry.getKey(), bucket);
+        }
+        String hourTtl = String.valueOf(properties.getHourRetention().toMillis());
+        String dayTtl = String.valueOf(properties.getDayRetention().toMillis());
+        RuntimeException failure = null;
+        for (Map.Entry<String, Map<String, Bucket>> entry : hours.entrySet()) {
+            Bucket any = entry.getValue().values().iterator().next();
+            List<String> keys = new ArrayList<>(entry.getValue().size() + 2);
+            keys.add(entry.getKey());
+            keys.add(key(any.counter, Granularity.DAY, any.minute));
+            keys.addAll(entry.getValue().keySet());
+            try {
+                scripts.execute(rollupScript, keys, hourTtl, dayTtl);
+            } catch (RuntimeException e) {
+                // 没有汇总的分钟桶放回去，下一次重试
+                entry.getValue().forEach(unrolled::putIfAbsent);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 把 [from, to) 拆分为尽量少的桶：完整的天使用天桶，完整的小时使用小时桶，其余使用分钟桶
+     */
+    List<String> windowKeys(String counter, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime time = from.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.MINUTES);
+        Assert.isTrue(!time.plusDays(MAX_RANGE_DAYS).isBefore(end), "time range must be within " + MAX_RANGE_DAYS + " days");
+        List<String> keys = new ArrayList<>();
+        while (time.isBefore(end)) {
+            Granularity granularity;
+            if (time.toLocalTime().equals(LocalTime.MIDNIGHT) && !time.plusDays(1).isAfter(end)) {
+                granularity = Granularity.DAY;
+            } else if (time.getMinute() == 0 && !time.plusHours(1).isAfter(end)) {
+                granularity = Granularity.HOUR;
+            } else {
+                granularity = Granularity.MINUTE;
+            }
+            keys.add(key(counter, granularity, time));
+            time = time.plus(1, granularity.unit);
+        }
+        return keys;
+    }
+
+    private void write(List<Buffer> drained) {
+        long minuteTtl = properties.getMinuteRetention().toMillis();
+        int batchSize = properties.getBatchSize();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Buffer buffer : drained) {
+                if (buffer.elements == null) {
+                    continue;
+                }
+                String[] elements = buffer.elements.toArray(new String[0]);
+                for (int from = 0; from < elements.length; from += batchSize) {
+                    stringConnection.pfAdd(buffer.key, Arrays.copyOfRange(elements, from, Math.min(elements.length, from + batchSize)));
+                }
+                stringConnection.pExpire(buffer.key, minuteTtl);
+            }
+            return null;
+        });
+        byte[] rawTtl = String.valueOf(minuteTtl).getBytes(StandardCharsets.UTF_8);
+        for (Buffer buffer : drained) {
+            if (buffer.sketch != null) {
+                scripts.execute(redisTemplate, mergeScript, RAW_SERIALIZER, LONG_SERIALIZER,
+                    Arrays.asList(buffer.key, buffer.key + ":tmp"), buffer.sketch.toRedisBytes(), rawTtl);
+            }
+        }
+    }
+
+    /**
+     * 把写入失败的缓冲中的数据放回本地
+     */
+    private void requeue(Buffer drained) {
+        while (!buffers.computeIfAbsent(drained.key, k -> new Buffer(k, drained.counter, drained.minute))
+            .addAll(drained, properties.getSketchThreshold())) {
+            Thread.yield();
+        }
+    }
+
+    private static void quietly(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            log.warn("unique counter {} failed, will retry later", task, e);
+        }
+    }
+
+    public enum Granularity {
+
+        MINUTE("m", "yyyyMMddHHmm", ChronoUnit.MINUTES),
+        HOUR("h", "yyyyMMddHH", ChronoUnit.HOURS),
+        DAY("d", "yyyyMMdd", ChronoUnit.DAYS);
+
+        private final String suffix;
+
+        private final DateTimeFormatter formatter;
+
+        private final ChronoUnit unit;
+
+        Granularity(String suffix, String pattern, ChronoUnit unit) {
+            this.suffix = suffix;
+            this.formatter = DateTimeFormatter.ofPattern(pattern);
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * 一个分钟桶的本地缓冲，元素较少时保存元素本身，超过阈值之后转换为 sketch
+     */
+    private static final class Buffer {
+
+        private final String key;
+
+        private final String counter;
+
+        private final LocalDateTime minute;
+
+        private Set<String> elements = new HashSet<>();
+
+        private HyperLogLog sketch;
+
+        /**
+         * 被刷新线程取走之后不再接收新的元素
+         */
+        private boolean closed;
+
+        private Buffer(String key, String counter, LocalDateTime minute) {
+            this.key = key;
+            this.counter = counter;
+            this.minute = minute;
+        }
+
+        synchronized boolean add(String element, int sketchThreshold) {
+            if (closed) {
+                return false;
+            }
+            if (sketch != null) {
+                sketch.add(element);
+            } else if (elements.add(element) && elements.size() > sketchThreshold) {
+                sketch = new HyperLogLog();
+                elements.forEach(sketch::add);
+                elements = null;
+            }
+            return true;
+        }
+
+        synchronized boolean merge(HyperLogLog other) {
+            if (closed) {
+                return false;
+            }
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+                elements.forEach(sketch::add);
+                elements = null;
+            }
+            sketch.merge(other);
+            return true;
+        }
+
+        /**
+         * 把另一个已经关闭的缓冲中的数据加入进来，关闭之后 other 不会再被修改
+         */
+        synchronized boolean addAll(Buffer other, int sketchThreshold) {
+            if (closed) {
+                return false;
+            }
+            if (other.elements != null) {
+                other.elements.forEach(element -> add(element, sketchThreshold));
+            }
+            return other.sketch == null || merge(other.sketch);
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+    }
+
+    private static final class Bucket {
+
+        private final String counter;
+
+        private final LocalDateTime minute;
+
+        private Bucket(String counter, LocalDateTime minute) {
+            this.counter = counter;
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.QueueProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于 list 的可靠队列，消息处理完成之后需要确认，消费者崩溃时正在处理的消息会重新投递
+ * <p>
+ * 直接使用 LPUSH 和 RPOP（或者 {@link RedisClient#rightMultiAtomicPop(String, int)}）做队列时，消息一旦被取出就从 Redis 中删除，
+ * 消费者在处理过程中崩溃，消息就丢失了。这里每个消费者有一个自己的处理中队列：
+ * </p>
+ * <ul>
+ * <li>写入：Lua 脚本为每条消息分配递增的 id，一批消息一次网络往返</li>
+ * <li>取出：Lua 脚本中循环 RPOPLPUSH，一次把最多 batchSize 条消息原子地转移到处理中队列；队列为空时使用 BRPOPLPUSH
+ * 阻塞等待，不需要轮询</li>
+ * <li>确认：处理完一批消息之后，使用一次 Lua 脚本从处理中队列中删除；处理失败的消息放入死信队列</li>
+ * <li>回收：消费者定期在 sorted set 中更新心跳，心跳超时的消费者的处理中队列会被整体放回待处理队列</li>
+ * </ul>
+ * <p>
+ * 投递语义是至少一次：消费者处理完消息、确认之前崩溃，或者因为长时间停顿被判定为崩溃，消息都会被再次投递，消费者需要保证幂等。
+ * </p>
+ * <p>
+ * 这里没有使用 Redis Streams：当前使用的 spring-data-redis 2.0 和 Lettuce 5.0 都没有 XADD、XREADGROUP 等命令的封装，
+ * 内嵌的 Redis 2.8 也不支持 Streams。消费者组、XACK、XAUTOCLAIM 分别对应这里的多个消费者线程、确认脚本和回收脚本。
+ * </p>
+ * <pre>
+ * queue:{name}                    待处理队列，左进右出
+ * queue:{name}:processing:{id}    消费者的处理中队列
+ * queue:{name}:consumers          消费者的心跳，score 为最近一次心跳的毫秒时间戳
+ * queue:{name}:seq                消息 id 序列
+ * queue:{name}:dead               死信队列
+ * </pre>
+ *
+ * @author Moore
+ * @see <a href="http://redis.io/commands/rpoplpush">Redis Documentation: RPOPLPUSH</a>
+ * @see <a href="http://redis.io/commands/brpoplpush">Redis Documentation: BRPOPLPUSH</a>
+ * @since 2026/10/18
+ */
+@Slf4j
+@Component
+public class ReliableRedisQueue {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private QueueProperties properties;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> pushScript;
+
+    @SuppressWarnings("rawtypes")
+    private RedisScript<List> claimScript;
+
+    private RedisScript<Long> ackScript;
+
+    private RedisScript<Long> reclaimScript;
+
+    /**
+     * 心跳和回收任务
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-queue-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<QueueConsumerGroup> groups = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        pushScript = scripts.get("queue_push", List.class);
+        claimScript = scripts.get("queue_claim", List.class);
+        ackScript = scripts.get("queue_ack", Long.class);
+        reclaimScript = scripts.get("queue_reclaim", Long.class);
+        long heartbeat = properties.getHeartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeatQuietly, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        long reclaim = properties.getReclaimInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reclaimQuietly, reclaim, reclaim, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止所有的消费者组，正在处理的消息会处理完并确认
+     */
+    @PreDestroy
+    public void destroy() {
+        groups.forEach(QueueConsumerGroup::close);
+        scheduler.shutdown();
+    }
+
+    /**
+     * 批量写入消息，一次网络往返
+     *
+     * @return 和 payloads 一一对应的消息 id
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> push(String queue, List<String> payloads) {
+        if (payloads.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return (List<Long>) scripts.execute(pushScript, Arrays.asList(queueKey(queue), seqKey(queue)),
+            payloads.toArray());
+    }
+
+    public long push(String queue, String payload) {
+        return push(queue, Collections.singletonList(payload)).get(0);
+    }
+
+    /**
+     * 取出最多 count 条消息放入消费者的处理中队列，队列为空时最多阻塞 block
+     *
+     * @param block 阻塞时间，小于 1 秒时不阻塞
+     * @return 按照写入顺序排列的消息，超时时返回空 list
+     */
+    public List<QueueMessage> claim(String queue, String consumerId, int count, Duration block) {
+        String processingKey = processingKey(queue, consumerId);
+        List<QueueMessage> messages = claimNow(queue, processingKey, count);
+        if (!messages.isEmpty() || block.getSeconds() < 1) {
+            return messages;
+        }
+        // 阻塞命令使用连接池中的独占连接，不会阻塞其他命令
+        String first = redisTemplate.opsForList().rightPopAndLeftPush(queueKey(queue), processingKey,
+            block.getSeconds(), TimeUnit.SECONDS);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        messages = new ArrayList<>(count);
+        messages.add(QueueMessage.decode(first));
+        if (count > 1) {
+            messages.addAll(claimNow(queue, processingKey, count - 1));
+        }
+        return messages;
+    }
+
+    /**
+     * 确认消息已经处理完成，一批消息一次网络往返
+     *
+     * @return 确认的消息数量，已经被回收的消息不会计入
+     */
+    public long ack(String queue, String consumerId, Collection<QueueMessage> messages) {
+        return removeProcessing(Collections.singletonList(processingKey(queue, consumerId)), messages);
+    }
+
+    /**
+     * 把处理失败的消息从处理中队列转移到死信队列
+     *
+     * @return 转移的消息数量
+     */
+    public long deadLetter(String queue, String consumerId, Collection<QueueMessage> messages) {
+        return removeProcessing(Arrays.asList(processingKey(queue, consumerId), deadKey(queue)), messages);
+    }
+
+    /**
+     * 更新消费者的心跳，所有消费者的 ZADD 在一个 pipeline 中执行
+     */
+    public void heartbeat(String queue, Collection<String> consumerIds) {
+        if (consumerIds.isEmpty()) {
+            return;
+        }
+        byte[] rawKey = raw(consumersKey(queue));
+        double now = System.currentTimeMillis();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String consumerId : consumerIds) {
+                connection.zAdd(rawKey, now, raw(consumerId));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 消费者退出时调用，把处理中队列中剩余的消息放回待处理队列，并删除心跳
+     *
+     * @return 放回的消息数量
+     */
+    public long release(String queue, String consumerId) {
+        Long moved = scripts.execute(reclaimScript,
+            Arrays.asList(consumersKey(queue), processingKey(queue, consumerId), queueKey(queue)),
+            consumerId, String.valueOf(Long.MAX_VALUE));
+        return moved == null ? 0 : moved;
+    }
+
+    /**
+     * 把心跳超过 deadTimeout 的消费者正在处理的消息放回待处理队列
+     *
+     * @return 放回的消息数量
+     */
+    public long reclaim(String queue, Duration deadTimeout) {
+        long deadline = System.currentTimeMillis() - deadTimeout.toMillis();
+        String consumersKey = consumersKey(queue);
+        Set<String> dead = redisTemplate.opsForZSet().rangeByScore(consumersKey, Double.NEGATIVE_INFINITY, deadline - 1);
+        long reclaimed = 0;
+        for (String consumerId : dead == null ? Collections.<String>emptySet() : dead) {
+            // 脚本中会再次检查心跳，避免回收刚刚恢复的消费者
+            Long moved = scripts.execute(reclaimScript,
+                Arrays.asList(consumersKey, processingKey(queue, consumerId), queueKey(queue)),
+                consumerId, String.valueOf(deadline));
+            if (moved != null && moved > 0) {
+                log.warn("consumer {} of queue {} is dead, reclaimed {} messages", consumerId, queue, moved);
+                reclaimed += moved;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 启动一个消费者组，concurrency 个消费者线程并行处理消息
+     * <p>
+     * handler 每次处理一批消息，正常返回之后整批确认；抛出异常时逐条重试，仍然失败的消息放入死信队列。
+     * </p>
+     *
+     * @return 消费者组，调用 {@link QueueConsumerGroup#close()} 停止
+     */
+    public QueueConsumerGroup subscribe(String queue, int concurrency, Consumer<List<QueueMessage>> handler) {
+        return subscribe(queue, concurrency, properties.getBatchSize(), Duration.ZERO, handler);
+    }
+
+    /**
+     * 启动一个消费者组，每个消费者每次最多处理 batchSize 条消息
+     *
+     * @param linger 取出的消息不满 batchSize 时，等待这段时间再补齐一次，适合批量写入数据库等批次越大越划算的 handler
+     * @see #subscribe(String, int, Consumer)
+     */
+    public QueueConsumerGroup subscribe(String queue, int concurrency, int batchSize, Duration linger,
+                                        Consumer<List<QueueMessage>> handler) {
+        return subscribe(queue, concurrency, batchSize, linger, handler, null);
+    }
+
+    /**
+     * 启动一个消费者组，逐条重试仍然失败的消息放入死信队列之后交给 deadLetterHandler，
+     * 适合需要撤销消息副作用（例如提前写入的缓存）的 handler
+     *
+     * @param deadLetterHandler 为 null 时不通知，抛出的异常只记录日志
+     * @see #subscribe(String, int, int, Duration, Consumer)
+     */
+    public QueueConsumerGroup subscribe(String queue, int concurrency, int batchSize, Duration linger,
+                                        Consumer<List<QueueMessage>> handler,
+                                        Consumer<List<QueueMessage>> deadLetterHandler) {
+        QueueConsumerGroup group = new QueueConsumerGroup(this, queue, concurrency, batchSize, properties.getBlock(),
+            linger, handler, deadLetterHandler);
+        groups.add(group);
+        group.start();
+        return group;
+    }
+
+    public QueueConsumerGroup subscribe(String queue, Consumer<List<QueueMessage>> handler) {
+        return subscribe(queue, properties.getConcurrency(), handler);
+    }
+
+    void removeGroup(QueueConsumerGroup group) {
+        groups.remove(group);
+    }
+
+    /**
+     * 待处理的消息数量
+     */
+    public long size(String queue) {
+        Long size = redisTemplate.opsForList().size(queueKey(queue));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 死信队列中的消息数量
+     */
+    public long deadLetterSize(String queue) {
+        Long size = redisTemplate.opsForList().size(deadKey(queue));
+        return size == null ? 0 : size;
+    }
+
+    public String queueKey(String queue) {
+        return properties.getKeyPrefix() + RedisKeys.tag(queue);
+    }
+
+    public String processingKey(String queue, String consumerId) {
+        return queueKey(queue) + ":processing:" + consumerId;
+    }
+
+    public String consumersKey(String queue) {
+        return queueKey(queue) + ":consumers";
+    }
+
+    public String seqKey(String queue) {
+        return queueKey(queue) + ":seq";
+    }
+
+    public String deadKey(String queue) {
+        return queueKey(queue) + ":dead";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<QueueMessage> claimNow(String queue, String processingKey, int count) {
+        List<String> encoded = (List<String>) scripts.execute(claimScript,
+            Arrays.asList(queueKey(queue), processingKey), String.valueOf(count));
+        if (encoded == null || encoded.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<QueueMessage> messages = new ArrayList<>(encoded.size());
+        for (String message : encoded) {
+            messages.add(QueueMessage.decode(message));
+        }
+        return messages;
+    }
+
+    private long removeProcessing(List<String> keys, Collection<QueueMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        Object[] encoded = messages.stream().map(QueueMessage::encode).toArray();
+        Long removed = scripts.execute(ackScript, keys, encoded);
+        return removed == null ? 0 : removed;
+    }
+
+    private void heartbeatQuietly() {
+        for (QueueConsumerGroup group : groups) {
+            try {
+                heartbeat(group.getQueue(), group.getConsumerIds());
+            } catch (DataAccessException e) {
+                log.warn("heartbeat of queue {} failed", group.getQueue(), e);
+            }
+        }
+    }
+
+    private void reclaimQuietly() {
+        for (QueueConsumerGroup group : groups) {
+            try {
+                reclaim(group.getQueue(), properties.getDeadTimeout());
+            } catch (DataAccessException e) {
+                log.warn("reclaim of queue {} failed", group.getQueue(), e);
+            }
+        }
+    }
+
+    private byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 一个人群（Redis set）在本地的布隆过滤器，过滤器判断不存在的成员不需要访问 Redis
+ * <p>
+ * 和 {@link BitmapMirror} 一样最多落后 maxStaleness：过期之后的第一次读取会触发后台重建，重建完成之前仍然使用旧的过滤器。
+ * 通过 {@link RedisSegmentService} 在本进程中添加的成员会立即加入过滤器，其他进程添加的成员要等到下一次重建，
+ * 在这之前可能被误判为不存在。删除的成员仍然留在过滤器中，只会变成一次误判，由 Redis 给出正确结果。
+ * </p>
+ * <p>
+ * 过滤器判断存在、Redis 判断不存在的次数就是实际的误判次数，{@link #observedFpp()} 按照这个统计实际的误判率，
+ * {@link #expectedFpp()} 是根据位数组估算的理论误判率，两者可以对照。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisSegmentService#filter(String)
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SegmentFilter {
+
+    private final String segment;
+
+    private final Function<String, BloomFilter> loader;
+
+    private final long maxStalenessNanos;
+
+    private volatile BloomFilter filter;
+
+    private volatile long loadedAt;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * 本进程中添加的成员和添加的时间，重建时 SSCAN 不保证返回迭代期间添加的成员，需要重新加入新的过滤器
+     */
+    private final Map<String, Long> localAdds = new ConcurrentHashMap<>();
+
+    private final LongAdder negatives = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private final LongAdder positives = new LongAdder();
+
+    SegmentFilter(String segment, Function<String, BloomFilter> loader, Duration maxStaleness) {
+        this.segment = segment;
+        this.loader = loader;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        refresh();
+    }
+
+    /**
+     * @return false 表示一定不在人群中
+     */
+    public boolean mightContain(String member) {
+        refreshIfStale();
+        boolean result = filter.mightContain(bytes(member));
+        if (!result) {
+            negatives.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 同步地从 Redis 重新构建
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        BloomFilter loaded = loader.apply(segment);
+        filter = loaded;
+        loadedAt = start;
+        // 加载开始之前的本地添加已经包含在 Redis 的数据中，其余的重新加入；替换之后再加入，替换期间的添加也不会丢失
+        localAdds.values().removeIf(addedAt -> addedAt - start < 0);
+        localAdds.keySet().forEach(member -> loaded.put(bytes(member)));
+        log.info("segment filter {} loaded, bytes: {}, hash functions: {}, expected fpp: {}, cost: {}ms", segment,
+            loaded.sizeInBytes(), loaded.hashFunctions(), String.format("%.5f", loaded.expectedFpp()),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 过滤器占用的字节数
+     */
+    public long sizeInBytes() {
+        return filter.sizeInBytes();
+    }
+
+    /**
+     * 根据位数组估算的理论误判率
+     */
+    public double expectedFpp() {
+        return filter.expectedFpp();
+    }
+
+    /**
+     * 实际的误判率：误判次数 / (误判次数 + 正确判断为不存在的次数)，没有不存在的查询时为 0
+     */
+    public double observedFpp() {
+        long fp = falsePositives.sum();
+        long total = fp + negatives.sum();
+        return total == 0 ? 0 : (double) fp / total;
+    }
+
+    /**
+     * 过滤器判断不存在、跳过 Redis 的次数
+     */
+    public long negatives() {
+        return negatives.sum();
+    }
+
+    public long falsePositives() {
+        return falsePositives.sum();
+    }
+
+    public long positives() {
+        return positives.sum();
+    }
+
+    public String getSegment() {
+        return segment;
+    }
+
+    void added(String member) {
+        localAdds.put(member, System.nanoTime());
+        filter.put(bytes(member));
+    }
+
+    /**
+     * 记录过滤器判断存在的成员在 Redis 中的结果
+     */
+    void confirmed(boolean member) {
+        (member ? positives : falsePositives).increment();
+    }
+
+    private void refreshIfStale() {
+        if (System.nanoTime() - loadedAt < maxStalenessNanos || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(this::refresh).whenComplete((v, e) -> {
+            refreshing.set(false);
+            if (e != null) {
+                log.warn("refresh segment filter {} failed", segment, e);
+            }
+        });
+    }
+
+    private static byte[] bytes(String member) {
+        return member.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+package com.yuhangma.redis.learning.redis;
+
+import lombok.Data;
+
+/**
+ * {@link RedisSegmentService} 集合运算的结果，结果保存在 Redis 中，过期之前可以通过 key 读取
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Data
+public class SegmentResult {
+
+    /**
+     * 结果集合的 key，结果为空时 key 不存在
+     */
+    private final String key;
+
+    /**
+     * 结果集合的元素数量
+     */
+    private final long size;
+}
@@ -0,0 +1,283 @@
+package com.yuhangma.redis.learning.redis;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceClusterConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 按 slot 分组执行多 key 命令，单机和集群模式下使用同一套代码
+ * <p>
+ * 集群模式下，MGET、DEL、MSET 等多 key 命令的 key 位于不同 slot 时，spring-data-redis 会退化为逐个 key 执行。
+ * 这里先按 slot 把 key 分组，每组一条多 key 命令，通过 Lettuce 的异步集群连接发送：每条命令路由到 slot 所在的节点，
+ * 所有命令发送之后再统一等待结果，各个节点的命令同时在路上，相当于每个节点一个 pipeline 并行执行。
+ * 最后按照 key 原来的顺序重组结果。
+ * </p>
+ * <p>
+ * spring-data-redis 2.0 的集群连接在 pipeline 中执行多 key 命令会抛出 ClassCastException，所以集群模式下没有使用
+ * executePipelined。单机模式下不需要分组，只按 {@link #MAX_KEYS_PER_COMMAND} 拆分过大的命令，在一个 pipeline 中执行。
+ * </p>
+ *
+ * @author Moore
+ * @see RedisKeys
+ * @since 2026/10/18
+ */
+@Component
+public class SlotAwareBatchExecutor {
+
+    /**
+     * 每条命令最多的 key 数量，避免产生过大的命令阻塞 Redis
+     */
+    public static final int MAX_KEYS_PER_COMMAND = 500;
+
+    /**
+     * 集群模式下等待所有节点返回结果的默认超时时间，和 spring.redis.timeout 的默认配置相同
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    private volatile Boolean cluster;
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 连接工厂是否为集群模式，第一次调用时获取一次连接判断
+     */
+    public boolean isCluster() {
+        Boolean result = cluster;
+        if (result == null) {
+            result = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                RedisConnections.lettuceConnection(connection) instanceof LettuceClusterConnection, true);
+            cluster = result;
+        }
+        return result;
+    }
+
+    /**
+     * 按 slot 分组的 MGET
+     *
+     * @return 和 keys 一一对应，不存在的 key 为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <V> List<V> multiGet(RedisTemplate<String, V> template, List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<Integer>> groups = group(keys);
+        byte[][] rawKeys = rawKeys(template, keys);
+        Object[] values = new Object[keys.size()];
+        if (isCluster()) {
+            RedisSerializer<V> valueSerializer = (RedisSerializer<V>) template.getValueSerializer();
+            List<List<KeyValue<byte[], byte[]>>> results = executeAsync(template,
+                commands -> groups.stream().map(group -> commands.mget(select(rawKeys, group))).collect(Collectors.toList()));
+            for (int i = 0; i < groups.size(); i++) {
+                List<Integer> group = groups.get(i);
+                List<KeyValue<byte[], byte[]>> groupValues = results.get(i);
+                for (int j = 0; j < group.size(); j++) {
+                    KeyValue<byte[], byte[]> keyValue = groupValues.get(j);
+                    values[group.get(j)] = keyValue.hasValue() ? valueSerializer.deserialize(keyValue.getValue()) : null;
+                }
+            }
+            return (List<V>) Arrays.asList(values);
+        }
+        List<Object> results = template.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Integer> group : groups) {
+                connection.mGet(select(rawKeys, group));
+            }
+            return null;
+        });
+        for (int i = 0; i < groups.size(); i++) {
+            List<Integer> group = groups.get(i);
+            List<Object> groupValues = (List<Object>) results.get(i);
+            for (int j = 0; j < group.size(); j++) {
+                values[group.get(j)] = groupValues.get(j);
+            }
+        }
+        return (List<V>) Arrays.asList(values);
+    }
+
+    /**
+     * 按 slot 分组的 DEL
+     *
+     * @return 删除的 key 的数量
+     */
+    public long delete(RedisTemplate<String, ?> template, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<List<Integer>> groups = group(keyList);
+        byte[][] rawKeys = rawKeys(template, keyList);
+        List<?> results;
+        if (isCluster()) {
+            results = executeAsync(template,
+                commands -> groups.stream().map(group -> commands.del(select(rawKeys, group))).collect(Collectors.toList()));
+        } else {
+            results = template.executePipelined((RedisCallback<Object>) connection -> {
+                for (List<Integer> group : groups) {
+                    connection.del(select(rawKeys, group));
+                }
+                return null;
+            });
+        }
+        long deleted = 0;
+        for (Object result : results) {
+            deleted += result == null ? 0 : (Long) result;
+        }
+        return deleted;
+    }
+
+    /**
+     * 按 slot 分组的 MSET，每组是原子的，不同组之间不是
+     */
+    @SuppressWarnings("unchecked")
+    public <V> void multiSet(RedisTemplate<String, V> template, Map<String, V> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(entries.keySet());
+        List<List<Integer>> groups = group(keys);
+        byte[][] rawKeys = rawKeys(template, keys);
+        RedisSerializer<V> valueSerializer = (RedisSerializer<V>) template.getValueSerializer();
+        List<Map<byte[], byte[]>> tuples = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups) {
+            Map<byte[], byte[]> groupTuples = new LinkedHashMap<>(group.size() * 2);
+            for (int index : group) {
+                groupTuples.put(rawKeys[index], valueSerializer.serialize(entries.get(keys.get(index))));
+            }
+            tuples.add(groupTuples);
+        }
+        if (isCluster()) {
+            executeAsync(template, commands -> tuples.stream().map(commands::mset).collect(Collectors.toList()));
+            return;
+        }
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            tuples.forEach(connection::mSet);
+            return null;
+        });
+    }
+
+    /**
+     * 对每个 key 执行一条单 key 命令，所有命令在一个 pipeline 中发送
+     * <p>
+     * 集群模式下 spring-data-redis 2.0 的 pipeline 只支持单 key 命令，由 Lettuce 把每条命令路由到 key 所在的节点。
+     * </p>
+     *
+     * @param command 每次调用只能发送一条命令
+     * @return 和 keys 一一对应的结果
+     */
+    public List<Object> executePerKey(RedisTemplate<String, ?> template, List<String> keys,
+                                      BiConsumer<RedisConnection, byte[]> command) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        byte[][] rawKeys = rawKeys(template, keys);
+        return template.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] rawKey : rawKeys) {
+                command.accept(connection, rawKey);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 把 key 的下标分组，集群模式下同一组的 key 位于同一个 slot，每组最多 {@link #MAX_KEYS_PER_COMMAND} 个
+     */
+    List<List<Integer>> group(List<String> keys) {
+        List<List<Integer>> groups = new ArrayList<>();
+        if (!isCluster()) {
+            addChunks(groups, range(keys.size()));
+            return groups;
+        }
+        Map<Integer, List<Integer>> slots = new TreeMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            slots.computeIfAbsent(RedisKeys.slot(keys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        for (List<Integer> indexes : slots.values()) {
+            addChunks(groups, indexes);
+        }
+        return groups;
+    }
+
+    /**
+     * 通过异步集群连接发送所有命令，然后统一等待结果
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> executeAsync(RedisTemplate<String, ?> template,
+                                     Function<RedisClusterAsyncCommands<byte[], byte[]>, List<RedisFuture<T>>> commands) {
+        return template.execute((RedisCallback<List<T>>) connection -> {
+            LettuceConnection lettuceConnection = RedisConnections.lettuceConnection(connection);
+            List<RedisFuture<T>> futures = commands.apply(
+                (RedisClusterAsyncCommands<byte[], byte[]>) lettuceConnection.getNativeConnection());
+            if (!LettuceFutures.awaitAll(timeout, futures.toArray(new RedisFuture[0]))) {
+                throw new QueryTimeoutException("Redis command timed out after " + timeout);
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (RedisFuture<T> future : futures) {
+                results.add(future.toCompletableFuture().join());
+            }
+            return results;
+        }, true);
+    }
+
+    private void addChunks(List<List<Integer>> groups, List<Integer> indexes) {
+        for (int from = 0; from < indexes.size(); from += MAX_KEYS_PER_COMMAND) {
+            groups.add(indexes.subList(from, Math.min(indexes.size(), from + MAX_KEYS_PER_COMMAND)));
+        }
+    }
+
+    private List<Integer> range(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private byte[][] select(byte[][] rawKeys, List<Integer> indexes) {
+        byte[][] selected = new byte[indexes.size()][];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = rawKeys[indexes.get(i)];
+        }
+        return selected;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[][] rawKeys(RedisTemplate<String, ?> template, List<String> keys) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) template.getKeySerializer();
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = keySerializer.serialize(keys.get(i));
+        }
+        return rawKeys;
+    }
+}
@@ -0,0 +1,63 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.config.TtlProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 缓存过期时间策略
+ * <ul>
+ * <li>随机过期时间：同一时刻批量写入的 key 使用相同的 TTL 会在同一时刻过期，之后的请求同时穿透到数据库。
+ * 每个 key 的 TTL 随机缩短一部分（最多 {@link TtlProperties#getJitter()} 比例），把过期时间分散到一个区间内。
+ * 只缩短不延长，配置的 TTL 仍然是数据的最长缓存时间。</li>
+ * <li>提前刷新：XFetch 算法，读取时根据剩余 TTL 和重新加载的耗时随机决定是否提前刷新，
+ * 剩余时间越短、加载越慢，提前刷新的概率越大。热点 key 在过期之前大概率已经被某一个请求刷新，不会同时穿透。</li>
+ * </ul>
+ *
+ * @author Moore
+ * @see <a href="https://cseweb.ucsd.edu/~avattani/papers/cache_stampede.pdf">Optimal Probabilistic Cache Stampede Prevention</a>
+ * @since 2026/10/18
+ */
+@Component
+public class TtlPolicy {
+
+    @Autowired
+    private TtlProperties properties;
+
+    /**
+     * 加上随机量之后的过期时间，单位毫秒，最少 1ms
+     */
+    public long jitteredMillis(Duration ttl) {
+        long millis = ttl.toMillis();
+        double jitter = properties.getJitter();
+        if (jitter <= 0 || millis <= 1) {
+            return Math.max(1, millis);
+        }
+        long maxJitter = (long) (millis * Math.min(jitter, 1.0));
+        return Math.max(1, millis - ThreadLocalRandom.current().nextLong(maxJitter + 1));
+    }
+
+    public Duration jittered(Duration ttl) {
+        return Duration.ofMillis(jitteredMillis(ttl));
+    }
+
+    /**
+     * XFetch：-delta * beta * ln(random) >= 剩余 TTL 时提前刷新
+     *
+     * @param remainingMillis key 的剩余过期时间（PTTL），小于 0 表示没有过期时间或者 key 不存在，不提前刷新
+     * @param deltaMillis     重新加载一次的耗时
+     * @return 是否需要在过期之前重新加载
+     */
+    public boolean shouldRefreshEarly(long remainingMillis, long deltaMillis) {
+        double beta = properties.getEarlyRefreshBeta();
+        if (remainingMillis < 0 || deltaMillis <= 0 || beta <= 0) {
+            return false;
+        }
+        // nextDouble 的范围是 [0, 1)，用 1 - nextDouble 避免 ln(0)
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return -deltaMillis * beta * Math.log(random) >= remainingMillis;
+    }
+}
@@ -0,0 +1,147 @@
+package com.yuhangma.redis.learning.serializer;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link PersonDTO} 的紧凑二进制序列化器
+ * <p>
+ * {@link GenericJackson2JsonRedisSerializer} 会把 @class 类型名称一起写入 JSON，通常比 name 和 age 本身还要长。
+ * 这里按照固定的字段顺序写入二进制，格式如下：
+ * <pre>
+ * +---------+-------+-----------------------+--------------------------------------+
+ * | version | flags | age (zigzag varint)   | name (varint length + UTF-8 bytes)   |
+ * | 1 byte  | 1 byte| 仅当 flags 包含 AGE   | 仅当 flags 包含 NAME                  |
+ * +---------+-------+-----------------------+--------------------------------------+
+ * </pre>
+ * 新增字段时只能追加在末尾并提升 version，不能改变已有字节的含义。读取时 version 大于当前版本也可以解析，
+ * 只读取已知的字段，忽略末尾多出来的字节，滚动升级期间旧实例可以读取新实例写入的值。
+ * </p>
+ * <p>
+ * 为了平滑迁移，反序列化时如果第一个字节是 '{'，说明是旧的 JSON 格式，交给 {@link GenericJackson2JsonRedisSerializer} 处理。
+ * version 的取值必须小于 '{'（0x7B），保证两种格式不会冲突。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+public class PersonBinaryRedisSerializer implements RedisSerializer<PersonDTO> {
+
+    static final byte VERSION_1 = 1;
+
+    private static final byte CURRENT_VERSION = VERSION_1;
+
+    private static final byte JSON_START = '{';
+
+    private static final int FLAG_AGE = 1;
+
+    private static final int FLAG_NAME = 1 << 1;
+
+    private final GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Override
+    public byte[] serialize(PersonDTO person) throws SerializationException {
+        if (person == null) {
+            return new byte[0];
+        }
+        Integer age = person.getAge();
+        byte[] name = person.getName() == null ? null : person.getName().getBytes(StandardCharsets.UTF_8);
+        int flags = 0;
+        int size = 2;
+        int zigzagAge = 0;
+        if (age != null) {
+            flags |= FLAG_AGE;
+            zigzagAge = (age << 1) ^ (age >> 31);
+            size += varIntSize(zigzagAge);
+        }
+        if (name != null) {
+            flags |= FLAG_NAME;
+            size += varIntSize(name.length) + name.length;
+        }
+
+        byte[] bytes = new byte[size];
+        bytes[0] = CURRENT_VERSION;
+        bytes[1] = (byte) flags;
+        int position = 2;
+        if (age != null) {
+            position = writeVarInt(bytes, position, zigzagAge);
+        }
+        if (name != null) {
+            position = writeVarInt(bytes, position, name.length);
+            System.arraycopy(name, 0, bytes, position, name.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public PersonDTO deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == JSON_START) {
+            return deserializeLegacy(bytes);
+        }
+        // 更高的版本只在末尾追加字段，按当前版本读取
+        if (bytes[0] < VERSION_1 || bytes.length < 2) {
+            throw new SerializationException("Unsupported PersonDTO binary version: " + bytes[0]);
+        }
+        int flags = bytes[1];
+        PersonDTO person = new PersonDTO();
+        int[] position = {2};
+        try {
+            if ((flags & FLAG_AGE) != 0) {
+                int zigzagAge = readVarInt(bytes, position);
+                person.setAge((zigzagAge >>> 1) ^ -(zigzagAge & 1));
+            }
+            if ((flags & FLAG_NAME) != 0) {
+                int length = readVarInt(bytes, position);
+                person.setName(new String(bytes, position[0], length, StandardCharsets.UTF_8));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated PersonDTO binary value", e);
+        }
+        return person;
+    }
+
+    private PersonDTO deserializeLegacy(byte[] bytes) {
+        Object value = legacySerializer.deserialize(bytes);
+        if (value != null && !(value instanceof PersonDTO)) {
+            throw new SerializationException("Expected PersonDTO but found " + value.getClass().getName());
+        }
+        return (PersonDTO) value;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarInt(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in PersonDTO binary value");
+    }
+}
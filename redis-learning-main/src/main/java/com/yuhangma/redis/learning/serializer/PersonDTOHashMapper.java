@@ -0,0 +1,69 @@
+package com.yuhangma.redis.learning.serializer;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.springframework.data.redis.hash.HashMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PersonDTO} 和 Redis hash 之间的映射，每个字段对应 hash 中的一个 field，值为字符串
+ * <p>
+ * spring-data-redis 自带的 {@link org.springframework.data.redis.hash.ObjectHashMapper} 和
+ * {@link org.springframework.data.redis.hash.Jackson2HashMapper} 都依赖反射，并且会写入 _class 等额外的 field。
+ * 这里逐个字段手写映射，值为 null 的字段不写入 hash，age 以十进制字符串保存，可以直接使用 HINCRBY。
+ * PersonDTO 新增字段时需要同时修改这里。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+public class PersonDTOHashMapper implements HashMapper<PersonDTO, String, String> {
+
+    public static final PersonDTOHashMapper INSTANCE = new PersonDTOHashMapper();
+
+    public static final String NAME = "name";
+
+    public static final String AGE = "age";
+
+    @Override
+    public Map<String, String> toHash(PersonDTO person) {
+        Map<String, String> hash = new HashMap<>(4);
+        if (person.getName() != null) {
+            hash.put(NAME, person.getName());
+        }
+        if (person.getAge() != null) {
+            hash.put(AGE, person.getAge().toString());
+        }
+        return hash;
+    }
+
+    @Override
+    public PersonDTO fromHash(Map<String, String> hash) {
+        PersonDTO person = new PersonDTO();
+        set(person, NAME, hash.get(NAME));
+        set(person, AGE, hash.get(AGE));
+        return person;
+    }
+
+    /**
+     * 设置一个字段，value 为 null 时不修改，用于 HMGET 的投影读取
+     *
+     * @throws IllegalArgumentException 未知的字段
+     */
+    public void set(PersonDTO person, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        switch (field) {
+            case NAME:
+                person.setName(value);
+                break;
+            case AGE:
+                person.setAge(Integer.valueOf(value));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown field of PersonDTO: " + field);
+        }
+    }
+}
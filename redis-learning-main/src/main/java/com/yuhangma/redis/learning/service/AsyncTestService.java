@@ -0,0 +1,22 @@
+package com.yuhangma.redis.learning.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@code @Async} 方法需要通过代理调用才会异步执行，所以放在单独的 bean 中，而不是在 controller 中通过 this 调用
+ *
+ * @author Moore
+ * @see com.yuhangma.redis.learning.controller.TestController
+ * @since 2026/10/18
+ */
+@Slf4j
+@Service
+public class AsyncTestService {
+
+    @Async
+    public void test() {
+        log.error("test:" + Thread.currentThread().getName());
+    }
+}
@@ -0,0 +1,345 @@
+package com.yuhangma.redis.learning.service;
+
+import com.yuhangma.redis.learning.config.UserCacheProperties;
+import com.yuhangma.redis.learning.model.User;
+import com.yuhangma.redis.learning.redis.RedisScriptRegistry;
+import com.yuhangma.redis.learning.redis.TtlPolicy;
+import com.yuhangma.redis.learning.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserRepository} 前面的 Redis 缓存，每个用户保存为一个 hash：user:{id} -> {id, username, password}
+ * <ul>
+ * <li>读穿透：缓存未命中时查询数据库并写入缓存</li>
+ * <li>空值缓存：不存在的 id 缓存一个只有 {@link #MISSING_FIELD} 字段的 hash，过期时间较短</li>
+ * <li>防击穿：同一个 id 同时只有一个线程查询数据库，其他线程等待它的结果</li>
+ * <li>写失效：save 和 delete 之后删除缓存，而不是更新缓存。
+ * 查询数据库期间同一个 id 的缓存被删除时，查询结果不写入缓存，已经写入的再删除一次</li>
+ * <li>未落库的新值：异步写入数据库时由 {@link UserWriteBehindService} 直接更新缓存，缓存中用 {@link #PENDING_FIELD}
+ * 记录变更的版本号并且不过期，查询数据库的结果和提前刷新都不会覆盖它；落库之后才清除标记、恢复过期时间。
+ * 缓存被 maxmemory 淘汰、或者变更进入死信队列之前，读到的可能是数据库中的旧值</li>
+ * <li>整体替换：写入缓存时由 user_cache_set 脚本原子地 DEL、HMSET、PEXPIRE，不会和旧的 hash 合并字段</li>
+ * <li>批量查询：所有 id 的 HGETALL 在一个 pipeline 中执行，未命中的 id 使用一条 IN 查询</li>
+ * <li>随机过期：写入缓存时的 TTL 由 {@link TtlPolicy} 随机缩短，同时写入的 key 不会同时过期</li>
+ * <li>提前刷新：HGETALL 和 PTTL 在同一个 pipeline 中读取，根据剩余 TTL 和最近一次查询数据库的耗时，
+ * 由 {@link TtlPolicy#shouldRefreshEarly} 决定是否在过期之前重新加载，刷新期间其他线程直接返回缓存中的旧值</li>
+ * </ul>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@Service
+public class UserCacheService {
+
+    /**
+     * 空值缓存的标记字段，User 没有这个字段
+     */
+    static final String MISSING_FIELD = "_missing";
+
+    /**
+     * 未落库标记字段，值为变更的版本号
+     */
+    static final String PENDING_FIELD = "_pending";
+
+    private static final String ID = "id", USERNAME = "username", PASSWORD = "password";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserCacheProperties properties;
+
+    @Autowired
+    private TtlPolicy ttlPolicy;
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    private RedisScript<Long> setScript;
+
+    private RedisScript<Long> releaseScript;
+
+    private RedisScript<Long> evictScript;
+
+    /**
+     * 正在查询数据库的 id
+     */
+    private final Map<Integer, CompletableFuture<Optional<User>>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 正在查询数据库并准备写入缓存的 id，每次查询使用一个新的标记对象。删除缓存时先删除标记，
+     * 写入缓存之前和之后都检查标记，标记不在了说明查询期间缓存被删除过，避免把旧值写回去
+     */
+    private final ConcurrentMap<Integer, Object> fills = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次查询数据库的耗时，作为提前刷新的 delta
+     */
+    private volatile long loadMillis;
+
+    @PostConstruct
+    public void init() {
+        setScript = scripts.get("user_cache_set", Long.class);
+        releaseScript = scripts.get("user_cache_release", Long.class);
+        evictScript = scripts.get("user_cache_evict", Long.class);
+    }
+
+    public Optional<User> findById(Integer id) {
+        List<Object> results = readWithTtl(Collections.singletonList(id));
+        @SuppressWarnings("unchecked")
+        Map<String, String> hash = (Map<String, String>) results.get(0);
+        boolean cached = hash != null && !hash.isEmpty();
+        if (cached && !ttlPolicy.shouldRefreshEarly((Long) results.get(1), loadMillis)) {
+            return fromHash(hash);
+        }
+        CompletableFuture<Optional<User>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> existing = loading.putIfAbsent(id, future);
+        if (existing != null) {
+            // 其他线程正在刷新时直接返回旧值，只有缓存未命中时才需要等待
+            return cached ? fromHash(hash) : join(existing);
+        }
+        Map<Integer, Object> tokens = Map.of(id, new Object());
+        fills.putAll(tokens);
+        try {
+            long start = System.nanoTime();
+            Optional<User> user = userRepository.findById(id);
+            loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            fill(Map.of(id, user), tokens);
+            future.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            tokens.forEach(fills::remove);
+            loading.remove(id, future);
+        }
+    }
+
+    /**
+     * 批量查询，返回的顺序和 ids 一致，不存在的 id 不在结果中
+     */
+    public List<User> findAllById(Collection<Integer> ids) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Object> results = readWithTtl(distinctIds);
+        Map<Integer, Optional<User>> users = new HashMap<>(distinctIds.size() * 2);
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> hash = (Map<String, String>) results.get(i * 2);
+            if (hash == null || hash.isEmpty() || ttlPolicy.shouldRefreshEarly((Long) results.get(i * 2 + 1), loadMillis)) {
+                misses.add(distinctIds.get(i));
+            } else {
+                users.put(distinctIds.get(i), fromHash(hash));
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<Integer, Object> tokens = new HashMap<>(misses.size() * 2);
+            misses.forEach(id -> tokens.put(id, new Object()));
+            fills.putAll(tokens);
+            Map<Integer, Optional<User>> loaded = new HashMap<>(misses.size() * 2);
+            try {
+                misses.forEach(id -> loaded.put(id, Optional.empty()));
+                long start = System.nanoTime();
+                userRepository.findAllById(misses).forEach(user -> loaded.put(user.getId(), Optional.of(user)));
+                loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                fill(loaded, tokens);
+            } finally {
+                tokens.forEach(fills::remove);
+            }
+            users.putAll(loaded);
+            log.debug("find all by id, hits: {}, misses: {}", distinctIds.size() - misses.size(), misses.size());
+        }
+        List<User> result = new ArrayList<>(distinctIds.size());
+        for (Integer id : distinctIds) {
+            users.get(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        evict(saved.getId());
+        return saved;
+    }
+
+    public void deleteById(Integer id) {
+        userRepository.deleteById(id);
+        evict(id);
+    }
+
+    public void evict(Integer id) {
+        // 必须先删除标记，再删除缓存
+        fills.remove(id);
+        redisTemplate.delete(key(id));
+    }
+
+    /**
+     * 直接用还没有落库的新值覆盖缓存，值为空表示已删除。供 {@link UserWriteBehindService} 使用，
+     * 落库之后需要用相同的版本号调用 {@link #commit} 或者 {@link #discard}
+     *
+     * @param versions 每个 id 的变更版本号，越大越新
+     */
+    void put(Map<Integer, Optional<User>> users, Map<Integer, Long> versions) {
+        cache(users, versions);
+    }
+
+    /**
+     * 变更已经落库，清除不大于这个版本号的未落库标记，缓存开始按照正常的 TTL 过期
+     */
+    void commit(Map<Integer, Long> versions) {
+        release(versions, true);
+    }
+
+    /**
+     * 变更没有落库，删除不大于这个版本号的未落库的新值，之后的读取重新查询数据库
+     */
+    void discard(Map<Integer, Long> versions) {
+        release(versions, false);
+    }
+
+    /**
+     * 把查询数据库的结果写入缓存。写入之前标记已经不在的 id 不写入；写入之后再检查一次，
+     * 检查和写入之间标记被删除的 id 可能已经写入了旧值，这次删除在写入之后执行，保证旧值不会留在缓存中
+     */
+    private void fill(Map<Integer, Optional<User>> users, Map<Integer, Object> tokens) {
+        Map<Integer, Optional<User>> current = new HashMap<>(users.size() * 2);
+        users.forEach((id, user) -> {
+            if (fills.get(id) == tokens.get(id)) {
+                current.put(id, user);
+            }
+        });
+        if (current.isEmpty()) {
+            return;
+        }
+        cache(current, Collections.emptyMap());
+        List<List<String>> stale = new ArrayList<>();
+        for (Integer id : current.keySet()) {
+            if (fills.get(id) != tokens.get(id)) {
+                stale.add(Collections.singletonList(key(id)));
+            }
+        }
+        if (!stale.isEmpty()) {
+            scripts.executePipelined(evictScript, stale, Collections.nCopies(stale.size(), Collections.emptyList()));
+        }
+    }
+
+    /**
+     * 在一个 pipeline 中读取每个 id 的 HGETALL 和 PTTL，返回的结果两两一组
+     */
+    private List<Object> readWithTtl(List<Integer> ids) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            ids.forEach(id -> {
+                String key = key(id);
+                stringConnection.hGetAll(key);
+                stringConnection.pTtl(key);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * 每个 id 执行一次 user_cache_set 脚本，所有 EVALSHA 在一个 pipeline 中发送
+     *
+     * @param versions 未落库的新值的版本号，查询数据库的结果为空
+     */
+    private void cache(Map<Integer, Optional<User>> users, Map<Integer, Long> versions) {
+        List<List<String>> keys = new ArrayList<>(users.size());
+        List<List<String>> args = new ArrayList<>(users.size());
+        users.forEach((id, user) -> {
+            keys.add(Collections.singletonList(key(id)));
+            List<String> arg = new ArrayList<>(8);
+            arg.add(String.valueOf(ttlPolicy.jitteredMillis(
+                user.isPresent() ? properties.getTtl() : properties.getNegativeTtl())));
+            Long version = versions.get(id);
+            arg.add(version == null ? "" : String.valueOf(version));
+            user.map(this::toHash).orElseGet(() -> Map.of(MISSING_FIELD, "1")).forEach((field, value) -> {
+                arg.add(field);
+                arg.add(value);
+            });
+            args.add(arg);
+        });
+        scripts.executePipelined(setScript, keys, args);
+    }
+
+    /**
+     * 每个 id 执行一次 user_cache_release 脚本，失败的变更使用 0 作为过期时间，直接删除缓存
+     */
+    private void release(Map<Integer, Long> versions, boolean committed) {
+        if (versions.isEmpty()) {
+            return;
+        }
+        List<List<String>> keys = new ArrayList<>(versions.size());
+        List<List<String>> args = new ArrayList<>(versions.size());
+        versions.forEach((id, version) -> {
+            keys.add(Collections.singletonList(key(id)));
+            args.add(Arrays.asList(String.valueOf(version),
+                String.valueOf(committed ? ttlPolicy.jitteredMillis(properties.getTtl()) : 0),
+                String.valueOf(committed ? ttlPolicy.jitteredMillis(properties.getNegativeTtl()) : 0)));
+        });
+        scripts.executePipelined(releaseScript, keys, args);
+    }
+
+    private String key(Integer id) {
+        return properties.getKeyPrefix() + id;
+    }
+
+    private Map<String, String> toHash(User user) {
+        Map<String, String> hash = new HashMap<>(4);
+        hash.put(ID, String.valueOf(user.getId()));
+        if (user.getUsername() != null) {
+            hash.put(USERNAME, user.getUsername());
+        }
+        if (user.getPassword() != null) {
+            hash.put(PASSWORD, user.getPassword());
+        }
+        return hash;
+    }
+
+    private Optional<User> fromHash(Map<String, String> hash) {
+        if (hash.containsKey(MISSING_FIELD)) {
+            return Optional.empty();
+        }
+        User user = new User();
+        user.setId(Integer.valueOf(hash.get(ID)));
+        user.setUsername(hash.get(USERNAME));
+        user.setPassword(hash.get(PASSWORD));
+        return Optional.of(user);
+    }
+
+    private static Optional<User> join(CompletableFuture<Optional<User>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.yuhangma.redis.learning.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yuhangma.redis.learning.config.WriteBehindProperties;
+import com.yuhangma.redis.learning.model.User;
+import com.yuhangma.redis.learning.redis.QueueConsumerGroup;
+import com.yuhangma.redis.learning.redis.QueueMessage;
+import com.yuhangma.redis.learning.redis.ReliableRedisQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User 的异步写入（write-behind）：写操作只写 Redis，由后台线程批量写入数据库
+ * <ul>
+ * <li>分配 id：User 使用 IDENTITY 主键，id 要等 INSERT 之后才知道，而且 Hibernate 无法批量插入 IDENTITY 实体。
+ * 这里改为 INCRBY 一次为一批用户分配 id，插入时显式指定 id，数据库的自增值会自动越过这些 id</li>
+ * <li>写入：变更先写入 {@link ReliableRedisQueue} 作为变更日志，再覆盖 {@link UserCacheService} 的缓存，
+ * 之后的读取直接命中缓存中的新值。消息 id 作为缓存的版本号，落库之前缓存不会过期，也不会被数据库中的旧值覆盖，
+ * 落库之后按照版本号清除标记；逐条重试之后仍然失败、进入死信队列的变更删除缓存</li>
+ * <li>落库：消费者每次取出最多 batchSize 条变更，不满一批时等待 flushInterval 再补齐；同一个用户只保留最后一次变更，
+ * 在一个事务中用 JDBC batch 执行 INSERT ... ON DUPLICATE KEY UPDATE 和 DELETE，提交之后才确认。
+ * 数据库 url 中加上 rewriteBatchedStatements=true，MySQL 驱动会把一批 INSERT 合并为一条多行 INSERT</li>
+ * <li>可靠性：变更日志是至少一次投递，进程在提交之后、确认之前崩溃时同一批变更会再次写入，upsert 和 delete 都是幂等的。
+ * 数据库不可用时消费者原地重试，变更在 Redis 中积压，恢复之后继续写入；单条变更的数据错误在逐条重试之后进入死信队列</li>
+ * </ul>
+ * 限制：开启之后新用户必须通过这里创建；同一个用户的变更只有在单个消费者中才保证按顺序写入，
+ * 多个实例或者 concurrency 大于 1 时，两次紧挨着的变更可能以相反的顺序落库。
+ *
+ * @author Moore
+ * @see WriteBehindProperties
+ * @since 2026/10/18
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "redis.write-behind", name = "enabled", havingValue = "true")
+public class UserWriteBehindService {
+
+    static final String UPSERT_SQL = "INSERT INTO user (id, username, password) VALUES (?, ?, ?) "
+        + "ON DUPLICATE KEY UPDATE username = VALUES(username), password = VALUES(password)";
+
+    static final String DELETE_SQL = "DELETE FROM user WHERE id = ?";
+
+    /**
+     * 数据库不可用时重试间隔的上限
+     */
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ReliableRedisQueue queue;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WriteBehindProperties properties;
+
+    private QueueConsumerGroup drainer;
+
+    private volatile boolean closing;
+
+    private final AtomicLong upserted = new AtomicLong();
+
+    private final AtomicLong deleted = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(properties.getIdKey()))) {
+            Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM user", Integer.class);
+            // 多个实例同时初始化时只有一个生效
+            redisTemplate.opsForValue().setIfAbsent(properties.getIdKey(), String.valueOf(maxId == null ? 0 : maxId));
+        }
+        drainer = queue.subscribe(properties.getQueue(), properties.getConcurrency(), properties.getBatchSize(),
+            properties.getFlushInterval(), this::drain, this::deadLettered);
+    }
+
+    /**
+     * 等待正在写入的一批变更提交并确认，剩余的变更留在 Redis 中，下次启动之后继续写入
+     */
+    @PreDestroy
+    public void destroy() {
+        closing = true;
+        drainer.close();
+    }
+
+    public User save(User user) {
+        return saveAll(Collections.singletonList(user)).get(0);
+    }
+
+    /**
+     * 批量保存，没有 id 的用户使用一次 INCRBY 分配 id，变更日志和缓存各一次网络往返
+     *
+     * @return 传入的用户，已经设置好 id
+     */
+    public List<User> saveAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        long newUsers = users.stream().filter(user -> user.getId() == null).count();
+        if (newUsers > 0) {
+            Long last = redisTemplate.opsForValue().increment(properties.getIdKey(), newUsers);
+            int next = Math.toIntExact(last - newUsers + 1);
+            for (User user : users) {
+                if (user.getId() == null) {
+                    user.setId(next++);
+                }
+            }
+        }
+        List<String> payloads = new ArrayList<>(users.size());
+        for (User user : users) {
+            payloads.add(encode(new Change(Op.SAVE, user)));
+        }
+        List<Long> versions = queue.push(properties.getQueue(), payloads);
+        Map<Integer, Optional<User>> cached = new HashMap<>(users.size() * 2);
+        Map<Integer, Long> cachedVersions = new HashMap<>(users.size() * 2);
+        for (int i = 0; i < users.size(); i++) {
+            cached.put(users.get(i).getId(), Optional.of(users.get(i)));
+            cachedVersions.put(users.get(i).getId(), versions.get(i));
+        }
+        userCacheService.put(cached, cachedVersions);
+        return users;
+    }
+
+    public void deleteById(Integer id) {
+        User user = new User();
+        user.setId(id);
+        long version = queue.push(properties.getQueue(), encode(new Change(Op.DELETE, user)));
+        userCacheService.put(Map.of(id, Optional.empty()), Map.of(id, version));
+    }
+
+    /**
+     * 还没有写入数据库的变更数量，不包括消费者正在写入的一批
+     */
+    public long pending() {
+        return queue.size(properties.getQueue());
+    }
+
+    /**
+     * 本实例写入数据库的 upsert 和 delete 行数，同一批中同一个用户的多次变更只算一次
+     */
+    public long upsertedCount() {
+        return upserted.get();
+    }
+
+    public long deletedCount() {
+        return deleted.get();
+    }
+
+    private void drain(List<QueueMessage> messages) {
+        // 同一个用户只保留最后一次变更，消息 id 越大越新
+        Map<Integer, Change> latest = new LinkedHashMap<>();
+        Map<Integer, Long> versions = new HashMap<>(messages.size() * 2);
+        messages.stream()
+            .sorted(Comparator.comparingLong(QueueMessage::getId))
+            .forEach(message -> {
+                Change change = decode(message.getPayload());
+                latest.put(change.getUser().getId(), change);
+                versions.put(change.getUser().getId(), message.getId());
+            });
+        List<User> saves = new ArrayList<>(latest.size());
+        List<Integer> deletes = new ArrayList<>();
+        latest.forEach((id, change) -> {
+            if (change.getOp() == Op.SAVE) {
+                saves.add(change.getUser());
+            } else {
+                deletes.add(id);
+            }
+        });
+        long start = System.nanoTime();
+        // 失败时保留缓存中未落库的新值：消费者组会逐条重试，重试成功时由 commit 清除标记，
+        // 仍然失败进入死信队列时才由 deadLettered 删除缓存
+        writeWithRetry(saves, deletes);
+        upserted.addAndGet(saves.size());
+        deleted.addAndGet(deletes.size());
+        userCacheService.commit(versions);
+        log.debug("write behind {} changes, upsert: {}, delete: {}, cost: {}ms", messages.size(), saves.size(),
+            deletes.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 进入死信队列的变更不会落库，删除缓存中这些版本的新值，之后从数据库重新加载；
+     * 缓存中已经是更新的版本时不删除
+     */
+    private void deadLettered(List<QueueMessage> messages) {
+        Map<Integer, Long> versions = new HashMap<>(messages.size() * 2);
+        for (QueueMessage message : messages) {
+            Change change;
+            try {
+                change = decode(message.getPayload());
+            } catch (UncheckedIOException e) {
+                // 无法解析的变更不是这里写入的，缓存中没有对应的版本
+                continue;
+            }
+            versions.merge(change.getUser().getId(), message.getId(), Math::max);
+        }
+        userCacheService.discard(versions);
+    }
+
+    /**
+     * 数据库不可用时原地重试，直到写入成功或者关闭；其他异常交给消费者组逐条重试
+     */
+    private void writeWithRetry(List<User> saves, List<Integer> deletes) {
+        long backoff = properties.getFlushInterval().toMillis();
+        while (true) {
+            try {
+                write(saves, deletes);
+                return;
+            } catch (TransientDataAccessException | RecoverableDataAccessException
+                | DataAccessResourceFailureException | CannotCreateTransactionException e) {
+                if (closing) {
+                    throw e;
+                }
+                log.warn("write behind {} users failed, retry in {}ms", saves.size() + deletes.size(), backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(MAX_RETRY_MILLIS, Math.max(1, backoff) * 2);
+            }
+        }
+    }
+
+    private void write(List<User> saves, List<Integer> deletes) {
+        int batchSize = properties.getBatchSize();
+        transactionTemplate.execute(status -> {
+            if (!saves.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, saves, batchSize, (ps, user) -> {
+                    ps.setInt(1, user.getId());
+                    ps.setString(2, user.getUsername());
+                    ps.setString(3, user.getPassword());
+                });
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes, batchSize, (ps, id) -> ps.setInt(1, id));
+            }
+            return null;
+        });
+    }
+
+    private String encode(Change change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("encode user change failed", e);
+        }
+    }
+
+    private Change decode(String payload) {
+        try {
+            return objectMapper.readValue(payload, Change.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("decode user change failed: " + payload, e);
+        }
+    }
+
+    enum Op {
+
+        SAVE, DELETE
+    }
+
+    /**
+     * 变更日志中的一条变更，删除时 user 只有 id
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Change {
+
+        private Op op;
+
+        private User user;
+    }
+}
@@ -0,0 +1,24 @@
+-- 批量写入计数器的增量，每个 key 独立执行，某个 key 失败不影响其他 key
+-- KEYS[i]: 计数器的 key，同一个 key 可以出现多次
+-- ARGV[i]: KEYS[i] 的增量，包含小数点或者指数时使用 INCRBYFLOAT，否则使用 INCRBY
+-- 返回值: 与 KEYS 一一对应，成功为 1，失败为错误信息
+local results = {}
+for i, key in ipairs(KEYS) do
+    local delta = ARGV[i]
+    local reply
+    if string.find(delta, '[.eE]') then
+        reply = redis.pcall('INCRBYFLOAT', key, delta)
+    else
+        reply = redis.pcall('INCRBY', key, delta)
+        -- key 的值已经是小数，INCRBY 会失败，INCRBYFLOAT 可以累加整数增量
+        if type(reply) == 'table' and reply.err and string.find(reply.err, 'not an integer') then
+            reply = redis.pcall('INCRBYFLOAT', key, delta)
+        end
+    end
+    if type(reply) == 'table' and reply.err then
+        results[i] = reply.err
+    else
+        results[i] = 1
+    end
+end
+return results
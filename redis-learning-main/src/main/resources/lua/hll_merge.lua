@@ -0,0 +1,9 @@
+-- 把客户端预聚合的 HyperLogLog 合并到 KEYS[1]，临时 key 只在脚本执行期间存在
+-- KEYS[1]: 目标 HyperLogLog，KEYS[2]: 临时 key，和 KEYS[1] 位于同一个 slot
+-- ARGV[1]: Redis dense 格式的 HyperLogLog，ARGV[2]: 目标 key 的过期时间（毫秒）
+-- 返回值: 1
+redis.call('SET', KEYS[2], ARGV[1])
+redis.call('PFMERGE', KEYS[1], KEYS[2])
+redis.call('DEL', KEYS[2])
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,9 @@
+-- 把分钟桶合并到小时桶，再把小时桶合并到天桶，PFMERGE 是幂等的，重复执行的结果相同
+-- KEYS[1]: 小时桶，KEYS[2]: 天桶，KEYS[3..n]: 这个小时中需要合并的分钟桶，已经过期的分钟桶按空集处理
+-- ARGV[1]: 小时桶的过期时间（毫秒），ARGV[2]: 天桶的过期时间（毫秒）
+-- 返回值: 1
+redis.call('PFMERGE', KEYS[1], unpack(KEYS, 3))
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+redis.call('PFMERGE', KEYS[2], KEYS[1])
+redis.call('PEXPIRE', KEYS[2], ARGV[2])
+return 1
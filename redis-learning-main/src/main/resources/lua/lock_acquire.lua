@@ -0,0 +1,8 @@
+-- 加锁，成功时生成一个递增的 fencing token
+-- KEYS[1]: 锁，KEYS[2]: fencing token 计数器，两个 key 使用相同的 hash tag
+-- ARGV[1]: 持有者标识，ARGV[2]: 租期（毫秒）
+-- 返回值: 加锁成功时返回 fencing token，锁已经被持有时返回 0
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return redis.call('INCR', KEYS[2])
+end
+return 0
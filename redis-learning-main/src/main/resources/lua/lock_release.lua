@@ -0,0 +1,8 @@
+-- 只有持有者才能解锁，锁过期之后被其他线程持有时不会误删
+-- KEYS[1]: 锁
+-- ARGV[1]: 持有者标识
+-- 返回值: 1 解锁成功，0 锁已经不属于这个持有者
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
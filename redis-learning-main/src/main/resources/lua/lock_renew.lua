@@ -0,0 +1,8 @@
+-- 续期，只有持有者才能续期
+-- KEYS[1]: 锁
+-- ARGV[1]: 持有者标识，ARGV[2]: 新的租期（毫秒）
+-- 返回值: 1 续期成功，0 锁已经不属于这个持有者
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,12 @@
+-- 保存整个 PersonDTO，删除值为 null 的字段并写入其他字段，集群模式下不能使用 MULTI，所以使用脚本保证原子性
+-- KEYS[1]: person hash
+-- ARGV[1]: 要删除的字段数量 n，ARGV[2...n+1]: 要删除的字段，之后: field1, value1, field2, value2 ...
+-- 返回值: 1
+local deletes = tonumber(ARGV[1])
+if deletes > 0 then
+    redis.call('HDEL', KEYS[1], unpack(ARGV, 2, deletes + 1))
+end
+if #ARGV > deletes + 1 then
+    redis.call('HMSET', KEYS[1], unpack(ARGV, deletes + 2))
+end
+return 1
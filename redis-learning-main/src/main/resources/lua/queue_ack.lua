@@ -0,0 +1,15 @@
+-- 从处理中队列删除已经处理的消息，KEYS[2] 存在时把删除的消息放入死信队列
+-- KEYS[1]: 消费者的处理中队列，KEYS[2]: 死信队列（可选）
+-- ARGV: 编码之后的消息
+-- 返回值: 删除的消息数量，已经被回收的消息不会计入
+local removed = 0
+for _, message in ipairs(ARGV) do
+    -- 处理中队列的右侧是最早取出的消息，从右侧开始查找
+    if redis.call('LREM', KEYS[1], -1, message) > 0 then
+        removed = removed + 1
+        if KEYS[2] then
+            redis.call('LPUSH', KEYS[2], message)
+        end
+    end
+end
+return removed
@@ -0,0 +1,12 @@
+-- 从待处理队列的右侧取出最多 ARGV[1] 条消息，放入消费者的处理中队列，返回顺序与写入顺序一致
+-- KEYS[1]: 待处理队列，KEYS[2]: 消费者的处理中队列
+-- ARGV[1]: 最多取出的数量
+local messages = {}
+for i = 1, tonumber(ARGV[1]) do
+    local message = redis.call('RPOPLPUSH', KEYS[1], KEYS[2])
+    if not message then
+        break
+    end
+    messages[i] = message
+end
+return messages
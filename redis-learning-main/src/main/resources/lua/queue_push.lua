@@ -0,0 +1,12 @@
+-- 批量写入消息，每条消息分配一个递增的 id，编码为 id:payload
+-- KEYS[1]: 待处理队列，KEYS[2]: id 序列
+-- ARGV: 消息内容
+-- 返回值: 与 ARGV 一一对应的 id
+local last = redis.call('INCRBY', KEYS[2], #ARGV)
+local ids = {}
+for i, payload in ipairs(ARGV) do
+    local id = last - #ARGV + i
+    redis.call('LPUSH', KEYS[1], id .. ':' .. payload)
+    ids[i] = id
+end
+return ids
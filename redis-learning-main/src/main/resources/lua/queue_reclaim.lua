@@ -0,0 +1,20 @@
+-- 回收心跳超时的消费者的处理中队列，消息放回待处理队列的右侧，会被最先消费
+-- KEYS[1]: 消费者心跳的 sorted set，KEYS[2]: 超时的消费者的处理中队列，KEYS[3]: 待处理队列
+-- ARGV[1]: 消费者 id，ARGV[2]: 心跳的截止时间（毫秒），心跳晚于截止时间说明消费者已经恢复
+-- 返回值: 放回的消息数量，消费者已经恢复时返回 -1
+local heartbeat = redis.call('ZSCORE', KEYS[1], ARGV[1])
+if heartbeat and tonumber(heartbeat) >= tonumber(ARGV[2]) then
+    return -1
+end
+local moved = 0
+while true do
+    -- 左侧是最后取出的消息，依次放到待处理队列的右侧之后，最早取出的消息位于最右侧
+    local message = redis.call('LPOP', KEYS[2])
+    if not message then
+        break
+    end
+    redis.call('RPUSH', KEYS[3], message)
+    moved = moved + 1
+end
+redis.call('ZREM', KEYS[1], ARGV[1])
+return moved
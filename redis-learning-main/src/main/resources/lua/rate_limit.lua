@@ -0,0 +1,34 @@
+-- 令牌桶限流，桶中的令牌按照固定速率补充，最多 capacity 个
+-- KEYS[1]: 令牌桶，hash 中保存剩余令牌数 tokens 和上次补充的时间 ts
+-- ARGV[1]: 每秒补充的令牌数，ARGV[2]: 桶的容量，ARGV[3]: 当前时间（毫秒）
+-- ARGV[4]: 最多取出的令牌数，ARGV[5]: 最少取出的令牌数，剩余令牌不足时一个也不取
+-- 返回值: 取出的令牌数
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+local minimum = tonumber(ARGV[5])
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+-- 不同实例的时钟可能有偏差，时间回退时不补充也不回退
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate / 1000)
+    ts = now
+end
+
+local granted = 0
+local available = math.floor(tokens)
+if available >= minimum then
+    granted = math.min(available, requested)
+    tokens = tokens - granted
+end
+redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+-- 桶装满所需的时间之后，key 和一个满的桶等价，可以过期
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+return granted
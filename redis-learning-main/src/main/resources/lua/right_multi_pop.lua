@@ -0,0 +1,15 @@
+-- 从 list 右侧原子地弹出 ARGV[1] 个元素，返回顺序与连续执行 ARGV[1] 次 RPOP 一致
+-- KEYS[1]: list 的 key
+-- ARGV[1]: 弹出的数量，必须大于 0
+local count = tonumber(ARGV[1])
+local values = redis.call('LRANGE', KEYS[1], -count, -1)
+if #values == 0 then
+    return values
+end
+-- list 中元素不足 count 个时，end 小于 start，LTRIM 会清空整个 list
+redis.call('LTRIM', KEYS[1], 0, -count - 1)
+local popped = {}
+for i = #values, 1, -1 do
+    popped[#popped + 1] = values[i]
+end
+return popped
@@ -0,0 +1,12 @@
+-- 集合运算，结果保存在 KEYS[1] 中并设置过期时间，结果 key 已经存在时直接复用，不重复计算
+-- KEYS[1]: 结果 key，KEYS[2..n]: 参与运算的集合
+-- ARGV[1]: SINTERSTORE / SUNIONSTORE / SDIFFSTORE，ARGV[2]: 结果的过期时间（毫秒）
+-- 返回值: 结果集合的元素数量
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return redis.call('SCARD', KEYS[1])
+end
+local size = redis.call(ARGV[1], unpack(KEYS))
+if size > 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return size
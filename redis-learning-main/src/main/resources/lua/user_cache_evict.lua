@@ -0,0 +1,7 @@
+-- 删除用户缓存，缓存中有未落库的新值时不删除
+-- KEYS[1]: 用户缓存
+-- 返回值: 1 已删除，0 没有删除
+if redis.call('HEXISTS', KEYS[1], '_pending') == 1 then
+    return 0
+end
+return redis.call('DEL', KEYS[1])
@@ -0,0 +1,19 @@
+-- 变更落库之后清除未落库标记，缓存从这时起按正常的过期时间过期；过期时间为 0 时直接删除缓存，用于落库失败的变更
+-- KEYS[1]: 用户缓存
+-- ARGV[1]: 已经处理的版本号，ARGV[2]: 过期时间（毫秒），ARGV[3]: 空值缓存的过期时间（毫秒）
+-- 返回值: 1 已清除，0 缓存中是版本号更大的新值，或者没有未落库标记
+local pending = redis.call('HGET', KEYS[1], '_pending')
+if not pending or tonumber(pending) > tonumber(ARGV[1]) then
+    return 0
+end
+local ttl = ARGV[2]
+if redis.call('HEXISTS', KEYS[1], '_missing') == 1 then
+    ttl = ARGV[3]
+end
+if tonumber(ttl) <= 0 then
+    redis.call('DEL', KEYS[1])
+else
+    redis.call('HDEL', KEYS[1], '_pending')
+    redis.call('PEXPIRE', KEYS[1], ttl)
+end
+return 1
@@ -0,0 +1,19 @@
+-- 整体替换用户缓存，先删除旧的 hash，避免 HMSET 和旧的字段（空值缓存的 _missing、置空的字段）合并
+-- 异步写入的新值带有版本号，保存在 _pending 字段中并且不过期，直到落库之后由 user_cache_release 清除；
+-- 查询数据库的结果没有版本号，不会覆盖还没有落库的新值，版本号较小的新值也不会覆盖版本号较大的
+-- KEYS[1]: 用户缓存
+-- ARGV[1]: 过期时间（毫秒），ARGV[2]: 版本号，查询数据库的结果为空字符串，ARGV[3...]: field1, value1, field2, value2 ...
+-- 返回值: 1 已写入，0 缓存中有未落库的新值，没有写入
+local version = ARGV[2]
+local pending = redis.call('HGET', KEYS[1], '_pending')
+if pending and (version == '' or tonumber(version) < tonumber(pending)) then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+redis.call('HMSET', KEYS[1], unpack(ARGV, 3))
+if version == '' then
+    redis.call('PEXPIRE', KEYS[1], ARGV[1])
+else
+    redis.call('HSET', KEYS[1], '_pending', version)
+end
+return 1
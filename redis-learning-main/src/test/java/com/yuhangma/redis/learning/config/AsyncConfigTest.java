@@ -0,0 +1,64 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link AsyncConfig} test，使用很小的线程池验证拒绝策略和指标
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+@TestPropertySource(properties = {
+    "async.core-pool-size=1",
+    "async.max-pool-size=1",
+    "async.queue-capacity=1"
+})
+public class AsyncConfigTest extends RedisLearningAppTest {
+
+    @Autowired
+    private AsyncTaskExecutor taskExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void boundedExecutorTest() throws InterruptedException {
+        assertTrue(taskExecutor instanceof ThreadPoolTaskExecutor);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 一个任务在执行，一个任务在队列中，第三个任务被拒绝
+            taskExecutor.execute(() -> await(release));
+            taskExecutor.execute(() -> await(release));
+            assertEquals(1.0, meterRegistry.find("executor.queued").tag("name", "async").gauge().value(), 0);
+            try {
+                taskExecutor.execute(() -> await(release));
+                fail();
+            } catch (TaskRejectedException e) {
+                assertEquals(1.0, meterRegistry.find("executor.rejected").tag("name", "async").counter().count(), 0);
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.yuhangma.redis.learning.config;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.metrics.MicrometerCommandLatencyCollector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LettuceConfig} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("all")
+public class LettuceConfigTest extends RedisLearningAppTest {
+
+    @Autowired
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void poolingConnectionFactoryTest() {
+        assertTrue(lettuceConnectionFactory.getClientConfiguration() instanceof LettucePoolingClientConfiguration);
+        LettucePoolingClientConfiguration configuration =
+            (LettucePoolingClientConfiguration) lettuceConnectionFactory.getClientConfiguration();
+        assertEquals(LettuceConfig.POOL_JMX_NAME_PREFIX, configuration.getPoolConfig().getJmxNamePrefix());
+        assertTrue(lettuceConnectionFactory.getShareNativeConnection());
+    }
+
+    /**
+     * 共享连接上的命令和连接池中的阻塞命令都会记录耗时，阻塞命令会借用连接池中的连接
+     */
+    @Test
+    public void metricsTest() {
+        valueOps.set(k1, "v1");
+        listOps.leftPop(k2, 1, TimeUnit.SECONDS);
+
+        Timer set = meterRegistry.find(MicrometerCommandLatencyCollector.METRIC_NAME + ".completion")
+            .tag("command", "SET").timer();
+        assertNotNull(set);
+        assertTrue(set.count() > 0);
+        assertNotNull(meterRegistry.find(MicrometerCommandLatencyCollector.METRIC_NAME + ".completion")
+            .tag("command", "BLPOP").timer());
+        assertTrue(meterRegistry.find("redis.pool.borrowed").functionCounter().count() > 0);
+        log.info("SET p99 histogram: {}", set.takeSnapshot());
+    }
+}
@@ -0,0 +1,166 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.yuhangma.redis.learning.config.HotKeyProperties;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HotKeyCache} 和 {@link HotKeyRedisConnection} test，使用内存中的 RedisConnection，不需要 Redis
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class HotKeyCacheTest {
+
+    private final HotKeyProperties properties = new HotKeyProperties();
+
+    /**
+     * 加载期间 key 被删除，加载的结果不会写入缓存
+     */
+    @Test
+    public void invalidateDuringLoadTest() throws Throwable {
+        HotKeyCache cache = new HotKeyCache(properties);
+        Method get = RedisConnection.class.getMethod("get", byte[].class);
+        byte[] key = bytes("k");
+        Object[] args = {key};
+
+        assertEquals("old", cache.get(key, get, args, () -> {
+            cache.invalidate(key);
+            return "old";
+        }));
+        assertEquals("new", cache.get(key, get, args, () -> "new"));
+        assertEquals("new", cache.get(key, get, args, () -> "newer"));
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    /**
+     * 不是热点的时候写入，也会删除上一个热点周期缓存的值
+     */
+    @Test
+    public void invalidateColdKeyTest() {
+        properties.setSampleRate(1);
+        properties.setThreshold(1);
+        properties.setWindow(Duration.ofSeconds(1));
+        HotKeyDetector detector = new HotKeyDetector(properties);
+        Map<ByteBuffer, byte[]> data = new ConcurrentHashMap<>();
+        RedisConnection connection = connection(data, detector, new HotKeyCache(properties));
+        byte[] key = bytes("k");
+        data.put(ByteBuffer.wrap(key), bytes("v1"));
+
+        connection.get(key);
+        detector.rotate();
+        assertArrayEquals(bytes("v1"), connection.get(key));
+        data.put(ByteBuffer.wrap(key), bytes("v2"));
+        // 直接修改数据，缓存中仍然是旧值
+        assertArrayEquals(bytes("v1"), connection.get(key));
+
+        detector.rotate();
+        detector.rotate();
+        assertFalse(detector.isHot(key));
+        connection.set(key, bytes("v3"));
+        connection.get(key);
+        detector.rotate();
+        assertTrue(detector.isHot(key));
+        assertArrayEquals(bytes("v3"), connection.get(key));
+    }
+
+    /**
+     * SCRIPT LOAD 的脚本内容不是 key，不计入热点
+     */
+    @Test
+    public void scriptNotRecordedTest() {
+        properties.setSampleRate(1);
+        properties.setThreshold(1);
+        properties.setWindow(Duration.ofSeconds(1));
+        HotKeyDetector detector = new HotKeyDetector(properties);
+        RedisConnection connection = connection(new ConcurrentHashMap<>(), detector, new HotKeyCache(properties));
+        byte[] script = bytes("-- KEYS[1]: key\nreturn 1");
+
+        connection.scriptLoad(script);
+        connection.scriptLoad(script);
+        detector.rotate();
+        assertFalse(detector.isHot(script));
+        assertTrue(detector.topKeys().isEmpty());
+    }
+
+    @Test
+    public void keysTest() throws Exception {
+        Method evalSha = RedisConnection.class.getMethod("evalSha", String.class, ReturnType.class, int.class, byte[][].class);
+        assertEquals(List.of("a", "b"), keys(evalSha, "sha", ReturnType.INTEGER, 2,
+            new byte[][]{bytes("a"), bytes("b"), bytes("arg")}));
+
+        Method rename = RedisConnection.class.getMethod("rename", byte[].class, byte[].class);
+        assertEquals(List.of("a", "b"), keys(rename, bytes("a"), bytes("b")));
+
+        Method bRPopLPush = RedisConnection.class.getMethod("bRPopLPush", int.class, byte[].class, byte[].class);
+        assertEquals(List.of("a", "b"), keys(bRPopLPush, 1, bytes("a"), bytes("b")));
+
+        Method bitOp = RedisConnection.class.getMethod("bitOp", RedisStringCommands.BitOperation.class, byte[].class,
+            byte[][].class);
+        assertEquals(List.of("dest", "a", "b"), keys(bitOp, RedisStringCommands.BitOperation.OR, bytes("dest"),
+            new byte[][]{bytes("a"), bytes("b")}));
+
+        Method zUnionStore = RedisConnection.class.getMethod("zUnionStore", byte[].class, byte[][].class);
+        assertEquals(List.of("dest", "a"), keys(zUnionStore, bytes("dest"), new byte[][]{bytes("a")}));
+
+        // 脚本内容不是 key
+        Method scriptLoad = RedisConnection.class.getMethod("scriptLoad", byte[].class);
+        assertEquals(List.of(), keys(scriptLoad, (Object) bytes("-- KEYS[1]: key")));
+        Method eval = RedisConnection.class.getMethod("eval", byte[].class, ReturnType.class, int.class, byte[][].class);
+        assertEquals(List.of(), keys(eval, bytes("return 1"), ReturnType.INTEGER, 0, new byte[0][]));
+        Method execute = RedisConnection.class.getMethod("execute", String.class, byte[][].class);
+        assertEquals(List.of("a"), keys(execute, "EVAL", new byte[][]{bytes("return 1"), bytes("1"), bytes("a"), bytes("arg")}));
+        assertEquals(List.of(), keys(execute, "SCRIPT", new byte[][]{bytes("LOAD"), bytes("return 1")}));
+    }
+
+    private static List<String> keys(Method method, Object... args) {
+        return Arrays.stream(RedisCommandKeys.keys(method, args))
+            .map(key -> new String(key, StandardCharsets.UTF_8))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 只支持 get、set 和 scriptLoad 的内存连接，外面包一层 {@link HotKeyRedisConnection}
+     */
+    private static RedisConnection connection(Map<ByteBuffer, byte[]> data, HotKeyDetector detector, HotKeyCache cache) {
+        RedisConnection delegate = (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+            new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "isPipelined":
+                    case "isQueueing":
+                        return false;
+                    case "get":
+                        return data.get(ByteBuffer.wrap((byte[]) args[0]));
+                    case "set":
+                        data.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) args[1]);
+                        return true;
+                    case "scriptLoad":
+                        return "sha";
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            });
+        return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+            new Class<?>[]{RedisConnection.class}, new HotKeyRedisConnection(delegate, detector, cache));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.yuhangma.redis.learning.config.HotKeyProperties;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HotKeyDetector} 和 {@link CountMinSketch} test，不需要 Redis
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class HotKeyDetectorTest {
+
+    @Test
+    public void countMinSketchTest() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(bytes("key:" + (i % 10_000)));
+        }
+        for (int i = 0; i < 5000; i++) {
+            sketch.add(bytes("hot"));
+        }
+        // 只会偏大，误差不超过 总数 * e / width 的概率很高
+        long estimate = sketch.estimate(bytes("hot"));
+        assertTrue(estimate >= 5000);
+        assertTrue(estimate < 5000 + 105_000 * Math.E / 1024);
+        assertTrue(sketch.estimate(bytes("key:1")) >= 10);
+    }
+
+    @Test
+    public void topKTest() {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setSampleRate(1);
+        properties.setWindow(Duration.ofSeconds(1));
+        properties.setTopK(3);
+        properties.setThreshold(1000);
+        HotKeyDetector detector = new HotKeyDetector(properties);
+
+        // 大量只访问一次的 key 不会把热点 key 挤出候选集合
+        for (int i = 0; i < 50_000; i++) {
+            detector.record(bytes("cold:" + i));
+            if (i % 10 == 0) {
+                detector.record(bytes("celebrity"));
+            }
+            if (i % 100 == 0) {
+                detector.record(bytes("config"));
+            }
+        }
+        detector.rotate();
+
+        List<HotKeyDetector.HotKey> top = detector.topKeys();
+        assertEquals(3, top.size());
+        assertEquals("celebrity", top.get(0).getKey());
+        assertTrue(top.get(0).getCount() >= 5000);
+        assertTrue(top.get(0).isHot());
+        assertEquals("config", top.get(1).getKey());
+        assertFalse(top.get(1).isHot());
+        assertTrue(detector.isHot(bytes("celebrity")));
+        assertFalse(detector.isHot(bytes("config")));
+
+        // 没有访问的窗口之后不再是热点 key
+        detector.rotate();
+        assertTrue(detector.topKeys().isEmpty());
+        assertFalse(detector.isHot(bytes("celebrity")));
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.yuhangma.redis.learning.metrics;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.config.RedisMetricsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisCommandMetrics} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("all")
+public class RedisCommandMetricsTest extends RedisLearningAppTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisCommandMetrics redisCommandMetrics;
+
+    @Autowired
+    private RedisCommandsEndpoint redisCommandsEndpoint;
+
+    @Test
+    public void instrumentedTemplateTest() {
+        assertTrue(redisTemplate.getConnectionFactory() instanceof InstrumentedRedisConnectionFactory);
+        valueOps.set(k1, "v1");
+        valueOps.get(k1);
+
+        Timer get = meterRegistry.find(RedisCommandMetrics.METRIC_NAME)
+            .tags("template", "stringRedisTemplate", "command", "GET", "prefix", UNIT_TEST_KEY_PREFIX)
+            .timer();
+        assertNotNull(get);
+        assertTrue(get.count() > 0);
+        log.info("{}", redisCommandsEndpoint.commands());
+    }
+
+    @Test
+    public void recordingSwitchTest() {
+        Timer set = timer("SET");
+        long before = set == null ? 0 : set.count();
+        redisCommandsEndpoint.configure(false, null);
+        try {
+            valueOps.set(k1, "v1");
+            assertEquals(before, timer("SET") == null ? 0 : timer("SET").count());
+        } finally {
+            redisCommandsEndpoint.configure(true, null);
+        }
+        valueOps.set(k1, "v1");
+        assertEquals(before + 1, timer("SET").count());
+    }
+
+    /**
+     * prefix 标签超过上限之后都记为 other
+     */
+    @Test
+    public void keyPrefixCardinalityTest() {
+        RedisMetricsProperties properties = new RedisMetricsProperties();
+        properties.setMaxKeyPrefixes(2);
+        RedisCommandMetrics metrics = new RedisCommandMetrics(new SimpleMeterRegistry(), properties);
+        assertEquals("user:", metrics.keyPrefix(bytes("user:1")));
+        assertEquals("order:", metrics.keyPrefix(bytes("order:1")));
+        assertEquals("user:", metrics.keyPrefix(bytes("user:2")));
+        assertEquals(RedisCommandMetrics.OTHER, metrics.keyPrefix(bytes("item:1")));
+        assertEquals(RedisCommandMetrics.OTHER, metrics.keyPrefix(bytes("no-separator")));
+        assertEquals(RedisCommandMetrics.NONE, metrics.keyPrefix(null));
+
+        properties = new RedisMetricsProperties();
+        properties.setKeyPrefixes(List.of(UNIT_TEST_KEY_PREFIX));
+        metrics = new RedisCommandMetrics(new SimpleMeterRegistry(), properties);
+        assertEquals(UNIT_TEST_KEY_PREFIX, metrics.keyPrefix(bytes(k1)));
+        assertEquals(RedisCommandMetrics.OTHER, metrics.keyPrefix(bytes("user:1")));
+    }
+
+    /**
+     * 脚本命令的 prefix 标签取自 KEYS，没有 key 时记为 none，不会把脚本内容当作 key
+     */
+    @Test
+    public void scriptKeyPrefixTest() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        RedisCommandMetrics metrics = new RedisCommandMetrics(registry, new RedisMetricsProperties());
+        RedisConnection delegate = (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+            new Class<?>[]{RedisConnection.class}, (proxy, method, args) ->
+                method.getReturnType() == boolean.class ? false : "scriptLoad".equals(method.getName()) ? "sha" : null);
+        RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+            new Class<?>[]{RedisConnection.class}, new InstrumentedRedisConnection(delegate, metrics, "test"));
+
+        byte[] script = bytes("-- KEYS[1]: lock key\n-- ARGV[1]: token\nreturn 1");
+        connection.scriptLoad(script);
+        connection.eval(script, ReturnType.INTEGER, 0);
+        connection.eval(script, ReturnType.INTEGER, 1, bytes(k1), bytes("token"));
+        connection.evalSha("sha", ReturnType.INTEGER, 1, bytes(k1), bytes("token"));
+        connection.execute("EVAL", script, bytes("0"));
+
+        assertEquals(Set.of(RedisCommandMetrics.NONE, UNIT_TEST_KEY_PREFIX),
+            registry.find(RedisCommandMetrics.METRIC_NAME).timers().stream()
+                .map(timer -> timer.getId().getTag("prefix"))
+                .collect(Collectors.toSet()));
+        assertNotNull(registry.find(RedisCommandMetrics.METRIC_NAME)
+            .tags("command", "SCRIPTLOAD", "prefix", RedisCommandMetrics.NONE).timer());
+        assertNotNull(registry.find(RedisCommandMetrics.METRIC_NAME)
+            .tags("command", "EVALSHA", "prefix", UNIT_TEST_KEY_PREFIX).timer());
+    }
+
+    private Timer timer(String command) {
+        return meterRegistry.find(RedisCommandMetrics.METRIC_NAME)
+            .tags("template", "stringRedisTemplate", "command", command, "prefix", UNIT_TEST_KEY_PREFIX)
+            .timer();
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
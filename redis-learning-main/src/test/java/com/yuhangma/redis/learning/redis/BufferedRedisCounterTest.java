@@ -0,0 +1,108 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BufferedRedisCounter} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class BufferedRedisCounterTest extends RedisLearningAppTest {
+
+    @Autowired
+    private BufferedRedisCounter counter;
+
+    @Test
+    public void incrementTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.increment(k1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // 读取时合并本地还没有刷新的增量
+        assertEquals(80000, counter.get(k1));
+
+        counter.flush();
+        assertEquals("80000", valueOps.get(k1));
+        assertEquals(80000, counter.get(k1));
+        assertEquals(0, counter.pendingEvents());
+    }
+
+    @Test
+    public void floatIncrementTest() {
+        counter.increment(k2, 1.5);
+        counter.increment(k2, 2L);
+        assertEquals(3.5, counter.getDouble(k2), 0);
+        counter.flush();
+        assertEquals(3.5, Double.parseDouble(valueOps.get(k2)), 0);
+
+        // key 的值已经是小数时，整数增量改用 INCRBYFLOAT 写入
+        counter.increment(k2, 1L);
+        counter.flush();
+        assertEquals(4.5, Double.parseDouble(valueOps.get(k2)), 0);
+    }
+
+    /**
+     * 多个线程的小数增量分散在 DoubleAdder 的多个 cell 中，写入之后的舍入误差不会在之后的刷新中写入
+     */
+    @Test
+    public void concurrentFloatIncrementTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.increment(k1, 0.1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        counter.flush();
+        assertEquals(8000, Double.parseDouble(valueOps.get(k1)), 1e-6);
+        // 删除之后再刷新，没有新的增量，key 不会被 INCRBYFLOAT 重新创建
+        redisTemplate.delete(k1);
+        counter.flush();
+        counter.flush();
+        assertFalse(redisTemplate.hasKey(k1));
+        assertEquals(0, counter.getDouble(k1), 1e-9);
+    }
+
+    @Test
+    public void failedFlushTest() {
+        redisTemplate.opsForList().leftPush(k3, "value");
+        counter.increment(k3, 1L);
+        counter.increment(k4, 1L);
+        counter.flush();
+
+        // 类型错误的 key 不影响同一批中的其他 key，增量保留在本地
+        assertEquals("1", valueOps.get(k4));
+        redisTemplate.delete(k3);
+        counter.flush();
+        assertEquals("1", valueOps.get(k3));
+    }
+}
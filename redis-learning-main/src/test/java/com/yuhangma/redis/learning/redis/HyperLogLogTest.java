@@ -0,0 +1,81 @@
+package com.yuhangma.redis.learning.redis;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HyperLogLog} test，不需要启动 Spring 容器，与 Redis 的兼容性见 {@link RedisUniqueCounterTest}
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class HyperLogLogTest {
+
+    @Test
+    public void countTest() {
+        HyperLogLog hll = new HyperLogLog();
+        assertTrue(hll.isEmpty());
+        assertEquals(0, hll.count());
+        for (int n : new int[]{100, 10_000, 1_000_000}) {
+            hll = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                hll.add("user:" + i);
+                // 重复的元素不影响结果
+                hll.add("user:" + i);
+            }
+            // 标准误差 0.81%，这里允许 3 倍
+            assertEquals(n, hll.count(), n * 0.025);
+        }
+    }
+
+    @Test
+    public void mergeTest() {
+        HyperLogLog a = new HyperLogLog(), b = new HyperLogLog(), all = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            (i < 15_000 ? a : b).add("user:" + i);
+            all.add("user:" + i);
+        }
+        // 重叠的部分
+        for (int i = 10_000; i < 15_000; i++) {
+            b.add("user:" + i);
+        }
+        a.merge(b);
+        assertArrayEquals(all.toRedisBytes(), a.toRedisBytes());
+        assertEquals(all.count(), a.count());
+    }
+
+    @Test
+    public void redisBytesTest() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            hll.add("user:" + i);
+        }
+        byte[] bytes = hll.toRedisBytes();
+        assertEquals(12304, bytes.length);
+        assertEquals("HYLL", new String(bytes, 0, 4));
+        // 基数缓存标记为无效
+        assertEquals((byte) 0x80, bytes[15]);
+        assertArrayEquals(bytes, HyperLogLog.fromRedisBytes(bytes).toRedisBytes());
+
+        // 只有一个寄存器为 1 的 sparse 格式：XZERO(1000) VAL(1) XZERO(15383)
+        byte[] sparse = Arrays.copyOf(bytes, 16 + 5);
+        sparse[4] = 1;
+        sparse[16] = 0x40 | (999 >> 8);
+        sparse[17] = (byte) (999 & 0xFF);
+        sparse[18] = (byte) 0x80;
+        sparse[19] = (byte) (0x40 | (15382 >> 8));
+        sparse[20] = (byte) (15382 & 0xFF);
+        HyperLogLog one = HyperLogLog.fromRedisBytes(sparse);
+        assertFalse(one.isEmpty());
+        assertEquals(1, one.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notHyperLogLogTest() {
+        HyperLogLog.fromRedisBytes("not a hyperloglog".getBytes());
+    }
+}
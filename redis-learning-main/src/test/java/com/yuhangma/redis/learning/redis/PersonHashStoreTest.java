@@ -0,0 +1,78 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import com.yuhangma.redis.learning.serializer.PersonDTOHashMapper;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link PersonHashStore} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class PersonHashStoreTest extends RedisLearningAppTest {
+
+    private static final String ID1 = "unit:test:1", ID2 = "unit:test:2";
+
+    @Autowired
+    private PersonHashStore store;
+
+    @After
+    public void cleanUp() {
+        store.delete(ID1);
+        store.delete(ID2);
+    }
+
+    @Test
+    public void mapperTest() {
+        PersonDTO person = PersonDTO.newPerson();
+        Map<String, String> hash = PersonDTOHashMapper.INSTANCE.toHash(person);
+        assertEquals(Map.of("name", "张三", "age", "20"), hash);
+        assertEquals(person, PersonDTOHashMapper.INSTANCE.fromHash(hash));
+
+        // null 字段不写入 hash
+        assertEquals(Map.of("age", "1"), PersonDTOHashMapper.INSTANCE.toHash(new PersonDTO().setAge(1)));
+    }
+
+    @Test
+    public void saveAndFindTest() {
+        assertNull(store.find(ID1));
+
+        store.save(ID1, PersonDTO.newPerson());
+        assertEquals(PersonDTO.newPerson(), store.find(ID1));
+
+        // 覆盖保存时删除值为 null 的字段
+        store.save(ID1, new PersonDTO().setAge(3));
+        assertEquals(Map.of("age", "3"), redisTemplate.opsForHash().entries(store.key(ID1)));
+
+        List<PersonDTO> persons = store.findAll(List.of(ID1, ID2));
+        assertEquals(new PersonDTO().setAge(3), persons.get(0));
+        assertNull(persons.get(1));
+    }
+
+    @Test
+    public void partialUpdateTest() {
+        store.save(ID1, PersonDTO.newPerson());
+
+        store.setAge(ID1, 30);
+        assertEquals(41, store.incrementAge(ID1, 11));
+        store.setName(ID1, "李四");
+        assertEquals(new PersonDTO().setName("李四").setAge(41), store.find(ID1));
+
+        // 投影读取只包含指定的字段
+        assertEquals(new PersonDTO().setName("李四"), store.find(ID1, PersonDTOHashMapper.NAME));
+        assertNull(store.find(ID2, PersonDTOHashMapper.NAME));
+
+        // 不存在的 key 从 0 开始增加
+        assertEquals(-1, store.incrementAge(ID2, -1));
+    }
+}
@@ -0,0 +1,102 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link PersonLeaderboard} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class PersonLeaderboardTest extends RedisLearningAppTest {
+
+    private static final String BOARD = "unit:test:board";
+
+    private static final LocalDate DAY = LocalDate.of(2000, 1, 1);
+
+    private final PersonDTO p1 = new PersonDTO().setName("p1").setAge(1),
+        p2 = new PersonDTO().setName("p2").setAge(2),
+        p3 = new PersonDTO().setName("p3").setAge(3);
+
+    @Autowired
+    private PersonLeaderboard leaderboard;
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(List.of("leaderboard:" + BOARD,
+            "leaderboard:" + leaderboard.dailyBoard(BOARD, DAY),
+            "leaderboard:" + leaderboard.dailyBoard(BOARD, DAY.plusDays(1)),
+            "leaderboard:{" + BOARD + "}:20000101-20000102"));
+    }
+
+    @Test
+    public void incrementAndRankTest() {
+        Map<PersonDTO, Double> deltas = new LinkedHashMap<>();
+        deltas.put(p1, 10D);
+        deltas.put(p2, 20D);
+        Map<PersonDTO, Double> scores = leaderboard.incrementScores(BOARD, deltas);
+        assertEquals(20D, scores.get(p2), 0);
+
+        scores = leaderboard.incrementScores(BOARD, Map.of(p1, 15D));
+        assertEquals(25D, scores.get(p1), 0);
+
+        List<LeaderboardEntry> ranks = leaderboard.ranks(BOARD, List.of(p2, p3, p1));
+        assertEquals(1, ranks.get(0).getRank());
+        assertNull(ranks.get(1));
+        assertEquals(0, ranks.get(2).getRank());
+        assertEquals(25D, ranks.get(2).getScore(), 0);
+    }
+
+    @Test
+    public void pageTest() {
+        leaderboard.incrementScores(BOARD, Map.of(p1, 1D, p2, 2D, p3, 3D));
+
+        List<LeaderboardEntry> top = leaderboard.top(BOARD, 2);
+        assertEquals(p3, top.get(0).getMember());
+        assertEquals(p2, top.get(1).getMember());
+        List<LeaderboardEntry> second = leaderboard.page(BOARD, 1, 2);
+        assertEquals(1, second.size());
+        assertEquals(2, second.get(0).getRank());
+
+        // 其他客户端的写入在缓存过期之前不可见
+        long hits = leaderboard.stats().hitCount();
+        zsetOps.incrementScore("leaderboard:" + BOARD, p1, 100);
+        assertEquals(p3, leaderboard.top(BOARD, 2).get(0).getMember());
+        assertEquals(hits + 1, leaderboard.stats().hitCount());
+
+        // 本实例的写入立即可见
+        leaderboard.incrementScores(BOARD, Map.of(p2, 1000D));
+        assertEquals(p2, leaderboard.top(BOARD, 2).get(0).getMember());
+    }
+
+    @Test
+    public void unionDaysTest() {
+        leaderboard.incrementScores(leaderboard.dailyBoard(BOARD, DAY), Map.of(p1, 1D, p2, 5D), Duration.ofMinutes(1));
+        leaderboard.incrementScores(leaderboard.dailyBoard(BOARD, DAY.plusDays(1)), Map.of(p1, 7D, p3, 2D), Duration.ofMinutes(1));
+
+        String union = leaderboard.unionDays(BOARD, DAY, DAY.plusDays(1), Duration.ofMinutes(1));
+        List<LeaderboardEntry> top = leaderboard.top(union, 10);
+        assertEquals(3, top.size());
+        assertEquals(p1, top.get(0).getMember());
+        assertEquals(8D, top.get(0).getScore(), 0);
+        assertTrue(redisTemplate.getExpire("leaderboard:" + union) > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSizeTest() {
+        leaderboard.page(BOARD, 0, 1000);
+    }
+}
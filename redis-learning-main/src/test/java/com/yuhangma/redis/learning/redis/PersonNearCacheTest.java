@@ -0,0 +1,77 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link PersonNearCache} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+@TestPropertySource(properties = {
+    "redis.near-cache.enabled=true",
+    "redis.near-cache.notify-keyspace-events=KA"
+})
+public class PersonNearCacheTest extends RedisLearningAppTest {
+
+    @Autowired
+    private PersonNearCache personNearCache;
+
+    @Test
+    public void hitAndMissTest() throws InterruptedException {
+        personNearCache.invalidateAll();
+        PersonDTO person = PersonDTO.newRandomPerson();
+        personValueOps.set(k1, person, 10, TimeUnit.SECONDS);
+        // 等待这次 set 的 keyspace 通知到达，读取期间收到 k1 的通知时不会写入本地缓存
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        CacheStats before = personNearCache.stats();
+        // 第一次读取未命中，第二次读取命中本地缓存
+        assertEquals(person, personNearCache.get(k1));
+        assertEquals(person, personNearCache.get(k1));
+        CacheStats after = personNearCache.stats().minus(before);
+        assertEquals(1, after.missCount());
+        assertEquals(1, after.hitCount());
+
+        // key 不存在时不缓存
+        assertNull(personNearCache.get(k2));
+        assertNull(personNearCache.get(k2));
+    }
+
+    @Test
+    public void invalidateTest() throws InterruptedException {
+        personValueOps.set(k1, PersonDTO.newPerson());
+        assertEquals(PersonDTO.newPerson(), personNearCache.get(k1));
+
+        // 通过 near cache 写入，本地缓存立即失效
+        PersonDTO newPerson = PersonDTO.newPerson().setAge(30);
+        personNearCache.set(k1, newPerson, Duration.ofSeconds(10));
+        assertEquals(newPerson, personNearCache.get(k1));
+
+        // 其他客户端修改，通过 keyspace 通知失效
+        PersonDTO otherPerson = PersonDTO.newPerson().setAge(40);
+        personValueOps.set(k1, otherPerson);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(otherPerson, personNearCache.get(k1));
+    }
+
+    @Test
+    public void remainingTtlTest() throws InterruptedException {
+        personValueOps.set(k1, PersonDTO.newPerson(), 1, TimeUnit.SECONDS);
+        assertNotNull(personNearCache.get(k1));
+        // 本地缓存的存活时间不会超过 Redis 中的剩余 TTL
+        TimeUnit.MILLISECONDS.sleep(1100);
+        assertNull(personNearCache.get(k1));
+    }
+}
@@ -0,0 +1,69 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ReactiveRedisClient} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("all")
+public class ReactiveRedisClientTest extends RedisLearningAppTest {
+
+    @Autowired
+    private ReactiveRedisClient reactiveRedisClient;
+
+    @Autowired
+    private RedisTemplate<String, PersonDTO> personRedisTemplate;
+
+    @Test
+    public void rightMultiAtomicPopTest() {
+        List<PersonDTO> persons = pushPersons(k1, 5);
+        assertEquals(persons.subList(0, 3), reactiveRedisClient.rightMultiAtomicPop(k1, 3).collectList().block());
+        assertEquals(persons.subList(3, 5), reactiveRedisClient.rightMultiAtomicPop(k1, 10).collectList().block());
+        assertFalse(redisTemplate.hasKey(k1));
+    }
+
+    /**
+     * 只请求前 3 个元素时只 pop 一批，剩余的数据仍然在 list 中
+     */
+    @Test
+    public void drainTest() {
+        List<PersonDTO> persons = pushPersons(k1, 10);
+        assertEquals(persons.subList(0, 3), reactiveRedisClient.drain(k1, 4).take(3).collectList().block());
+        assertEquals(6L, listOps.size(k1).longValue());
+
+        assertEquals(persons.subList(4, 10), reactiveRedisClient.drain(k1, 4).collectList().block());
+        assertFalse(redisTemplate.hasKey(k1));
+    }
+
+    @Test
+    public void multiGetAndScanTest() {
+        PersonDTO person = new PersonDTO().setName("person").setAge(1);
+        personRedisTemplate.opsForValue().set(k1, person);
+        assertEquals(Arrays.asList(person, null), reactiveRedisClient.multiGet(Arrays.asList(k1, k2)).block());
+        assertEquals(Arrays.asList(k1), reactiveRedisClient.scan(k1, 100).collectList().block());
+    }
+
+    private List<PersonDTO> pushPersons(String key, int count) {
+        List<PersonDTO> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(new PersonDTO().setName("person" + i).setAge(i));
+        }
+        listOps.leftPushAll(key, persons);
+        return persons;
+    }
+}
@@ -0,0 +1,120 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands.BitOperation;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisBitmapService} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisBitmapServiceTest extends RedisLearningAppTest {
+
+    private static final LocalDate DAY = LocalDate.of(2000, 1, 1);
+
+    private static final String COUNTER_KEY = UNIT_TEST_KEY_PREFIX + "bitmap:counter";
+
+    @Autowired
+    private RedisBitmapService redisBitmapService;
+
+    @After
+    public void cleanUp() {
+        for (int i = 0; i < 3; i++) {
+            redisTemplate.delete(redisBitmapService.activeKey(DAY.plusDays(i)));
+        }
+        redisTemplate.delete(redisBitmapService.activeRangeKey(BitOperation.OR, DAY, DAY.plusDays(2)));
+        redisTemplate.delete(redisBitmapService.activeRangeKey(BitOperation.AND, DAY, DAY.plusDays(2)));
+        redisTemplate.delete(COUNTER_KEY);
+        redisBitmapService.removeMirror(redisBitmapService.activeKey(DAY));
+    }
+
+    @Test
+    public void setAndGetBitsTest() {
+        String key = redisBitmapService.activeKey(DAY);
+        // 超过一个 BITFIELD 批次
+        long[] offsets = new long[RedisBitmapService.BITFIELD_BATCH_SIZE * 2 + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i * 3L;
+        }
+        boolean[] previous = redisBitmapService.setBits(key, true, offsets);
+        assertEquals(offsets.length, previous.length);
+        for (boolean bit : previous) {
+            assertFalse(bit);
+        }
+
+        boolean[] bits = redisBitmapService.getBits(key, 0, 1, 3, 4, 6);
+        assertArrayEquals(new boolean[]{true, false, true, false, true}, bits);
+        assertEquals(offsets.length, redisBitmapService.countActive(DAY));
+
+        // 和 SETBIT 的编号方式一致
+        assertTrue(redisTemplate.opsForValue().getBit(key, 3));
+        assertFalse(redisTemplate.opsForValue().getBit(key, 2));
+
+        previous = redisBitmapService.setBits(key, false, 0, 1);
+        assertArrayEquals(new boolean[]{true, false}, previous);
+        assertEquals(offsets.length - 1, redisBitmapService.countActive(DAY));
+    }
+
+    @Test
+    public void activeRangeTest() {
+        redisBitmapService.markActive(DAY, 1, 2, 3);
+        redisBitmapService.markActive(DAY.plusDays(1), 2, 3, 4);
+        redisBitmapService.markActive(DAY.plusDays(2), 3, 4, 5);
+
+        assertEquals(5, redisBitmapService.countActiveAny(DAY, DAY.plusDays(2)));
+        assertEquals(1, redisBitmapService.countActiveEvery(DAY, DAY.plusDays(2)));
+        // 结果 key 带过期时间
+        Long ttl = redisTemplate.getExpire(redisBitmapService.activeRangeKey(BitOperation.OR, DAY, DAY.plusDays(2)));
+        assertTrue(ttl > 0);
+    }
+
+    @Test
+    public void mirrorTest() {
+        redisBitmapService.markActive(DAY, 7, 100_000);
+        BitmapMirror mirror = redisBitmapService.mirror(redisBitmapService.activeKey(DAY), Duration.ofMinutes(10));
+        assertTrue(mirror.contains(7));
+        assertTrue(mirror.contains(100_000));
+        assertFalse(mirror.contains(8));
+        assertEquals(2, mirror.cardinality());
+
+        // 通过 service 写入的变更立即在本地副本上可见
+        redisBitmapService.markActive(DAY, 8);
+        assertTrue(redisBitmapService.isActive(DAY, 8));
+        assertEquals(3, redisBitmapService.countActive(DAY));
+    }
+
+    /**
+     * 非法的 offset 在写入之前检查，合法的 offset 也不会写入
+     */
+    @Test
+    public void invalidOffsetTest() {
+        String key = redisBitmapService.activeKey(DAY);
+        redisBitmapService.mirror(key);
+        try {
+            redisBitmapService.setBits(key, true, 1, RedisBitmapService.MAX_OFFSET + 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(redisTemplate.hasKey(key));
+        }
+    }
+
+    @Test
+    public void countersTest() {
+        long[] values = redisBitmapService.incrementCounters(COUNTER_KEY, 4, 10, 0, 1);
+        assertArrayEquals(new long[]{10, 10}, values);
+        // u4 最大为 15，溢出时饱和
+        values = redisBitmapService.incrementCounters(COUNTER_KEY, 4, 10, 0);
+        assertArrayEquals(new long[]{15}, values);
+        assertArrayEquals(new long[]{15, 10, 0}, redisBitmapService.getCounters(COUNTER_KEY, 4, 0, 1, 2));
+    }
+}
@@ -0,0 +1,91 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisBulkWriter} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisBulkWriterTest extends RedisLearningAppTest {
+
+    private static final String KEY_PREFIX = "bulk:test:";
+
+    @Autowired
+    private RedisBulkWriter redisBulkWriter;
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired
+    private RedisTemplate<String, PersonDTO> personRedisTemplate;
+
+    @After
+    public void cleanUp() {
+        redisKeyScanner.deleteByPattern(KEY_PREFIX + "*", 1000);
+    }
+
+    @Test
+    public void writeWithTtlTest() {
+        Stream<Map.Entry<String, String>> entries = IntStream.range(0, 10_000)
+            .mapToObj(i -> new AbstractMap.SimpleEntry<>(KEY_PREFIX + i, v1));
+        BulkWriteOptions options = BulkWriteOptions.withTtl(Duration.ofMinutes(10)).setChunkSize(1000).setInFlight(2);
+
+        BulkWriteResult result = redisBulkWriter.write(redisTemplate, entries, options);
+        assertEquals(10_000, result.getWritten());
+        assertEquals(10, result.getChunks());
+        assertTrue(result.throughput() > 0);
+
+        // 所有 key 都设置了过期时间
+        assertEquals(v1, valueOps.get(KEY_PREFIX + 9999));
+        long ttl = redisTemplate.getExpire(KEY_PREFIX + 9999, TimeUnit.SECONDS);
+        assertTrue(0 < ttl && ttl <= 600);
+    }
+
+    @Test
+    public void writePersonTest() {
+        Stream<Map.Entry<String, PersonDTO>> entries = IntStream.range(0, 100)
+            .mapToObj(i -> new AbstractMap.SimpleEntry<>(KEY_PREFIX + i, new PersonDTO().setName("person" + i).setAge(i)));
+
+        // 不设置过期时间
+        BulkWriteResult result = redisBulkWriter.write(personRedisTemplate, entries, new BulkWriteOptions().setChunkSize(30));
+        assertEquals(100, result.getWritten());
+        assertEquals(4, result.getChunks());
+        assertEquals(new PersonDTO().setName("person42").setAge(42), personValueOps.get(KEY_PREFIX + 42));
+        assertEquals(-1L, redisTemplate.getExpire(KEY_PREFIX + 42).longValue());
+    }
+
+    /**
+     * chunkSize 或者 inFlight 不是正数时直接失败，不会死循环或者一直阻塞
+     */
+    @Test
+    public void invalidOptionsTest() {
+        for (BulkWriteOptions options : new BulkWriteOptions[]{new BulkWriteOptions().setChunkSize(0),
+            new BulkWriteOptions().setInFlight(0)}) {
+            Stream<Map.Entry<String, String>> entries = Stream.of(new AbstractMap.SimpleEntry<>(KEY_PREFIX + 1, v1));
+            try {
+                redisBulkWriter.write(redisTemplate, entries, options);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        assertFalse(redisTemplate.hasKey(KEY_PREFIX + 1));
+    }
+}
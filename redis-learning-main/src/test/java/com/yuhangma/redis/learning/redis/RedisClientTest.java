@@ -0,0 +1,81 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.PersonDTO;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisClient} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisClientTest extends RedisLearningAppTest {
+
+    @Autowired
+    private RedisClient redisClient;
+
+    /**
+     * 弹出的顺序和连续执行 RPOP 的顺序一致，数量不足时清空整个 list
+     */
+    @Test
+    public void rightMultiAtomicPopTest() {
+        // key 不存在时返回空 list
+        assertTrue(redisClient.rightMultiAtomicPop(k1, 3).isEmpty());
+
+        List<PersonDTO> persons = pushPersons(k1, 5);
+        // 左边 push，右边 pop，先 push 的先出来
+        List<PersonDTO> popped1 = redisClient.rightMultiAtomicPop(k1, 3);
+        assertEquals(persons.subList(0, 3), popped1);
+        assertEquals(2L, listOps.size(k1).longValue());
+
+        // 剩余数量不足 count 个，弹出剩余的全部元素，并且 key 被删除
+        List<PersonDTO> popped2 = redisClient.rightMultiAtomicPop(k1, 10);
+        assertEquals(persons.subList(3, 5), popped2);
+        assertFalse(redisTemplate.hasKey(k1));
+
+        // count 不大于 0 时不做任何操作
+        pushPersons(k1, 1);
+        assertTrue(redisClient.rightMultiAtomicPop(k1, 0).isEmpty());
+        assertEquals(1L, listOps.size(k1).longValue());
+    }
+
+    @Test
+    public void bulkExpireAndPersistTest() {
+        valueOps.set(k1, v1);
+        valueOps.set(k2, v2);
+        List<String> keys = Arrays.asList(k1, k2, k3);
+
+        // 不存在的 k3 不计入
+        assertEquals(2, redisClient.expire(keys, Duration.ofSeconds(100)));
+        assertEquals(100, redisTemplate.getExpire(k1, TimeUnit.SECONDS).longValue(), 1);
+
+        assertEquals(2, redisClient.expireWithJitter(keys, Duration.ofSeconds(100)));
+        long ttl = redisTemplate.getExpire(k2, TimeUnit.MILLISECONDS);
+        assertTrue(ttl > 89_000 && ttl <= 100_000);
+
+        assertEquals(2, redisClient.persist(keys));
+        assertEquals(-1, redisTemplate.getExpire(k1).longValue());
+        // 已经没有过期时间的 key 不计入
+        assertEquals(0, redisClient.persist(keys));
+    }
+
+    private List<PersonDTO> pushPersons(String key, int count) {
+        List<PersonDTO> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(new PersonDTO().setName("person" + i).setAge(i));
+        }
+        listOps.leftPushAll(key, persons);
+        return persons;
+    }
+}
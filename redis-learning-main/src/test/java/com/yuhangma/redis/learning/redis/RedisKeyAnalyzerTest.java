@@ -0,0 +1,68 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisKeyAnalyzer} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisKeyAnalyzerTest extends RedisLearningAppTest {
+
+    private static final String KEY_PREFIX = "analyzer:test:";
+
+    @Autowired
+    private RedisKeyAnalyzer redisKeyAnalyzer;
+
+    @Test
+    public void analyzeTest() {
+        Map<String, String> kvs = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            kvs.put(KEY_PREFIX + "small:" + i, v1);
+        }
+        valueOps.multiSet(kvs);
+        redisTemplate.expire(KEY_PREFIX + "small:0", 10, TimeUnit.MINUTES);
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            elements.add("element-" + i);
+        }
+        String bigKey = KEY_PREFIX + "big:list";
+        redisTemplate.opsForList().rightPushAll(bigKey, elements);
+
+        KeyspaceReport report = redisKeyAnalyzer.analyze(KEY_PREFIX + "*");
+        assertNull(report.getError());
+        assertFalse(report.isRunning());
+        assertEquals(1001, report.getScannedKeys());
+
+        // 不论 size 是内存字节数还是元素数量，最大的都是这个 list
+        KeyspaceReport.BigKey top = report.getBigKeys().get(0);
+        assertEquals(bigKey, top.getKey());
+        assertEquals("list", top.getType());
+        assertEquals(10_000, top.getLength());
+        assertEquals(-1, top.getTtlMillis());
+
+        KeyspaceReport.PrefixStats small = report.getPrefixes().stream()
+            .filter(prefix -> prefix.getPrefix().equals(KEY_PREFIX + "small:"))
+            .findFirst()
+            .get();
+        assertEquals(1000, small.getKeys());
+        assertEquals(999, small.getPersistentKeys());
+        assertEquals(Long.valueOf(1000), small.getTypes().get("string"));
+        assertEquals(Long.valueOf(1000), small.getHistogram().get("1K"));
+
+        redisTemplate.delete(kvs.keySet());
+        redisTemplate.delete(bigKey);
+    }
+}
@@ -179,6 +179,7 @@ public class RedisKeyOperationTest extends RedisLearningAppTest {
      * 有统计 key 的数量的需求可以用 set 来存所有的 key，然后客户端进行处理，或者使用 scan 命令来处理。
      *
      * @see RedisKeyOperationTest#scanTest()
+     * @see RedisKeyScanner
      * @see <a href="http://redis.io/commands/keys">Redis Documentation: KEYS</a>
      * @see <a href="http://redis.io/commands/scan">Redis Documentation: SCAN</a>
      * @see <a href="http://doc.redisfans.com/key/keys.html">Redis 命令参考: KEYS</a>
@@ -342,6 +343,7 @@ public class RedisKeyOperationTest extends RedisLearningAppTest {
      * </p>
      *
      * @see RedisKeyOperationTest#keysTest()
+     * @see RedisKeyScanner
      * @see <a href="http://redis.io/commands/scan">Redis Documentation: SCAN</a>
      * @see <a href="http://doc.redisfans.com/key/scan.html">Redis 命令参考: SCAN</a>
      */
@@ -0,0 +1,79 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisKeyScanner} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisKeyScannerTest extends RedisLearningAppTest {
+
+    private static final String KEY_PREFIX = "scanner:test:";
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Test
+    public void scanTest() {
+        Map<String, String> kvs = prepareKeys(1000);
+
+        try (Stream<String> keys = redisKeyScanner.scan(KEY_PREFIX + "*", 100)) {
+            Set<String> scanned = keys.collect(Collectors.toSet());
+            assertTrue(scanned.containsAll(kvs.keySet()));
+        }
+
+        // 每批的数量不超过 count
+        try (Stream<List<String>> pages = redisKeyScanner.scanPages(KEY_PREFIX + "*", 100)) {
+            assertTrue(pages.allMatch(page -> !page.isEmpty() && page.size() <= 100));
+        }
+
+        // 只取前面几个 key，不会迭代完整个数据库
+        try (Stream<String> keys = redisKeyScanner.scan(KEY_PREFIX + "*", 10)) {
+            assertEquals(5, keys.limit(5).count());
+        }
+
+        redisTemplate.delete(kvs.keySet());
+    }
+
+    @Test
+    public void expireAndDeleteByPatternTest() {
+        Map<String, String> kvs = prepareKeys(1000);
+
+        long expired = redisKeyScanner.expireByPattern(KEY_PREFIX + "*", Duration.ofMinutes(10), 100);
+        assertEquals(1000, expired);
+        long ttl = redisTemplate.getExpire(KEY_PREFIX + 0, TimeUnit.SECONDS);
+        assertTrue(0 < ttl && ttl <= 600);
+
+        long deleted = redisKeyScanner.deleteByPattern(KEY_PREFIX + "*", 100);
+        assertEquals(1000, deleted);
+        try (Stream<String> keys = redisKeyScanner.scan(KEY_PREFIX + "*")) {
+            assertEquals(0, keys.count());
+        }
+    }
+
+    private Map<String, String> prepareKeys(int count) {
+        Map<String, String> kvs = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            kvs.put(KEY_PREFIX + i, v1);
+        }
+        redisTemplate.delete(kvs.keySet());
+        valueOps.multiSet(kvs);
+        return kvs;
+    }
+}
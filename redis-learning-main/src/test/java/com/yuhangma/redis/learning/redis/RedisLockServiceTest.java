@@ -0,0 +1,88 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.config.LockProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisLockService} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisLockServiceTest extends RedisLearningAppTest {
+
+    private static final String LOCK = "unit:test:lock";
+
+    @Autowired
+    private RedisLockService lockService;
+
+    @Autowired
+    private LockProperties properties;
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(List.of(lockService.key(LOCK), lockService.fenceKey(LOCK)));
+    }
+
+    @Test
+    public void tryLockTest() throws Exception {
+        RedisLock lock = lockService.tryLock(LOCK);
+        assertNotNull(lock);
+        assertTrue(lockService.isLocked(LOCK));
+        assertEquals(lock.getOwner(), valueOps.get(lockService.key(LOCK)));
+
+        // 已经被持有，等待超时之后返回 null
+        assertNull(lockService.tryLock(LOCK));
+        assertNull(lockService.tryLock(LOCK, Duration.ofMillis(100)));
+
+        assertTrue(lock.unlock());
+        assertFalse(lock.isHeld());
+        assertFalse(lockService.isLocked(LOCK));
+        // 重复解锁
+        assertFalse(lock.unlock());
+
+        // fencing token 递增
+        try (RedisLock next = lockService.tryLock(LOCK)) {
+            assertEquals(lock.getFencingToken() + 1, next.getFencingToken());
+        }
+    }
+
+    @Test
+    public void unlockOthersLockTest() {
+        RedisLock lock = lockService.tryLock(LOCK);
+        // 模拟锁过期之后被其他持有者获得
+        valueOps.set(lockService.key(LOCK), "other");
+        assertFalse(lock.unlock());
+        assertEquals("other", valueOps.get(lockService.key(LOCK)));
+    }
+
+    @Test
+    public void watchdogTest() throws Exception {
+        Duration leaseTime = properties.getLeaseTime();
+        properties.setLeaseTime(Duration.ofMillis(300));
+        try {
+            RedisLock lock = lockService.tryLock(LOCK);
+            // 超过多个租期之后仍然持有
+            Thread.sleep(1000);
+            assertTrue(lock.isHeld());
+            assertTrue(lockService.isLocked(LOCK));
+
+            // 锁被其他持有者获得之后，看门狗停止续期
+            valueOps.set(lockService.key(LOCK), "other");
+            Thread.sleep(300);
+            assertFalse(lock.isHeld());
+            assertEquals("other", valueOps.get(lockService.key(LOCK)));
+        } finally {
+            properties.setLeaseTime(leaseTime);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.config.RateLimiterProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisRateLimiter} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisRateLimiterTest extends RedisLearningAppTest {
+
+    private static final String BUCKET = "unit:test:bucket", PREFETCH_BUCKET = "unit:test:prefetch";
+
+    @Autowired
+    private RedisRateLimiter rateLimiter;
+
+    @Autowired
+    private RateLimiterProperties properties;
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(rateLimiter.key(BUCKET));
+        redisTemplate.delete(rateLimiter.key(PREFETCH_BUCKET));
+    }
+
+    @Test
+    public void tryAcquireTest() throws Exception {
+        // 初始时桶是满的，允许 capacity 个突发请求
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(BUCKET, 10, 5));
+        }
+        assertFalse(rateLimiter.tryAcquire(BUCKET, 10, 5));
+        assertTrue(redisTemplate.getExpire(rateLimiter.key(BUCKET)) > 0);
+
+        // 每秒 10 个令牌，200ms 之后至少补充了一个
+        Thread.sleep(200);
+        assertTrue(rateLimiter.tryAcquire(BUCKET, 10, 5));
+    }
+
+    @Test
+    public void prefetchTest() {
+        int prefetch = properties.getPrefetch();
+        properties.setPrefetch(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(rateLimiter.tryAcquire(PREFETCH_BUCKET, 1, 10));
+            }
+            // 桶中的令牌已经全部预取到本地并用完
+            assertFalse(rateLimiter.tryAcquire(PREFETCH_BUCKET, 1, 10));
+            String tokens = (String) redisTemplate.opsForHash().get(rateLimiter.key(PREFETCH_BUCKET), "tokens");
+            assertTrue(Double.parseDouble(tokens) < 1);
+        } finally {
+            properties.setPrefetch(prefetch);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisScriptRegistry} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisScriptRegistryTest extends RedisLearningAppTest {
+
+    @Autowired
+    private RedisScriptRegistry scripts;
+
+    @Test
+    public void loadTest() {
+        assertTrue(scripts.names().containsAll(List.of("right_multi_pop", "counter_flush", "lock_acquire", "queue_push")));
+        RedisScript<Long> script = scripts.get("lock_release", Long.class);
+        // 本地按原始字节计算的 SHA1 和服务端一致
+        List<Boolean> exists = redisTemplate.execute((RedisCallback<List<Boolean>>) connection ->
+            connection.scriptExists(script.getSha1()));
+        assertEquals(List.of(true), exists);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notFoundTest() {
+        scripts.get("not_exists", Long.class);
+    }
+
+    @Test
+    public void noScriptTest() {
+        RedisScript<Long> script = scripts.get("lock_release", Long.class);
+        valueOps.set(k1, v1);
+        // 模拟主从切换之后服务端没有脚本
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptFlush();
+            return null;
+        });
+        assertEquals(Long.valueOf(1), scripts.execute(script, Collections.singletonList(k1), v1));
+        assertNull(valueOps.get(k1));
+        // 重新加载之后其他脚本也恢复
+        scripts.loadAll();
+    }
+}
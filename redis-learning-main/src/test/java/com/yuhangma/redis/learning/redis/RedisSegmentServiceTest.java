@@ -0,0 +1,130 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisSegmentService} 和 {@link BloomFilter} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisSegmentServiceTest extends RedisLearningAppTest {
+
+    private static final String A = "unit:test:a", B = "unit:test:b";
+
+    @Autowired
+    private RedisSegmentService segmentService;
+
+    private final List<String> results = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(Arrays.asList(segmentService.key(A), segmentService.key(B)));
+        redisTemplate.delete(results);
+        segmentService.removeFilter(A);
+        segmentService.removeFilter(B);
+    }
+
+    @Test
+    public void bloomFilterTest() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put(("member" + i).getBytes());
+        }
+        // 没有漏判
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain(("member" + i).getBytes()));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            falsePositives += filter.mightContain(("other" + i).getBytes()) ? 1 : 0;
+        }
+        assertTrue(falsePositives < 1500);
+        assertEquals(0.01, filter.expectedFpp(), 0.003);
+        // 每个元素约 9.6 位
+        assertEquals(119_816, filter.sizeInBytes());
+    }
+
+    @Test
+    public void setOperationTest() {
+        segmentService.add(A, range(0, 2000));
+        assertEquals(2000, segmentService.add(B, range(1000, 3000)));
+        // 重复添加不计入
+        assertEquals(0, segmentService.add(B, range(1000, 2000)));
+
+        SegmentResult intersection = segmentService.intersect(Arrays.asList(A, B));
+        results.add(intersection.getKey());
+        assertEquals(1000, intersection.getSize());
+        assertTrue(redisTemplate.getExpire(intersection.getKey()) > 0);
+        // 顺序不同的相同运算复用同一个结果
+        assertEquals(intersection, segmentService.intersect(Arrays.asList(B, A)));
+
+        SegmentResult union = segmentService.union(Arrays.asList(A, B));
+        results.add(union.getKey());
+        assertEquals(3000, union.getSize());
+
+        SegmentResult difference = segmentService.difference(A, Arrays.asList(B));
+        results.add(difference.getKey());
+        assertEquals(1000, difference.getSize());
+        try (Stream<String> members = segmentService.scan(difference.getKey())) {
+            assertEquals(new HashSet<>(range(0, 1000)), members.collect(Collectors.toSet()));
+        }
+
+        // 结果缓存期间人群的修改不影响结果
+        segmentService.remove(A, range(0, 1000));
+        assertEquals(1000, segmentService.difference(A, Arrays.asList(B)).getSize());
+    }
+
+    @Test
+    public void containsTest() {
+        segmentService.add(A, range(0, 10_000));
+        SegmentFilter filter = segmentService.filter(A);
+        assertTrue(segmentService.contains(A, "0"));
+        assertFalse(segmentService.contains(A, "10000"));
+
+        // 过滤器构建之后添加的成员立即可见
+        segmentService.add(A, Arrays.asList("new"));
+        assertTrue(segmentService.contains(A, "new"));
+
+        List<String> members = range(5000, 15_000);
+        boolean[] results = segmentService.containsAll(A, members);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i < 5000, results[i]);
+        }
+        // 大部分不存在的成员被过滤器直接判断，不访问 Redis
+        assertTrue(filter.negatives() > 4900);
+        assertTrue(filter.observedFpp() < 0.02);
+
+        // 删除的成员由 Redis 判断
+        segmentService.remove(A, Arrays.asList("0"));
+        assertFalse(segmentService.contains(A, "0"));
+
+        Set<String> scanned = new HashSet<>();
+        try (Stream<List<String>> pages = segmentService.scanPages(segmentService.key(A))) {
+            pages.forEach(page -> {
+                assertTrue(page.size() <= 1000);
+                scanned.addAll(page);
+            });
+        }
+        assertEquals(10_000, scanned.size());
+    }
+
+    private static List<String> range(int from, int to) {
+        return IntStream.range(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yuhangma.redis.learning.redis.RedisUniqueCounter.Granularity.*;
+import static org.junit.Assert.*;
+
+/**
+ * {@link RedisUniqueCounter} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class RedisUniqueCounterTest extends RedisLearningAppTest {
+
+    private static final String COUNTER = "unit:test:api";
+
+    @Autowired
+    private RedisUniqueCounter uniqueCounter;
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(redisTemplate.keys("hll:{" + COUNTER + "}:*"));
+    }
+
+    /**
+     * 同样的元素，本地 sketch 和 Redis PFADD 得到完全相同的寄存器，覆盖 sparse 和 dense 两种格式
+     */
+    @Test
+    public void redisCompatibilityTest() {
+        String key = uniqueCounter.key(COUNTER, MINUTE, LocalDateTime.now());
+        for (int n : new int[]{10, 20_000}) {
+            redisTemplate.delete(key);
+            HyperLogLog local = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                String element = "user:" + i + (i % 3 == 0 ? "中" : "");
+                local.add(element);
+                redisTemplate.opsForHyperLogLog().add(key, element);
+            }
+            assertArrayEquals(local.toRedisBytes(), uniqueCounter.sketch(key).toRedisBytes());
+        }
+    }
+
+    @Test
+    public void addAndCountTest() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 300; i++) {
+            uniqueCounter.add(COUNTER, "user:" + i % 100);
+        }
+        // 超过 sketchThreshold，在本地聚合
+        for (int i = 0; i < 5000; i++) {
+            uniqueCounter.add(COUNTER + ":big", "user:" + i);
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 5000; i < 6000; i++) {
+            sketch.add("user:" + i);
+        }
+        uniqueCounter.merge(COUNTER + ":big", sketch);
+        // 刷新之前只在本地
+        assertEquals(0, uniqueCounter.count(COUNTER, now.minusMinutes(1), now.plusMinutes(1)));
+
+        uniqueCounter.flush();
+        assertEquals(100, uniqueCounter.count(COUNTER, now.minusMinutes(1), now.plusMinutes(1)), 2);
+        assertEquals(6000, uniqueCounter.count(COUNTER + ":big", now.minusMinutes(1), now.plusMinutes(1)), 100);
+
+        uniqueCounter.rollup();
+        LocalDate today = now.toLocalDate();
+        assertEquals(100, redisTemplate.opsForHyperLogLog().size(uniqueCounter.key(COUNTER, HOUR, now)), 2);
+        assertEquals(100, uniqueCounter.count(COUNTER, today.atStartOfDay(), today.plusDays(1).atStartOfDay()), 2);
+        assertTrue(redisTemplate.getExpire(uniqueCounter.key(COUNTER, DAY, now)) > 0);
+        redisTemplate.delete(redisTemplate.keys("hll:{" + COUNTER + ":big}:*"));
+    }
+
+    @Test
+    public void windowKeysTest() {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 17, 22, 58);
+        LocalDateTime to = LocalDateTime.of(2026, 10, 19, 1, 2, 30);
+        List<String> keys = uniqueCounter.windowKeys(COUNTER, from, to);
+        assertEquals(Arrays.asList(
+            uniqueCounter.key(COUNTER, MINUTE, from),
+            uniqueCounter.key(COUNTER, MINUTE, from.plusMinutes(1)),
+            uniqueCounter.key(COUNTER, HOUR, from.plusMinutes(2)),
+            uniqueCounter.key(COUNTER, DAY, LocalDateTime.of(2026, 10, 18, 0, 0)),
+            uniqueCounter.key(COUNTER, HOUR, LocalDateTime.of(2026, 10, 19, 0, 0)),
+            uniqueCounter.key(COUNTER, MINUTE, LocalDateTime.of(2026, 10, 19, 1, 0)),
+            uniqueCounter.key(COUNTER, MINUTE, LocalDateTime.of(2026, 10, 19, 1, 1))), keys);
+        assertEquals("hll:{unit:test:api}:d:20261018", keys.get(3));
+        assertTrue(uniqueCounter.windowKeys(COUNTER, to, from).isEmpty());
+    }
+}
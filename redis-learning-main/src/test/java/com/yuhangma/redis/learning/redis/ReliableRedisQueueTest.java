@@ -0,0 +1,114 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ReliableRedisQueue} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class ReliableRedisQueueTest extends RedisLearningAppTest {
+
+    private static final String QUEUE = "unit:test:queue";
+
+    @Autowired
+    private ReliableRedisQueue queue;
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(List.of(queue.queueKey(QUEUE), queue.seqKey(QUEUE), queue.consumersKey(QUEUE),
+            queue.deadKey(QUEUE), queue.processingKey(QUEUE, "c1"), queue.processingKey(QUEUE, "c2")));
+    }
+
+    @Test
+    public void claimAndAckTest() {
+        List<Long> ids = queue.push(QUEUE, List.of("a", "b:c", "d"));
+        assertEquals(3, ids.size());
+
+        // 按照写入顺序取出，payload 中可以包含分隔符
+        List<QueueMessage> messages = queue.claim(QUEUE, "c1", 2, Duration.ZERO);
+        assertEquals(2, messages.size());
+        assertEquals("a", messages.get(0).getPayload());
+        assertEquals("b:c", messages.get(1).getPayload());
+        assertEquals(1, queue.size(QUEUE));
+        assertEquals(2L, (long) redisTemplate.opsForList().size(queue.processingKey(QUEUE, "c1")));
+
+        assertEquals(2, queue.ack(QUEUE, "c1", messages));
+        assertEquals(0L, (long) redisTemplate.opsForList().size(queue.processingKey(QUEUE, "c1")));
+        // 重复确认不会计入
+        assertEquals(0, queue.ack(QUEUE, "c1", messages));
+
+        messages = queue.claim(QUEUE, "c1", 10, Duration.ZERO);
+        assertEquals(1, queue.deadLetter(QUEUE, "c1", messages));
+        assertEquals(1, queue.deadLetterSize(QUEUE));
+    }
+
+    @Test
+    public void reclaimTest() throws Exception {
+        queue.push(QUEUE, List.of("a", "b", "c"));
+        queue.heartbeat(QUEUE, List.of("c1"));
+        List<QueueMessage> claimed = queue.claim(QUEUE, "c1", 2, Duration.ZERO);
+
+        // 心跳没有超时，不会回收
+        assertEquals(0, queue.reclaim(QUEUE, Duration.ofMinutes(1)));
+
+        Thread.sleep(10);
+        assertEquals(2, queue.reclaim(QUEUE, Duration.ZERO));
+        assertNull(redisTemplate.opsForZSet().score(queue.consumersKey(QUEUE), "c1"));
+
+        // 回收的消息最先被再次投递，顺序不变
+        List<QueueMessage> redelivered = queue.claim(QUEUE, "c2", 10, Duration.ZERO);
+        assertEquals(claimed, redelivered.subList(0, 2));
+        assertEquals("c", redelivered.get(2).getPayload());
+        // 原来的消费者恢复之后确认不到已经回收的消息
+        assertEquals(0, queue.ack(QUEUE, "c1", claimed));
+    }
+
+    @Test
+    public void subscribeTest() throws Exception {
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            payloads.add("message-" + i);
+        }
+        queue.push(QUEUE, payloads);
+
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(999);
+        QueueConsumerGroup group = queue.subscribe(QUEUE, 4, messages -> {
+            for (QueueMessage message : messages) {
+                if ("message-7".equals(message.getPayload())) {
+                    throw new IllegalStateException("bad message");
+                }
+            }
+            for (QueueMessage message : messages) {
+                if (received.add(message.getPayload())) {
+                    latch.countDown();
+                }
+            }
+        });
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        group.close();
+
+        assertEquals(999, received.size());
+        assertEquals(999, group.processedCount());
+        // 失败的消息逐条重试之后进入死信队列
+        assertEquals(1, group.deadLetterCount());
+        assertEquals(1, queue.deadLetterSize(QUEUE));
+        assertEquals(0, queue.size(QUEUE));
+    }
+}
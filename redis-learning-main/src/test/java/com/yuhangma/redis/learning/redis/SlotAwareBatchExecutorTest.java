@@ -0,0 +1,74 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SlotAwareBatchExecutor} 和 {@link RedisKeys} test
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class SlotAwareBatchExecutorTest extends RedisLearningAppTest {
+
+    private static final int COUNT = SlotAwareBatchExecutor.MAX_KEYS_PER_COMMAND * 2 + 1;
+
+    @Autowired
+    private SlotAwareBatchExecutor executor;
+
+    private final List<String> keys = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        redisTemplate.delete(keys);
+    }
+
+    @Test
+    public void redisKeysTest() {
+        assertEquals("{user:42}:profile:v1", RedisKeys.hashTag("user:42", "profile", "v1"));
+        assertEquals(RedisKeys.slot("{user:42}:profile"), RedisKeys.slot("{user:42}:orders"));
+        assertEquals(RedisKeys.slot("user:42"), RedisKeys.slot("{user:42}:orders"));
+        assertTrue(RedisKeys.sameSlot(Arrays.asList("{a}:1", "{a}:2", "a")));
+        assertFalse(RedisKeys.sameSlot(Arrays.asList("a:1", "a:2")));
+        // 已知的 CRC16 结果
+        assertEquals(12182, RedisKeys.slot("foo"));
+    }
+
+    @Test
+    public void multiSetAndGetTest() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < COUNT; i++) {
+            keys.add(UNIT_TEST_KEY_PREFIX + "batch:" + i);
+            // 一部分 key 不写入
+            if (i % 3 != 0) {
+                entries.put(keys.get(i), "v" + i);
+            }
+        }
+        executor.multiSet(redisTemplate, entries);
+
+        List<String> values = executor.multiGet(redisTemplate, keys);
+        assertEquals(COUNT, values.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i % 3 == 0 ? null : "v" + i, values.get(i));
+        }
+
+        List<Object> ttls = executor.executePerKey(redisTemplate, keys, (connection, key) -> connection.pTtl(key));
+        assertEquals(COUNT, ttls.size());
+        assertEquals(-2L, ttls.get(0));
+        assertEquals(-1L, ttls.get(1));
+
+        assertEquals(entries.size(), executor.delete(redisTemplate, keys));
+        assertEquals(0, executor.delete(redisTemplate, keys));
+    }
+}
@@ -0,0 +1,59 @@
+package com.yuhangma.redis.learning.redis;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TtlPolicy} test，使用默认配置：jitter = 0.1，early-refresh-beta = 1.0
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class TtlPolicyTest extends RedisLearningAppTest {
+
+    @Autowired
+    private TtlPolicy ttlPolicy;
+
+    @Test
+    public void jitterTest() {
+        Duration ttl = Duration.ofMinutes(30);
+        Set<Long> distinct = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long millis = ttlPolicy.jitteredMillis(ttl);
+            // 只缩短不延长
+            assertTrue(millis <= ttl.toMillis());
+            assertTrue(millis >= ttl.toMillis() * 9 / 10);
+            distinct.add(millis);
+        }
+        // 过期时间被分散开
+        assertTrue(distinct.size() > 900);
+
+        // 很短的 TTL 至少 1ms
+        assertEquals(1, ttlPolicy.jitteredMillis(Duration.ZERO));
+    }
+
+    @Test
+    public void earlyRefreshTest() {
+        // 没有过期时间或者没有加载耗时的数据不提前刷新
+        assertFalse(ttlPolicy.shouldRefreshEarly(-1, 100));
+        assertFalse(ttlPolicy.shouldRefreshEarly(1000, 0));
+
+        int rounds = 10000, near = 0, far = 0;
+        for (int i = 0; i < rounds; i++) {
+            // 剩余时间等于加载耗时，刷新概率为 1 / e
+            near += ttlPolicy.shouldRefreshEarly(100, 100) ? 1 : 0;
+            // 剩余时间是加载耗时的 20 倍，刷新概率为 e^-20
+            far += ttlPolicy.shouldRefreshEarly(2000, 100) ? 1 : 0;
+        }
+        assertTrue(near > rounds / 4 && near < rounds / 2);
+        assertEquals(0, far);
+    }
+}
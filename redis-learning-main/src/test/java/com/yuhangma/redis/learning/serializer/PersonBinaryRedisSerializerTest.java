@@ -0,0 +1,92 @@
+package com.yuhangma.redis.learning.serializer;
+
+import com.yuhangma.redis.learning.model.PersonDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link PersonBinaryRedisSerializer} test，不需要启动 Spring 容器
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("all")
+public class PersonBinaryRedisSerializerTest {
+
+    private final PersonBinaryRedisSerializer binarySerializer = new PersonBinaryRedisSerializer();
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void roundTripTest() {
+        PersonDTO person = PersonDTO.newPerson();
+        assertEquals(person, binarySerializer.deserialize(binarySerializer.serialize(person)));
+
+        // 负数、较大的数字、空字段
+        PersonDTO negative = new PersonDTO().setName("").setAge(-1);
+        assertEquals(negative, binarySerializer.deserialize(binarySerializer.serialize(negative)));
+        PersonDTO large = new PersonDTO().setName("Moore").setAge(Integer.MAX_VALUE);
+        assertEquals(large, binarySerializer.deserialize(binarySerializer.serialize(large)));
+        PersonDTO empty = new PersonDTO();
+        assertEquals(empty, binarySerializer.deserialize(binarySerializer.serialize(empty)));
+
+        // null 序列化为空数组，空数组反序列化为 null
+        assertEquals(0, binarySerializer.serialize(null).length);
+        assertNull(binarySerializer.deserialize(new byte[0]));
+    }
+
+    /**
+     * 可以读取 {@link GenericJackson2JsonRedisSerializer} 写入的旧数据
+     */
+    @Test
+    public void readLegacyJsonTest() {
+        PersonDTO person = PersonDTO.newPerson();
+        byte[] json = jsonSerializer.serialize(person);
+        assertEquals(person, binarySerializer.deserialize(json));
+    }
+
+    /**
+     * 更高版本写入的值可以读取，忽略末尾新增的字段
+     */
+    @Test
+    public void newerVersionTest() {
+        PersonDTO person = PersonDTO.newPerson();
+        byte[] bytes = binarySerializer.serialize(person);
+        byte[] newer = Arrays.copyOf(bytes, bytes.length + 3);
+        newer[0] = PersonBinaryRedisSerializer.VERSION_1 + 1;
+        newer[bytes.length] = 2;
+        newer[bytes.length + 1] = 'x';
+        newer[bytes.length + 2] = 'y';
+        assertEquals(person, binarySerializer.deserialize(newer));
+    }
+
+    @Test
+    public void unsupportedVersionTest() {
+        expectedException.expect(SerializationException.class);
+        binarySerializer.deserialize(new byte[]{0, 0});
+    }
+
+    /**
+     * 存储大小远小于 JSON，编解码耗时见 JMH benchmark
+     */
+    @Test
+    public void storedSizeTest() {
+        PersonDTO person = PersonDTO.newPerson();
+        int jsonSize = jsonSerializer.serialize(person).length;
+        int binarySize = binarySerializer.serialize(person).length;
+        log.info("stored size, json: {} bytes, binary: {} bytes", jsonSize, binarySize);
+        assertTrue(binarySize < jsonSize / 4);
+    }
+}
@@ -0,0 +1,146 @@
+package com.yuhangma.redis.learning.service;
+
+import com.yuhangma.redis.learning.model.User;
+import com.yuhangma.redis.learning.repository.UserRepository;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试用的 {@link UserRepository}，数据保存在内存中，并记录每次调用的方法和参数。
+ * 只实现了 findById、findAllById、save、deleteById，其他方法抛出 UnsupportedOperationException。
+ * <p>
+ * spring boot 2.0 自带的 mockito 2.15 / byte-buddy 1.7 不支持 JDK 11，@MockBean 无法创建，所以使用手写的 stub，
+ * 测试类通过 {@code @Import(StubUserRepository.Config.class)} 使用。
+ * </p>
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+public class StubUserRepository implements InvocationHandler {
+
+    private final Map<Integer, User> users = new ConcurrentHashMap<>();
+
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+
+    private volatile CountDownLatch findByIdLatch;
+
+    private final UserRepository proxy = (UserRepository) Proxy.newProxyInstance(
+        UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class}, this);
+
+    public UserRepository proxy() {
+        return proxy;
+    }
+
+    /**
+     * 清空调用记录，数据库中只有这些用户
+     */
+    public void reset(User... users) {
+        this.users.clear();
+        for (User user : users) {
+            this.users.put(user.getId(), user);
+        }
+        calls.clear();
+        findByIdLatch = null;
+    }
+
+    /**
+     * 之后的 findById 等待 latch，最多 1 秒
+     */
+    public void blockFindById(CountDownLatch latch) {
+        findByIdLatch = latch;
+    }
+
+    /**
+     * 方法的调用次数，指定参数时只统计参数相同的调用
+     */
+    public long calls(String method, Object... args) {
+        return calls.stream()
+            .filter(call -> call.method.equals(method) && (args.length == 0 || Arrays.equals(call.args, args)))
+            .count();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "StubUserRepository" + users.keySet();
+            default:
+                break;
+        }
+        calls.add(new Call(method.getName(), args == null ? new Object[0] : args.clone()));
+        switch (method.getName()) {
+            case "findById":
+                CountDownLatch latch = findByIdLatch;
+                if (latch != null) {
+                    latch.await(1, TimeUnit.SECONDS);
+                }
+                return Optional.ofNullable(users.get(args[0]));
+            case "findAllById":
+                List<User> found = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    if (users.containsKey(id)) {
+                        found.add(users.get(id));
+                    }
+                }
+                return found;
+            case "save":
+                User user = (User) args[0];
+                users.put(user.getId(), user);
+                return user;
+            case "deleteById":
+                users.remove(args[0]);
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    private static class Call {
+
+        private final String method;
+
+        private final Object[] args;
+
+        private Call(String method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    /**
+     * 替换 JPA 创建的 UserRepository
+     */
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public StubUserRepository stubUserRepository() {
+            return new StubUserRepository();
+        }
+
+        @Bean
+        @Primary
+        public UserRepository stubUserRepositoryProxy(StubUserRepository stubUserRepository) {
+            return stubUserRepository.proxy();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.yuhangma.redis.learning.service;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link UserCacheService} test，使用 {@link StubUserRepository} 统计数据库的查询次数
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+@Import(StubUserRepository.Config.class)
+@TestPropertySource(properties = "redis.user-cache.key-prefix=unit:test:key:")
+public class UserCacheServiceTest extends RedisLearningAppTest {
+
+    @Autowired
+    private StubUserRepository userRepository;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Before
+    public void setUp() {
+        userRepository.reset(newUser(1), newUser(2));
+    }
+
+    @Test
+    public void readThroughTest() {
+        assertEquals(newUser(1), userCacheService.findById(1).get());
+        assertEquals(newUser(1), userCacheService.findById(1).get());
+        assertEquals(1, userRepository.calls("findById", 1));
+
+        // 不存在的 id 同样只查询一次数据库
+        assertFalse(userCacheService.findById(3).isPresent());
+        assertFalse(userCacheService.findById(3).isPresent());
+        assertEquals(1, userRepository.calls("findById", 3));
+        assertTrue(redisTemplate.getExpire(k3) <= 60);
+    }
+
+    @Test
+    public void evictOnSaveTest() {
+        userCacheService.findById(1);
+        User user = newUser(1);
+        user.setUsername("new name");
+        userCacheService.save(user);
+        assertFalse(redisTemplate.hasKey(k1));
+
+        userCacheService.deleteById(2);
+        assertFalse(redisTemplate.hasKey(k2));
+    }
+
+    /**
+     * 写入缓存时整体替换 hash，不会保留旧的字段
+     */
+    @Test
+    public void replaceCacheTest() {
+        // 空值缓存之后写入真实的用户，不再是空值
+        assertFalse(userCacheService.findById(3).isPresent());
+        userCacheService.put(Map.of(3, Optional.of(newUser(3))), Map.of(3, 1L));
+        assertEquals(newUser(3), userCacheService.findById(3).get());
+        assertFalse(redisTemplate.opsForHash().hasKey(k3, UserCacheService.MISSING_FIELD));
+
+        // 置空的字段不会残留
+        User user = newUser(3);
+        user.setPassword(null);
+        userCacheService.put(Map.of(3, Optional.of(user)), Map.of(3, 2L));
+        assertEquals(user, userCacheService.findById(3).get());
+        assertEquals(1, userRepository.calls("findById", 3));
+    }
+
+    /**
+     * 未落库的新值不过期，版本号较小的新值和查询数据库的结果都不会覆盖它，落库之后才开始过期
+     */
+    @Test
+    public void pendingTest() {
+        User user = newUser(1);
+        user.setUsername("new name");
+        userCacheService.put(Map.of(1, Optional.of(user)), Map.of(1, 2L));
+        userCacheService.put(Map.of(1, Optional.of(newUser(1))), Map.of(1, 1L));
+        assertEquals(user, userCacheService.findById(1).get());
+        assertEquals(-1, (long) redisTemplate.getExpire(k1));
+
+        // 较早的变更落库时不清除标记
+        userCacheService.commit(Map.of(1, 1L));
+        assertEquals(-1, (long) redisTemplate.getExpire(k1));
+        userCacheService.commit(Map.of(1, 2L));
+        assertTrue(redisTemplate.getExpire(k1) > 0);
+        assertFalse(redisTemplate.opsForHash().hasKey(k1, UserCacheService.PENDING_FIELD));
+        assertEquals(user, userCacheService.findById(1).get());
+
+        // 落库失败时删除缓存，重新查询数据库
+        userCacheService.put(Map.of(1, Optional.empty()), Map.of(1, 3L));
+        assertFalse(userCacheService.findById(1).isPresent());
+        userCacheService.discard(Map.of(1, 3L));
+        assertFalse(redisTemplate.hasKey(k1));
+        assertEquals(newUser(1), userCacheService.findById(1).get());
+        assertEquals(1, userRepository.calls("findById", 1));
+    }
+
+    /**
+     * 查询数据库期间写入了未落库的新值，查询结果不会覆盖它
+     */
+    @Test
+    public void pendingFillTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        userRepository.blockFindById(release);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<User>> loading = executor.submit(() -> userCacheService.findById(1));
+            TimeUnit.MILLISECONDS.sleep(200);
+            User user = newUser(1);
+            user.setUsername("new name");
+            userCacheService.put(Map.of(1, Optional.of(user)), Map.of(1, 1L));
+            release.countDown();
+            assertEquals(newUser(1), loading.get().get());
+            assertEquals(user, userCacheService.findById(1).get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, userRepository.calls("findById", 1));
+    }
+
+    /**
+     * 并发查询同一个 id，只有一个线程查询数据库
+     */
+    @Test
+    public void singleFlightTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        userRepository.blockFindById(release);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Optional<User>>> futures = IntStream.range(0, 16)
+                .mapToObj(i -> executor.submit(() -> userCacheService.findById(1)))
+                .collect(Collectors.toList());
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+            for (Future<Optional<User>> future : futures) {
+                assertEquals(newUser(1), future.get().get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, userRepository.calls("findById", 1));
+    }
+
+    @Test
+    public void findAllByIdTest() {
+        userCacheService.findById(1);
+        List<User> users = userCacheService.findAllById(List.of(2, 1, 3, 2));
+        assertEquals(List.of(newUser(2), newUser(1)), users);
+        // 1 命中缓存，2 和 3 使用一次批量查询
+        assertEquals(1, userRepository.calls("findAllById", List.of(2, 3)));
+
+        assertEquals(users, userCacheService.findAllById(List.of(2, 1, 3)));
+        assertEquals(1, userRepository.calls("findAllById"));
+    }
+
+    private static User newUser(Integer id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPassword("password" + id);
+        return user;
+    }
+}
@@ -0,0 +1,208 @@
+package com.yuhangma.redis.learning.service;
+
+import com.yuhangma.redis.learning.RedisLearningAppTest;
+import com.yuhangma.redis.learning.model.User;
+import com.yuhangma.redis.learning.redis.ReliableRedisQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link UserWriteBehindService} test，使用 {@link RecordingJdbcTemplate} 记录写入数据库的批次
+ *
+ * @author Moore
+ * @since 2026/10/18
+ */
+@SuppressWarnings("all")
+@Import({StubUserRepository.Config.class, UserWriteBehindServiceTest.Config.class})
+@TestPropertySource(properties = {
+    "redis.user-cache.key-prefix=unit:test:key:",
+    "redis.write-behind.enabled=true",
+    "redis.write-behind.queue=unit:test:write-behind",
+    "redis.write-behind.id-key=unit:test:write-behind:id"})
+public class UserWriteBehindServiceTest extends RedisLearningAppTest {
+
+    @Autowired
+    private RecordingJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StubUserRepository userRepository;
+
+    @Autowired
+    private UserWriteBehindService writeBehindService;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private ReliableRedisQueue queue;
+
+    @Before
+    public void setUp() {
+        userRepository.reset();
+        jdbcTemplate.batches.clear();
+    }
+
+    @After
+    public void cleanUp() {
+        String name = "unit:test:write-behind";
+        redisTemplate.delete(List.of(queue.queueKey(name), queue.seqKey(name), queue.deadKey(name)));
+    }
+
+    @Test
+    public void writeBehindTest() throws InterruptedException {
+        User alice = newUser("alice");
+        User bob = newUser("bob");
+        writeBehindService.saveAll(List.of(alice, bob));
+        // 连续分配的 id
+        assertEquals(alice.getId() + 1, (int) bob.getId());
+
+        alice.setPassword("new password");
+        writeBehindService.save(alice);
+        writeBehindService.deleteById(bob.getId());
+
+        // 读取直接命中缓存中的新值，不查询数据库
+        assertEquals(alice, userCacheService.findById(alice.getId()).get());
+        assertFalse(userCacheService.findById(bob.getId()).isPresent());
+        assertEquals(0, userRepository.calls("findById"));
+
+        // 四次变更合并为一批，alice 只 upsert 最后一次，bob 只 delete
+        Batch upserts = jdbcTemplate.batches.poll(5, TimeUnit.SECONDS);
+        Batch deletes = jdbcTemplate.batches.poll(5, TimeUnit.SECONDS);
+        assertEquals(UserWriteBehindService.UPSERT_SQL, upserts.sql);
+        assertEquals(List.of(alice), upserts.args);
+        assertEquals(500, upserts.batchSize);
+        assertEquals(UserWriteBehindService.DELETE_SQL, deletes.sql);
+        assertEquals(List.of(bob.getId()), deletes.args);
+
+        // 提交之后缓存开始过期，值不变
+        String aliceKey = "unit:test:key:" + alice.getId();
+        String bobKey = "unit:test:key:" + bob.getId();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (redisTemplate.opsForHash().hasKey(bobKey, UserCacheService.PENDING_FIELD)
+            && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(redisTemplate.getExpire(aliceKey) > 0);
+        assertTrue(redisTemplate.getExpire(bobKey) > 0);
+        assertEquals(alice, userCacheService.findById(alice.getId()).get());
+        assertFalse(userCacheService.findById(bob.getId()).isPresent());
+        assertEquals(0, writeBehindService.pending());
+
+        redisTemplate.delete(List.of(aliceKey, bobKey));
+    }
+
+    /**
+     * 一批变更落库失败时不删除缓存，逐条重试成功的变更正常提交，只有进入死信队列的变更删除缓存
+     */
+    @Test
+    public void deadLetterTest() throws InterruptedException {
+        User alice = newUser("alice");
+        User bad = newUser(RecordingJdbcTemplate.BAD_USERNAME);
+        writeBehindService.saveAll(List.of(alice, bad));
+
+        // 整批失败，然后逐条重试：alice 写入成功，bad 仍然失败
+        assertEquals(List.of(alice), jdbcTemplate.batches.poll(5, TimeUnit.SECONDS).args);
+
+        String aliceKey = "unit:test:key:" + alice.getId();
+        String badKey = "unit:test:key:" + bad.getId();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((redisTemplate.hasKey(badKey) || redisTemplate.opsForHash().hasKey(aliceKey, UserCacheService.PENDING_FIELD))
+            && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertFalse(redisTemplate.hasKey(badKey));
+        assertTrue(redisTemplate.getExpire(aliceKey) > 0);
+        assertEquals(alice, userCacheService.findById(alice.getId()).get());
+        assertEquals(0, userRepository.calls("findById", alice.getId()));
+        assertEquals(1, queue.deadLetterSize("unit:test:write-behind"));
+
+        redisTemplate.delete(aliceKey);
+    }
+
+    private static User newUser(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setPassword("password");
+        return user;
+    }
+
+    /**
+     * 一次 batchUpdate 调用
+     */
+    static class Batch {
+
+        private final String sql;
+
+        private final List<?> args;
+
+        private final int batchSize;
+
+        private Batch(String sql, List<?> args, int batchSize) {
+            this.sql = sql;
+            this.args = args;
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * 不连接数据库的 JdbcTemplate，只记录 batchUpdate 的参数
+     */
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+
+        /**
+         * 包含这个用户名的批次写入失败，并且不是可以原地重试的异常
+         */
+        static final String BAD_USERNAME = "bad";
+
+        private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public void afterPropertiesSet() {
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return null;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            for (T arg : batchArgs) {
+                if (arg instanceof User && BAD_USERNAME.equals(((User) arg).getUsername())) {
+                    throw new DataIntegrityViolationException("bad user");
+                }
+            }
+            batches.add(new Batch(sql, List.copyOf(batchArgs), batchSize));
+            return new int[0][];
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        @Primary
+        public RecordingJdbcTemplate recordingJdbcTemplate() {
+            return new RecordingJdbcTemplate();
+        }
+    }
+}